@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.expression;
+
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.method.P;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.security.web.FilterInvocation;
+import org.springframework.security.web.access.expression.DefaultWebSecurityExpressionHandler;
+
+/**
+ * Compares interpreted and compiled evaluation of typical web and method security
+ * expressions, including the creation of the evaluation context as done by
+ * {@code WebExpressionVoter} and {@code ExpressionBasedPreInvocationAdvice}.
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Thread)
+public class SecurityExpressionCompilationBenchmark {
+
+	@Param({ "OFF", "IMMEDIATE", "MIXED" })
+	public SpelCompilerMode compilerMode;
+
+	private DefaultWebSecurityExpressionHandler webHandler;
+
+	private DefaultMethodSecurityExpressionHandler methodHandler;
+
+	private Authentication authentication;
+
+	private FilterInvocation filterInvocation;
+
+	private MethodInvocation methodInvocation;
+
+	private Expression hasRole;
+
+	private Expression hasIpAddress;
+
+	private Expression principalId;
+
+	@Setup
+	public void setup() throws Exception {
+		webHandler = new DefaultWebSecurityExpressionHandler();
+		webHandler.setCompilerMode(compilerMode);
+		methodHandler = new DefaultMethodSecurityExpressionHandler();
+		methodHandler.setCompilerMode(compilerMode);
+
+		List<GrantedAuthority> authorities = AuthorityUtils
+				.createAuthorityList("ROLE_USER");
+		authentication = new UsernamePasswordAuthenticationToken(new Account(1L),
+				null, authorities);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET",
+				"/messages/1");
+		request.setRemoteAddr("192.168.1.10");
+		filterInvocation = new FilterInvocation(request,
+				new MockHttpServletResponse(), new FilterChain() {
+					public void doFilter(ServletRequest request, ServletResponse response) {
+					}
+				});
+		methodInvocation = new SimpleMethodInvocation(new MessageService(),
+				MessageService.class.getMethod("find", Long.class), 1L);
+
+		hasRole = webHandler.getExpressionParser().parseExpression("hasRole('USER')");
+		hasIpAddress = webHandler.getExpressionParser().parseExpression(
+				"hasIpAddress('192.168.1.0/24')");
+		principalId = methodHandler.getExpressionParser().parseExpression(
+				"principal.id == #id");
+	}
+
+	@Benchmark
+	public boolean hasRole() {
+		return ExpressionUtils.evaluateAsBoolean(hasRole,
+				webHandler.createEvaluationContext(authentication, filterInvocation));
+	}
+
+	@Benchmark
+	public boolean hasIpAddress() {
+		return ExpressionUtils.evaluateAsBoolean(hasIpAddress,
+				webHandler.createEvaluationContext(authentication, filterInvocation));
+	}
+
+	@Benchmark
+	public boolean principalId() {
+		return ExpressionUtils.evaluateAsBoolean(principalId,
+				methodHandler.createEvaluationContext(authentication, methodInvocation));
+	}
+
+	public static class Account {
+		private final Long id;
+
+		public Account(Long id) {
+			this.id = id;
+		}
+
+		public Long getId() {
+			return id;
+		}
+	}
+
+	public static class MessageService {
+		public String find(@P("id") Long id) {
+			return "message";
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.hierarchicalroles;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+/**
+ * Measures {@link RoleHierarchyImpl#getReachableGrantedAuthorities(Collection)} for a
+ * hierarchy of ten role trees, each of which is a chain of {@code roles / 10} roles.
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Benchmark)
+public class RoleHierarchyImplBenchmark {
+
+	@Param({ "40", "400" })
+	public int roles;
+
+	private RoleHierarchyImpl roleHierarchy;
+
+	private List<GrantedAuthority> topRoles;
+
+	private List<GrantedAuthority> leafRole;
+
+	@Setup
+	public void setup() {
+		int depth = roles / 10;
+		StringBuilder hierarchy = new StringBuilder();
+		for (int tree = 0; tree < 10; tree++) {
+			for (int level = 0; level < depth - 1; level++) {
+				hierarchy.append(role(tree, level)).append(" > ")
+						.append(role(tree, level + 1)).append("\n");
+			}
+		}
+		roleHierarchy = new RoleHierarchyImpl();
+		roleHierarchy.setHierarchy(hierarchy.toString());
+		topRoles = AuthorityUtils.createAuthorityList(role(0, 0), role(5, 0));
+		leafRole = AuthorityUtils.createAuthorityList(role(9, depth - 1));
+	}
+
+	@Benchmark
+	public Collection<GrantedAuthority> topRoles() {
+		return roleHierarchy.getReachableGrantedAuthorities(topRoles);
+	}
+
+	@Benchmark
+	public Collection<GrantedAuthority> leafRole() {
+		return roleHierarchy.getReachableGrantedAuthorities(leafRole);
+	}
+
+	private static String role(int tree, int level) {
+		return "ROLE_" + tree + "_" + level;
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.intercept.aopalliance;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.access.intercept.AbstractSecurityInterceptor;
+import org.springframework.security.access.method.P;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Measures an invocation of a secured method, which is dominated by
+ * {@link AbstractSecurityInterceptor#beforeInvocation(Object)} evaluating the
+ * {@link PreAuthorize} expression.
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Thread)
+public class MethodSecurityInterceptorBenchmark {
+	private AnnotationConfigApplicationContext context;
+
+	private MessageService messageService;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		context = new AnnotationConfigApplicationContext(MethodSecurityConfig.class);
+		messageService = context.getBean(MessageService.class);
+	}
+
+	@Setup(Level.Iteration)
+	public void authenticate() {
+		List<GrantedAuthority> authorities = AuthorityUtils
+				.createAuthorityList("ROLE_USER");
+		SecurityContextImpl securityContext = new SecurityContextImpl();
+		securityContext.setAuthentication(new UsernamePasswordAuthenticationToken(
+				new User("user", "password", authorities), null, authorities));
+		SecurityContextHolder.setContext(securityContext);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+		context.close();
+	}
+
+	@Benchmark
+	public String hasRole() {
+		return messageService.hasRole(1L);
+	}
+
+	@Benchmark
+	public String principalName() {
+		return messageService.principalName("user");
+	}
+
+	@Benchmark
+	public String unsecured() {
+		return messageService.unsecured(1L);
+	}
+
+	public interface MessageService {
+		@PreAuthorize("hasRole('USER')")
+		String hasRole(Long id);
+
+		@PreAuthorize("#name == principal.username or hasRole('ADMIN')")
+		String principalName(@P("name") String name);
+
+		String unsecured(Long id);
+	}
+
+	static class MessageServiceImpl implements MessageService {
+		public String hasRole(Long id) {
+			return "message";
+		}
+
+		public String principalName(String name) {
+			return name;
+		}
+
+		public String unsecured(Long id) {
+			return "message";
+		}
+	}
+
+	@Configuration
+	@EnableGlobalMethodSecurity(prePostEnabled = true)
+	static class MethodSecurityConfig {
+		@Bean
+		public MessageService messageService() {
+			return new MessageServiceImpl();
+		}
+
+		// @formatter:off
+		@Autowired
+		public void configureGlobal(AuthenticationManagerBuilder auth) throws Exception {
+			auth
+				.inMemoryAuthentication()
+					.withUser("user").password("password").roles("USER");
+		}
+		// @formatter:on
+	}
+}
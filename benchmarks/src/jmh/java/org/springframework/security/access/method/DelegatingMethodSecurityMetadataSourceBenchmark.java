@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.method;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.security.access.annotation.SecuredAnnotationSecurityMetadataSource;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.ExpressionBasedAnnotationAttributeFactory;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.access.prepost.PrePostAnnotationSecurityMetadataSource;
+
+/**
+ * Measures {@link DelegatingMethodSecurityMetadataSource#getAttributes(Method, Class)}
+ * with 64 threads resolving the metadata of secured and unsecured methods concurrently.
+ * The {@code synchronizedLookup} benchmark guards the same lookup with a single lock, as
+ * the cache used to, to show the cost of serializing every secured method invocation.
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Benchmark)
+@Threads(64)
+public class DelegatingMethodSecurityMetadataSourceBenchmark {
+	private final Object lock = new Object();
+
+	private DelegatingMethodSecurityMetadataSource metadataSource;
+
+	private Method preAuthorize;
+
+	private Method secured;
+
+	private Method unsecured;
+
+	@Setup
+	public void setup() throws Exception {
+		ExpressionBasedAnnotationAttributeFactory attributeFactory = new ExpressionBasedAnnotationAttributeFactory(
+				new DefaultMethodSecurityExpressionHandler());
+		metadataSource = new DelegatingMethodSecurityMetadataSource(
+				Arrays.<MethodSecurityMetadataSource> asList(
+						new PrePostAnnotationSecurityMetadataSource(attributeFactory),
+						new SecuredAnnotationSecurityMetadataSource()));
+		preAuthorize = MessageService.class.getMethod("preAuthorize");
+		secured = MessageService.class.getMethod("secured");
+		unsecured = MessageService.class.getMethod("unsecured");
+	}
+
+	@Benchmark
+	public Collection<ConfigAttribute> lookup() {
+		metadataSource.getAttributes(preAuthorize, MessageServiceImpl.class);
+		metadataSource.getAttributes(secured, MessageServiceImpl.class);
+		return metadataSource.getAttributes(unsecured, MessageServiceImpl.class);
+	}
+
+	@Benchmark
+	public Collection<ConfigAttribute> synchronizedLookup() {
+		synchronized (lock) {
+			metadataSource.getAttributes(preAuthorize, MessageServiceImpl.class);
+		}
+		synchronized (lock) {
+			metadataSource.getAttributes(secured, MessageServiceImpl.class);
+		}
+		synchronized (lock) {
+			return metadataSource.getAttributes(unsecured, MessageServiceImpl.class);
+		}
+	}
+
+	public interface MessageService {
+		@PreAuthorize("hasRole('USER')")
+		String preAuthorize();
+
+		@Secured("ROLE_USER")
+		String secured();
+
+		String unsecured();
+	}
+
+	public static class MessageServiceImpl implements MessageService {
+		public String preAuthorize() {
+			return "preAuthorize";
+		}
+
+		public String secured() {
+			return "secured";
+		}
+
+		public String unsecured() {
+			return "unsecured";
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.acls.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.security.acls.domain.AclAuthorizationStrategyImpl;
+import org.springframework.security.acls.domain.ConsoleAuditLogger;
+import org.springframework.security.acls.domain.DefaultPermissionGrantingStrategy;
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
+import org.springframework.security.acls.domain.SpringCacheBasedAclCache;
+import org.springframework.security.acls.model.Acl;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.PermissionGrantingStrategy;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * Measures {@link BasicLookupStrategy#readAclsById(List, List)} against an embedded
+ * HSQLDB database. The {@link org.springframework.security.acls.model.AclCache} never
+ * stores anything, so every lookup hits the database.
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Benchmark)
+public class BasicLookupStrategyBenchmark {
+	private static final String TARGET_CLASS = "org.springframework.security.acls.TargetObject";
+
+	private static final int OBJECTS = 1000;
+
+	@Param({ "1", "50" })
+	public int batch;
+
+	private SingleConnectionDataSource dataSource;
+
+	private BasicLookupStrategy strategy;
+
+	private List<ObjectIdentity> objectIdentities;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		dataSource = new SingleConnectionDataSource("jdbc:hsqldb:mem:lookupbenchmark",
+				"sa", "", true);
+		dataSource.setDriverClassName("org.hsqldb.jdbcDriver");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute(new String(FileCopyUtils
+				.copyToByteArray(new ClassPathResource("createAclSchema.sql")
+						.getInputStream())));
+		jdbcTemplate.update("INSERT INTO acl_sid(ID,PRINCIPAL,SID) VALUES (1,1,'ben')");
+		jdbcTemplate.update("INSERT INTO acl_class(ID,CLASS) VALUES (1,'"
+				+ TARGET_CLASS + "')");
+		for (int i = 1; i <= OBJECTS; i++) {
+			Integer parent = i > 1 ? Integer.valueOf(1) : null;
+			jdbcTemplate.update(
+					"INSERT INTO acl_object_identity(ID,OBJECT_ID_CLASS,OBJECT_ID_IDENTITY,PARENT_OBJECT,OWNER_SID,ENTRIES_INHERITING) VALUES (?,1,?,?,1,1)",
+					i, i, parent);
+			jdbcTemplate.update(
+					"INSERT INTO acl_entry(ID,ACL_OBJECT_IDENTITY,ACE_ORDER,SID,MASK,GRANTING,AUDIT_SUCCESS,AUDIT_FAILURE) VALUES (?,?,0,1,1,1,0,0)",
+					i, i);
+		}
+
+		PermissionGrantingStrategy grantingStrategy = new DefaultPermissionGrantingStrategy(
+				new ConsoleAuditLogger());
+		AclAuthorizationStrategyImpl authorizationStrategy = new AclAuthorizationStrategyImpl(
+				new SimpleGrantedAuthority("ROLE_ADMINISTRATOR"));
+		SpringCacheBasedAclCache cache = new SpringCacheBasedAclCache(
+				new NoOpCacheManager().getCache("acls"), grantingStrategy,
+				authorizationStrategy);
+		strategy = new BasicLookupStrategy(dataSource, cache, authorizationStrategy,
+				grantingStrategy);
+
+		objectIdentities = new ArrayList<ObjectIdentity>(batch);
+		for (int i = 0; i < batch; i++) {
+			objectIdentities.add(new ObjectIdentityImpl(TARGET_CLASS, Long
+					.valueOf(OBJECTS - i)));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		new JdbcTemplate(dataSource).execute("DROP SCHEMA PUBLIC CASCADE");
+		dataSource.destroy();
+	}
+
+	@Benchmark
+	public Map<ObjectIdentity, Acl> readAclsById() {
+		return strategy.readAclsById(objectIdentities, null);
+	}
+}
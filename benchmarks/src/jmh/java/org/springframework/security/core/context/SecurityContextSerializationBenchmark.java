@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.core.context;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.SpringSecurityCoreVersion;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.util.SerializationUtils;
+
+/**
+ * Measures serializing and deserializing a {@link SecurityContext} as stored in the
+ * {@code HttpSession}, holding a {@link UsernamePasswordAuthenticationToken} with a
+ * {@link User} principal, {@link WebAuthenticationDetails} and 30 authorities. The
+ * {@code default} form uses subclasses and a {@link GrantedAuthority} implementation
+ * which do not use the compact serialized form, so that it can be compared with the
+ * {@code compact} form. The serialized sizes are compared by
+ * {@code CompactSerializationProxyTests}.
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Benchmark)
+public class SecurityContextSerializationBenchmark {
+	@Param({ "compact", "default" })
+	private String form;
+
+	private SecurityContext context;
+
+	private byte[] serialized;
+
+	@Setup
+	public void setup() {
+		boolean compact = "compact".equals(form);
+		List<GrantedAuthority> authorities = new ArrayList<GrantedAuthority>();
+		for (int i = 0; i < 30; i++) {
+			String role = "ROLE_AUTHORITY_" + i;
+			authorities.add(compact ? new SimpleGrantedAuthority(role)
+					: new DefaultFormAuthority(role));
+		}
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.getSession();
+		WebAuthenticationDetails details = new WebAuthenticationDetails(request);
+		User user = compact ? new User("user", "password", authorities)
+				: new DefaultFormUser("user", "password", authorities);
+		UsernamePasswordAuthenticationToken authentication = compact ? new UsernamePasswordAuthenticationToken(
+				user, null, authorities) : new DefaultFormToken(user, null, authorities);
+		authentication.setDetails(details);
+		context = compact ? new SecurityContextImpl() : new DefaultFormSecurityContext();
+		context.setAuthentication(authentication);
+		serialized = SerializationUtils.serialize(context);
+	}
+
+	@Benchmark
+	public byte[] serialize() {
+		return SerializationUtils.serialize(context);
+	}
+
+	@Benchmark
+	public Object deserialize() {
+		return SerializationUtils.deserialize(serialized);
+	}
+
+	/**
+	 * Has the same state as {@link SimpleGrantedAuthority}, which is final.
+	 */
+	static class DefaultFormAuthority implements GrantedAuthority {
+		private static final long serialVersionUID = SpringSecurityCoreVersion.SERIAL_VERSION_UID;
+
+		private final String role;
+
+		DefaultFormAuthority(String role) {
+			this.role = role;
+		}
+
+		public String getAuthority() {
+			return role;
+		}
+	}
+
+	static class DefaultFormUser extends User {
+		private static final long serialVersionUID = SpringSecurityCoreVersion.SERIAL_VERSION_UID;
+
+		DefaultFormUser(String username, String password,
+				Collection<? extends GrantedAuthority> authorities) {
+			super(username, password, authorities);
+		}
+	}
+
+	static class DefaultFormToken extends UsernamePasswordAuthenticationToken {
+		private static final long serialVersionUID = SpringSecurityCoreVersion.SERIAL_VERSION_UID;
+
+		DefaultFormToken(Object principal, Object credentials,
+				Collection<? extends GrantedAuthority> authorities) {
+			super(principal, credentials, authorities);
+		}
+	}
+
+	static class DefaultFormSecurityContext extends SecurityContextImpl {
+		private static final long serialVersionUID = SpringSecurityCoreVersion.SERIAL_VERSION_UID;
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.crypto.password;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.scrypt.SCryptPasswordEncoder;
+
+/**
+ * Measures {@link PasswordEncoder#matches(CharSequence, String)} and
+ * {@link PasswordEncoder#encode(CharSequence)} for the {@link PasswordEncoder}
+ * implementations with their default settings.
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Benchmark)
+public class PasswordEncoderBenchmark {
+	private static final String PASSWORD = "password";
+
+	@Param({ "bcrypt", "scrypt", "standard" })
+	public String encoder;
+
+	private PasswordEncoder passwordEncoder;
+
+	private String encodedPassword;
+
+	@Setup
+	public void setup() {
+		if ("bcrypt".equals(encoder)) {
+			passwordEncoder = new BCryptPasswordEncoder();
+		}
+		else if ("scrypt".equals(encoder)) {
+			passwordEncoder = new SCryptPasswordEncoder();
+		}
+		else {
+			passwordEncoder = new StandardPasswordEncoder();
+		}
+		encodedPassword = passwordEncoder.encode(PASSWORD);
+	}
+
+	@Benchmark
+	public boolean matches() {
+		return passwordEncoder.matches(PASSWORD, encodedPassword);
+	}
+
+	@Benchmark
+	public String encode() {
+		return passwordEncoder.encode(PASSWORD);
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.builders.WebSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+/**
+ * Measures {@link FilterChainProxy#doFilter(ServletRequest, ServletResponse, FilterChain)}
+ * for an authenticated request passing through a typical {@link HttpSecurity}
+ * configuration, optionally preceded by a number of {@code web.ignoring()} chains.
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Benchmark)
+public class FilterChainProxyBenchmark {
+	private static final FilterChain NOOP_CHAIN = new FilterChain() {
+		public void doFilter(ServletRequest request, ServletResponse response)
+				throws IOException, ServletException {
+		}
+	};
+
+	static int ignoredRequests;
+
+	static boolean indexFilterChains;
+
+	@Param({ "0", "60" })
+	public int ignored;
+
+	@Param({ "false", "true" })
+	public boolean indexed;
+
+	private AnnotationConfigWebApplicationContext context;
+
+	private Filter springSecurityFilterChain;
+
+	private MockHttpSession session;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		ignoredRequests = ignored;
+		indexFilterChains = indexed;
+		context = new AnnotationConfigWebApplicationContext();
+		context.setServletContext(new MockServletContext());
+		context.register(SecurityConfig.class);
+		context.refresh();
+		springSecurityFilterChain = context.getBean("springSecurityFilterChain",
+				Filter.class);
+
+		SecurityContext securityContext = new SecurityContextImpl();
+		securityContext.setAuthentication(new UsernamePasswordAuthenticationToken(
+				"user", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+		session = new MockHttpSession();
+		session.setAttribute(
+				HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+				securityContext);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public MockHttpServletResponse authenticatedGet() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET",
+				"/messages/1");
+		request.setServletPath("/messages/1");
+		request.setSession(session);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		springSecurityFilterChain.doFilter(request, response, NOOP_CHAIN);
+		return response;
+	}
+
+	@Benchmark
+	public MockHttpServletResponse ignoredGet() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET",
+				"/resources/app.css");
+		request.setServletPath("/resources/app.css");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		springSecurityFilterChain.doFilter(request, response, NOOP_CHAIN);
+		return response;
+	}
+
+	@EnableWebSecurity
+	static class SecurityConfig extends WebSecurityConfigurerAdapter {
+
+		@Override
+		public void configure(WebSecurity web) throws Exception {
+			for (int i = 0; i < ignoredRequests; i++) {
+				web.ignoring().antMatchers("/static" + i + "/**");
+			}
+			web.ignoring().antMatchers("/resources/**");
+			web.indexFilterChains(indexFilterChains);
+		}
+
+		// @formatter:off
+		@Override
+		protected void configure(HttpSecurity http) throws Exception {
+			http
+				.authorizeRequests()
+					.antMatchers("/admin/**").hasRole("ADMIN")
+					.antMatchers("/messages/**").hasRole("USER")
+					.anyRequest().authenticated()
+					.and()
+				.formLogin()
+					.and()
+				.httpBasic()
+					.and()
+				.rememberMe();
+		}
+		// @formatter:on
+
+		// @formatter:off
+		@Autowired
+		public void configureGlobal(AuthenticationManagerBuilder auth) throws Exception {
+			auth
+				.inMemoryAuthentication()
+					.withUser("user").password("password").roles("USER");
+		}
+		// @formatter:on
+	}
+}
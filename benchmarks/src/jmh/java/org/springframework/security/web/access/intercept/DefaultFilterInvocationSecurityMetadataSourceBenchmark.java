@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.access.intercept;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+
+import javax.servlet.FilterChain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
+import org.springframework.security.web.FilterInvocation;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+/**
+ * Measures the cost of
+ * {@link DefaultFilterInvocationSecurityMetadataSource#getAttributes(Object)} relative to
+ * the number of URL rules, with and without indexing. The request matches the last rule,
+ * which is the worst case for a linear lookup.
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Benchmark)
+public class DefaultFilterInvocationSecurityMetadataSourceBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int rules;
+
+	@Param({ "false", "true" })
+	public boolean indexed;
+
+	private DefaultFilterInvocationSecurityMetadataSource metadataSource;
+
+	private FilterInvocation lastRule;
+
+	private FilterInvocation noRule;
+
+	@Setup
+	public void setup() {
+		LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestMap = new LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>>();
+		for (int i = 0; i < rules; i++) {
+			String method = i % 2 == 0 ? "GET" : null;
+			requestMap.put(new AntPathRequestMatcher("/app/module" + i + "/**", method),
+					SecurityConfig.createList("ROLE_" + i));
+		}
+		metadataSource = new DefaultFilterInvocationSecurityMetadataSource(requestMap,
+				indexed);
+		lastRule = createFilterInvocation("/app/module" + (rules - 1) + "/items/1");
+		noRule = createFilterInvocation("/other/items/1");
+	}
+
+	@Benchmark
+	public Collection<ConfigAttribute> lastRule() {
+		return metadataSource.getAttributes(lastRule);
+	}
+
+	@Benchmark
+	public Collection<ConfigAttribute> noRule() {
+		return metadataSource.getAttributes(noRule);
+	}
+
+	private static FilterInvocation createFilterInvocation(String path) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+		request.setServletPath(path);
+		return new FilterInvocation(request, new MockHttpServletResponse(),
+				new FilterChain() {
+					public void doFilter(javax.servlet.ServletRequest request,
+							javax.servlet.ServletResponse response) {
+					}
+				});
+	}
+}
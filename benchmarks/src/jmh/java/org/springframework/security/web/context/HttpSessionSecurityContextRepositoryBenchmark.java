@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.context;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+/**
+ * Measures loading and saving a {@link SecurityContext} with the
+ * {@link HttpSessionSecurityContextRepository}.
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Benchmark)
+public class HttpSessionSecurityContextRepositoryBenchmark {
+	private HttpSessionSecurityContextRepository repository;
+
+	private MockHttpSession session;
+
+	private SecurityContext securityContext;
+
+	@Setup
+	public void setup() {
+		repository = new HttpSessionSecurityContextRepository();
+		securityContext = new SecurityContextImpl();
+		securityContext.setAuthentication(new UsernamePasswordAuthenticationToken(
+				"user", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+		session = new MockHttpSession();
+		session.setAttribute(
+				HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+				securityContext);
+	}
+
+	@Benchmark
+	public SecurityContext load() {
+		HttpRequestResponseHolder holder = createHolder();
+		return repository.loadContext(holder);
+	}
+
+	@Benchmark
+	public SecurityContext loadAndSaveUnchanged() {
+		HttpRequestResponseHolder holder = createHolder();
+		SecurityContext context = repository.loadContext(holder);
+		repository.saveContext(context, holder.getRequest(), holder.getResponse());
+		return context;
+	}
+
+	@Benchmark
+	public SecurityContext loadAndSaveChanged() {
+		HttpRequestResponseHolder holder = createHolder();
+		repository.loadContext(holder);
+		SecurityContext context = new SecurityContextImpl();
+		context.setAuthentication(securityContext.getAuthentication());
+		repository.saveContext(context, holder.getRequest(), holder.getResponse());
+		return context;
+	}
+
+	private HttpRequestResponseHolder createHolder() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setSession(session);
+		return new HttpRequestResponseHolder(request, new MockHttpServletResponse());
+	}
+}
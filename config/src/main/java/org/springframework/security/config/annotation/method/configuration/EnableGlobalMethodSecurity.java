@@ -106,4 +106,16 @@ public @interface EnableGlobalMethodSecurity {
 	 * @return the order the security advisor should be applied
 	 */
 	int order() default Ordered.LOWEST_PRECEDENCE;
+
+	/**
+	 * Determines if the metadata of the secured methods should be resolved, and any
+	 * expressions parsed, when the application starts rather than on the first invocation
+	 * of each method. Invalid metadata then prevents the application from starting. The
+	 * default is false. <strong>Applicable only if {@link #mode()} is set to
+	 * {@link AdviceMode#PROXY}</strong>.
+	 *
+	 * @return true if the metadata should be resolved at startup, else false
+	 * @see org.springframework.security.access.intercept.aopalliance.MethodSecurityMetadataPrecomputer
+	 */
+	boolean precomputeMetadata() default false;
 }
@@ -20,12 +20,15 @@ import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
 import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.security.access.intercept.aopalliance.MethodSecurityMetadataPrecomputer;
 import org.springframework.security.access.intercept.aopalliance.MethodSecurityMetadataSourceAdvisor;
 import org.springframework.util.MultiValueMap;
 
 /**
  * Creates Spring Security's MethodSecurityMetadataSourceAdvisor only when
- * using proxy based method security (i.e. do not do it when using ASPECTJ).
+ * using proxy based method security (i.e. do not do it when using ASPECTJ). Also
+ * creates a MethodSecurityMetadataPrecomputer if
+ * {@link EnableGlobalMethodSecurity#precomputeMetadata()} is true.
  * The conditional logic is controlled through {@link GlobalMethodSecuritySelector}.
  *
  * @author Rob Winch
@@ -58,5 +61,14 @@ class MethodSecurityMetadataSourceAdvisorRegistrar implements
 
 		registry.registerBeanDefinition("metaDataSourceAdvisor",
 				advisor.getBeanDefinition());
+
+		if (Boolean.TRUE.equals(attributes.getFirst("precomputeMetadata"))) {
+			BeanDefinitionBuilder precomputer = BeanDefinitionBuilder
+					.rootBeanDefinition(MethodSecurityMetadataPrecomputer.class);
+			precomputer.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+			precomputer.addConstructorArgReference("methodSecurityMetadataSource");
+			registry.registerBeanDefinition("methodSecurityMetadataPrecomputer",
+					precomputer.getBeanDefinition());
+		}
 	}
 }
\ No newline at end of file
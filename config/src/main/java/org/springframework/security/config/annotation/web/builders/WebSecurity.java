@@ -37,6 +37,7 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.web.DefaultSecurityFilterChain;
+import org.springframework.security.web.FilterChainListener;
 import org.springframework.security.web.FilterChainProxy;
 import org.springframework.security.web.FilterInvocation;
 import org.springframework.security.web.SecurityFilterChain;
@@ -88,6 +89,10 @@ public final class WebSecurity extends
 
 	private boolean debugEnabled;
 
+	private boolean indexFilterChains;
+
+	private FilterChainListener filterChainListener;
+
 	private WebInvocationPrivilegeEvaluator privilegeEvaluator;
 
 	private DefaultWebSecurityExpressionHandler defaultWebSecurityExpressionHandler = new DefaultWebSecurityExpressionHandler();
@@ -180,6 +185,37 @@ public final class WebSecurity extends
 		return this;
 	}
 
+	/**
+	 * Controls whether the {@link FilterChainProxy} compiles the ignored requests and
+	 * the {@link SecurityFilterChain}s into an index rather than matching them one after
+	 * the other. Useful for applications with a large number of chains.
+	 *
+	 * @param indexFilterChains true if the filter chains should be indexed
+	 * @return the {@link WebSecurity} for further customizations
+	 * @see FilterChainProxy#setIndexFilterChains(boolean)
+	 * @since 4.1
+	 */
+	public WebSecurity indexFilterChains(boolean indexFilterChains) {
+		this.indexFilterChains = indexFilterChains;
+		return this;
+	}
+
+	/**
+	 * Allows specifying a {@link FilterChainListener} which is notified as requests pass
+	 * through the filters of the {@link FilterChainProxy}. For example,
+	 * {@link org.springframework.security.web.metrics.FilterChainMetrics} records the
+	 * time spent in each filter. The default is not to use a listener.
+	 *
+	 * @param filterChainListener the {@link FilterChainListener} to use
+	 * @return the {@link WebSecurity} for further customizations
+	 * @see FilterChainProxy#setFilterChainListener(FilterChainListener)
+	 * @since 4.1
+	 */
+	public WebSecurity filterChainListener(FilterChainListener filterChainListener) {
+		this.filterChainListener = filterChainListener;
+		return this;
+	}
+
 	/**
 	 * <p>
 	 * Adds builders to create {@link SecurityFilterChain} instances.
@@ -290,6 +326,8 @@ public final class WebSecurity extends
 		if (httpFirewall != null) {
 			filterChainProxy.setFirewall(httpFirewall);
 		}
+		filterChainProxy.setIndexFilterChains(indexFilterChains);
+		filterChainProxy.setFilterChainListener(filterChainListener);
 		filterChainProxy.afterPropertiesSet();
 
 		Filter result = filterChainProxy;
@@ -76,6 +76,7 @@ public final class CsrfConfigurer<H extends HttpSecurityBuilder<H>> extends
 	private CsrfTokenRepository csrfTokenRepository = new HttpSessionCsrfTokenRepository();
 	private RequestMatcher requireCsrfProtectionMatcher = CsrfFilter.DEFAULT_CSRF_MATCHER;
 	private List<RequestMatcher> ignoredCsrfProtectionMatchers = new ArrayList<RequestMatcher>();
+	private String csrfRequestAttributeName;
 
 	/**
 	 * Creates a new instance
@@ -113,6 +114,22 @@ public final class CsrfConfigurer<H extends HttpSecurityBuilder<H>> extends
 		return this;
 	}
 
+	/**
+	 * Specify the name of the request attribute under which the
+	 * {@link org.springframework.security.web.csrf.CsrfToken} is exposed, such as
+	 * "_csrf". When set, the token is only loaded from the {@link CsrfTokenRepository}
+	 * when it is used. The default is null, which means the token is loaded for every
+	 * request.
+	 *
+	 * @param csrfRequestAttributeName the name of the request attribute to use
+	 * @return the {@link CsrfConfigurer} for further customizations
+	 * @see CsrfFilter#setCsrfRequestAttributeName(String)
+	 */
+	public CsrfConfigurer<H> csrfRequestAttributeName(String csrfRequestAttributeName) {
+		this.csrfRequestAttributeName = csrfRequestAttributeName;
+		return this;
+	}
+
 	/**
 	 * <p>
 	 * Allows specifying {@link HttpServletRequest} that should not use CSRF Protection
@@ -145,6 +162,7 @@ public final class CsrfConfigurer<H extends HttpSecurityBuilder<H>> extends
 	@Override
 	public void configure(H http) throws Exception {
 		CsrfFilter filter = new CsrfFilter(csrfTokenRepository);
+		filter.setCsrfRequestAttributeName(csrfRequestAttributeName);
 		RequestMatcher requireCsrfProtectionMatcher = getRequireCsrfProtectionMatcher();
 		if (requireCsrfProtectionMatcher != null) {
 			filter.setRequireCsrfProtectionMatcher(requireCsrfProtectionMatcher);
@@ -86,6 +86,8 @@ public final class ExpressionUrlAuthorizationConfigurer<H extends HttpSecurityBu
 
 	private SecurityExpressionHandler<FilterInvocation> expressionHandler;
 
+	private boolean indexRequestMap;
+
 	/**
 	 * Creates a new instance
 	 * @see HttpSecurity#authorizeRequests()
@@ -121,6 +123,23 @@ public final class ExpressionUrlAuthorizationConfigurer<H extends HttpSecurityBu
 			return this;
 		}
 
+		/**
+		 * Controls whether the URL mappings are compiled into an index which selects the
+		 * candidate mappings by HTTP method and literal path prefix rather than
+		 * evaluating every mapping in turn. The first matching mapping is used either
+		 * way. Useful for configurations with a large number of mappings. The default is
+		 * false.
+		 *
+		 * @param indexRequestMap true if the URL mappings should be indexed
+		 * @return the {@link ExpressionUrlAuthorizationConfigurer} for further
+		 * customization.
+		 * @since 4.1
+		 */
+		public ExpressionInterceptUrlRegistry indexRequestMap(boolean indexRequestMap) {
+			ExpressionUrlAuthorizationConfigurer.this.indexRequestMap = indexRequestMap;
+			return this;
+		}
+
 		/**
 		 * Adds an {@link ObjectPostProcessor} for this class.
 		 *
@@ -177,7 +196,7 @@ public final class ExpressionUrlAuthorizationConfigurer<H extends HttpSecurityBu
 					"At least one mapping is required (i.e. authorizeRequests().anyRequest.authenticated())");
 		}
 		return new ExpressionBasedFilterInvocationSecurityMetadataSource(requestMap,
-				getExpressionHandler(http));
+				getExpressionHandler(http), indexRequestMap);
 	}
 
 	private SecurityExpressionHandler<FilterInvocation> getExpressionHandler(H http) {
@@ -20,6 +20,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.CookieSecurityContextRepository;
 import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.security.web.context.SecurityContextPersistenceFilter;
 import org.springframework.security.web.context.SecurityContextRepository;
@@ -80,6 +81,25 @@ public final class SecurityContextConfigurer<H extends HttpSecurityBuilder<H>> e
 		return this;
 	}
 
+	/**
+	 * Stores the {@link SecurityContext} in an encrypted cookie rather than in the
+	 * {@code HttpSession} by using a {@link CookieSecurityContextRepository}. To
+	 * customize it further, for example to rotate keys or to load the user using a
+	 * {@code UserDetailsService}, create the {@link CookieSecurityContextRepository}
+	 * and pass it to {@link #securityContextRepository(SecurityContextRepository)}.
+	 *
+	 * @param password the password from which the key used to encrypt the cookie is
+	 * derived
+	 * @param salt a hex-encoded, random, site-global salt value to use to derive the key
+	 * @return the {@link SecurityContextConfigurer} for further customizations
+	 * @since 4.1
+	 */
+	public SecurityContextConfigurer<H> encryptedCookie(CharSequence password,
+			CharSequence salt) {
+		return securityContextRepository(new CookieSecurityContextRepository(password,
+				salt));
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public void configure(H http) throws Exception {
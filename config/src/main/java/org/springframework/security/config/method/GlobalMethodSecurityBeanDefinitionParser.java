@@ -58,6 +58,7 @@ import org.springframework.security.access.expression.method.ExpressionBasedPreI
 import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.access.intercept.AfterInvocationProviderManager;
 import org.springframework.security.access.intercept.aopalliance.MethodSecurityInterceptor;
+import org.springframework.security.access.intercept.aopalliance.MethodSecurityMetadataPrecomputer;
 import org.springframework.security.access.intercept.aopalliance.MethodSecurityMetadataSourceAdvisor;
 import org.springframework.security.access.intercept.aspectj.AspectJMethodSecurityInterceptor;
 import org.springframework.security.access.method.DelegatingMethodSecurityMetadataSource;
@@ -103,6 +104,7 @@ public class GlobalMethodSecurityBeanDefinitionParser implements BeanDefinitionP
 	private static final String ATT_MODE = "mode";
 	private static final String ATT_ADVICE_ORDER = "order";
 	private static final String ATT_META_DATA_SOURCE_REF = "metadata-source-ref";
+	private static final String ATT_PRECOMPUTE_METADATA = "precompute-metadata";
 
 	public BeanDefinition parse(Element element, ParserContext pc) {
 		CompositeComponentDefinition compositeDef = new CompositeComponentDefinition(
@@ -307,6 +309,9 @@ public class GlobalMethodSecurityBeanDefinitionParser implements BeanDefinitionP
 		else {
 			registerAdvisor(pc, interceptor, metadataSource, source,
 					element.getAttribute(ATT_ADVICE_ORDER));
+			if ("true".equals(element.getAttribute(ATT_PRECOMPUTE_METADATA))) {
+				registerPrecomputer(pc, metadataSource, source);
+			}
 			AopNamespaceUtils.registerAutoProxyCreatorIfNecessary(pc, element);
 		}
 
@@ -475,6 +480,18 @@ public class GlobalMethodSecurityBeanDefinitionParser implements BeanDefinitionP
 				BeanIds.METHOD_SECURITY_METADATA_SOURCE_ADVISOR, advisor);
 	}
 
+	private void registerPrecomputer(ParserContext pc, BeanReference metadataSource,
+			Object source) {
+		RootBeanDefinition precomputer = new RootBeanDefinition(
+				MethodSecurityMetadataPrecomputer.class);
+		precomputer.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+		precomputer.setSource(source);
+		precomputer.getConstructorArgumentValues().addGenericArgumentValue(
+				metadataSource);
+		String id = pc.getReaderContext().generateBeanName(precomputer);
+		pc.registerBeanComponent(new BeanComponentDefinition(precomputer, id));
+	}
+
 	/**
 	 * Delays the lookup of the AuthenticationManager within MethodSecurityInterceptor, to
 	 * prevent issues like SEC-933.
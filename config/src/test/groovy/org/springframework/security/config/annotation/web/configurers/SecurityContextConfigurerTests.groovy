@@ -22,6 +22,7 @@ import org.springframework.security.config.annotation.authentication.builders.Au
 import org.springframework.security.config.annotation.web.builders.HttpSecurity
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter
+import org.springframework.security.web.context.CookieSecurityContextRepository
 import org.springframework.security.web.context.SecurityContextPersistenceFilter
 import org.springframework.security.web.context.SecurityContextRepository
 import org.springframework.security.web.context.request.async.WebAsyncManagerIntegrationFilter
@@ -69,6 +70,23 @@ class SecurityContextConfigurerTests extends BaseSpringSpec {
 		}
 	}
 
+	def "securityContext encryptedCookie uses CookieSecurityContextRepository"() {
+		when:
+			loadConfig(EncryptedCookieConfig)
+		then:
+			findFilter(SecurityContextPersistenceFilter).repo instanceof CookieSecurityContextRepository
+	}
+
+	@EnableWebSecurity
+	static class EncryptedCookieConfig extends WebSecurityConfigurerAdapter {
+		@Override
+		protected void configure(HttpSecurity http) throws Exception {
+			http
+				.securityContext()
+					.encryptedCookie("password", "5c0744940b5c369b")
+		}
+	}
+
 	def 'SEC-2932: SecurityContextConfigurer defaults SecurityContextRepository'() {
 		setup: 'Configuration without default SecurityContextRepository setup'
 		loadConfig(SecurityContextRepositoryDefaultsSecurityContextRepositoryConfig)
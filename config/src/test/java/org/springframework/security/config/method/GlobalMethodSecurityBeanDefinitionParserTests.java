@@ -40,7 +40,10 @@ import org.springframework.security.access.annotation.ExpressionProtectedBusines
 import org.springframework.security.access.intercept.AfterInvocationProviderManager;
 import org.springframework.security.access.intercept.RunAsManagerImpl;
 import org.springframework.security.access.intercept.aopalliance.MethodSecurityInterceptor;
+import org.springframework.security.access.intercept.aopalliance.MethodSecurityMetadataPrecomputer;
 import org.springframework.security.access.intercept.aopalliance.MethodSecurityMetadataSourceAdvisor;
+import org.springframework.security.access.method.DelegatingMethodSecurityMetadataSource;
+import org.springframework.security.access.method.MethodSecurityMetadataCache;
 import org.springframework.security.access.prepost.PostInvocationAdviceProvider;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.access.prepost.PreInvocationAuthorizationAdviceVoter;
@@ -266,6 +269,31 @@ public class GlobalMethodSecurityBeanDefinitionParserTests {
 		target.someAdminMethod();
 	}
 
+	@Test
+	public void precomputeMetadataResolvesMetadataOnStartup() throws Exception {
+		setContext("<global-method-security pre-post-annotations='enabled' precompute-metadata='true'/>"
+				+ "<b:bean id='target' class='org.springframework.security.access.annotation.ExpressionProtectedBusinessServiceImpl'/>"
+				+ AUTH_PROVIDER_XML);
+		DelegatingMethodSecurityMetadataSource metadataSource = appContext
+				.getBean(DelegatingMethodSecurityMetadataSource.class);
+		MethodSecurityMetadataCache cache = (MethodSecurityMetadataCache) FieldUtils
+				.getFieldValue(metadataSource, "attributeCache");
+
+		assertThat(appContext.getBeansOfType(MethodSecurityMetadataPrecomputer.class))
+				.hasSize(1);
+		assertThat(cache.frozenSize()).isGreaterThan(0);
+	}
+
+	@Test(expected = AccessDeniedException.class)
+	public void precomputeMetadataThenMethodsStillSecured() {
+		setContext("<global-method-security pre-post-annotations='enabled' precompute-metadata='true'/>"
+				+ "<b:bean id='target' class='org.springframework.security.access.annotation.ExpressionProtectedBusinessServiceImpl'/>"
+				+ AUTH_PROVIDER_XML);
+		SecurityContextHolder.getContext().setAuthentication(bob);
+		target = (BusinessService) appContext.getBean("target");
+		target.someAdminMethod();
+	}
+
 	@Test
 	public void beanNameExpressionPropertyIsSupported() {
 		setContext("<global-method-security pre-post-annotations='enabled' proxy-target-class='true'/>"
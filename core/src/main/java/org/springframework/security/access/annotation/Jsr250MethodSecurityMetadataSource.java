@@ -31,7 +31,8 @@ import org.springframework.security.access.ConfigAttribute;
 import org.springframework.security.access.method.AbstractFallbackMethodSecurityMetadataSource;
 
 /**
- * Sources method security metadata from major JSR 250 security annotations.
+ * Sources method security metadata from major JSR 250 security annotations. The resolved
+ * metadata is cached.
  *
  * @author Ben Alex
  * @since 2.0
@@ -41,6 +42,10 @@ public class Jsr250MethodSecurityMetadataSource extends
 
 	private String defaultRolePrefix = "ROLE_";
 
+	public Jsr250MethodSecurityMetadataSource() {
+		setCacheAttributes(true);
+	}
+
 	/**
 	 * <p>
 	 * Sets the default prefix to be added to {@link RolesAllowed}. For example, if
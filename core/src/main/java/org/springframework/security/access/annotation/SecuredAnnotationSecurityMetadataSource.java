@@ -33,6 +33,8 @@ import org.springframework.util.Assert;
  * Can also be used with custom security annotations by injecting an
  * {@link AnnotationMetadataExtractor}. The annotation type will then be obtained from the
  * generic parameter type supplied to this interface
+ * <p>
+ * The resolved metadata is cached.
  *
  * @author Ben Alex
  * @author Luke Taylor
@@ -51,6 +53,7 @@ public class SecuredAnnotationSecurityMetadataSource extends
 			AnnotationMetadataExtractor annotationMetadataExtractor) {
 		Assert.notNull(annotationMetadataExtractor);
 		annotationExtractor = annotationMetadataExtractor;
+		setCacheAttributes(true);
 		annotationType = (Class<? extends Annotation>) GenericTypeResolver
 				.resolveTypeArgument(annotationExtractor.getClass(),
 						AnnotationMetadataExtractor.class);
@@ -21,6 +21,8 @@ import org.springframework.context.expression.BeanFactoryResolver;
 import org.springframework.expression.BeanResolver;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.security.access.PermissionEvaluator;
@@ -39,6 +41,7 @@ import org.springframework.util.Assert;
 public abstract class AbstractSecurityExpressionHandler<T> implements
 		SecurityExpressionHandler<T>, ApplicationContextAware {
 	private ExpressionParser expressionParser = new SpelExpressionParser();
+	private final SecurityEvaluationContext.SharedComponents sharedComponents = new SecurityEvaluationContext.SharedComponents();
 	private BeanResolver br;
 	private RoleHierarchy roleHierarchy;
 	private PermissionEvaluator permissionEvaluator = new DenyAllPermissionEvaluator();
@@ -52,6 +55,33 @@ public abstract class AbstractSecurityExpressionHandler<T> implements
 		this.expressionParser = expressionParser;
 	}
 
+	/**
+	 * Uses a {@link SpelExpressionParser} with the given {@link SpelCompilerMode}, so
+	 * that the expressions are compiled to bytecode rather than interpreted on every
+	 * evaluation. The default is to interpret the expressions, as determined by the
+	 * {@code spring.expression.compiler.mode} system property.
+	 * <p>
+	 * If an expression cannot be compiled it is interpreted. If a compiled expression
+	 * fails, for example because it is evaluated against an object of a different type
+	 * than when it was compiled, {@link ExpressionUtils#evaluateAsBoolean} reverts it to
+	 * interpreted mode and evaluates it again. With {@link SpelCompilerMode#IMMEDIATE}
+	 * the expression is compiled again afterwards, so {@link SpelCompilerMode#MIXED} is
+	 * better suited to expressions which are evaluated against objects of different
+	 * types, such as {@code principal.id} when the principal may be a {@code String}.
+	 * <p>
+	 * This replaces any {@link ExpressionParser} set using
+	 * {@link #setExpressionParser(ExpressionParser)}, and must be invoked before any
+	 * expressions are parsed.
+	 *
+	 * @param compilerMode the {@link SpelCompilerMode} to use. Cannot be null.
+	 * @since 4.1
+	 */
+	public void setCompilerMode(SpelCompilerMode compilerMode) {
+		Assert.notNull(compilerMode, "compilerMode cannot be null");
+		this.expressionParser = new SpelExpressionParser(new SpelParserConfiguration(
+				compilerMode, null));
+	}
+
 	/**
 	 * Invokes the internal template methods to create {@code StandardEvaluationContext}
 	 * and {@code SecurityExpressionRoot} objects.
@@ -73,12 +103,32 @@ public abstract class AbstractSecurityExpressionHandler<T> implements
 		return ctx;
 	}
 
+	/**
+	 * Evaluates an {@link IntrinsicSecurityExpression} against the same root object that
+	 * {@link #createEvaluationContext(Authentication, Object)} would use, without
+	 * creating an {@code EvaluationContext}.
+	 *
+	 * @param expression the expression to evaluate
+	 * @param authentication the current authentication object
+	 * @param invocation the invocation (filter, method, channel)
+	 * @return the result of the expression
+	 * @since 4.1
+	 */
+	public final boolean evaluate(IntrinsicSecurityExpression expression,
+			Authentication authentication, T invocation) {
+		return expression.evaluate(createSecurityExpressionRoot(authentication,
+				invocation));
+	}
+
 	/**
 	 * Override to create a custom instance of {@code StandardEvaluationContext}.
 	 * <p>
 	 * The returned object will have a {@code SecurityExpressionRootPropertyAccessor}
 	 * added, allowing beans in the {@code ApplicationContext} to be accessed via
 	 * expression properties.
+	 * <p>
+	 * By default a {@link SecurityEvaluationContext} is returned which uses the
+	 * {@link #getSharedComponents() shared components} of this handler.
 	 *
 	 * @param authentication the current authentication object
 	 * @param invocation the invocation (filter, method, channel)
@@ -87,7 +137,18 @@ public abstract class AbstractSecurityExpressionHandler<T> implements
 	 */
 	protected StandardEvaluationContext createEvaluationContextInternal(
 			Authentication authentication, T invocation) {
-		return new StandardEvaluationContext();
+		return new SecurityEvaluationContext(sharedComponents);
+	}
+
+	/**
+	 * Gets the resolvers, property accessors, type locator and type converter which are
+	 * shared by the {@link SecurityEvaluationContext}s created by this handler.
+	 *
+	 * @return the {@link SecurityEvaluationContext.SharedComponents}
+	 * @since 4.1
+	 */
+	protected final SecurityEvaluationContext.SharedComponents getSharedComponents() {
+		return sharedComponents;
 	}
 
 	/**
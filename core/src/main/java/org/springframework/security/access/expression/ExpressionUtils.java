@@ -18,6 +18,9 @@ package org.springframework.security.access.expression;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.standard.SpelExpression;
 
 public final class ExpressionUtils {
 
@@ -25,9 +28,29 @@ public final class ExpressionUtils {
 		try {
 			return ((Boolean) expr.getValue(ctx, Boolean.class)).booleanValue();
 		}
+		catch (SpelEvaluationException e) {
+			if (e.getMessageCode() != SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION
+					|| !(expr instanceof SpelExpression)) {
+				throw evaluationFailed(expr, e);
+			}
+			// The compiled expression relies on the types it was compiled against, so
+			// evaluate it in interpreted mode instead
+			((SpelExpression) expr).revertToInterpreted();
+			try {
+				return expr.getValue(ctx, Boolean.class).booleanValue();
+			}
+			catch (EvaluationException retry) {
+				throw evaluationFailed(expr, retry);
+			}
+		}
 		catch (EvaluationException e) {
-			throw new IllegalArgumentException("Failed to evaluate expression '"
-					+ expr.getExpressionString() + "'", e);
+			throw evaluationFailed(expr, e);
 		}
 	}
+
+	private static IllegalArgumentException evaluationFailed(Expression expr,
+			EvaluationException e) {
+		return new IllegalArgumentException("Failed to evaluate expression '"
+				+ expr.getExpressionString() + "'", e);
+	}
 }
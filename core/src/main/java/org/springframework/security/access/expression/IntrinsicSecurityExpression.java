@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.expression;
+
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.EvaluationException;
+import org.springframework.expression.Expression;
+import org.springframework.expression.TypedValue;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link Expression} which is evaluated by invoking the methods of
+ * {@link SecurityExpressionOperations} directly rather than interpreting SpEL. Created by
+ * {@link IntrinsicSecurityExpressionParser} for expressions such as
+ * {@code hasRole('USER') and not hasIpAddress('10.0.0.0/8')}.
+ * <p>
+ * When evaluated as an {@link Expression}, the root object of the
+ * {@link EvaluationContext} must be the {@link SecurityExpressionOperations}. Where the
+ * {@link AbstractSecurityExpressionHandler} is known, the expression can instead be
+ * evaluated using
+ * {@link AbstractSecurityExpressionHandler#evaluate(IntrinsicSecurityExpression, org.springframework.security.core.Authentication, Object)}
+ * , which does not need an {@link EvaluationContext} at all.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public final class IntrinsicSecurityExpression implements Expression {
+	private final String expressionString;
+
+	private final Operation operation;
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param expressionString the original expression
+	 * @param operation the {@link Operation} which is equivalent to the expression
+	 */
+	public IntrinsicSecurityExpression(String expressionString, Operation operation) {
+		Assert.notNull(expressionString, "expressionString cannot be null");
+		Assert.notNull(operation, "operation cannot be null");
+		this.expressionString = expressionString;
+		this.operation = operation;
+	}
+
+	/**
+	 * Evaluates the expression.
+	 *
+	 * @param root the {@link SecurityExpressionOperations} to evaluate against
+	 * @return the result of the expression
+	 */
+	public boolean evaluate(SecurityExpressionOperations root) {
+		return operation.evaluate(root);
+	}
+
+	public String getExpressionString() {
+		return expressionString;
+	}
+
+	public Object getValue() throws EvaluationException {
+		throw new EvaluationException(expressionString,
+				"A SecurityExpressionOperations root object is required");
+	}
+
+	public Object getValue(Object rootObject) throws EvaluationException {
+		return evaluate(getRoot(rootObject));
+	}
+
+	public <T> T getValue(Class<T> desiredResultType) throws EvaluationException {
+		return convert(null, getValue(), desiredResultType);
+	}
+
+	public <T> T getValue(Object rootObject, Class<T> desiredResultType)
+			throws EvaluationException {
+		return convert(null, getValue(rootObject), desiredResultType);
+	}
+
+	public Object getValue(EvaluationContext context) throws EvaluationException {
+		return evaluate(getRoot(context.getRootObject().getValue()));
+	}
+
+	public Object getValue(EvaluationContext context, Object rootObject)
+			throws EvaluationException {
+		return evaluate(getRoot(rootObject));
+	}
+
+	public <T> T getValue(EvaluationContext context, Class<T> desiredResultType)
+			throws EvaluationException {
+		return convert(context, getValue(context), desiredResultType);
+	}
+
+	public <T> T getValue(EvaluationContext context, Object rootObject,
+			Class<T> desiredResultType) throws EvaluationException {
+		return convert(context, getValue(context, rootObject), desiredResultType);
+	}
+
+	public Class<?> getValueType() throws EvaluationException {
+		return Boolean.class;
+	}
+
+	public Class<?> getValueType(Object rootObject) throws EvaluationException {
+		return Boolean.class;
+	}
+
+	public Class<?> getValueType(EvaluationContext context) throws EvaluationException {
+		return Boolean.class;
+	}
+
+	public Class<?> getValueType(EvaluationContext context, Object rootObject)
+			throws EvaluationException {
+		return Boolean.class;
+	}
+
+	public TypeDescriptor getValueTypeDescriptor() throws EvaluationException {
+		return TypeDescriptor.valueOf(Boolean.class);
+	}
+
+	public TypeDescriptor getValueTypeDescriptor(Object rootObject)
+			throws EvaluationException {
+		return TypeDescriptor.valueOf(Boolean.class);
+	}
+
+	public TypeDescriptor getValueTypeDescriptor(EvaluationContext context)
+			throws EvaluationException {
+		return TypeDescriptor.valueOf(Boolean.class);
+	}
+
+	public TypeDescriptor getValueTypeDescriptor(EvaluationContext context,
+			Object rootObject) throws EvaluationException {
+		return TypeDescriptor.valueOf(Boolean.class);
+	}
+
+	public boolean isWritable(EvaluationContext context) throws EvaluationException {
+		return false;
+	}
+
+	public boolean isWritable(EvaluationContext context, Object rootObject)
+			throws EvaluationException {
+		return false;
+	}
+
+	public boolean isWritable(Object rootObject) throws EvaluationException {
+		return false;
+	}
+
+	public void setValue(EvaluationContext context, Object value)
+			throws EvaluationException {
+		throw notWritable();
+	}
+
+	public void setValue(Object rootObject, Object value) throws EvaluationException {
+		throw notWritable();
+	}
+
+	public void setValue(EvaluationContext context, Object rootObject, Object value)
+			throws EvaluationException {
+		throw notWritable();
+	}
+
+	private SecurityExpressionOperations getRoot(Object rootObject) {
+		if (!(rootObject instanceof SecurityExpressionOperations)) {
+			throw new EvaluationException(expressionString,
+					"The root object must be a SecurityExpressionOperations but was "
+							+ rootObject);
+		}
+		return (SecurityExpressionOperations) rootObject;
+	}
+
+	private <T> T convert(EvaluationContext context, Object value, Class<T> type) {
+		return org.springframework.expression.common.ExpressionUtils.convertTypedValue(
+				context, new TypedValue(value), type);
+	}
+
+	private EvaluationException notWritable() {
+		return new EvaluationException(expressionString,
+				"The value of a security expression cannot be set");
+	}
+
+	@Override
+	public String toString() {
+		return expressionString;
+	}
+
+	/**
+	 * A part of an {@link IntrinsicSecurityExpression}.
+	 */
+	public interface Operation {
+
+		/**
+		 * Evaluates the operation.
+		 *
+		 * @param root the {@link SecurityExpressionOperations} to evaluate against
+		 * @return the result of the operation
+		 */
+		boolean evaluate(SecurityExpressionOperations root);
+	}
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.ParserContext;
+import org.springframework.security.access.expression.IntrinsicSecurityExpression.Operation;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link ExpressionParser} which recognizes the common security expressions and
+ * creates an {@link IntrinsicSecurityExpression} for them, so that they are evaluated
+ * without SpEL. Any other expression is parsed by the delegate {@link ExpressionParser}.
+ * <p>
+ * The recognized expressions are {@code permitAll}, {@code denyAll},
+ * {@code authenticated}, {@code fullyAuthenticated}, {@code anonymous},
+ * {@code rememberMe} and the equivalent method invocations such as
+ * {@code isAuthenticated()}, as well as {@code hasRole}, {@code hasAnyRole},
+ * {@code hasAuthority} and {@code hasAnyAuthority} with string literal arguments. These
+ * can be combined using {@code and}, {@code or}, {@code not} (or {@code &&},
+ * {@code ||}, {@code !}) and parentheses. Each of them invokes the same
+ * {@link SecurityExpressionOperations} method as SpEL would, so the result is the same.
+ * Subclasses can recognize further methods by overriding
+ * {@link #createOperation(String, List)}.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public class IntrinsicSecurityExpressionParser implements ExpressionParser {
+	private final ExpressionParser delegate;
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param delegate the {@link ExpressionParser} used to parse the expressions which
+	 * are not recognized
+	 */
+	public IntrinsicSecurityExpressionParser(ExpressionParser delegate) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		this.delegate = delegate;
+	}
+
+	public Expression parseExpression(String expressionString) throws ParseException {
+		IntrinsicSecurityExpression expression = parseIntrinsicExpression(expressionString);
+		if (expression != null) {
+			return expression;
+		}
+		return delegate.parseExpression(expressionString);
+	}
+
+	public Expression parseExpression(String expressionString, ParserContext context)
+			throws ParseException {
+		if (context == null || !context.isTemplate()) {
+			IntrinsicSecurityExpression expression = parseIntrinsicExpression(expressionString);
+			if (expression != null) {
+				return expression;
+			}
+		}
+		return delegate.parseExpression(expressionString, context);
+	}
+
+	/**
+	 * Attempts to create an {@link IntrinsicSecurityExpression} for the expression.
+	 *
+	 * @param expressionString the expression
+	 * @return the {@link IntrinsicSecurityExpression} or null if the expression is not
+	 * recognized
+	 */
+	public final IntrinsicSecurityExpression parseIntrinsicExpression(
+			String expressionString) {
+		if (expressionString == null) {
+			return null;
+		}
+		List<Token> tokens = tokenize(expressionString);
+		if (tokens == null || tokens.isEmpty()) {
+			return null;
+		}
+		Operation operation = new Parser(tokens).parse();
+		return operation == null ? null : new IntrinsicSecurityExpression(
+				expressionString, operation);
+	}
+
+	/**
+	 * Creates the {@link Operation} for a property or method of the
+	 * {@link SecurityExpressionOperations}.
+	 *
+	 * @param name the name of the property or method
+	 * @param arguments the string literal arguments of the method, or null if the name
+	 * refers to a property
+	 * @return the {@link Operation} or null if it is not recognized
+	 */
+	protected Operation createOperation(String name, List<String> arguments) {
+		if (arguments == null) {
+			return createPropertyOperation(name);
+		}
+		if (arguments.isEmpty()) {
+			return createPropertyOperation(getPropertyName(name));
+		}
+		final String[] values = arguments.toArray(new String[arguments.size()]);
+		if ("hasRole".equals(name) && values.length == 1) {
+			return new Operation() {
+				public boolean evaluate(SecurityExpressionOperations root) {
+					return root.hasRole(values[0]);
+				}
+			};
+		}
+		if ("hasAnyRole".equals(name)) {
+			return new Operation() {
+				public boolean evaluate(SecurityExpressionOperations root) {
+					return root.hasAnyRole(values);
+				}
+			};
+		}
+		if ("hasAuthority".equals(name) && values.length == 1) {
+			return new Operation() {
+				public boolean evaluate(SecurityExpressionOperations root) {
+					return root.hasAuthority(values[0]);
+				}
+			};
+		}
+		if ("hasAnyAuthority".equals(name)) {
+			return new Operation() {
+				public boolean evaluate(SecurityExpressionOperations root) {
+					return root.hasAnyAuthority(values);
+				}
+			};
+		}
+		return null;
+	}
+
+	private static String getPropertyName(String methodName) {
+		if ("permitAll".equals(methodName) || "denyAll".equals(methodName)) {
+			return methodName;
+		}
+		if (!methodName.startsWith("is") || methodName.length() <= 2) {
+			return null;
+		}
+		String propertyName = Character.toLowerCase(methodName.charAt(2))
+				+ methodName.substring(3);
+		if ("permitAll".equals(propertyName) || "denyAll".equals(propertyName)) {
+			return null;
+		}
+		return propertyName;
+	}
+
+	private static Operation createPropertyOperation(String name) {
+		if ("permitAll".equals(name)) {
+			return PERMIT_ALL;
+		}
+		if ("denyAll".equals(name)) {
+			return DENY_ALL;
+		}
+		if ("authenticated".equals(name)) {
+			return AUTHENTICATED;
+		}
+		if ("fullyAuthenticated".equals(name)) {
+			return FULLY_AUTHENTICATED;
+		}
+		if ("anonymous".equals(name)) {
+			return ANONYMOUS;
+		}
+		if ("rememberMe".equals(name)) {
+			return REMEMBER_ME;
+		}
+		return null;
+	}
+
+	private static List<Token> tokenize(String expression) {
+		List<Token> tokens = new ArrayList<Token>();
+		int length = expression.length();
+		int i = 0;
+		while (i < length) {
+			char c = expression.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			}
+			else if (c == '(' || c == ')' || c == ',') {
+				tokens.add(new Token(c, null));
+				i++;
+			}
+			else if (c == '!') {
+				if (i + 1 < length && expression.charAt(i + 1) == '=') {
+					return null;
+				}
+				tokens.add(new Token(Token.NOT, null));
+				i++;
+			}
+			else if ((c == '&' || c == '|') && i + 1 < length
+					&& expression.charAt(i + 1) == c) {
+				tokens.add(new Token(c == '&' ? Token.AND : Token.OR, null));
+				i += 2;
+			}
+			else if (c == '\'' || c == '"') {
+				StringBuilder value = new StringBuilder();
+				i++;
+				while (true) {
+					if (i >= length) {
+						return null;
+					}
+					char next = expression.charAt(i++);
+					if (next == c) {
+						if (i < length && expression.charAt(i) == c) {
+							i++;
+						}
+						else {
+							break;
+						}
+					}
+					value.append(next);
+				}
+				tokens.add(new Token(Token.STRING, value.toString()));
+			}
+			else if (Character.isLetter(c) || c == '_' || c == '$') {
+				int start = i;
+				while (i < length
+						&& (Character.isLetterOrDigit(expression.charAt(i))
+								|| expression.charAt(i) == '_' || expression.charAt(i) == '$')) {
+					i++;
+				}
+				String identifier = expression.substring(start, i);
+				if ("and".equalsIgnoreCase(identifier)) {
+					tokens.add(new Token(Token.AND, null));
+				}
+				else if ("or".equalsIgnoreCase(identifier)) {
+					tokens.add(new Token(Token.OR, null));
+				}
+				else if ("not".equalsIgnoreCase(identifier)) {
+					tokens.add(new Token(Token.NOT, null));
+				}
+				else {
+					tokens.add(new Token(Token.IDENTIFIER, identifier));
+				}
+			}
+			else {
+				return null;
+			}
+		}
+		return tokens;
+	}
+
+	private static final Operation PERMIT_ALL = new Operation() {
+		public boolean evaluate(SecurityExpressionOperations root) {
+			return root.permitAll();
+		}
+	};
+
+	private static final Operation DENY_ALL = new Operation() {
+		public boolean evaluate(SecurityExpressionOperations root) {
+			return root.denyAll();
+		}
+	};
+
+	private static final Operation AUTHENTICATED = new Operation() {
+		public boolean evaluate(SecurityExpressionOperations root) {
+			return root.isAuthenticated();
+		}
+	};
+
+	private static final Operation FULLY_AUTHENTICATED = new Operation() {
+		public boolean evaluate(SecurityExpressionOperations root) {
+			return root.isFullyAuthenticated();
+		}
+	};
+
+	private static final Operation ANONYMOUS = new Operation() {
+		public boolean evaluate(SecurityExpressionOperations root) {
+			return root.isAnonymous();
+		}
+	};
+
+	private static final Operation REMEMBER_ME = new Operation() {
+		public boolean evaluate(SecurityExpressionOperations root) {
+			return root.isRememberMe();
+		}
+	};
+
+	private static final class Token {
+		private static final char IDENTIFIER = 'i';
+		private static final char STRING = 's';
+		private static final char AND = '&';
+		private static final char OR = '|';
+		private static final char NOT = '!';
+
+		private final char kind;
+
+		private final String value;
+
+		private Token(char kind, String value) {
+			this.kind = kind;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * A recursive descent parser following the precedence of SpEL, where {@code not}
+	 * binds tighter than {@code and}, which binds tighter than {@code or}. Each method
+	 * returns null if the tokens are not recognized.
+	 */
+	private final class Parser {
+		private final List<Token> tokens;
+
+		private int position;
+
+		private Parser(List<Token> tokens) {
+			this.tokens = tokens;
+		}
+
+		private Operation parse() {
+			Operation operation = parseOr();
+			return position == tokens.size() ? operation : null;
+		}
+
+		private Operation parseOr() {
+			Operation left = parseAnd();
+			while (left != null && peek(Token.OR)) {
+				position++;
+				final Operation l = left;
+				final Operation r = parseAnd();
+				if (r == null) {
+					return null;
+				}
+				left = new Operation() {
+					public boolean evaluate(SecurityExpressionOperations root) {
+						return l.evaluate(root) || r.evaluate(root);
+					}
+				};
+			}
+			return left;
+		}
+
+		private Operation parseAnd() {
+			Operation left = parseUnary();
+			while (left != null && peek(Token.AND)) {
+				position++;
+				final Operation l = left;
+				final Operation r = parseUnary();
+				if (r == null) {
+					return null;
+				}
+				left = new Operation() {
+					public boolean evaluate(SecurityExpressionOperations root) {
+						return l.evaluate(root) && r.evaluate(root);
+					}
+				};
+			}
+			return left;
+		}
+
+		private Operation parseUnary() {
+			if (!peek(Token.NOT)) {
+				return parsePrimary();
+			}
+			position++;
+			final Operation operand = parseUnary();
+			if (operand == null) {
+				return null;
+			}
+			return new Operation() {
+				public boolean evaluate(SecurityExpressionOperations root) {
+					return !operand.evaluate(root);
+				}
+			};
+		}
+
+		private Operation parsePrimary() {
+			if (peek('(')) {
+				position++;
+				Operation operation = parseOr();
+				if (operation == null || !peek(')')) {
+					return null;
+				}
+				position++;
+				return operation;
+			}
+			if (!peek(Token.IDENTIFIER)) {
+				return null;
+			}
+			String name = tokens.get(position++).value;
+			if (!peek('(')) {
+				return createOperation(name, null);
+			}
+			position++;
+			List<String> arguments = new ArrayList<String>();
+			while (!peek(')')) {
+				if (!arguments.isEmpty()) {
+					if (!peek(',')) {
+						return null;
+					}
+					position++;
+				}
+				if (!peek(Token.STRING)) {
+					return null;
+				}
+				arguments.add(tokens.get(position++).value);
+			}
+			position++;
+			return createOperation(name, arguments);
+		}
+
+		private boolean peek(char kind) {
+			return position < tokens.size() && tokens.get(position).kind == kind;
+		}
+	}
+}
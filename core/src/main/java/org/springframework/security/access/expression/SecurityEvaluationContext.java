@@ -0,0 +1,243 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.expression;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.expression.ConstructorResolver;
+import org.springframework.expression.MethodFilter;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypeConverter;
+import org.springframework.expression.TypeLocator;
+import org.springframework.expression.spel.support.ReflectiveConstructorResolver;
+import org.springframework.expression.spel.support.ReflectiveMethodResolver;
+import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.expression.spel.support.StandardTypeConverter;
+import org.springframework.expression.spel.support.StandardTypeLocator;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link StandardEvaluationContext} which uses the resolvers, property accessors, type
+ * locator and type converter of a {@link SharedComponents} instead of creating its own.
+ * Since a {@code StandardEvaluationContext} is created for every evaluation of a security
+ * expression, this avoids allocating these objects each time and means that the caches
+ * of the {@link ReflectivePropertyAccessor} are populated once rather than on every
+ * evaluation. Only the root object and the variables are bound to each instance.
+ * <p>
+ * The context can still be customized as usual. Adding, removing or setting a resolver,
+ * property accessor, type locator or type converter, or registering a
+ * {@link MethodFilter}, only affects the instance it is invoked on. The lists returned by
+ * {@link #getPropertyAccessors()}, {@link #getMethodResolvers()} and
+ * {@link #getConstructorResolvers()} cannot be modified unless they were replaced or
+ * added to first.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public class SecurityEvaluationContext extends StandardEvaluationContext {
+	private final SharedComponents shared;
+
+	private List<ConstructorResolver> constructorResolvers;
+
+	private List<MethodResolver> methodResolvers;
+
+	private ReflectiveMethodResolver reflectiveMethodResolver;
+
+	private List<PropertyAccessor> propertyAccessors;
+
+	private TypeLocator typeLocator;
+
+	private TypeConverter typeConverter;
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param shared the {@link SharedComponents} to use. Cannot be null.
+	 */
+	public SecurityEvaluationContext(SharedComponents shared) {
+		Assert.notNull(shared, "shared cannot be null");
+		this.shared = shared;
+	}
+
+	@Override
+	public void addConstructorResolver(ConstructorResolver resolver) {
+		ownConstructorResolvers().add(ownConstructorResolvers().size() - 1, resolver);
+	}
+
+	@Override
+	public boolean removeConstructorResolver(ConstructorResolver resolver) {
+		return ownConstructorResolvers().remove(resolver);
+	}
+
+	@Override
+	public void setConstructorResolvers(List<ConstructorResolver> constructorResolvers) {
+		this.constructorResolvers = constructorResolvers;
+	}
+
+	@Override
+	public List<ConstructorResolver> getConstructorResolvers() {
+		return constructorResolvers == null ? shared.constructorResolvers
+				: constructorResolvers;
+	}
+
+	@Override
+	public void addMethodResolver(MethodResolver resolver) {
+		ownMethodResolvers().add(ownMethodResolvers().size() - 1, resolver);
+	}
+
+	@Override
+	public boolean removeMethodResolver(MethodResolver resolver) {
+		if (reflectiveMethodResolver == resolver) {
+			reflectiveMethodResolver = null;
+		}
+		return ownMethodResolvers().remove(resolver);
+	}
+
+	@Override
+	public void setMethodResolvers(List<MethodResolver> methodResolvers) {
+		this.methodResolvers = methodResolvers;
+	}
+
+	@Override
+	public List<MethodResolver> getMethodResolvers() {
+		return methodResolvers == null ? shared.methodResolvers : methodResolvers;
+	}
+
+	@Override
+	public void registerMethodFilter(Class<?> type, MethodFilter filter)
+			throws IllegalStateException {
+		ownMethodResolvers();
+		if (reflectiveMethodResolver == null) {
+			throw new IllegalStateException(
+					"Method filter cannot be set as the reflective method resolver is not in use");
+		}
+		reflectiveMethodResolver.registerMethodFilter(type, filter);
+	}
+
+	@Override
+	public void addPropertyAccessor(PropertyAccessor accessor) {
+		ownPropertyAccessors().add(ownPropertyAccessors().size() - 1, accessor);
+	}
+
+	@Override
+	public boolean removePropertyAccessor(PropertyAccessor accessor) {
+		return ownPropertyAccessors().remove(accessor);
+	}
+
+	@Override
+	public void setPropertyAccessors(List<PropertyAccessor> propertyAccessors) {
+		this.propertyAccessors = propertyAccessors;
+	}
+
+	@Override
+	public List<PropertyAccessor> getPropertyAccessors() {
+		return propertyAccessors == null ? shared.propertyAccessors : propertyAccessors;
+	}
+
+	@Override
+	public void setTypeLocator(TypeLocator typeLocator) {
+		Assert.notNull(typeLocator, "TypeLocator must not be null");
+		this.typeLocator = typeLocator;
+	}
+
+	@Override
+	public TypeLocator getTypeLocator() {
+		return typeLocator == null ? shared.typeLocator : typeLocator;
+	}
+
+	@Override
+	public void setTypeConverter(TypeConverter typeConverter) {
+		Assert.notNull(typeConverter, "TypeConverter must not be null");
+		this.typeConverter = typeConverter;
+	}
+
+	@Override
+	public TypeConverter getTypeConverter() {
+		return typeConverter == null ? shared.typeConverter : typeConverter;
+	}
+
+	private List<ConstructorResolver> ownConstructorResolvers() {
+		if (constructorResolvers == null) {
+			constructorResolvers = new ArrayList<ConstructorResolver>(
+					shared.constructorResolvers);
+		}
+		return constructorResolvers;
+	}
+
+	private List<MethodResolver> ownMethodResolvers() {
+		if (methodResolvers == null) {
+			// a MethodFilter is registered on the ReflectiveMethodResolver itself, so
+			// this instance needs its own
+			methodResolvers = new ArrayList<MethodResolver>(shared.methodResolvers.size());
+			for (MethodResolver resolver : shared.methodResolvers) {
+				if (resolver == shared.reflectiveMethodResolver) {
+					reflectiveMethodResolver = new ReflectiveMethodResolver();
+					resolver = reflectiveMethodResolver;
+				}
+				methodResolvers.add(resolver);
+			}
+		}
+		return methodResolvers;
+	}
+
+	private List<PropertyAccessor> ownPropertyAccessors() {
+		if (propertyAccessors == null) {
+			propertyAccessors = new ArrayList<PropertyAccessor>(shared.propertyAccessors);
+		}
+		return propertyAccessors;
+	}
+
+	/**
+	 * The components which are shared by the {@link SecurityEvaluationContext} instances
+	 * created with it. These are the same components a {@link StandardEvaluationContext}
+	 * creates by default, and none of them is modified by the
+	 * {@link SecurityEvaluationContext}. Typically a single instance is used for the
+	 * lifetime of a {@link SecurityExpressionHandler}.
+	 */
+	public static final class SharedComponents {
+		private final List<ConstructorResolver> constructorResolvers;
+
+		private final ReflectiveMethodResolver reflectiveMethodResolver;
+
+		private final List<MethodResolver> methodResolvers;
+
+		private final List<PropertyAccessor> propertyAccessors;
+
+		private final TypeLocator typeLocator;
+
+		private final TypeConverter typeConverter;
+
+		/**
+		 * Creates a new instance using the default components of a
+		 * {@link StandardEvaluationContext}.
+		 */
+		public SharedComponents() {
+			this.constructorResolvers = Collections
+					.<ConstructorResolver> singletonList(new ReflectiveConstructorResolver());
+			this.reflectiveMethodResolver = new ReflectiveMethodResolver();
+			this.methodResolvers = Collections
+					.<MethodResolver> singletonList(reflectiveMethodResolver);
+			this.propertyAccessors = Collections
+					.<PropertyAccessor> singletonList(new ReflectivePropertyAccessor());
+			this.typeLocator = new StandardTypeLocator();
+			this.typeConverter = new StandardTypeConverter();
+		}
+	}
+}
@@ -17,7 +17,6 @@ package org.springframework.security.access.expression;
 
 import java.io.Serializable;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Set;
 
 import org.springframework.security.access.PermissionEvaluator;
@@ -26,6 +25,7 @@ import org.springframework.security.authentication.AuthenticationTrustResolver;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.authority.InternedAuthorityList;
 
 /**
  * Base root object for use in Spring Security expression evaluations.
@@ -37,6 +37,7 @@ public abstract class SecurityExpressionRoot implements SecurityExpressionOperat
 	protected final Authentication authentication;
 	private AuthenticationTrustResolver trustResolver;
 	private RoleHierarchy roleHierarchy;
+	private Collection<? extends GrantedAuthority> grantedAuthorities;
 	private Set<String> roles;
 	private String defaultRolePrefix = "ROLE_";
 
@@ -80,6 +81,17 @@ public abstract class SecurityExpressionRoot implements SecurityExpressionOperat
 	}
 
 	private boolean hasAnyAuthorityName(String prefix, String... roles) {
+		Collection<? extends GrantedAuthority> authorities = getGrantedAuthorities();
+		if (authorities instanceof InternedAuthorityList) {
+			InternedAuthorityList interned = (InternedAuthorityList) authorities;
+			for (String role : roles) {
+				if (interned.containsAuthority(getRoleWithDefaultPrefix(prefix, role))) {
+					return true;
+				}
+			}
+			return false;
+		}
+
 		Set<String> roleSet = getAuthoritySet();
 
 		for (String role : roles) {
@@ -156,9 +168,8 @@ public abstract class SecurityExpressionRoot implements SecurityExpressionOperat
 		this.defaultRolePrefix = defaultRolePrefix;
 	}
 
-	private Set<String> getAuthoritySet() {
-		if (roles == null) {
-			roles = new HashSet<String>();
+	private Collection<? extends GrantedAuthority> getGrantedAuthorities() {
+		if (grantedAuthorities == null) {
 			Collection<? extends GrantedAuthority> userAuthorities = authentication
 					.getAuthorities();
 
@@ -167,7 +178,15 @@ public abstract class SecurityExpressionRoot implements SecurityExpressionOperat
 						.getReachableGrantedAuthorities(userAuthorities);
 			}
 
-			roles = AuthorityUtils.authorityListToSet(userAuthorities);
+			grantedAuthorities = userAuthorities;
+		}
+
+		return grantedAuthorities;
+	}
+
+	private Set<String> getAuthoritySet() {
+		if (roles == null) {
+			roles = AuthorityUtils.authorityListToSet(getGrantedAuthorities());
 		}
 
 		return roles;
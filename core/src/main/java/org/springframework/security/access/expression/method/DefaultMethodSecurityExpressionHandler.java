@@ -19,7 +19,14 @@ import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
@@ -33,7 +40,10 @@ import org.springframework.security.access.expression.AbstractSecurityExpression
 import org.springframework.security.access.expression.ExpressionUtils;
 import org.springframework.security.authentication.AuthenticationTrustResolver;
 import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.parameters.DefaultSecurityParameterNameDiscoverer;
 import org.springframework.util.Assert;
 
@@ -53,20 +63,25 @@ public class DefaultMethodSecurityExpressionHandler extends
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
-	private ParameterNameDiscoverer parameterNameDiscoverer = new DefaultSecurityParameterNameDiscoverer();
+	private MethodParameterNameCache parameterNameCache = new MethodParameterNameCache(
+			new DefaultSecurityParameterNameDiscoverer());
 	private PermissionCacheOptimizer permissionCacheOptimizer = null;
 	private String defaultRolePrefix = "ROLE_";
+	private Executor filterExecutor;
+	private int filterChunkSize = 1000;
 
 	public DefaultMethodSecurityExpressionHandler() {
 	}
 
 	/**
 	 * Uses a {@link MethodSecurityEvaluationContext} as the <tt>EvaluationContext</tt>
-	 * implementation.
+	 * implementation, which uses the {@link #getSharedComponents() shared components}
+	 * of this handler.
 	 */
 	public StandardEvaluationContext createEvaluationContextInternal(Authentication auth,
 			MethodInvocation mi) {
-		return new MethodSecurityEvaluationContext(auth, mi, parameterNameDiscoverer);
+		return new MethodSecurityEvaluationContext(auth, mi, parameterNameCache,
+				getSharedComponents());
 	}
 
 	/**
@@ -86,12 +101,19 @@ public class DefaultMethodSecurityExpressionHandler extends
 	}
 
 	/**
-	 * Filters the {@code filterTarget} object (which must be either a collection or an
-	 * array), by evaluating the supplied expression.
+	 * Filters the {@code filterTarget} object (which must be either a collection, an
+	 * array or an iterator), by evaluating the supplied expression.
 	 * <p>
 	 * If a {@code Collection} is used, the original instance will be modified to contain
 	 * the elements for which the permission expression evaluates to {@code true}. For an
-	 * array, a new array instance will be returned.
+	 * array, a new array instance will be returned. For an {@code Iterator}, a new
+	 * {@code Iterator} is returned which evaluates the expression for each element as it
+	 * is consumed. The order of the elements is preserved.
+	 * <p>
+	 * If a {@link #setFilterExecutor(Executor) filter executor} is configured, the
+	 * elements of a collection or array with more than
+	 * {@link #setFilterChunkSize(int) filter chunk size} elements are evaluated in
+	 * parallel.
 	 */
 	@SuppressWarnings("unchecked")
 	public Object filter(Object filterTarget, Expression filterExpression,
@@ -108,7 +130,6 @@ public class DefaultMethodSecurityExpressionHandler extends
 
 		if (filterTarget instanceof Collection) {
 			Collection collection = (Collection) filterTarget;
-			retainList = new ArrayList(collection.size());
 
 			if (debug) {
 				logger.debug("Filtering collection with " + collection.size()
@@ -120,13 +141,7 @@ public class DefaultMethodSecurityExpressionHandler extends
 						rootObject.getAuthentication(), collection);
 			}
 
-			for (Object filterObject : (Collection) filterTarget) {
-				rootObject.setFilterObject(filterObject);
-
-				if (ExpressionUtils.evaluateAsBoolean(filterExpression, ctx)) {
-					retainList.add(filterObject);
-				}
-			}
+			retainList = retain(collection, filterExpression, ctx);
 
 			if (debug) {
 				logger.debug("Retaining elements: " + retainList);
@@ -140,7 +155,6 @@ public class DefaultMethodSecurityExpressionHandler extends
 
 		if (filterTarget.getClass().isArray()) {
 			Object[] array = (Object[]) filterTarget;
-			retainList = new ArrayList(array.length);
 
 			if (debug) {
 				logger.debug("Filtering array with " + array.length + " elements");
@@ -151,13 +165,7 @@ public class DefaultMethodSecurityExpressionHandler extends
 						rootObject.getAuthentication(), Arrays.asList(array));
 			}
 
-			for (Object o : array) {
-				rootObject.setFilterObject(o);
-
-				if (ExpressionUtils.evaluateAsBoolean(filterExpression, ctx)) {
-					retainList.add(o);
-				}
-			}
+			retainList = retain(Arrays.asList(array), filterExpression, ctx);
 
 			if (debug) {
 				logger.debug("Retaining elements: " + retainList);
@@ -172,11 +180,124 @@ public class DefaultMethodSecurityExpressionHandler extends
 			return filtered;
 		}
 
+		if (filterTarget instanceof Iterator) {
+			if (debug) {
+				logger.debug("Filtering iterator lazily");
+			}
+
+			return new FilteringIterator((Iterator<Object>) filterTarget,
+					filterExpression, ctx);
+		}
+
 		throw new IllegalArgumentException(
-				"Filter target must be a collection or array type, but was "
+				"Filter target must be a collection, array or iterator type, but was "
 						+ filterTarget);
 	}
 
+	private List<Object> retain(Collection<?> elements, Expression filterExpression,
+			EvaluationContext ctx) {
+		if (filterExecutor != null && elements.size() > filterChunkSize
+				&& ctx instanceof MethodSecurityEvaluationContext) {
+			return retainInParallel(elements.toArray(), filterExpression,
+					(MethodSecurityEvaluationContext) ctx);
+		}
+
+		MethodSecurityExpressionOperations rootObject = (MethodSecurityExpressionOperations) ctx
+				.getRootObject().getValue();
+		List<Object> retainList = new ArrayList<Object>(elements.size());
+
+		for (Object filterObject : elements) {
+			rootObject.setFilterObject(filterObject);
+
+			if (ExpressionUtils.evaluateAsBoolean(filterExpression, ctx)) {
+				retainList.add(filterObject);
+			}
+		}
+
+		return retainList;
+	}
+
+	/**
+	 * Evaluates the first chunk of the elements on the calling thread and the remaining
+	 * chunks using the filter executor, each with its own {@link EvaluationContext} and
+	 * with the {@link SecurityContext} of the calling thread.
+	 */
+	private List<Object> retainInParallel(final Object[] elements,
+			final Expression filterExpression, MethodSecurityEvaluationContext ctx) {
+		MethodSecurityExpressionOperations rootObject = (MethodSecurityExpressionOperations) ctx
+				.getRootObject().getValue();
+		SecurityContext securityContext = SecurityContextHolder.getContext();
+		final boolean[] retain = new boolean[elements.length];
+		List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>();
+
+		for (int start = filterChunkSize; start < elements.length; start += filterChunkSize) {
+			final int from = start;
+			final int to = Math.min(start + filterChunkSize, elements.length);
+			final EvaluationContext chunkCtx = createEvaluationContext(
+					rootObject.getAuthentication(), ctx.getMethodInvocation());
+			((MethodSecurityExpressionOperations) chunkCtx.getRootObject().getValue())
+					.setReturnObject(rootObject.getReturnObject());
+			FutureTask<Void> task = new FutureTask<Void>(
+					new DelegatingSecurityContextCallable<Void>(new Callable<Void>() {
+						public Void call() {
+							evaluate(elements, from, to, filterExpression, chunkCtx,
+									retain);
+							return null;
+						}
+					}, securityContext));
+			try {
+				filterExecutor.execute(task);
+			}
+			catch (RejectedExecutionException e) {
+				task.run();
+			}
+			tasks.add(task);
+		}
+
+		evaluate(elements, 0, filterChunkSize, filterExpression, ctx, retain);
+
+		for (FutureTask<Void> task : tasks) {
+			try {
+				task.get();
+			}
+			catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IllegalStateException("Failed to evaluate filter expression",
+						cause);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(
+						"Interrupted while evaluating filter expression", e);
+			}
+		}
+
+		List<Object> retainList = new ArrayList<Object>(elements.length);
+		for (int i = 0; i < elements.length; i++) {
+			if (retain[i]) {
+				retainList.add(elements[i]);
+			}
+		}
+		return retainList;
+	}
+
+	private static void evaluate(Object[] elements, int from, int to,
+			Expression filterExpression, EvaluationContext ctx, boolean[] retain) {
+		MethodSecurityExpressionOperations rootObject = (MethodSecurityExpressionOperations) ctx
+				.getRootObject().getValue();
+
+		for (int i = from; i < to; i++) {
+			rootObject.setFilterObject(elements[i]);
+			retain[i] = ExpressionUtils.evaluateAsBoolean(filterExpression, ctx);
+		}
+	}
+
 	/**
 	 * Sets the {@link AuthenticationTrustResolver} to be used. The default is
 	 * {@link AuthenticationTrustResolverImpl}.
@@ -191,11 +312,47 @@ public class DefaultMethodSecurityExpressionHandler extends
 
 	/**
 	 * Sets the {@link ParameterNameDiscoverer} to use. The default is
-	 * {@link DefaultSecurityParameterNameDiscoverer}.
+	 * {@link DefaultSecurityParameterNameDiscoverer}. The parameter names of each method
+	 * are resolved once and cached.
 	 * @param parameterNameDiscoverer
 	 */
 	public void setParameterNameDiscoverer(ParameterNameDiscoverer parameterNameDiscoverer) {
-		this.parameterNameDiscoverer = parameterNameDiscoverer;
+		this.parameterNameCache = new MethodParameterNameCache(parameterNameDiscoverer);
+	}
+
+	/**
+	 * Sets the {@link Executor} used to evaluate the filter expression of large
+	 * collections and arrays in parallel. Each chunk of
+	 * {@link #setFilterChunkSize(int) filter chunk size} elements, except the first
+	 * which is evaluated by the calling thread, is evaluated by a task submitted to the
+	 * {@link Executor} using the {@link SecurityContext} of the calling thread. If a task
+	 * is rejected, the chunk is evaluated by the calling thread.
+	 * <p>
+	 * The default is null, which means the elements are evaluated sequentially.
+	 * Elements are also evaluated sequentially if the {@link EvaluationContext} was not
+	 * created by this class, since a separate {@link EvaluationContext} is created for
+	 * each chunk. Only the method arguments and the return object are available to the
+	 * filter expression of a chunk, not any other variables set on the original
+	 * {@link EvaluationContext}.
+	 *
+	 * @param filterExecutor the {@link Executor} to use, or null to filter sequentially
+	 * @since 4.1
+	 */
+	public void setFilterExecutor(Executor filterExecutor) {
+		this.filterExecutor = filterExecutor;
+	}
+
+	/**
+	 * Sets the number of elements evaluated by each task when filtering in parallel.
+	 * Collections and arrays with no more than this number of elements are always
+	 * filtered sequentially. The default is 1000.
+	 *
+	 * @param filterChunkSize the number of elements per task. Must be positive.
+	 * @since 4.1
+	 */
+	public void setFilterChunkSize(int filterChunkSize) {
+		Assert.isTrue(filterChunkSize > 0, "filterChunkSize must be positive");
+		this.filterChunkSize = filterChunkSize;
 	}
 
 	public void setPermissionCacheOptimizer(
@@ -225,4 +382,53 @@ public class DefaultMethodSecurityExpressionHandler extends
 	public void setDefaultRolePrefix(String defaultRolePrefix) {
 		this.defaultRolePrefix = defaultRolePrefix;
 	}
+
+	/**
+	 * An {@link Iterator} which only returns the elements of the delegate for which the
+	 * filter expression evaluates to {@code true}, evaluating it as the elements are
+	 * consumed.
+	 */
+	private static final class FilteringIterator implements Iterator<Object> {
+		private final Iterator<Object> delegate;
+		private final Expression filterExpression;
+		private final EvaluationContext ctx;
+		private final MethodSecurityExpressionOperations rootObject;
+		private Object next;
+		private boolean nextRetained;
+
+		private FilteringIterator(Iterator<Object> delegate, Expression filterExpression,
+				EvaluationContext ctx) {
+			this.delegate = delegate;
+			this.filterExpression = filterExpression;
+			this.ctx = ctx;
+			this.rootObject = (MethodSecurityExpressionOperations) ctx.getRootObject()
+					.getValue();
+		}
+
+		public boolean hasNext() {
+			while (!nextRetained && delegate.hasNext()) {
+				Object filterObject = delegate.next();
+				rootObject.setFilterObject(filterObject);
+				if (ExpressionUtils.evaluateAsBoolean(filterExpression, ctx)) {
+					next = filterObject;
+					nextRetained = true;
+				}
+			}
+			return nextRetained;
+		}
+
+		public Object next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Object result = next;
+			next = null;
+			nextRetained = false;
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException("remove");
+		}
+	}
 }
@@ -18,6 +18,8 @@ package org.springframework.security.access.expression.method;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.security.access.expression.IntrinsicSecurityExpressionParser;
 import org.springframework.security.access.prepost.PostInvocationAttribute;
 import org.springframework.security.access.prepost.PreInvocationAttribute;
 import org.springframework.security.access.prepost.PrePostInvocationAttributeFactory;
@@ -44,7 +46,6 @@ public class ExpressionBasedAnnotationAttributeFactory implements
 	public PreInvocationAttribute createPreInvocationAttribute(String preFilterAttribute,
 			String filterObject, String preAuthorizeAttribute) {
 		try {
-			// TODO: Optimization of permitAll
 			ExpressionParser parser = getParser();
 			Expression preAuthorizeExpression = preAuthorizeAttribute == null ? parser
 					.parseExpression("permitAll") : parser
@@ -83,7 +84,9 @@ public class ExpressionBasedAnnotationAttributeFactory implements
 	}
 
 	/**
-	 * Delay the lookup of the {@link ExpressionParser} to prevent SEC-2136
+	 * Delay the lookup of the {@link ExpressionParser} to prevent SEC-2136. Unless a
+	 * custom {@link ExpressionParser} is used, the common expressions such as
+	 * {@code permitAll} are recognized by an {@link IntrinsicSecurityExpressionParser}.
 	 *
 	 * @return
 	 */
@@ -92,8 +95,14 @@ public class ExpressionBasedAnnotationAttributeFactory implements
 			return this.parser;
 		}
 		synchronized (parserLock) {
-			this.parser = handler.getExpressionParser();
-			this.handler = null;
+			if (this.parser == null) {
+				ExpressionParser parser = handler.getExpressionParser();
+				if (parser.getClass() == SpelExpressionParser.class) {
+					parser = new IntrinsicSecurityExpressionParser(parser);
+				}
+				this.parser = parser;
+				this.handler = null;
+			}
 		}
 		return this.parser;
 	}
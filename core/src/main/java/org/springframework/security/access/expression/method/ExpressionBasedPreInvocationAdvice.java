@@ -19,11 +19,14 @@
 package org.springframework.security.access.expression.method;
 
 import java.util.Collection;
+import java.util.Iterator;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.security.access.expression.AbstractSecurityExpressionHandler;
 import org.springframework.security.access.expression.ExpressionUtils;
+import org.springframework.security.access.expression.IntrinsicSecurityExpression;
 import org.springframework.security.access.prepost.PreInvocationAttribute;
 import org.springframework.security.access.prepost.PreInvocationAuthorizationAdvice;
 import org.springframework.security.core.Authentication;
@@ -38,14 +41,22 @@ public class ExpressionBasedPreInvocationAdvice implements
 		PreInvocationAuthorizationAdvice {
 	private MethodSecurityExpressionHandler expressionHandler = new DefaultMethodSecurityExpressionHandler();
 
+	@SuppressWarnings("unchecked")
 	public boolean before(Authentication authentication, MethodInvocation mi,
 			PreInvocationAttribute attr) {
 		PreInvocationExpressionAttribute preAttr = (PreInvocationExpressionAttribute) attr;
-		EvaluationContext ctx = expressionHandler.createEvaluationContext(authentication,
-				mi);
 		Expression preFilter = preAttr.getFilterExpression();
 		Expression preAuthorize = preAttr.getAuthorizeExpression();
 
+		if (preFilter == null && preAuthorize instanceof IntrinsicSecurityExpression
+				&& expressionHandler instanceof AbstractSecurityExpressionHandler) {
+			return ((AbstractSecurityExpressionHandler<MethodInvocation>) expressionHandler)
+					.evaluate((IntrinsicSecurityExpression) preAuthorize, authentication, mi);
+		}
+
+		EvaluationContext ctx = expressionHandler.createEvaluationContext(authentication,
+				mi);
+
 		if (preFilter != null) {
 			Object filterTarget = findFilterTarget(preAttr.getFilterTarget(), ctx, mi);
 
@@ -89,6 +100,12 @@ public class ExpressionBasedPreInvocationAdvice implements
 							+ "Using a Collection will solve this problem");
 		}
 
+		if (filterTarget instanceof Iterator) {
+			throw new IllegalArgumentException(
+					"Pre-filtering on iterator types is not supported. "
+							+ "Using a Collection will solve this problem");
+		}
+
 		return filterTarget;
 	}
 
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.expression.method;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Caches the parameter names of the most specific {@link Method} of the target class
+ * of an invocation, as resolved by a {@link ParameterNameDiscoverer}. This avoids
+ * resolving the most specific method and scanning the parameter annotations (or reading
+ * the class file) every time an expression refers to a method argument.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+final class MethodParameterNameCache {
+	private static final Log logger = LogFactory.getLog(MethodParameterNameCache.class);
+
+	private static final String[] NO_NAMES = new String[0];
+
+	private final ConcurrentMap<CacheKey, String[]> parameterNames = new ConcurrentHashMap<CacheKey, String[]>();
+
+	private final ParameterNameDiscoverer parameterNameDiscoverer;
+
+	MethodParameterNameCache(ParameterNameDiscoverer parameterNameDiscoverer) {
+		Assert.notNull(parameterNameDiscoverer, "parameterNameDiscoverer cannot be null");
+		this.parameterNameDiscoverer = parameterNameDiscoverer;
+	}
+
+	/**
+	 * Gets the parameter names of the most specific implementation of the method.
+	 *
+	 * @param method the invoked method
+	 * @param targetClass the target class of the invocation
+	 * @return the parameter names or null if they could not be resolved
+	 */
+	String[] getParameterNames(Method method, Class<?> targetClass) {
+		CacheKey key = new CacheKey(method, targetClass);
+		String[] names = parameterNames.get(key);
+		if (names == null) {
+			names = resolveParameterNames(method, targetClass);
+			parameterNames.putIfAbsent(key, names);
+		}
+		return names == NO_NAMES ? null : names;
+	}
+
+	private String[] resolveParameterNames(Method method, Class<?> targetClass) {
+		Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+		String[] names = parameterNameDiscoverer.getParameterNames(specificMethod);
+		if (names != null) {
+			return names;
+		}
+		logger.warn("Unable to resolve method parameter names for method: "
+				+ specificMethod
+				+ ". Debug symbol information is required if you are using parameter names in expressions.");
+		return NO_NAMES;
+	}
+
+	private static final class CacheKey {
+		private final Method method;
+		private final Class<?> targetClass;
+		private final int hashCode;
+
+		private CacheKey(Method method, Class<?> targetClass) {
+			this.method = method;
+			this.targetClass = targetClass;
+			this.hashCode = method.hashCode() * 21
+					+ (targetClass != null ? targetClass.hashCode() : 0);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey otherKey = (CacheKey) other;
+			return this.method.equals(otherKey.method)
+					&& ObjectUtils.nullSafeEquals(this.targetClass, otherKey.targetClass);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+}
@@ -15,33 +15,31 @@
  */
 package org.springframework.security.access.expression.method;
 
-import java.lang.reflect.Method;
-
 import org.aopalliance.intercept.MethodInvocation;
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
 import org.springframework.aop.framework.AopProxyUtils;
-import org.springframework.aop.support.AopUtils;
 import org.springframework.core.ParameterNameDiscoverer;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.security.access.expression.SecurityEvaluationContext;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.parameters.DefaultSecurityParameterNameDiscoverer;
 
 /**
- * Internal security-specific EvaluationContext implementation which lazily adds the
+ * Internal security-specific EvaluationContext implementation which lazily resolves the
  * method parameter values as variables (with the corresponding parameter names) if and
  * when they are required.
+ * <p>
+ * The parameter names are obtained from a {@link MethodParameterNameCache}, which is
+ * shared by all the contexts created by a {@link DefaultMethodSecurityExpressionHandler}.
+ * The arguments are not registered as variables. Instead, a variable which has not been
+ * set explicitly is looked up among the parameter names when it is referenced.
  *
  * @author Luke Taylor
  * @since 3.0
  */
-class MethodSecurityEvaluationContext extends StandardEvaluationContext {
-	private static final Log logger = LogFactory
-			.getLog(MethodSecurityEvaluationContext.class);
-
-	private ParameterNameDiscoverer parameterNameDiscoverer;
+class MethodSecurityEvaluationContext extends SecurityEvaluationContext {
+	private MethodParameterNameCache parameterNameCache;
 	private final MethodInvocation mi;
-	private boolean argumentsAdded;
+	private String[] parameterNames;
+	private boolean parameterNamesResolved;
 
 	/**
 	 * Intended for testing. Don't use in practice as it creates a new parameter resolver
@@ -54,8 +52,15 @@ class MethodSecurityEvaluationContext extends StandardEvaluationContext {
 
 	public MethodSecurityEvaluationContext(Authentication user, MethodInvocation mi,
 			ParameterNameDiscoverer parameterNameDiscoverer) {
+		this(user, mi, new MethodParameterNameCache(parameterNameDiscoverer),
+				new SharedComponents());
+	}
+
+	MethodSecurityEvaluationContext(Authentication user, MethodInvocation mi,
+			MethodParameterNameCache parameterNameCache, SharedComponents shared) {
+		super(shared);
 		this.mi = mi;
-		this.parameterNameDiscoverer = parameterNameDiscoverer;
+		this.parameterNameCache = parameterNameCache;
 	}
 
 	@Override
@@ -66,31 +71,44 @@ class MethodSecurityEvaluationContext extends StandardEvaluationContext {
 			return variable;
 		}
 
-		if (!argumentsAdded) {
-			addArgumentsAsVariables();
-			argumentsAdded = true;
-		}
-
-		variable = super.lookupVariable(name);
-
-		if (variable != null) {
-			return variable;
-		}
-
-		return null;
+		return lookupArgument(name);
 	}
 
 	public void setParameterNameDiscoverer(ParameterNameDiscoverer parameterNameDiscoverer) {
-		this.parameterNameDiscoverer = parameterNameDiscoverer;
+		this.parameterNameCache = new MethodParameterNameCache(parameterNameDiscoverer);
+		this.parameterNamesResolved = false;
+	}
+
+	MethodInvocation getMethodInvocation() {
+		return mi;
 	}
 
-	private void addArgumentsAsVariables() {
+	private Object lookupArgument(String name) {
 		Object[] args = mi.getArguments();
 
 		if (args.length == 0) {
-			return;
+			return null;
 		}
 
+		if (!parameterNamesResolved) {
+			parameterNames = resolveParameterNames();
+			parameterNamesResolved = true;
+		}
+
+		if (parameterNames == null) {
+			return null;
+		}
+
+		for (int i = 0; i < args.length && i < parameterNames.length; i++) {
+			if (name.equals(parameterNames[i])) {
+				return args[i];
+			}
+		}
+
+		return null;
+	}
+
+	private String[] resolveParameterNames() {
 		Object targetObject = mi.getThis();
 		// SEC-1454
 		Class<?> targetClass = AopProxyUtils.ultimateTargetClass(targetObject);
@@ -101,19 +119,7 @@ class MethodSecurityEvaluationContext extends StandardEvaluationContext {
 			targetClass = targetObject.getClass();
 		}
 
-		Method method = AopUtils.getMostSpecificMethod(mi.getMethod(), targetClass);
-		String[] paramNames = parameterNameDiscoverer.getParameterNames(method);
-
-		if (paramNames == null) {
-			logger.warn("Unable to resolve method parameter names for method: "
-					+ method
-					+ ". Debug symbol information is required if you are using parameter names in expressions.");
-			return;
-		}
-
-		for (int i = 0; i < args.length; i++) {
-			super.setVariable(paramNames[i], args[i]);
-		}
+		return parameterNameCache.getParameterNames(mi.getMethod(), targetClass);
 	}
 
 }
@@ -17,11 +17,14 @@ package org.springframework.security.access.hierarchicalroles;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,6 +33,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.authority.GrantedAuthorityRegistry;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 /**
@@ -70,6 +74,13 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
  * In addition to shorter rules this will also make your access rules more readable and
  * your intentions clearer.
  *
+ * <p>
+ * When the hierarchy is set, the transitive closure of every role is compiled into a map
+ * keyed by the authority string, so resolving the reachable authorities is one hash
+ * lookup per held authority. The resulting collections are immutable and, for
+ * collections of {@link SimpleGrantedAuthority}, cached per distinct set of authorities
+ * as an {@link org.springframework.security.core.authority.InternedAuthorityList}.
+ *
  * @author Michael Mayr
  */
 public class RoleHierarchyImpl implements RoleHierarchy {
@@ -90,6 +101,21 @@ public class RoleHierarchyImpl implements RoleHierarchy {
 	 */
 	private Map<GrantedAuthority, Set<GrantedAuthority>> rolesReachableInOneOrMoreStepsMap = null;
 
+	/**
+	 * The compiled form of rolesReachableInOneOrMoreStepsMap keyed by the authority
+	 * string. The reachable roles are interned {@link GrantedAuthority} instances.
+	 */
+	private Map<String, GrantedAuthority[]> reachableAuthoritiesByRole = Collections
+			.emptyMap();
+
+	/**
+	 * The results of {@link #getReachableGrantedAuthorities(Collection)} keyed by the
+	 * authority string (a single authority) or the set of authority strings.
+	 */
+	private ConcurrentMap<Object, Collection<GrantedAuthority>> reachableAuthoritiesCache = new ConcurrentHashMap<Object, Collection<GrantedAuthority>>();
+
+	private int maxCachedAuthoritySets = 1024;
+
 	/**
 	 * Set the role hierarchy and pre-calculate for every role the set of all reachable
 	 * roles, i.e. all roles lower in the hierarchy of every given role. Pre-calculation
@@ -107,6 +133,19 @@ public class RoleHierarchyImpl implements RoleHierarchy {
 
 		buildRolesReachableInOneStepMap();
 		buildRolesReachableInOneOrMoreStepsMap();
+		buildReachableAuthoritiesByRole();
+	}
+
+	/**
+	 * Sets the maximum number of distinct sets of authorities for which the reachable
+	 * authorities are cached. Once reached, additional sets are resolved without being
+	 * cached. Set to 0 to disable caching. The default is 1024.
+	 *
+	 * @param maxCachedAuthoritySets the maximum number of cached sets of authorities
+	 * @since 4.1
+	 */
+	public void setMaxCachedAuthoritySets(int maxCachedAuthoritySets) {
+		this.maxCachedAuthoritySets = maxCachedAuthoritySets;
 	}
 
 	public Collection<GrantedAuthority> getReachableGrantedAuthorities(
@@ -115,14 +154,36 @@ public class RoleHierarchyImpl implements RoleHierarchy {
 			return AuthorityUtils.NO_AUTHORITIES;
 		}
 
-		Set<GrantedAuthority> reachableRoles = new HashSet<GrantedAuthority>();
+		Object cacheKey = getCacheKey(authorities);
+		if (cacheKey != null) {
+			Collection<GrantedAuthority> cached = this.reachableAuthoritiesCache
+					.get(cacheKey);
+			if (cached != null) {
+				return cached;
+			}
+		}
+
+		List<GrantedAuthority> reachableRoles = new ArrayList<GrantedAuthority>();
+		Set<String> reachableRoleNames = new HashSet<String>();
 
 		for (GrantedAuthority authority : authorities) {
-			addReachableRoles(reachableRoles, authority);
-			Set<GrantedAuthority> additionalReachableRoles = getRolesReachableInOneOrMoreSteps(
-					authority);
+			String role = authority.getAuthority();
+			if (role == null) {
+				reachableRoles.add(authority);
+				continue;
+			}
+			// SEC-863
+			if (reachableRoleNames.add(role)) {
+				reachableRoles.add(authority);
+			}
+			GrantedAuthority[] additionalReachableRoles = this.reachableAuthoritiesByRole
+					.get(role);
 			if (additionalReachableRoles != null) {
-				reachableRoles.addAll(additionalReachableRoles);
+				for (GrantedAuthority additionalRole : additionalReachableRoles) {
+					if (reachableRoleNames.add(additionalRole.getAuthority())) {
+						reachableRoles.add(additionalRole);
+					}
+				}
 			}
 		}
 
@@ -132,11 +193,40 @@ public class RoleHierarchyImpl implements RoleHierarchy {
 					+ " in zero or more steps.");
 		}
 
-		List<GrantedAuthority> reachableRoleList = new ArrayList<GrantedAuthority>(
-				reachableRoles.size());
-		reachableRoleList.addAll(reachableRoles);
+		if (cacheKey == null) {
+			return Collections.unmodifiableList(reachableRoles);
+		}
+		Collection<GrantedAuthority> result = GrantedAuthorityRegistry.getDefault()
+				.createAuthorityList(reachableRoles);
+		if (this.reachableAuthoritiesCache.size() < this.maxCachedAuthoritySets) {
+			this.reachableAuthoritiesCache.putIfAbsent(cacheKey, result);
+		}
+		return result;
+	}
 
-		return reachableRoleList;
+	/**
+	 * Only collections of {@link SimpleGrantedAuthority} are cached, since they are
+	 * fully described by their authority strings. Other implementations (i.e.
+	 * {@code SwitchUserGrantedAuthority}) carry additional state which must be returned
+	 * as is.
+	 */
+	private Object getCacheKey(Collection<? extends GrantedAuthority> authorities) {
+		if (this.maxCachedAuthoritySets <= 0) {
+			return null;
+		}
+		if (authorities.size() == 1) {
+			GrantedAuthority authority = authorities.iterator().next();
+			return authority.getClass() == SimpleGrantedAuthority.class ? authority
+					.getAuthority() : null;
+		}
+		Set<String> key = new HashSet<String>(authorities.size() * 2);
+		for (GrantedAuthority authority : authorities) {
+			if (authority.getClass() != SimpleGrantedAuthority.class) {
+				return null;
+			}
+			key.add(authority.getAuthority());
+		}
+		return key;
 	}
 
 	// SEC-863
@@ -152,25 +242,6 @@ public class RoleHierarchyImpl implements RoleHierarchy {
 		reachableRoles.add(authority);
 	}
 
-	// SEC-863
-	private Set<GrantedAuthority> getRolesReachableInOneOrMoreSteps(
-			GrantedAuthority authority) {
-
-		if (authority.getAuthority() == null) {
-			return null;
-		}
-
-		for (GrantedAuthority testAuthority : this.rolesReachableInOneOrMoreStepsMap
-				.keySet()) {
-			String testKey = testAuthority.getAuthority();
-			if ((testKey != null) && (testKey.equals(authority.getAuthority()))) {
-				return this.rolesReachableInOneOrMoreStepsMap.get(testAuthority);
-			}
-		}
-
-		return null;
-	}
-
 	/**
 	 * Parse input and build the map for the roles reachable in one step: the higher role
 	 * will become a key that references a set of the reachable lower roles.
@@ -252,4 +323,26 @@ public class RoleHierarchyImpl implements RoleHierarchy {
 
 	}
 
+	/**
+	 * Compile rolesReachableInOneOrMoreStepsMap into a map keyed by the authority
+	 * string, using the interned {@link GrantedAuthority} instance of each role, and
+	 * discard the results cached for the previous hierarchy.
+	 */
+	private void buildReachableAuthoritiesByRole() {
+		GrantedAuthorityRegistry registry = GrantedAuthorityRegistry.getDefault();
+		Map<String, GrantedAuthority[]> reachableAuthoritiesByRole = new HashMap<String, GrantedAuthority[]>();
+		for (Map.Entry<GrantedAuthority, Set<GrantedAuthority>> entry : this.rolesReachableInOneOrMoreStepsMap
+				.entrySet()) {
+			Set<GrantedAuthority> reachableRoles = entry.getValue();
+			GrantedAuthority[] interned = new GrantedAuthority[reachableRoles.size()];
+			int i = 0;
+			for (GrantedAuthority reachableRole : reachableRoles) {
+				interned[i++] = registry.intern(reachableRole);
+			}
+			reachableAuthoritiesByRole.put(entry.getKey().getAuthority(), interned);
+		}
+		this.reachableAuthoritiesByRole = reachableAuthoritiesByRole;
+		this.reachableAuthoritiesCache = new ConcurrentHashMap<Object, Collection<GrantedAuthority>>();
+	}
+
 }
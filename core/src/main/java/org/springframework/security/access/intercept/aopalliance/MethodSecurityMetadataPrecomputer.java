@@ -0,0 +1,143 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.intercept.aopalliance;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.method.DelegatingMethodSecurityMetadataSource;
+import org.springframework.security.access.method.MethodSecurityMetadataSource;
+import org.springframework.util.Assert;
+
+/**
+ * Resolves the {@link ConfigAttribute}s of every method of the beans advised by a
+ * {@link MethodSecurityMetadataSourceAdvisor} once all the singletons of the
+ * {@link BeanFactory} have been instantiated, rather than on the first invocation of
+ * each method.
+ * <p>
+ * This moves the cost of resolving the metadata, including parsing any expressions, to
+ * startup and means that invalid metadata, such as a {@code @PreAuthorize} expression
+ * which cannot be parsed, prevents the application from starting instead of failing the
+ * first invocation of the method. If the {@link MethodSecurityMetadataSource} is a
+ * {@link DelegatingMethodSecurityMetadataSource}, the resolved metadata is then
+ * {@link DelegatingMethodSecurityMetadataSource#freeze() frozen}.
+ * <p>
+ * Only singletons are scanned. Metadata of beans with another scope, or of beans which
+ * are woven using AspectJ, is still resolved on the first invocation.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public final class MethodSecurityMetadataPrecomputer implements
+		SmartInitializingSingleton, BeanFactoryAware {
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final MethodSecurityMetadataSource metadataSource;
+
+	private ConfigurableListableBeanFactory beanFactory;
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param metadataSource the {@link MethodSecurityMetadataSource} used by the
+	 * {@link MethodSecurityInterceptor}
+	 */
+	public MethodSecurityMetadataPrecomputer(MethodSecurityMetadataSource metadataSource) {
+		Assert.notNull(metadataSource, "metadataSource cannot be null");
+		this.metadataSource = metadataSource;
+	}
+
+	public void afterSingletonsInstantiated() {
+		int beans = 0;
+		int securedMethods = 0;
+		for (String beanName : beanFactory.getSingletonNames()) {
+			Object bean = beanFactory.getSingleton(beanName);
+			if (!isSecured(bean)) {
+				continue;
+			}
+			try {
+				securedMethods += precompute((Advised) bean);
+			}
+			catch (IllegalArgumentException e) {
+				throw new BeanInitializationException(
+						"Failed to resolve the method security metadata of bean '"
+								+ beanName + "'", e);
+			}
+			beans++;
+		}
+		if (metadataSource instanceof DelegatingMethodSecurityMetadataSource) {
+			((DelegatingMethodSecurityMetadataSource) metadataSource).freeze();
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Resolved the metadata of " + securedMethods
+					+ " secured methods of " + beans + " beans");
+		}
+	}
+
+	private int precompute(Advised advised) {
+		Class<?> targetClass = AopProxyUtils.ultimateTargetClass(advised);
+		int securedMethods = precompute(targetClass.getMethods(), targetClass);
+		for (Class<?> proxiedInterface : advised.getProxiedInterfaces()) {
+			securedMethods += precompute(proxiedInterface.getMethods(), targetClass);
+		}
+		return securedMethods;
+	}
+
+	private int precompute(Method[] methods, Class<?> targetClass) {
+		int securedMethods = 0;
+		for (Method method : methods) {
+			if (method.getDeclaringClass() == Object.class) {
+				continue;
+			}
+			Collection<ConfigAttribute> attributes = metadataSource.getAttributes(
+					method, targetClass);
+			if (attributes != null && !attributes.isEmpty()) {
+				securedMethods++;
+			}
+		}
+		return securedMethods;
+	}
+
+	private static boolean isSecured(Object bean) {
+		if (!(bean instanceof Advised)) {
+			return false;
+		}
+		for (Advisor advisor : ((Advised) bean).getAdvisors()) {
+			if (advisor instanceof MethodSecurityMetadataSourceAdvisor) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+		Assert.isInstanceOf(ConfigurableListableBeanFactory.class, beanFactory,
+				"MethodSecurityMetadataPrecomputer requires a ConfigurableListableBeanFactory");
+		this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+	}
+}
@@ -25,7 +25,9 @@ import org.springframework.security.access.ConfigAttribute;
  * Abstract implementation of {@link MethodSecurityMetadataSource} that supports both
  * Spring AOP and AspectJ and performs attribute resolution from: 1. specific target
  * method; 2. target class; 3. declaring method; 4. declaring class/interface. Use with
- * {@link DelegatingMethodSecurityMetadataSource} for caching support.
+ * {@link DelegatingMethodSecurityMetadataSource} for caching support, or enable
+ * {@link #setCacheAttributes(boolean) caching} when the metadata of a method cannot
+ * change once resolved.
  * <p>
  * This class mimics the behaviour of Spring's
  * <tt>AbstractFallbackTransactionAttributeSource</tt> class.
@@ -45,7 +47,43 @@ import org.springframework.security.access.ConfigAttribute;
 public abstract class AbstractFallbackMethodSecurityMetadataSource extends
 		AbstractMethodSecurityMetadataSource {
 
+	/**
+	 * Cached in place of null so that null can still be returned for a cached method
+	 */
+	private static final Collection<ConfigAttribute> NULL_ATTRIBUTES = Collections
+			.unmodifiableList(new ArrayList<ConfigAttribute>(0));
+
+	private MethodSecurityMetadataCache attributeCache;
+
 	public Collection<ConfigAttribute> getAttributes(Method method, Class<?> targetClass) {
+		if (attributeCache == null) {
+			return resolveAttributes(method, targetClass);
+		}
+		Collection<ConfigAttribute> cached = attributeCache.get(method, targetClass);
+		if (cached == null) {
+			Collection<ConfigAttribute> attributes = resolveAttributes(method,
+					targetClass);
+			cached = attributeCache.put(method, targetClass,
+					attributes == null ? NULL_ATTRIBUTES : attributes);
+		}
+		return cached == NULL_ATTRIBUTES ? null : cached;
+	}
+
+	/**
+	 * If true, the metadata resolved for a method and target class is cached in a
+	 * {@link MethodSecurityMetadataCache}, including the absence of metadata. Only
+	 * enable this when the result of {@link #findAttributes(Method, Class)} and
+	 * {@link #findAttributes(Class)} cannot change. Default is false.
+	 *
+	 * @param cacheAttributes true if the resolved metadata should be cached
+	 * @since 4.1
+	 */
+	public void setCacheAttributes(boolean cacheAttributes) {
+		this.attributeCache = cacheAttributes ? new MethodSecurityMetadataCache() : null;
+	}
+
+	private Collection<ConfigAttribute> resolveAttributes(Method method,
+			Class<?> targetClass) {
 		// The method may be on an interface, but we need attributes from the target
 		// class.
 		// If the target class is null, the method will be unchanged.
@@ -17,32 +17,26 @@ package org.springframework.security.access.method;
 
 import java.lang.reflect.Method;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.springframework.security.access.ConfigAttribute;
 import org.springframework.util.Assert;
-import org.springframework.util.ObjectUtils;
 
 /**
  * Automatically tries a series of method definition sources, relying on the first source
  * of metadata that provides a non-null/non-empty response. Provides automatic caching of
- * the retrieved metadata.
+ * the retrieved metadata in a {@link MethodSecurityMetadataCache}, so that concurrent
+ * invocations do not contend for a lock.
  *
  * @author Ben Alex
  * @author Luke Taylor
  */
 public final class DelegatingMethodSecurityMetadataSource extends
 		AbstractMethodSecurityMetadataSource {
-	private final static List<ConfigAttribute> NULL_CONFIG_ATTRIBUTE = Collections
-			.emptyList();
-
 	private final List<MethodSecurityMetadataSource> methodSecurityMetadataSources;
-	private final Map<DefaultCacheKey, Collection<ConfigAttribute>> attributeCache = new HashMap<DefaultCacheKey, Collection<ConfigAttribute>>();
+	private final MethodSecurityMetadataCache attributeCache = new MethodSecurityMetadataCache();
 
 	// ~ Constructor
 	// ====================================================================================================
@@ -58,39 +52,33 @@ public final class DelegatingMethodSecurityMetadataSource extends
 	// ========================================================================================================
 
 	public Collection<ConfigAttribute> getAttributes(Method method, Class<?> targetClass) {
-		DefaultCacheKey cacheKey = new DefaultCacheKey(method, targetClass);
-		synchronized (attributeCache) {
-			Collection<ConfigAttribute> cached = attributeCache.get(cacheKey);
-			// Check for canonical value indicating there is no config attribute,
-
-			if (cached != null) {
-				return cached;
-			}
-
-			// No cached value, so query the sources to find a result
-			Collection<ConfigAttribute> attributes = null;
-			for (MethodSecurityMetadataSource s : methodSecurityMetadataSources) {
-				attributes = s.getAttributes(method, targetClass);
-				if (attributes != null && !attributes.isEmpty()) {
-					break;
-				}
-			}
-
-			// Put it in the cache.
-			if (attributes == null || attributes.isEmpty()) {
-				this.attributeCache.put(cacheKey, NULL_CONFIG_ATTRIBUTE);
-				return NULL_CONFIG_ATTRIBUTE;
-			}
+		Collection<ConfigAttribute> cached = attributeCache.get(method, targetClass);
+		// An empty collection is the canonical value indicating there is no config
+		// attribute
+		if (cached != null) {
+			return cached;
+		}
 
-			if (logger.isDebugEnabled()) {
-				logger.debug("Caching method [" + cacheKey + "] with attributes "
-						+ attributes);
+		// No cached value, so query the sources to find a result. Another thread may do
+		// the same concurrently, in which case the first result to be cached is kept.
+		Collection<ConfigAttribute> attributes = null;
+		for (MethodSecurityMetadataSource s : methodSecurityMetadataSources) {
+			attributes = s.getAttributes(method, targetClass);
+			if (attributes != null && !attributes.isEmpty()) {
+				break;
 			}
+		}
 
-			this.attributeCache.put(cacheKey, attributes);
+		if (logger.isDebugEnabled() && attributes != null && !attributes.isEmpty()) {
+			logger.debug("Caching method [" + method + "] on target ["
+					+ targetClass + "] with attributes " + attributes);
+		}
 
-			return attributes;
+		// Put it in the cache.
+		if (attributes == null || attributes.isEmpty()) {
+			return attributeCache.put(method, targetClass, null);
 		}
+		return attributeCache.put(method, targetClass, attributes);
 	}
 
 	public Collection<ConfigAttribute> getAllConfigAttributes() {
@@ -104,36 +92,18 @@ public final class DelegatingMethodSecurityMetadataSource extends
 		return set;
 	}
 
-	public List<MethodSecurityMetadataSource> getMethodSecurityMetadataSources() {
-		return methodSecurityMetadataSources;
+	/**
+	 * Freezes the metadata resolved so far into an immutable index which is consulted
+	 * first by subsequent lookups. Metadata which is only resolved afterwards is still
+	 * cached.
+	 *
+	 * @see MethodSecurityMetadataCache#freeze()
+	 */
+	public void freeze() {
+		attributeCache.freeze();
 	}
 
-	// ~ Inner Classes
-	// ==================================================================================================
-
-	private static class DefaultCacheKey {
-		private final Method method;
-		private final Class<?> targetClass;
-
-		public DefaultCacheKey(Method method, Class<?> targetClass) {
-			this.method = method;
-			this.targetClass = targetClass;
-		}
-
-		public boolean equals(Object other) {
-			DefaultCacheKey otherKey = (DefaultCacheKey) other;
-			return (this.method.equals(otherKey.method) && ObjectUtils.nullSafeEquals(
-					this.targetClass, otherKey.targetClass));
-		}
-
-		public int hashCode() {
-			return this.method.hashCode() * 21
-					+ (this.targetClass != null ? this.targetClass.hashCode() : 0);
-		}
-
-		public String toString() {
-			return "CacheKey[" + (targetClass == null ? "-" : targetClass.getName())
-					+ "; " + method + "]";
-		}
+	public List<MethodSecurityMetadataSource> getMethodSecurityMetadataSources() {
+		return methodSecurityMetadataSources;
 	}
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.method;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * A thread safe cache of the {@link ConfigAttribute}s resolved for a {@link Method} and
+ * target class, used by {@link MethodSecurityMetadataSource} implementations whose
+ * metadata does not change once resolved.
+ * <p>
+ * Reads do not lock, so concurrent invocations of secured methods do not contend once
+ * the metadata has been resolved. Methods without any metadata are cached as well, so
+ * unsecured methods are not resolved again either.
+ * <p>
+ * Once the metadata of the application has been resolved, typically at startup, the
+ * cache can be {@link #freeze() frozen}. The entries cached so far are then moved into
+ * an immutable index which is consulted first, while entries which are only resolved
+ * later are still cached as usual.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public final class MethodSecurityMetadataCache {
+	private static final Collection<ConfigAttribute> NO_ATTRIBUTES = Collections
+			.emptyList();
+
+	private final ConcurrentMap<CacheKey, Collection<ConfigAttribute>> attributeCache = new ConcurrentHashMap<CacheKey, Collection<ConfigAttribute>>(
+			256);
+
+	private volatile Map<CacheKey, Collection<ConfigAttribute>> frozenCache = Collections
+			.emptyMap();
+
+	/**
+	 * Obtains the cached {@link ConfigAttribute}s.
+	 *
+	 * @param method the method
+	 * @param targetClass the target class (may be null)
+	 * @return the cached {@link ConfigAttribute}s, an empty collection if it is cached
+	 * that there are none, or null if nothing is cached
+	 */
+	public Collection<ConfigAttribute> get(Method method, Class<?> targetClass) {
+		CacheKey cacheKey = new CacheKey(method, targetClass);
+		Collection<ConfigAttribute> frozen = frozenCache.get(cacheKey);
+		if (frozen != null || attributeCache.isEmpty()) {
+			return frozen;
+		}
+		return attributeCache.get(cacheKey);
+	}
+
+	/**
+	 * Caches the {@link ConfigAttribute}s. If another thread cached the same method and
+	 * target class concurrently, the value which was cached first is kept.
+	 *
+	 * @param method the method
+	 * @param targetClass the target class (may be null)
+	 * @param attributes the {@link ConfigAttribute}s, which may be empty. If null, an
+	 * empty collection is cached.
+	 * @return the cached {@link ConfigAttribute}s, never null
+	 */
+	public Collection<ConfigAttribute> put(Method method, Class<?> targetClass,
+			Collection<ConfigAttribute> attributes) {
+		if (attributes == null) {
+			attributes = NO_ATTRIBUTES;
+		}
+		CacheKey cacheKey = new CacheKey(method, targetClass);
+		Collection<ConfigAttribute> frozen = frozenCache.get(cacheKey);
+		if (frozen != null) {
+			return frozen;
+		}
+		Collection<ConfigAttribute> existing = attributeCache.putIfAbsent(cacheKey,
+				attributes);
+		return existing == null ? attributes : existing;
+	}
+
+	/**
+	 * @return the number of cached entries, including those without
+	 * {@link ConfigAttribute}s
+	 */
+	public int size() {
+		return frozenCache.size() + attributeCache.size();
+	}
+
+	/**
+	 * Moves the entries cached so far into an immutable index which is consulted before
+	 * any entry cached afterwards, so that each entry is only stored once. May be invoked
+	 * more than once, in which case the index is replaced by one containing all the
+	 * entries cached so far.
+	 */
+	public synchronized void freeze() {
+		Map<CacheKey, Collection<ConfigAttribute>> frozen = new HashMap<CacheKey, Collection<ConfigAttribute>>(
+				frozenCache);
+		Map<CacheKey, Collection<ConfigAttribute>> moved = new HashMap<CacheKey, Collection<ConfigAttribute>>(
+				attributeCache);
+		frozen.putAll(moved);
+		frozenCache = Collections.unmodifiableMap(frozen);
+		// only removed once published, so that concurrent lookups always find the entries
+		for (Map.Entry<CacheKey, Collection<ConfigAttribute>> entry : moved.entrySet()) {
+			attributeCache.remove(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * @return the number of entries in the index created by {@link #freeze()}
+	 */
+	public int frozenSize() {
+		return frozenCache.size();
+	}
+
+	/**
+	 * Removes all the cached entries, including those which were frozen.
+	 */
+	public synchronized void clear() {
+		frozenCache = Collections.emptyMap();
+		attributeCache.clear();
+	}
+
+	private static final class CacheKey {
+		private final Method method;
+		private final Class<?> targetClass;
+		private final int hashCode;
+
+		private CacheKey(Method method, Class<?> targetClass) {
+			this.method = method;
+			this.targetClass = targetClass;
+			this.hashCode = method.hashCode() * 21
+					+ (targetClass != null ? targetClass.hashCode() : 0);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey otherKey = (CacheKey) other;
+			return this.method.equals(otherKey.method)
+					&& ObjectUtils.nullSafeEquals(this.targetClass, otherKey.targetClass);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+		@Override
+		public String toString() {
+			return "CacheKey[" + (targetClass == null ? "-" : targetClass.getName())
+					+ "; " + method + "]";
+		}
+	}
+}
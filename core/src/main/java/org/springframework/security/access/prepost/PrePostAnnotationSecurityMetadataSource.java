@@ -22,6 +22,7 @@ import java.util.*;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.security.access.ConfigAttribute;
 import org.springframework.security.access.method.AbstractMethodSecurityMetadataSource;
+import org.springframework.security.access.method.MethodSecurityMetadataCache;
 import org.springframework.util.ClassUtils;
 
 /**
@@ -50,12 +51,39 @@ public class PrePostAnnotationSecurityMetadataSource extends
 
 	private final PrePostInvocationAttributeFactory attributeFactory;
 
+	private MethodSecurityMetadataCache attributeCache = new MethodSecurityMetadataCache();
+
 	public PrePostAnnotationSecurityMetadataSource(
 			PrePostInvocationAttributeFactory attributeFactory) {
 		this.attributeFactory = attributeFactory;
 	}
 
 	public Collection<ConfigAttribute> getAttributes(Method method, Class<?> targetClass) {
+		if (attributeCache == null) {
+			return resolveAttributes(method, targetClass);
+		}
+		Collection<ConfigAttribute> cached = attributeCache.get(method, targetClass);
+		if (cached != null) {
+			return cached;
+		}
+		return attributeCache.put(method, targetClass,
+				resolveAttributes(method, targetClass));
+	}
+
+	/**
+	 * If true, the attributes created for a method and target class are cached in a
+	 * {@link MethodSecurityMetadataCache}, including the absence of annotations, so the
+	 * annotations are only looked up and parsed once. Default is true.
+	 *
+	 * @param cacheAttributes true if the attributes should be cached
+	 * @since 4.1
+	 */
+	public void setCacheAttributes(boolean cacheAttributes) {
+		this.attributeCache = cacheAttributes ? new MethodSecurityMetadataCache() : null;
+	}
+
+	private Collection<ConfigAttribute> resolveAttributes(Method method,
+			Class<?> targetClass) {
 		if (method.getDeclaringClass() == Object.class) {
 			return Collections.emptyList();
 		}
@@ -16,8 +16,10 @@
 
 package org.springframework.security.access.vote;
 
-import java.util.Iterator;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -25,6 +27,7 @@ import org.springframework.security.access.AccessDecisionManager;
 import org.springframework.security.access.AccessDecisionVoter;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.SpringSecurityMessageSource;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.MessageSource;
@@ -39,6 +42,13 @@ import org.springframework.util.Assert;
  * Handles configuration of a bean context defined list of {@link AccessDecisionVoter}s
  * and the access control behaviour if all voters abstain from voting (defaults to deny
  * access).
+ * <p>
+ * When {@link #supports(ConfigAttribute)} is invoked for an attribute, which the
+ * {@code AbstractSecurityInterceptor} does for every attribute of its
+ * {@code SecurityMetadataSource} at startup, the voters which support the attribute are
+ * recorded. Subclasses then only poll the voters which support at least one of the
+ * attributes being decided, since the others would abstain. Attributes which have not
+ * been seen by {@link #supports(ConfigAttribute)} are decided by polling every voter.
  */
 public abstract class AbstractAccessDecisionManager implements AccessDecisionManager,
 		InitializingBean, MessageSourceAware {
@@ -46,12 +56,32 @@ public abstract class AbstractAccessDecisionManager implements AccessDecisionMan
 	// ================================================================================================
 	protected final Log logger = LogFactory.getLog(getClass());
 
+	private static final int MAX_ROUTED_VOTERS = 63;
+
+	private static final long ALL_VOTERS = -1L;
+
 	private List<AccessDecisionVoter<? extends Object>> decisionVoters;
 
 	protected MessageSourceAccessor messages = SpringSecurityMessageSource.getAccessor();
 
 	private boolean allowIfAllAbstainDecisions = false;
 
+	private AccessDecisionCache decisionCache;
+
+	/**
+	 * A bit mask of the indexes of the voters which the decision cache considers
+	 * independent of the secured object
+	 */
+	private long objectIndependentVoters;
+
+	private boolean voterRouting = true;
+
+	/**
+	 * For each attribute seen by {@link #supports(ConfigAttribute)}, a bit mask of the
+	 * indexes of the voters supporting it
+	 */
+	private final ConcurrentMap<RouteKey, Long> voterRoutes = new ConcurrentHashMap<RouteKey, Long>();
+
 	protected AbstractAccessDecisionManager(
 			List<AccessDecisionVoter<? extends Object>> decisionVoters) {
 		Assert.notEmpty(decisionVoters, "A list of AccessDecisionVoters is required");
@@ -73,6 +103,114 @@ public abstract class AbstractAccessDecisionManager implements AccessDecisionMan
 		}
 	}
 
+	/**
+	 * Gets the decision for the {@link Authentication} and attributes from the
+	 * {@link #setDecisionCache(AccessDecisionCache) decision cache}.
+	 *
+	 * @param authentication the caller invoking the secured object
+	 * @param configAttributes the configuration attributes of the secured object
+	 * @return the cached decision or null if there is none
+	 * @since 4.1
+	 */
+	protected final Integer getCachedDecision(Authentication authentication,
+			Collection<ConfigAttribute> configAttributes) {
+		if (!isDecisionCacheable(configAttributes)) {
+			return null;
+		}
+		Integer decision = decisionCache.get(authentication, configAttributes);
+		if (decision != null && logger.isDebugEnabled()) {
+			logger.debug("Using cached decision: " + decision);
+		}
+		return decision;
+	}
+
+	/**
+	 * Caches the decision if a {@link #setDecisionCache(AccessDecisionCache) decision
+	 * cache} is configured and then grants or denies access accordingly.
+	 *
+	 * @param authentication the caller invoking the secured object
+	 * @param configAttributes the configuration attributes of the secured object
+	 * @param decision {@link AccessDecisionVoter#ACCESS_GRANTED},
+	 * {@link AccessDecisionVoter#ACCESS_DENIED} or
+	 * {@link AccessDecisionVoter#ACCESS_ABSTAIN} if every voter abstained
+	 * @throws AccessDeniedException if access is denied
+	 * @since 4.1
+	 */
+	protected final void applyDecision(Authentication authentication,
+			Collection<ConfigAttribute> configAttributes, int decision) {
+		if (isDecisionCacheable(configAttributes)) {
+			decisionCache.put(authentication, configAttributes, decision);
+		}
+		applyDecision(decision);
+	}
+
+	/**
+	 * Determines if a decision cache is configured and every voter supporting one of the
+	 * attributes is {@link AccessDecisionCache#isObjectIndependent(AccessDecisionVoter)
+	 * independent} of the secured object.
+	 */
+	private boolean isDecisionCacheable(Collection<ConfigAttribute> configAttributes) {
+		if (decisionCache == null || configAttributes == null) {
+			return false;
+		}
+		return (getSupportingVoters(configAttributes) & ~objectIndependentVoters) == 0;
+	}
+
+	/**
+	 * Gets the voters which support at least one of the attributes, regardless of
+	 * {@link #setVoterRouting(boolean)}. Attributes which have not been seen by
+	 * {@link #supports(ConfigAttribute)} are resolved without being recorded.
+	 */
+	private long getSupportingVoters(Collection<ConfigAttribute> attributes) {
+		if (this.decisionVoters.size() > MAX_ROUTED_VOTERS) {
+			return ALL_VOTERS;
+		}
+
+		long route = 0;
+
+		for (ConfigAttribute attribute : attributes) {
+			if (attribute == null) {
+				return ALL_VOTERS;
+			}
+			Long attributeRoute = voterRoutes.get(new RouteKey(attribute));
+			route |= attributeRoute == null ? computeRoute(attribute) : attributeRoute;
+		}
+
+		return route;
+	}
+
+	private long computeRoute(ConfigAttribute attribute) {
+		long route = 0;
+
+		for (int i = 0; i < this.decisionVoters.size(); i++) {
+			if (this.decisionVoters.get(i).supports(attribute)) {
+				route |= 1L << i;
+			}
+		}
+
+		return route;
+	}
+
+	/**
+	 * Grants or denies access according to the decision.
+	 *
+	 * @param decision {@link AccessDecisionVoter#ACCESS_GRANTED},
+	 * {@link AccessDecisionVoter#ACCESS_DENIED} or
+	 * {@link AccessDecisionVoter#ACCESS_ABSTAIN} if every voter abstained
+	 * @throws AccessDeniedException if access is denied
+	 * @since 4.1
+	 */
+	protected final void applyDecision(int decision) {
+		if (decision == AccessDecisionVoter.ACCESS_GRANTED) {
+			return;
+		}
+		if (decision == AccessDecisionVoter.ACCESS_DENIED) {
+			throw new AccessDeniedException(messages.getMessage(
+					"AbstractAccessDecisionManager.accessDenied", "Access is denied"));
+		}
+		checkAllowIfAllAbstainDecisions();
+	}
+
 	public List<AccessDecisionVoter<? extends Object>> getDecisionVoters() {
 		return this.decisionVoters;
 	}
@@ -85,18 +223,112 @@ public abstract class AbstractAccessDecisionManager implements AccessDecisionMan
 		this.allowIfAllAbstainDecisions = allowIfAllAbstainDecisions;
 	}
 
+	public AccessDecisionCache getDecisionCache() {
+		return decisionCache;
+	}
+
+	/**
+	 * Sets the {@link AccessDecisionCache} used to avoid polling the voters for
+	 * attributes whose decision only depends on the {@link Authentication}. The default
+	 * is null, which means every decision is made by polling the voters.
+	 *
+	 * @param decisionCache the {@link AccessDecisionCache} to use, or null
+	 * @since 4.1
+	 */
+	public void setDecisionCache(AccessDecisionCache decisionCache) {
+		long independent = 0;
+		if (decisionCache != null && this.decisionVoters.size() <= MAX_ROUTED_VOTERS) {
+			for (int i = 0; i < this.decisionVoters.size(); i++) {
+				if (decisionCache.isObjectIndependent(this.decisionVoters.get(i))) {
+					independent |= 1L << i;
+				}
+			}
+		}
+		this.objectIndependentVoters = independent;
+		this.decisionCache = decisionCache;
+	}
+
 	public void setMessageSource(MessageSource messageSource) {
 		this.messages = new MessageSourceAccessor(messageSource);
 	}
 
+	/**
+	 * Determines if any of the voters supports the attribute, and records which of them
+	 * do so that only these are polled for the attribute.
+	 */
 	public boolean supports(ConfigAttribute attribute) {
-		for (AccessDecisionVoter voter : this.decisionVoters) {
-			if (voter.supports(attribute)) {
-				return true;
+		boolean supported = false;
+		long route = 0;
+
+		for (int i = 0; i < this.decisionVoters.size(); i++) {
+			if (this.decisionVoters.get(i).supports(attribute)) {
+				supported = true;
+				route |= 1L << i;
+			}
+		}
+
+		if (attribute != null && this.decisionVoters.size() <= MAX_ROUTED_VOTERS) {
+			voterRoutes.put(new RouteKey(attribute), route);
+		}
+
+		return supported;
+	}
+
+	/**
+	 * Gets the voters to poll for the attributes, which is every voter that supports
+	 * at least one of the attributes. Use {@link #isRouted(long, int)} to test whether a
+	 * voter should be polled.
+	 *
+	 * @param attributes the attributes being decided
+	 * @return the route
+	 * @since 4.1
+	 */
+	protected final long getVoterRoute(Collection<ConfigAttribute> attributes) {
+		if (!voterRouting || attributes == null || voterRoutes.isEmpty()) {
+			return ALL_VOTERS;
+		}
+
+		long route = 0;
+
+		for (ConfigAttribute attribute : attributes) {
+			Long attributeRoute = attribute == null ? null : voterRoutes
+					.get(new RouteKey(attribute));
+			if (attributeRoute == null) {
+				return ALL_VOTERS;
 			}
+			route |= attributeRoute;
 		}
 
-		return false;
+		return route;
+	}
+
+	/**
+	 * Determines if the voter at the index of {@link #getDecisionVoters()} should be
+	 * polled.
+	 *
+	 * @param route the route returned by {@link #getVoterRoute(Collection)}
+	 * @param voterIndex the index of the voter
+	 * @return true if the voter should be polled
+	 * @since 4.1
+	 */
+	protected static boolean isRouted(long route, int voterIndex) {
+		return route == ALL_VOTERS || (route & (1L << voterIndex)) != 0;
+	}
+
+	public boolean isVoterRouting() {
+		return voterRouting;
+	}
+
+	/**
+	 * Determines whether only the voters which support the attributes being decided are
+	 * polled. This relies on voters abstaining for the attributes they do not support,
+	 * which is the contract of {@link AccessDecisionVoter}. The default is true.
+	 *
+	 * @param voterRouting false to poll every voter for every decision
+	 * @since 4.1
+	 */
+	public void setVoterRouting(boolean voterRouting) {
+		this.voterRouting = voterRouting;
 	}
 
 	/**
@@ -118,4 +350,36 @@ public abstract class AbstractAccessDecisionManager implements AccessDecisionMan
 
 		return true;
 	}
+
+	/**
+	 * Identifies an attribute by its class as well as by equality, since the equality of
+	 * {@code SecurityConfig} only compares the attribute string, so that for example a
+	 * {@code SecurityConfig} and a {@code Jsr250SecurityConfig} with the same string,
+	 * which are supported by different voters, are routed separately.
+	 */
+	private static final class RouteKey {
+		private final ConfigAttribute attribute;
+
+		private RouteKey(ConfigAttribute attribute) {
+			this.attribute = attribute;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof RouteKey)) {
+				return false;
+			}
+			ConfigAttribute otherAttribute = ((RouteKey) other).attribute;
+			return attribute.getClass() == otherAttribute.getClass()
+					&& attribute.equals(otherAttribute);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * attribute.getClass().hashCode() + attribute.hashCode();
+		}
+	}
 }
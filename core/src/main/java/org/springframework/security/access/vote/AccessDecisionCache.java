@@ -0,0 +1,283 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.vote;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
+import org.springframework.security.access.annotation.Jsr250SecurityConfig;
+import org.springframework.security.access.annotation.Jsr250Voter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.InternedAuthorityList;
+import org.springframework.security.util.BoundedCache;
+
+/**
+ * A bounded cache of the decisions made by an {@link AbstractAccessDecisionManager}, for
+ * {@link ConfigAttribute}s whose decision does not depend on the secured object. A
+ * decision is cached for the type of the {@link Authentication}, whether it is
+ * authenticated, its {@link GrantedAuthority}s and the identity of the
+ * {@link ConfigAttribute} collection, which the {@code SecurityMetadataSource}
+ * implementations return the same instance of for a secured method or URL.
+ * <p>
+ * A decision is only cached if the collection consists entirely of
+ * {@link SecurityConfig} and {@link Jsr250SecurityConfig} instances, as used by
+ * {@code @Secured}, {@code @RolesAllowed} and URL rules without expressions, and if every
+ * {@link AccessDecisionVoter} which supports one of the attributes is known not to
+ * decide based on the secured object. By default these are {@link RoleVoter},
+ * {@link RoleHierarchyVoter}, {@link AuthenticatedVoter} and {@link Jsr250Voter}, so
+ * attributes which are also supported by an ACL voter or a custom voter are never
+ * cached. Override {@link #isCacheable(ConfigAttribute)} and
+ * {@link #isObjectIndependent(AccessDecisionVoter)} to change this.
+ * <p>
+ * When the cache is full, an arbitrary entry is evicted for every new entry. The number
+ * of hits, misses and evictions is recorded for monitoring.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ * @see AbstractAccessDecisionManager#setDecisionCache(AccessDecisionCache)
+ */
+public class AccessDecisionCache {
+	/**
+	 * The default maximum number of cached decisions
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	private final BoundedCache<CacheKey, Integer> decisions;
+
+	/**
+	 * Creates a new instance which holds up to {@link #DEFAULT_MAX_ENTRIES} decisions.
+	 */
+	public AccessDecisionCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param maxEntries the maximum number of cached decisions. Must be positive.
+	 */
+	public AccessDecisionCache(int maxEntries) {
+		this.decisions = new BoundedCache<CacheKey, Integer>(getClass().getSimpleName(),
+				maxEntries);
+	}
+
+	/**
+	 * Gets the cached decision.
+	 *
+	 * @param authentication the caller invoking the secured object
+	 * @param attributes the configuration attributes of the secured object
+	 * @return {@link AccessDecisionVoter#ACCESS_GRANTED},
+	 * {@link AccessDecisionVoter#ACCESS_DENIED} or
+	 * {@link AccessDecisionVoter#ACCESS_ABSTAIN} if all voters abstained, or null if the
+	 * decision is not cached or not cacheable
+	 */
+	public Integer get(Authentication authentication,
+			Collection<ConfigAttribute> attributes) {
+		if (!isCacheable(authentication, attributes)) {
+			return null;
+		}
+		Integer decision = decisions.get(new CacheKey(authentication, attributes));
+		if (decision == null) {
+			decisions.recordMiss();
+		}
+		else {
+			decisions.recordHit();
+		}
+		return decision;
+	}
+
+	/**
+	 * Caches a decision. Does nothing if the attributes are not cacheable.
+	 *
+	 * @param authentication the caller invoking the secured object
+	 * @param attributes the configuration attributes of the secured object
+	 * @param decision {@link AccessDecisionVoter#ACCESS_GRANTED},
+	 * {@link AccessDecisionVoter#ACCESS_DENIED} or
+	 * {@link AccessDecisionVoter#ACCESS_ABSTAIN} if all voters abstained
+	 */
+	public void put(Authentication authentication,
+			Collection<ConfigAttribute> attributes, int decision) {
+		if (!isCacheable(authentication, attributes)) {
+			return;
+		}
+		decisions.putIfAbsent(new CacheKey(authentication, attributes), decision);
+	}
+
+	/**
+	 * Determines if the decision for the attributes can be cached.
+	 *
+	 * @param authentication the caller invoking the secured object
+	 * @param attributes the configuration attributes of the secured object
+	 * @return true if the decision can be cached
+	 */
+	public boolean isCacheable(Authentication authentication,
+			Collection<ConfigAttribute> attributes) {
+		if (authentication == null || attributes == null || attributes.isEmpty()) {
+			return false;
+		}
+		for (ConfigAttribute attribute : attributes) {
+			if (!isCacheable(attribute)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Determines if the decision for an attribute only depends on the
+	 * {@link Authentication}. The default accepts {@link SecurityConfig} and
+	 * {@link Jsr250SecurityConfig} instances, but not subclasses of them.
+	 *
+	 * @param attribute the attribute
+	 * @return true if the decision for the attribute can be cached
+	 */
+	protected boolean isCacheable(ConfigAttribute attribute) {
+		Class<?> type = attribute.getClass();
+		return type == SecurityConfig.class || type == Jsr250SecurityConfig.class;
+	}
+
+	/**
+	 * Determines if the votes of a voter only depend on the {@link Authentication} and
+	 * the {@link ConfigAttribute}s, and never on the secured object. A decision is only
+	 * cached if this is true of every voter which supports one of the attributes. The
+	 * default accepts {@link RoleVoter}, {@link RoleHierarchyVoter},
+	 * {@link AuthenticatedVoter} and {@link Jsr250Voter} instances, but not subclasses of
+	 * them.
+	 *
+	 * @param voter the voter
+	 * @return true if the votes of the voter do not depend on the secured object
+	 */
+	protected boolean isObjectIndependent(AccessDecisionVoter<?> voter) {
+		Class<?> type = voter.getClass();
+		return type == RoleVoter.class || type == RoleHierarchyVoter.class
+				|| type == AuthenticatedVoter.class || type == Jsr250Voter.class;
+	}
+
+	/**
+	 * Removes all the cached decisions. The statistics are not reset.
+	 */
+	public void clear() {
+		decisions.clear();
+	}
+
+	/**
+	 * Gets the number of cached decisions.
+	 *
+	 * @return the number of cached decisions
+	 */
+	public int size() {
+		return decisions.size();
+	}
+
+	/**
+	 * Gets the number of lookups which found a cached decision.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHitCount() {
+		return decisions.getHitCount();
+	}
+
+	/**
+	 * Gets the number of lookups of cacheable attributes which did not find a cached
+	 * decision.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMissCount() {
+		return decisions.getMissCount();
+	}
+
+	/**
+	 * Gets the number of decisions evicted because the cache was full.
+	 *
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount() {
+		return decisions.getEvictionCount();
+	}
+
+	/**
+	 * Gets the ratio of the hits to all lookups of cacheable attributes.
+	 *
+	 * @return the hit ratio between 0 and 1, or 0 if there were no lookups
+	 */
+	public double getHitRatio() {
+		return decisions.getHitRatio();
+	}
+
+	@Override
+	public String toString() {
+		return decisions.toString();
+	}
+
+	private static final class CacheKey {
+		private final Class<?> authenticationType;
+		private final boolean authenticated;
+		private final List<? extends GrantedAuthority> authorities;
+		private final Collection<ConfigAttribute> attributes;
+		private final int hashCode;
+
+		private CacheKey(Authentication authentication,
+				Collection<ConfigAttribute> attributes) {
+			Collection<? extends GrantedAuthority> authorities = authentication
+					.getAuthorities();
+			this.authenticationType = authentication.getClass();
+			this.authenticated = authentication.isAuthenticated();
+			if (authorities instanceof InternedAuthorityList) {
+				// immutable, so it can be used as is
+				this.authorities = (InternedAuthorityList) authorities;
+			}
+			else if (authorities == null) {
+				this.authorities = new ArrayList<GrantedAuthority>(0);
+			}
+			else {
+				this.authorities = new ArrayList<GrantedAuthority>(authorities);
+			}
+			this.attributes = attributes;
+			int result = authenticationType.hashCode();
+			result = 31 * result + (authenticated ? 1 : 0);
+			result = 31 * result + this.authorities.hashCode();
+			this.hashCode = 31 * result + System.identityHashCode(attributes);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey otherKey = (CacheKey) other;
+			return hashCode == otherKey.hashCode
+					&& attributes == otherKey.attributes
+					&& authenticationType == otherKey.authenticationType
+					&& authenticated == otherKey.authenticated
+					&& authorities.equals(otherKey.authorities);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}
@@ -57,9 +57,30 @@ public class AffirmativeBased extends AbstractAccessDecisionManager {
 	 */
 	public void decide(Authentication authentication, Object object,
 			Collection<ConfigAttribute> configAttributes) throws AccessDeniedException {
+		Integer decision = getCachedDecision(authentication, configAttributes);
+
+		if (decision != null) {
+			applyDecision(decision);
+			return;
+		}
+
+		applyDecision(authentication, configAttributes,
+				vote(authentication, object, configAttributes));
+	}
+
+	private int vote(Authentication authentication, Object object,
+			Collection<ConfigAttribute> configAttributes) {
 		int deny = 0;
 
-		for (AccessDecisionVoter voter : getDecisionVoters()) {
+		List<AccessDecisionVoter<? extends Object>> voters = getDecisionVoters();
+		long route = getVoterRoute(configAttributes);
+
+		for (int i = 0; i < voters.size(); i++) {
+			if (!isRouted(route, i)) {
+				continue;
+			}
+
+			AccessDecisionVoter voter = voters.get(i);
 			int result = voter.vote(authentication, object, configAttributes);
 
 			if (logger.isDebugEnabled()) {
@@ -68,7 +89,7 @@ public class AffirmativeBased extends AbstractAccessDecisionManager {
 
 			switch (result) {
 			case AccessDecisionVoter.ACCESS_GRANTED:
-				return;
+				return AccessDecisionVoter.ACCESS_GRANTED;
 
 			case AccessDecisionVoter.ACCESS_DENIED:
 				deny++;
@@ -81,11 +102,10 @@ public class AffirmativeBased extends AbstractAccessDecisionManager {
 		}
 
 		if (deny > 0) {
-			throw new AccessDeniedException(messages.getMessage(
-					"AbstractAccessDecisionManager.accessDenied", "Access is denied"));
+			return AccessDecisionVoter.ACCESS_DENIED;
 		}
 
 		// To get this far, every AccessDecisionVoter abstained
-		checkAllowIfAllAbstainDecisions();
+		return AccessDecisionVoter.ACCESS_ABSTAIN;
 	}
 }
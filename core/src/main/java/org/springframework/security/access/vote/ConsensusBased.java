@@ -66,11 +66,32 @@ public class ConsensusBased extends AbstractAccessDecisionManager {
 	 */
 	public void decide(Authentication authentication, Object object,
 			Collection<ConfigAttribute> configAttributes) throws AccessDeniedException {
+		Integer decision = getCachedDecision(authentication, configAttributes);
+
+		if (decision != null) {
+			applyDecision(decision);
+			return;
+		}
+
+		applyDecision(authentication, configAttributes,
+				vote(authentication, object, configAttributes));
+	}
+
+	private int vote(Authentication authentication, Object object,
+			Collection<ConfigAttribute> configAttributes) {
 		int grant = 0;
 		int deny = 0;
 		int abstain = 0;
 
-		for (AccessDecisionVoter voter : getDecisionVoters()) {
+		List<AccessDecisionVoter<? extends Object>> voters = getDecisionVoters();
+		long route = getVoterRoute(configAttributes);
+
+		for (int i = 0; i < voters.size(); i++) {
+			if (!isRouted(route, i)) {
+				continue;
+			}
+
+			AccessDecisionVoter voter = voters.get(i);
 			int result = voter.vote(authentication, object, configAttributes);
 
 			if (logger.isDebugEnabled()) {
@@ -96,26 +117,24 @@ public class ConsensusBased extends AbstractAccessDecisionManager {
 		}
 
 		if (grant > deny) {
-			return;
+			return AccessDecisionVoter.ACCESS_GRANTED;
 		}
 
 		if (deny > grant) {
-			throw new AccessDeniedException(messages.getMessage(
-					"AbstractAccessDecisionManager.accessDenied", "Access is denied"));
+			return AccessDecisionVoter.ACCESS_DENIED;
 		}
 
 		if ((grant == deny) && (grant != 0)) {
 			if (this.allowIfEqualGrantedDeniedDecisions) {
-				return;
+				return AccessDecisionVoter.ACCESS_GRANTED;
 			}
 			else {
-				throw new AccessDeniedException(messages.getMessage(
-						"AbstractAccessDecisionManager.accessDenied", "Access is denied"));
+				return AccessDecisionVoter.ACCESS_DENIED;
 			}
 		}
 
 		// To get this far, every AccessDecisionVoter abstained
-		checkAllowIfAllAbstainDecisions();
+		return AccessDecisionVoter.ACCESS_ABSTAIN;
 	}
 
 	public boolean isAllowIfEqualGrantedDeniedDecisions() {
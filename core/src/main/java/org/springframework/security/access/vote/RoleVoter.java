@@ -22,6 +22,7 @@ import org.springframework.security.access.AccessDecisionVoter;
 import org.springframework.security.access.ConfigAttribute;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 
 /**
  * Votes if any {@link ConfigAttribute#getAttribute()} starts with a prefix indicating
@@ -107,10 +108,9 @@ public class RoleVoter implements AccessDecisionVoter<Object> {
 				result = ACCESS_DENIED;
 
 				// Attempt to find a matching granted authority
-				for (GrantedAuthority authority : authorities) {
-					if (attribute.getAttribute().equals(authority.getAuthority())) {
-						return ACCESS_GRANTED;
-					}
+				if (AuthorityUtils.containsAuthority(authorities,
+						attribute.getAttribute())) {
+					return ACCESS_GRANTED;
 				}
 			}
 		}
@@ -62,6 +62,19 @@ public class UnanimousBased extends AbstractAccessDecisionManager {
 	 */
 	public void decide(Authentication authentication, Object object,
 			Collection<ConfigAttribute> attributes) throws AccessDeniedException {
+		Integer decision = getCachedDecision(authentication, attributes);
+
+		if (decision != null) {
+			applyDecision(decision);
+			return;
+		}
+
+		applyDecision(authentication, attributes,
+				vote(authentication, object, attributes));
+	}
+
+	private int vote(Authentication authentication, Object object,
+			Collection<ConfigAttribute> attributes) {
 
 		int grant = 0;
 		int abstain = 0;
@@ -69,10 +82,18 @@ public class UnanimousBased extends AbstractAccessDecisionManager {
 		List<ConfigAttribute> singleAttributeList = new ArrayList<ConfigAttribute>(1);
 		singleAttributeList.add(null);
 
+		List<AccessDecisionVoter<? extends Object>> voters = getDecisionVoters();
+
 		for (ConfigAttribute attribute : attributes) {
 			singleAttributeList.set(0, attribute);
+			long route = getVoterRoute(singleAttributeList);
 
-			for (AccessDecisionVoter voter : getDecisionVoters()) {
+			for (int i = 0; i < voters.size(); i++) {
+				if (!isRouted(route, i)) {
+					continue;
+				}
+
+				AccessDecisionVoter voter = voters.get(i);
 				int result = voter.vote(authentication, object, singleAttributeList);
 
 				if (logger.isDebugEnabled()) {
@@ -86,9 +107,7 @@ public class UnanimousBased extends AbstractAccessDecisionManager {
 					break;
 
 				case AccessDecisionVoter.ACCESS_DENIED:
-					throw new AccessDeniedException(messages.getMessage(
-							"AbstractAccessDecisionManager.accessDenied",
-							"Access is denied"));
+					return AccessDecisionVoter.ACCESS_DENIED;
 
 				default:
 					abstain++;
@@ -100,10 +119,10 @@ public class UnanimousBased extends AbstractAccessDecisionManager {
 
 		// To get this far, there were no deny votes
 		if (grant > 0) {
-			return;
+			return AccessDecisionVoter.ACCESS_GRANTED;
 		}
 
 		// To get this far, every AccessDecisionVoter abstained
-		checkAllowIfAllAbstainDecisions();
+		return AccessDecisionVoter.ACCESS_ABSTAIN;
 	}
 }
@@ -17,14 +17,13 @@
 package org.springframework.security.authentication;
 
 import java.security.Principal;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.authority.GrantedAuthorityRegistry;
 import org.springframework.security.core.userdetails.UserDetails;
 
 /**
@@ -65,10 +64,8 @@ public abstract class AbstractAuthenticationToken implements Authentication,
 						"Authorities collection cannot contain any null elements");
 			}
 		}
-		ArrayList<GrantedAuthority> temp = new ArrayList<GrantedAuthority>(
-				authorities.size());
-		temp.addAll(authorities);
-		this.authorities = Collections.unmodifiableList(temp);
+		this.authorities = GrantedAuthorityRegistry.getDefault().createAuthorityList(
+				authorities);
 	}
 
 	// ~ Methods
@@ -16,6 +16,7 @@
 
 package org.springframework.security.authentication;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
@@ -64,6 +65,17 @@ public class AnonymousAuthenticationToken extends AbstractAuthenticationToken im
 		setAuthenticated(true);
 	}
 
+	/**
+	 * Creates a token with the hash of the key, as used when deserializing.
+	 */
+	AnonymousAuthenticationToken(int keyHash, Object principal,
+			Collection<? extends GrantedAuthority> authorities) {
+		super(authorities);
+		this.keyHash = keyHash;
+		this.principal = principal;
+		setAuthenticated(true);
+	}
+
 	// ~ Methods
 	// ========================================================================================================
 
@@ -101,4 +113,8 @@ public class AnonymousAuthenticationToken extends AbstractAuthenticationToken im
 	public Object getPrincipal() {
 		return this.principal;
 	}
+
+	private Object writeReplace() throws ObjectStreamException {
+		return new CompactSerializationProxy(this);
+	}
 }
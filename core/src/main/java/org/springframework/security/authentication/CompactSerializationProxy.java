@@ -0,0 +1,263 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.authentication;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.ObjectStreamException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.SpringSecurityCoreVersion;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.Assert;
+
+/**
+ * The compact serialized form of the objects which are typically stored in the
+ * {@code HttpSession}: {@link SecurityContextImpl},
+ * {@link UsernamePasswordAuthenticationToken}, {@link RememberMeAuthenticationToken},
+ * {@link AnonymousAuthenticationToken}, {@link User} and {@link SimpleGrantedAuthority}.
+ * <p>
+ * Default serialization writes the descriptor of every class in the hierarchy of each of
+ * these objects, along with the collections holding the authorities. Instead, these
+ * classes replace themselves with an instance of this class when serialized, which
+ * writes a version, a type and only the state needed to recreate the object. Since a
+ * single class is used for all of them, its descriptor is only written once per stream.
+ * Authority strings are written as objects, so the strings of the interned authorities
+ * shared by an {@link Authentication} and its {@link UserDetails} are only written once.
+ * <p>
+ * The format is versioned. Streams written with an older version of the format must
+ * remain readable by later versions. Subclasses of the above classes are serialized as
+ * before, as are streams written before the compact form was introduced.
+ * <p>
+ * This class is not intended to be used directly.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public final class CompactSerializationProxy implements Externalizable {
+	private static final long serialVersionUID = SpringSecurityCoreVersion.SERIAL_VERSION_UID;
+
+	private static final byte VERSION = 1;
+
+	private static final byte SECURITY_CONTEXT = 1;
+
+	private static final byte USERNAME_PASSWORD = 2;
+
+	private static final byte REMEMBER_ME = 3;
+
+	private static final byte ANONYMOUS = 4;
+
+	private static final byte USER = 5;
+
+	private static final byte SIMPLE_AUTHORITY = 6;
+
+	private static final byte OTHER_AUTHORITY = 7;
+
+	private Object object;
+
+	/**
+	 * Creates an empty instance. Used by Java serialization only.
+	 */
+	public CompactSerializationProxy() {
+	}
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param object the object to serialize, which must be an instance of one of the
+	 * supported classes
+	 */
+	public CompactSerializationProxy(Object object) {
+		Assert.notNull(object, "object cannot be null");
+		this.object = object;
+	}
+
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeByte(VERSION);
+		if (object instanceof SecurityContextImpl) {
+			out.writeByte(SECURITY_CONTEXT);
+			out.writeObject(((SecurityContextImpl) object).getAuthentication());
+		}
+		else if (object instanceof UsernamePasswordAuthenticationToken) {
+			UsernamePasswordAuthenticationToken token = (UsernamePasswordAuthenticationToken) object;
+			out.writeByte(USERNAME_PASSWORD);
+			writeToken(token, out);
+			out.writeObject(token.getCredentials());
+		}
+		else if (object instanceof RememberMeAuthenticationToken) {
+			RememberMeAuthenticationToken token = (RememberMeAuthenticationToken) object;
+			out.writeByte(REMEMBER_ME);
+			writeToken(token, out);
+			out.writeInt(token.getKeyHash());
+		}
+		else if (object instanceof AnonymousAuthenticationToken) {
+			AnonymousAuthenticationToken token = (AnonymousAuthenticationToken) object;
+			out.writeByte(ANONYMOUS);
+			writeToken(token, out);
+			out.writeInt(token.getKeyHash());
+		}
+		else if (object instanceof User) {
+			User user = (User) object;
+			out.writeByte(USER);
+			out.writeObject(user.getUsername());
+			out.writeObject(user.getPassword());
+			out.writeBoolean(user.isEnabled());
+			out.writeBoolean(user.isAccountNonExpired());
+			out.writeBoolean(user.isCredentialsNonExpired());
+			out.writeBoolean(user.isAccountNonLocked());
+			writeAuthorities(user.getAuthorities(), out);
+		}
+		else if (object instanceof SimpleGrantedAuthority) {
+			out.writeByte(SIMPLE_AUTHORITY);
+			out.writeObject(((SimpleGrantedAuthority) object).getAuthority());
+		}
+		else {
+			throw new IllegalStateException("Unsupported type " + object.getClass());
+		}
+	}
+
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		byte version = in.readByte();
+		if (version < 1 || version > VERSION) {
+			throw new InvalidObjectException("Unsupported version " + version);
+		}
+		byte type = in.readByte();
+		switch (type) {
+		case SECURITY_CONTEXT:
+			SecurityContextImpl context = new SecurityContextImpl();
+			context.setAuthentication((Authentication) in.readObject());
+			object = context;
+			break;
+		case USERNAME_PASSWORD:
+		case REMEMBER_ME:
+		case ANONYMOUS:
+			object = readToken(type, in);
+			break;
+		case USER:
+			String username = (String) in.readObject();
+			String password = (String) in.readObject();
+			boolean enabled = in.readBoolean();
+			boolean accountNonExpired = in.readBoolean();
+			boolean credentialsNonExpired = in.readBoolean();
+			boolean accountNonLocked = in.readBoolean();
+			User user = new User(username, password == null ? "" : password, enabled,
+					accountNonExpired, credentialsNonExpired, accountNonLocked,
+					readAuthorities(in));
+			if (password == null) {
+				user.eraseCredentials();
+			}
+			object = user;
+			break;
+		case SIMPLE_AUTHORITY:
+			object = new SimpleGrantedAuthority((String) in.readObject());
+			break;
+		default:
+			throw new InvalidObjectException("Unsupported type " + type);
+		}
+	}
+
+	private Object readResolve() throws ObjectStreamException {
+		return object;
+	}
+
+	private static void writeToken(AbstractAuthenticationToken token, ObjectOutput out)
+			throws IOException {
+		out.writeBoolean(token.isAuthenticated());
+		out.writeObject(token.getPrincipal());
+		out.writeObject(token.getDetails());
+		writeAuthorities(token.getAuthorities(), out);
+	}
+
+	private static AbstractAuthenticationToken readToken(byte type, ObjectInput in)
+			throws IOException, ClassNotFoundException {
+		boolean authenticated = in.readBoolean();
+		Object principal = in.readObject();
+		Object details = in.readObject();
+		List<GrantedAuthority> authorities = readAuthorities(in);
+		AbstractAuthenticationToken token;
+		if (type == USERNAME_PASSWORD) {
+			Object credentials = in.readObject();
+			if (authenticated || !authorities.isEmpty()) {
+				token = new UsernamePasswordAuthenticationToken(principal, credentials,
+						authorities);
+			}
+			else {
+				token = new UsernamePasswordAuthenticationToken(principal, credentials);
+			}
+		}
+		else if (type == REMEMBER_ME) {
+			token = new RememberMeAuthenticationToken(in.readInt(), principal,
+					authorities);
+		}
+		else {
+			token = new AnonymousAuthenticationToken(in.readInt(), principal,
+					authorities);
+		}
+		if (!authenticated) {
+			token.setAuthenticated(false);
+		}
+		token.setDetails(details);
+		return token;
+	}
+
+	private static void writeAuthorities(Collection<? extends GrantedAuthority> authorities,
+			ObjectOutput out) throws IOException {
+		out.writeInt(authorities.size());
+		for (GrantedAuthority authority : authorities) {
+			if (authority.getClass() == SimpleGrantedAuthority.class) {
+				out.writeByte(SIMPLE_AUTHORITY);
+				out.writeObject(authority.getAuthority());
+			}
+			else {
+				out.writeByte(OTHER_AUTHORITY);
+				out.writeObject(authority);
+			}
+		}
+	}
+
+	private static List<GrantedAuthority> readAuthorities(ObjectInput in)
+			throws IOException, ClassNotFoundException {
+		int size = in.readInt();
+		if (size < 0) {
+			throw new InvalidObjectException("Invalid number of authorities " + size);
+		}
+		List<GrantedAuthority> authorities = new ArrayList<GrantedAuthority>(Math.min(
+				size, 256));
+		for (int i = 0; i < size; i++) {
+			byte type = in.readByte();
+			if (type == SIMPLE_AUTHORITY) {
+				authorities.add(new SimpleGrantedAuthority((String) in.readObject()));
+			}
+			else if (type == OTHER_AUTHORITY) {
+				authorities.add((GrantedAuthority) in.readObject());
+			}
+			else {
+				throw new InvalidObjectException("Unsupported authority type " + type);
+			}
+		}
+		return authorities;
+	}
+}
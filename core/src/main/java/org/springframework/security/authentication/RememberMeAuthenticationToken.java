@@ -16,6 +16,7 @@
 
 package org.springframework.security.authentication;
 
+import java.io.ObjectStreamException;
 import java.util.Collection;
 
 import org.springframework.security.core.GrantedAuthority;
@@ -67,6 +68,17 @@ public class RememberMeAuthenticationToken extends AbstractAuthenticationToken {
 		setAuthenticated(true);
 	}
 
+	/**
+	 * Creates a token with the hash of the key, as used when deserializing.
+	 */
+	RememberMeAuthenticationToken(int keyHash, Object principal,
+			Collection<? extends GrantedAuthority> authorities) {
+		super(authorities);
+		this.keyHash = keyHash;
+		this.principal = principal;
+		setAuthenticated(true);
+	}
+
 	// ~ Methods
 	// ========================================================================================================
 
@@ -105,4 +117,7 @@ public class RememberMeAuthenticationToken extends AbstractAuthenticationToken {
 		return false;
 	}
 
+	private Object writeReplace() throws ObjectStreamException {
+		return new CompactSerializationProxy(this);
+	}
 }
@@ -16,6 +16,7 @@
 
 package org.springframework.security.authentication;
 
+import java.io.ObjectStreamException;
 import java.util.Collection;
 
 import org.springframework.security.core.GrantedAuthority;
@@ -101,4 +102,8 @@ public class UsernamePasswordAuthenticationToken extends AbstractAuthenticationT
 		super.eraseCredentials();
 		credentials = null;
 	}
+
+	private Object writeReplace() throws ObjectStreamException {
+		return new CompactSerializationProxy(this);
+	}
 }
@@ -65,6 +65,8 @@ public class DaoAuthenticationProvider extends AbstractUserDetailsAuthentication
 
 	private UserDetailsService userDetailsService;
 
+	private VerifiedCredentialsCache credentialsCache;
+
 	public DaoAuthenticationProvider() {
 		setPasswordEncoder(new PlaintextPasswordEncoder());
 	}
@@ -91,6 +93,14 @@ public class DaoAuthenticationProvider extends AbstractUserDetailsAuthentication
 		}
 
 		String presentedPassword = authentication.getCredentials().toString();
+		boolean cacheable = this.credentialsCache != null && salt == null;
+
+		if (cacheable
+				&& this.credentialsCache.isVerified(userDetails.getUsername(),
+						userDetails.getPassword(), presentedPassword)) {
+			logger.debug("Using verified credentials from cache");
+			return;
+		}
 
 		if (!passwordEncoder.isPasswordValid(userDetails.getPassword(),
 				presentedPassword, salt)) {
@@ -100,6 +110,11 @@ public class DaoAuthenticationProvider extends AbstractUserDetailsAuthentication
 					"AbstractUserDetailsAuthenticationProvider.badCredentials",
 					"Bad credentials"));
 		}
+
+		if (cacheable) {
+			this.credentialsCache.putVerified(userDetails.getUsername(),
+					userDetails.getPassword(), presentedPassword);
+		}
 	}
 
 	protected void doAfterPropertiesSet() throws Exception {
@@ -213,6 +228,24 @@ public class DaoAuthenticationProvider extends AbstractUserDetailsAuthentication
 		return saltSource;
 	}
 
+	/**
+	 * Sets the cache of verified credentials, which allows a client presenting the same
+	 * credentials on every request to skip the {@link PasswordEncoder}. This is only
+	 * worthwhile with a deliberately slow password hash, such as BCrypt, and stateless
+	 * clients, such as those using HTTP Basic authentication. The cache is not used if a
+	 * {@link SaltSource} is set. The default is null, which means that the password is
+	 * always verified.
+	 *
+	 * @param credentialsCache the cache to use, or null
+	 */
+	public void setCredentialsCache(VerifiedCredentialsCache credentialsCache) {
+		this.credentialsCache = credentialsCache;
+	}
+
+	protected VerifiedCredentialsCache getCredentialsCache() {
+		return credentialsCache;
+	}
+
 	public void setUserDetailsService(UserDetailsService userDetailsService) {
 		this.userDetailsService = userDetailsService;
 	}
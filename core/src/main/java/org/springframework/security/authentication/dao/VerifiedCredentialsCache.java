@@ -0,0 +1,207 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.authentication.dao;
+
+import org.springframework.security.util.BoundedCache;
+import org.springframework.security.util.Hmac;
+import org.springframework.util.Assert;
+
+/**
+ * A bounded cache of the credentials verified by a {@link DaoAuthenticationProvider},
+ * so that clients which present the same username and password on every request (such
+ * as HTTP Basic clients of a stateless API) only pay for a slow password hash, such as
+ * BCrypt, once per {@link #setTimeToLive(int) time to live}.
+ * <p>
+ * Passwords are never stored. For every username, the cache holds an HMAC of the
+ * username, the presented password and the encoded password of the user, using a random
+ * key which only exists in memory. A cached entry is only used if the user still has the
+ * same encoded password, so changing the password of a user, such as with
+ * {@code UserDetailsManager.changePassword}, invalidates the entry as soon as the
+ * updated user is loaded. {@link #removeCredentials(String)} can be used to evict a user
+ * immediately.
+ * <p>
+ * When the cache is full, an arbitrary entry is evicted for every new entry. The number
+ * of hits, misses and evictions is recorded for monitoring.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ * @see DaoAuthenticationProvider#setCredentialsCache(VerifiedCredentialsCache)
+ */
+public class VerifiedCredentialsCache {
+	/**
+	 * The default maximum number of cached credentials
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	private final BoundedCache<String, Entry> credentials;
+
+	private final Hmac hmac = new Hmac();
+
+	private long timeToLive = 60000;
+
+	/**
+	 * Creates a new instance which holds up to {@link #DEFAULT_MAX_ENTRIES} credentials.
+	 */
+	public VerifiedCredentialsCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param maxEntries the maximum number of cached credentials. Must be positive.
+	 */
+	public VerifiedCredentialsCache(int maxEntries) {
+		this.credentials = new BoundedCache<String, Entry>(getClass().getSimpleName(),
+				maxEntries);
+	}
+
+	/**
+	 * Determines if the presented password was verified against the encoded password of
+	 * the user within the time to live.
+	 *
+	 * @param username the username
+	 * @param encodedPassword the encoded password of the user
+	 * @param presentedPassword the password presented for authentication
+	 * @return true if the credentials were verified
+	 */
+	public boolean isVerified(String username, String encodedPassword,
+			String presentedPassword) {
+		if (username == null || encodedPassword == null || presentedPassword == null) {
+			return false;
+		}
+		Entry entry = credentials.get(username);
+		if (entry != null && entry.expires < System.currentTimeMillis()) {
+			credentials.remove(username, entry);
+			entry = null;
+		}
+		if (entry == null
+				|| !hmac.matches(entry.digest, username, encodedPassword,
+						presentedPassword)) {
+			credentials.recordMiss();
+			return false;
+		}
+		credentials.recordHit();
+		return true;
+	}
+
+	/**
+	 * Caches credentials which were verified.
+	 *
+	 * @param username the username
+	 * @param encodedPassword the encoded password of the user
+	 * @param presentedPassword the password which was verified
+	 */
+	public void putVerified(String username, String encodedPassword,
+			String presentedPassword) {
+		if (username == null || encodedPassword == null || presentedPassword == null) {
+			return;
+		}
+		credentials.put(username,
+				new Entry(hmac.digest(username, encodedPassword, presentedPassword),
+						System.currentTimeMillis() + timeToLive));
+	}
+
+	/**
+	 * Removes the cached credentials of a user, so that the next authentication verifies
+	 * the password.
+	 *
+	 * @param username the username
+	 */
+	public void removeCredentials(String username) {
+		if (username != null) {
+			credentials.remove(username);
+		}
+	}
+
+	/**
+	 * Removes all the cached credentials. The statistics are not reset.
+	 */
+	public void clear() {
+		credentials.clear();
+	}
+
+	/**
+	 * Sets the number of seconds for which verified credentials are cached. The default
+	 * is 60.
+	 *
+	 * @param timeToLive the number of seconds. Must be positive.
+	 */
+	public void setTimeToLive(int timeToLive) {
+		Assert.isTrue(timeToLive > 0, "timeToLive must be positive");
+		this.timeToLive = timeToLive * 1000L;
+	}
+
+	/**
+	 * Gets the number of cached credentials, which may include expired credentials.
+	 *
+	 * @return the number of cached credentials
+	 */
+	public int size() {
+		return credentials.size();
+	}
+
+	/**
+	 * Gets the number of lookups which found verified credentials.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHitCount() {
+		return credentials.getHitCount();
+	}
+
+	/**
+	 * Gets the number of lookups which did not find verified credentials.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMissCount() {
+		return credentials.getMissCount();
+	}
+
+	/**
+	 * Gets the number of credentials evicted because the cache was full.
+	 *
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount() {
+		return credentials.getEvictionCount();
+	}
+
+	/**
+	 * Gets the ratio of the hits to all lookups.
+	 *
+	 * @return the hit ratio between 0 and 1, or 0 if there were no lookups
+	 */
+	public double getHitRatio() {
+		return credentials.getHitRatio();
+	}
+
+	@Override
+	public String toString() {
+		return credentials.toString();
+	}
+
+	private static final class Entry {
+		private final byte[] digest;
+		private final long expires;
+
+		private Entry(byte[] digest, long expires) {
+			this.digest = digest;
+			this.expires = expires;
+		}
+	}
+}
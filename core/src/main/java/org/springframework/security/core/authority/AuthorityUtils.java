@@ -64,6 +64,28 @@ public abstract class AuthorityUtils {
 		return set;
 	}
 
+	/**
+	 * Determines if any of the authorities has the supplied authority string. This is
+	 * a constant time check if the authorities are an {@link InternedAuthorityList}.
+	 *
+	 * @param authorities the authorities to search
+	 * @param authority the authority string to look for
+	 * @return true if one of the authorities has the authority string
+	 * @since 4.1
+	 */
+	public static boolean containsAuthority(
+			Collection<? extends GrantedAuthority> authorities, String authority) {
+		if (authorities instanceof InternedAuthorityList) {
+			return ((InternedAuthorityList) authorities).containsAuthority(authority);
+		}
+		for (GrantedAuthority grantedAuthority : authorities) {
+			if (authority.equals(grantedAuthority.getAuthority())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public static List<GrantedAuthority> createAuthorityList(String... roles) {
 		List<GrantedAuthority> authorities = new ArrayList<GrantedAuthority>(roles.length);
 
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.core.authority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.util.Assert;
+
+/**
+ * Interns {@link SimpleGrantedAuthority} instances so that a single instance exists per
+ * authority string, and assigns each of them a number which allows an
+ * {@link InternedAuthorityList} to test membership with a bit set.
+ * <p>
+ * Applications typically hold a large number of authentications (i.e. one per session)
+ * which are granted the same few authorities. The lists created by
+ * {@link #createAuthorityList(Collection)} are themselves shared, so equal lists of
+ * interned authorities are only held once.
+ * <p>
+ * The number of authorities and lists is bounded so that an application which grants
+ * an unbounded number of distinct authorities (i.e. per user authorities) does not leak
+ * memory. Once a bound is reached, additional authorities and lists are used as is,
+ * without being interned.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ * @see AuthorityUtils#containsAuthority(Collection, String)
+ */
+public final class GrantedAuthorityRegistry {
+	private static final GrantedAuthorityRegistry DEFAULT = new GrantedAuthorityRegistry(
+			4096, 4096);
+
+	private final ConcurrentMap<String, Registration> registrations = new ConcurrentHashMap<String, Registration>();
+
+	private final ConcurrentMap<InternedAuthorityList, InternedAuthorityList> lists = new ConcurrentHashMap<InternedAuthorityList, InternedAuthorityList>();
+
+	private final int maxAuthorities;
+
+	private final int maxLists;
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param maxAuthorities the maximum number of distinct authorities to intern
+	 * @param maxLists the maximum number of distinct lists of authorities to share
+	 */
+	public GrantedAuthorityRegistry(int maxAuthorities, int maxLists) {
+		Assert.isTrue(maxAuthorities >= 0, "maxAuthorities cannot be negative");
+		Assert.isTrue(maxLists >= 0, "maxLists cannot be negative");
+		this.maxAuthorities = maxAuthorities;
+		this.maxLists = maxLists;
+	}
+
+	/**
+	 * Returns the registry used by the {@code Authentication} and {@code UserDetails}
+	 * implementations of Spring Security.
+	 *
+	 * @return the default {@link GrantedAuthorityRegistry}
+	 */
+	public static GrantedAuthorityRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Returns the shared instance of a {@link SimpleGrantedAuthority}. Other
+	 * {@link GrantedAuthority} implementations may carry additional state and are
+	 * returned as is.
+	 *
+	 * @param authority the {@link GrantedAuthority} to intern
+	 * @return the shared instance, or the supplied {@link GrantedAuthority} if it cannot
+	 * be interned
+	 */
+	public GrantedAuthority intern(GrantedAuthority authority) {
+		Registration registration = register(authority);
+		return registration == null ? authority : registration.authority;
+	}
+
+	/**
+	 * Creates an immutable {@link InternedAuthorityList} containing the supplied
+	 * authorities in iteration order. If an equal list was created before, that
+	 * instance is returned instead.
+	 *
+	 * @param authorities the authorities, none of which can be null
+	 * @return the {@link InternedAuthorityList}
+	 */
+	public InternedAuthorityList createAuthorityList(
+			Collection<? extends GrantedAuthority> authorities) {
+		Assert.notNull(authorities, "authorities cannot be null");
+		GrantedAuthority[] elements = new GrantedAuthority[authorities.size()];
+		List<Integer> ids = new ArrayList<Integer>(elements.length);
+		List<GrantedAuthority> uninterned = null;
+		int i = 0;
+		for (GrantedAuthority authority : authorities) {
+			Assert.notNull(authority, "authorities cannot contain null elements");
+			Registration registration = register(authority);
+			if (registration == null) {
+				if (uninterned == null) {
+					uninterned = new ArrayList<GrantedAuthority>();
+				}
+				uninterned.add(authority);
+				elements[i++] = authority;
+			}
+			else {
+				ids.add(registration.id);
+				elements[i++] = registration.authority;
+			}
+		}
+		InternedAuthorityList list = new InternedAuthorityList(this, elements, ids,
+				uninterned);
+		if (uninterned != null) {
+			// other implementations may be equal without being interchangeable
+			return list;
+		}
+		InternedAuthorityList shared = lists.get(list);
+		if (shared != null) {
+			return shared;
+		}
+		if (lists.size() < maxLists) {
+			shared = lists.putIfAbsent(list, list);
+			if (shared != null) {
+				return shared;
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the number assigned to an authority string.
+	 *
+	 * @param authority the authority string
+	 * @return the number, or -1 if the authority string has not been interned
+	 */
+	int getId(String authority) {
+		Registration registration = authority == null ? null : registrations
+				.get(authority);
+		return registration == null ? -1 : registration.id;
+	}
+
+	private Registration register(GrantedAuthority authority) {
+		if (!(authority instanceof SimpleGrantedAuthority)) {
+			return null;
+		}
+		String role = authority.getAuthority();
+		Registration registration = registrations.get(role);
+		if (registration != null) {
+			return registration;
+		}
+		synchronized (registrations) {
+			registration = registrations.get(role);
+			if (registration == null && registrations.size() < maxAuthorities) {
+				registration = new Registration(registrations.size(),
+						(SimpleGrantedAuthority) authority);
+				registrations.put(role, registration);
+			}
+			return registration;
+		}
+	}
+
+	private static final class Registration {
+		private final int id;
+
+		private final SimpleGrantedAuthority authority;
+
+		private Registration(int id, SimpleGrantedAuthority authority) {
+			this.id = id;
+			this.authority = authority;
+		}
+	}
+}
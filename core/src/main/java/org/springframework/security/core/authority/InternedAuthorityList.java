@@ -0,0 +1,175 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.core.authority;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.SpringSecurityCoreVersion;
+
+/**
+ * An immutable list of {@link GrantedAuthority} created by a
+ * {@link GrantedAuthorityRegistry}. Membership of the interned authorities is recorded in
+ * a bit set, so {@link #contains(Object)} and {@link #containsAuthority(String)} do not
+ * have to compare the authority strings of every element.
+ * <p>
+ * When deserialized, the list is recreated using the
+ * {@link GrantedAuthorityRegistry#getDefault() default registry}.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public final class InternedAuthorityList extends AbstractList<GrantedAuthority>
+		implements RandomAccess, Serializable {
+	private static final long serialVersionUID = SpringSecurityCoreVersion.SERIAL_VERSION_UID;
+
+	private static final long[] NO_BITS = new long[0];
+
+	private static final GrantedAuthority[] NO_AUTHORITIES = new GrantedAuthority[0];
+
+	private final GrantedAuthority[] authorities;
+
+	private final transient GrantedAuthorityRegistry registry;
+
+	private final transient int firstWord;
+
+	private final transient long[] bits;
+
+	private final transient GrantedAuthority[] uninterned;
+
+	private final transient int hashCode;
+
+	InternedAuthorityList(GrantedAuthorityRegistry registry,
+			GrantedAuthority[] authorities, List<Integer> ids,
+			List<GrantedAuthority> uninterned) {
+		this.registry = registry;
+		this.authorities = authorities;
+		this.uninterned = uninterned == null ? NO_AUTHORITIES : uninterned
+				.toArray(new GrantedAuthority[uninterned.size()]);
+		if (ids.isEmpty()) {
+			this.firstWord = 0;
+			this.bits = NO_BITS;
+		}
+		else {
+			int min = Integer.MAX_VALUE;
+			int max = 0;
+			for (int id : ids) {
+				min = Math.min(min, id);
+				max = Math.max(max, id);
+			}
+			this.firstWord = min >>> 6;
+			this.bits = new long[(max >>> 6) - this.firstWord + 1];
+			for (int id : ids) {
+				this.bits[(id >>> 6) - this.firstWord] |= 1L << id;
+			}
+		}
+		this.hashCode = Arrays.hashCode(authorities);
+	}
+
+	/**
+	 * Determines if any of the elements has the supplied
+	 * {@link GrantedAuthority#getAuthority() authority string}.
+	 *
+	 * @param authority the authority string to look for
+	 * @return true if an element has the authority string
+	 */
+	public boolean containsAuthority(String authority) {
+		if (isSet(registry.getId(authority))) {
+			return true;
+		}
+		for (GrantedAuthority grantedAuthority : uninterned) {
+			if (grantedAuthority.getAuthority() != null
+					&& grantedAuthority.getAuthority().equals(authority)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o instanceof SimpleGrantedAuthority) {
+			int id = registry.getId(((SimpleGrantedAuthority) o).getAuthority());
+			if (id >= 0) {
+				// every SimpleGrantedAuthority with a registered authority string is interned
+				return isSet(id);
+			}
+		}
+		for (GrantedAuthority grantedAuthority : uninterned) {
+			if (grantedAuthority.equals(o)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		for (Object o : c) {
+			if (!contains(o)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public GrantedAuthority get(int index) {
+		return authorities[index];
+	}
+
+	@Override
+	public int size() {
+		return authorities.length;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (o instanceof InternedAuthorityList) {
+			InternedAuthorityList other = (InternedAuthorityList) o;
+			return hashCode == other.hashCode
+					&& Arrays.equals(authorities, other.authorities);
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	private boolean isSet(int id) {
+		if (id < 0) {
+			return false;
+		}
+		int word = (id >>> 6) - firstWord;
+		return word >= 0 && word < bits.length && (bits[word] & (1L << id)) != 0;
+	}
+
+	private Object readResolve() throws ObjectStreamException {
+		return GrantedAuthorityRegistry.getDefault().createAuthorityList(
+				Arrays.asList(authorities));
+	}
+}
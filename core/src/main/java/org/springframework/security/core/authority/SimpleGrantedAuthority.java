@@ -15,6 +15,9 @@
  */
 package org.springframework.security.core.authority;
 
+import java.io.ObjectStreamException;
+
+import org.springframework.security.authentication.CompactSerializationProxy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.SpringSecurityCoreVersion;
 import org.springframework.util.Assert;
@@ -62,4 +65,8 @@ public final class SimpleGrantedAuthority implements GrantedAuthority {
 	public String toString() {
 		return this.role;
 	}
+
+	private Object writeReplace() throws ObjectStreamException {
+		return new CompactSerializationProxy(this);
+	}
 }
@@ -16,6 +16,9 @@
 
 package org.springframework.security.core.context;
 
+import java.io.ObjectStreamException;
+
+import org.springframework.security.authentication.CompactSerializationProxy;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.SpringSecurityCoreVersion;
 
@@ -85,4 +88,8 @@ public class SecurityContextImpl implements SecurityContext {
 
 		return sb.toString();
 	}
+
+	private Object writeReplace() throws ObjectStreamException {
+		return new CompactSerializationProxy(this);
+	}
 }
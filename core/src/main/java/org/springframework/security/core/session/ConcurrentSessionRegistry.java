@@ -0,0 +1,332 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.core.session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.core.SpringSecurityCoreVersion;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link SessionRegistry} for applications with a large number of sessions, or
+ * principals with many sessions.
+ * <p>
+ * Unlike {@link SessionRegistryImpl}, the sessions of each principal are held in a
+ * concurrent set, so registering a session does not copy the sessions of the principal.
+ * The number of sessions of each principal, and of those which are not expired, is kept
+ * up to date as sessions are registered, expired and removed, so that
+ * {@link #getSessionCount(Object, boolean)} takes constant time. The total number of
+ * sessions is available from {@link #getSessionCount()}.
+ * <p>
+ * As with {@link SessionRegistryImpl}, sessions are removed when a
+ * {@link SessionDestroyedEvent} is published. If
+ * {@link #setMaxInactiveInterval(int) maxInactiveInterval} is set, sessions whose last
+ * request is older than the interval are also removed by a background thread, so that
+ * the registry does not grow if some events are missed (for example, when a session
+ * store expires sessions without notifying the application). The interval must be longer
+ * than the session timeout and the last request is only refreshed if a
+ * {@code ConcurrentSessionFilter} is used, otherwise active sessions are removed.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public class ConcurrentSessionRegistry implements CountingSessionRegistry,
+		ApplicationListener<SessionDestroyedEvent>, InitializingBean, DisposableBean {
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final ConcurrentMap<Object, PrincipalSessions> principals = new ConcurrentHashMap<Object, PrincipalSessions>();
+
+	private final ConcurrentMap<String, SessionInformation> sessionIds = new ConcurrentHashMap<String, SessionInformation>();
+
+	private int maxInactiveInterval = -1;
+
+	private int sweepInterval = 60;
+
+	private ScheduledExecutorService sweeper;
+
+	public List<Object> getAllPrincipals() {
+		return new ArrayList<Object>(principals.keySet());
+	}
+
+	public List<SessionInformation> getAllSessions(Object principal,
+			boolean includeExpiredSessions) {
+		PrincipalSessions sessions = principals.get(principal);
+		if (sessions == null) {
+			return Collections.emptyList();
+		}
+		List<SessionInformation> list = new ArrayList<SessionInformation>(
+				sessions.sessionIds.size());
+		for (String sessionId : sessions.sessionIds) {
+			SessionInformation info = sessionIds.get(sessionId);
+			if (info != null && (includeExpiredSessions || !info.isExpired())) {
+				list.add(info);
+			}
+		}
+		return list;
+	}
+
+	public int getSessionCount(Object principal, boolean includeExpiredSessions) {
+		PrincipalSessions sessions = principals.get(principal);
+		if (sessions == null) {
+			return 0;
+		}
+		return includeExpiredSessions ? sessions.sessionCount.get()
+				: sessions.activeSessionCount.get();
+	}
+
+	/**
+	 * Gets the number of sessions of all principals, including expired sessions.
+	 *
+	 * @return the total number of sessions
+	 */
+	public int getSessionCount() {
+		return sessionIds.size();
+	}
+
+	public SessionInformation getSessionInformation(String sessionId) {
+		Assert.hasText(sessionId, "SessionId required as per interface contract");
+
+		return sessionIds.get(sessionId);
+	}
+
+	public void onApplicationEvent(SessionDestroyedEvent event) {
+		removeSessionInformation(event.getId());
+	}
+
+	public void refreshLastRequest(String sessionId) {
+		Assert.hasText(sessionId, "SessionId required as per interface contract");
+
+		SessionInformation info = sessionIds.get(sessionId);
+		if (info != null) {
+			info.refreshLastRequest();
+		}
+	}
+
+	public void registerNewSession(String sessionId, Object principal) {
+		Assert.hasText(sessionId, "SessionId required as per interface contract");
+		Assert.notNull(principal, "Principal required as per interface contract");
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Registering session " + sessionId + ", for principal "
+					+ principal);
+		}
+
+		removeSession(sessionId);
+
+		while (true) {
+			PrincipalSessions sessions = principals.get(principal);
+			if (sessions == null) {
+				sessions = new PrincipalSessions();
+				PrincipalSessions existing = principals.putIfAbsent(principal, sessions);
+				if (existing != null) {
+					sessions = existing;
+				}
+			}
+			synchronized (sessions) {
+				if (!sessions.removed) {
+					sessionIds.put(sessionId, new RegisteredSessionInformation(principal,
+							sessionId, new Date(), sessions));
+					if (sessions.sessionIds.add(sessionId)) {
+						sessions.sessionCount.incrementAndGet();
+						sessions.activeSessionCount.incrementAndGet();
+					}
+					return;
+				}
+			}
+			// the last session of the principal was removed concurrently, so try again
+		}
+	}
+
+	public void removeSessionInformation(String sessionId) {
+		Assert.hasText(sessionId, "SessionId required as per interface contract");
+
+		removeSession(sessionId);
+	}
+
+	/**
+	 * Removes the sessions whose last request is older than the
+	 * {@link #setMaxInactiveInterval(int) maxInactiveInterval}. Invoked periodically by
+	 * a background thread once the registry is initialized, if the interval is set.
+	 *
+	 * @return the number of sessions removed
+	 */
+	public int removeInactiveSessions() {
+		if (maxInactiveInterval < 0) {
+			return 0;
+		}
+		long oldestLastRequest = System.currentTimeMillis() - maxInactiveInterval
+				* 1000L;
+		int removed = 0;
+		for (SessionInformation info : sessionIds.values()) {
+			if (info.getLastRequest().getTime() < oldestLastRequest
+					&& removeSession(info.getSessionId())) {
+				removed++;
+			}
+		}
+		if (removed > 0 && logger.isDebugEnabled()) {
+			logger.debug("Removed " + removed + " inactive sessions");
+		}
+		return removed;
+	}
+
+	/**
+	 * Sets the number of seconds after the last request of a session at which it is
+	 * removed from the registry, regardless of whether a {@link SessionDestroyedEvent}
+	 * was received. The default is -1, which means that sessions are only removed when
+	 * they are destroyed.
+	 *
+	 * @param maxInactiveInterval the number of seconds, or -1
+	 */
+	public void setMaxInactiveInterval(int maxInactiveInterval) {
+		Assert.isTrue(maxInactiveInterval == -1 || maxInactiveInterval > 0,
+				"maxInactiveInterval must be positive or -1");
+		this.maxInactiveInterval = maxInactiveInterval;
+	}
+
+	/**
+	 * Sets how often, in seconds, the background thread removes inactive sessions. The
+	 * default is 60.
+	 *
+	 * @param sweepInterval the number of seconds between sweeps. Must be positive.
+	 */
+	public void setSweepInterval(int sweepInterval) {
+		Assert.isTrue(sweepInterval > 0, "sweepInterval must be positive");
+		this.sweepInterval = sweepInterval;
+	}
+
+	public void afterPropertiesSet() {
+		if (maxInactiveInterval < 0 || sweeper != null) {
+			return;
+		}
+		sweeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "session-registry-sweeper");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		sweeper.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				try {
+					removeInactiveSessions();
+				}
+				catch (RuntimeException e) {
+					logger.error("Failed to remove inactive sessions", e);
+				}
+			}
+		}, sweepInterval, sweepInterval, TimeUnit.SECONDS);
+	}
+
+	public void destroy() {
+		if (sweeper != null) {
+			sweeper.shutdownNow();
+			sweeper = null;
+		}
+	}
+
+	private boolean removeSession(String sessionId) {
+		SessionInformation info = sessionIds.remove(sessionId);
+		if (info == null) {
+			return false;
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Removing session " + sessionId
+					+ " from set of registered sessions");
+		}
+
+		PrincipalSessions sessions = ((RegisteredSessionInformation) info).sessions;
+		synchronized (sessions) {
+			if (sessions.sessionIds.remove(sessionId)) {
+				sessions.sessionCount.decrementAndGet();
+				if (!info.isExpired()) {
+					sessions.activeSessionCount.decrementAndGet();
+				}
+			}
+			if (sessions.sessionIds.isEmpty()) {
+				sessions.removed = true;
+				principals.remove(info.getPrincipal(), sessions);
+			}
+		}
+		return true;
+	}
+
+	private static final class PrincipalSessions {
+		private final Set<String> sessionIds = Collections
+				.newSetFromMap(new ConcurrentHashMap<String, Boolean>(4));
+
+		/**
+		 * The number of sessions, and of those which are not expired. Updated while
+		 * holding the lock on this, but read without it.
+		 */
+		private final AtomicInteger sessionCount = new AtomicInteger();
+
+		private final AtomicInteger activeSessionCount = new AtomicInteger();
+
+		/**
+		 * Set once the set is empty and no longer registered for the principal. Guarded
+		 * by this.
+		 */
+		private boolean removed;
+	}
+
+	/**
+	 * Updates the number of active sessions of the principal when it is expired.
+	 */
+	private static final class RegisteredSessionInformation extends SessionInformation {
+		private static final long serialVersionUID = SpringSecurityCoreVersion.SERIAL_VERSION_UID;
+
+		private final transient PrincipalSessions sessions;
+
+		private RegisteredSessionInformation(Object principal, String sessionId,
+				Date lastRequest, PrincipalSessions sessions) {
+			super(principal, sessionId, lastRequest);
+			this.sessions = sessions;
+		}
+
+		@Override
+		public void expireNow() {
+			if (sessions == null) {
+				super.expireNow();
+				return;
+			}
+			synchronized (sessions) {
+				if (!isExpired()) {
+					super.expireNow();
+					if (sessions.sessionIds.contains(getSessionId())) {
+						sessions.activeSessionCount.decrementAndGet();
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.core.session;
+
+/**
+ * A {@link SessionRegistry} which can count the sessions of a principal without creating
+ * the list returned by {@link #getAllSessions(Object, boolean)}. This allows concurrent
+ * session control to only obtain the sessions when the maximum is reached.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public interface CountingSessionRegistry extends SessionRegistry {
+
+	/**
+	 * Counts the known sessions for the specified principal. The result must be the same
+	 * as the size of the list returned by {@link #getAllSessions(Object, boolean)}.
+	 *
+	 * @param principal to count sessions for (should never be <code>null</code>)
+	 * @param includeExpiredSessions if <code>true</code>, the sessions which have expired
+	 * are counted too
+	 *
+	 * @return the number of sessions for this principal
+	 */
+	int getSessionCount(Object principal, boolean includeExpiredSessions);
+}
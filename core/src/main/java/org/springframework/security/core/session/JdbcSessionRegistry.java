@@ -0,0 +1,296 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.core.session;
+
+import java.security.Principal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.support.JdbcDaoSupport;
+import org.springframework.security.core.SpringSecurityCoreVersion;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link SessionRegistry} which stores the session information in a database, so that
+ * concurrent session control applies across all the nodes of a cluster.
+ * <p>
+ * Principals are stored by name: the username of a {@link UserDetails}, the name of a
+ * {@link Principal} or otherwise the {@code toString()} of the principal. The principal
+ * of a {@link SessionInformation} returned by {@link #getAllSessions(Object, boolean)} is
+ * the supplied principal, while the principal of one returned by
+ * {@link #getSessionInformation(String)} and the principals returned by
+ * {@link #getAllPrincipals()} are the names.
+ * <p>
+ * Calling {@link SessionInformation#expireNow()} on a returned
+ * {@link SessionInformation} updates the database, so the session is expired on every
+ * node. To avoid writing to the database on every request, the last request of a session
+ * is only updated by {@link #refreshLastRequest(String)} once it is older than the
+ * {@link #setLastRequestUpdateInterval(int) lastRequestUpdateInterval}.
+ * <p>
+ * As sessions which are not destroyed gracefully (for example, when a node fails) are
+ * never removed by a {@link SessionDestroyedEvent}, {@link #removeInactiveSessions()}
+ * should be invoked periodically, such as by a scheduled task.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public class JdbcSessionRegistry extends JdbcDaoSupport implements
+		CountingSessionRegistry, ApplicationListener<SessionDestroyedEvent> {
+	// ~ Static fields/initializers
+	// =====================================================================================
+
+	/** Default SQL for creating the database table to store the sessions */
+	public static final String CREATE_TABLE_SQL = "create table session_registry (session_id varchar(64) primary key, "
+			+ "principal_name varchar(100) not null, last_request timestamp not null, expired boolean not null)";
+	/** The default SQL used by <tt>getAllPrincipals</tt> */
+	public static final String DEF_PRINCIPALS_SQL = "select distinct principal_name from session_registry";
+	/** The default SQL used by <tt>getAllSessions</tt> */
+	public static final String DEF_SESSIONS_BY_PRINCIPAL_SQL = "select session_id, last_request, expired from session_registry where principal_name = ?";
+	/** The default SQL used by <tt>getSessionCount</tt> to count all the sessions */
+	public static final String DEF_COUNT_SESSIONS_BY_PRINCIPAL_SQL = "select count(*) from session_registry where principal_name = ?";
+	/** The default SQL used by <tt>getSessionCount</tt> to count the unexpired sessions */
+	public static final String DEF_COUNT_UNEXPIRED_SESSIONS_BY_PRINCIPAL_SQL = "select count(*) from session_registry where principal_name = ? and expired = ?";
+	/** The default SQL used by <tt>getSessionInformation</tt> */
+	public static final String DEF_SESSION_BY_ID_SQL = "select principal_name, last_request, expired from session_registry where session_id = ?";
+	/** The default SQL used by <tt>registerNewSession</tt> */
+	public static final String DEF_INSERT_SESSION_SQL = "insert into session_registry (session_id, principal_name, last_request, expired) values(?,?,?,?)";
+	/** The default SQL used by <tt>refreshLastRequest</tt> */
+	public static final String DEF_UPDATE_LAST_REQUEST_SQL = "update session_registry set last_request = ? where session_id = ? and expired = ? and last_request < ?";
+	/** The default SQL used by {@link SessionInformation#expireNow()} */
+	public static final String DEF_EXPIRE_SESSION_SQL = "update session_registry set expired = ? where session_id = ?";
+	/** The default SQL used by <tt>removeSessionInformation</tt> */
+	public static final String DEF_REMOVE_SESSION_SQL = "delete from session_registry where session_id = ?";
+	/** The default SQL used by <tt>removeInactiveSessions</tt> */
+	public static final String DEF_REMOVE_INACTIVE_SESSIONS_SQL = "delete from session_registry where last_request < ?";
+
+	// ~ Instance fields
+	// ================================================================================================
+
+	private String countSessionsByPrincipalQuery = DEF_COUNT_SESSIONS_BY_PRINCIPAL_SQL;
+	private String countUnexpiredSessionsByPrincipalQuery = DEF_COUNT_UNEXPIRED_SESSIONS_BY_PRINCIPAL_SQL;
+	private int lastRequestUpdateInterval = 60;
+	private int maxInactiveInterval = 86400;
+	private boolean createTableOnStartup;
+
+	protected void initDao() {
+		if (createTableOnStartup) {
+			getJdbcTemplate().execute(CREATE_TABLE_SQL);
+		}
+	}
+
+	public List<Object> getAllPrincipals() {
+		return new ArrayList<Object>(getJdbcTemplate().queryForList(DEF_PRINCIPALS_SQL,
+				String.class));
+	}
+
+	public List<SessionInformation> getAllSessions(final Object principal,
+			boolean includeExpiredSessions) {
+		List<SessionInformation> sessions = getJdbcTemplate().query(
+				DEF_SESSIONS_BY_PRINCIPAL_SQL, new RowMapper<SessionInformation>() {
+					public SessionInformation mapRow(ResultSet rs, int rowNum)
+							throws SQLException {
+						return new JdbcSessionInformation(getJdbcTemplate(), principal, rs
+								.getString(1), rs.getTimestamp(2), rs.getBoolean(3));
+					}
+				}, getPrincipalName(principal));
+		if (includeExpiredSessions) {
+			return sessions;
+		}
+		List<SessionInformation> unexpired = new ArrayList<SessionInformation>(
+				sessions.size());
+		for (SessionInformation session : sessions) {
+			if (!session.isExpired()) {
+				unexpired.add(session);
+			}
+		}
+		return unexpired;
+	}
+
+	public int getSessionCount(Object principal, boolean includeExpiredSessions) {
+		if (includeExpiredSessions) {
+			return getJdbcTemplate().queryForObject(countSessionsByPrincipalQuery,
+					Integer.class, getPrincipalName(principal));
+		}
+		return getJdbcTemplate().queryForObject(countUnexpiredSessionsByPrincipalQuery,
+				Integer.class, getPrincipalName(principal), false);
+	}
+
+	public SessionInformation getSessionInformation(final String sessionId) {
+		Assert.hasText(sessionId, "SessionId required as per interface contract");
+
+		List<SessionInformation> sessions = getJdbcTemplate().query(
+				DEF_SESSION_BY_ID_SQL, new RowMapper<SessionInformation>() {
+					public SessionInformation mapRow(ResultSet rs, int rowNum)
+							throws SQLException {
+						return new JdbcSessionInformation(getJdbcTemplate(), rs.getString(1),
+								sessionId, rs.getTimestamp(2), rs.getBoolean(3));
+					}
+				}, sessionId);
+		return sessions.isEmpty() ? null : sessions.get(0);
+	}
+
+	public void onApplicationEvent(SessionDestroyedEvent event) {
+		removeSessionInformation(event.getId());
+	}
+
+	public void refreshLastRequest(String sessionId) {
+		Assert.hasText(sessionId, "SessionId required as per interface contract");
+
+		long now = System.currentTimeMillis();
+		getJdbcTemplate().update(DEF_UPDATE_LAST_REQUEST_SQL, new Date(now), sessionId,
+				false, new Date(now - lastRequestUpdateInterval * 1000L));
+	}
+
+	public void registerNewSession(String sessionId, Object principal) {
+		Assert.hasText(sessionId, "SessionId required as per interface contract");
+		Assert.notNull(principal, "Principal required as per interface contract");
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Registering session " + sessionId + ", for principal "
+					+ principal);
+		}
+
+		removeSessionInformation(sessionId);
+		getJdbcTemplate().update(DEF_INSERT_SESSION_SQL, sessionId,
+				getPrincipalName(principal), new Date(), false);
+	}
+
+	public void removeSessionInformation(String sessionId) {
+		Assert.hasText(sessionId, "SessionId required as per interface contract");
+
+		getJdbcTemplate().update(DEF_REMOVE_SESSION_SQL, sessionId);
+	}
+
+	/**
+	 * Removes the sessions whose last request is older than the
+	 * {@link #setMaxInactiveInterval(int) maxInactiveInterval}.
+	 *
+	 * @return the number of sessions removed
+	 */
+	public int removeInactiveSessions() {
+		return getJdbcTemplate().update(DEF_REMOVE_INACTIVE_SESSIONS_SQL,
+				new Date(System.currentTimeMillis() - maxInactiveInterval * 1000L));
+	}
+
+	/**
+	 * Gets the name under which the sessions of a principal are stored.
+	 *
+	 * @param principal the principal
+	 * @return the name of the principal
+	 */
+	protected String getPrincipalName(Object principal) {
+		if (principal instanceof UserDetails) {
+			return ((UserDetails) principal).getUsername();
+		}
+		if (principal instanceof Principal) {
+			return ((Principal) principal).getName();
+		}
+		return principal.toString();
+	}
+
+	/**
+	 * Sets the minimum number of seconds between updates of the last request of a
+	 * session. The default is 60.
+	 *
+	 * @param lastRequestUpdateInterval the number of seconds. Cannot be negative.
+	 */
+	public void setLastRequestUpdateInterval(int lastRequestUpdateInterval) {
+		Assert.isTrue(lastRequestUpdateInterval >= 0,
+				"lastRequestUpdateInterval cannot be negative");
+		this.lastRequestUpdateInterval = lastRequestUpdateInterval;
+	}
+
+	/**
+	 * Sets the number of seconds after the last request of a session at which
+	 * {@link #removeInactiveSessions()} removes it. The default is 86400 (one day).
+	 *
+	 * @param maxInactiveInterval the number of seconds. Must be positive.
+	 */
+	public void setMaxInactiveInterval(int maxInactiveInterval) {
+		Assert.isTrue(maxInactiveInterval > 0, "maxInactiveInterval must be positive");
+		this.maxInactiveInterval = maxInactiveInterval;
+	}
+
+	/**
+	 * Intended for convenience in debugging. Will create the session_registry database
+	 * table when the class is initialized during the initDao method.
+	 *
+	 * @param createTableOnStartup set to true to create the table
+	 */
+	public void setCreateTableOnStartup(boolean createTableOnStartup) {
+		this.createTableOnStartup = createTableOnStartup;
+	}
+
+	/**
+	 * Sets the query which counts all the sessions of a principal. The default is
+	 * {@link #DEF_COUNT_SESSIONS_BY_PRINCIPAL_SQL}.
+	 *
+	 * @param countSessionsByPrincipalQuery the query, with the principal name as
+	 * parameter
+	 */
+	public void setCountSessionsByPrincipalQuery(String countSessionsByPrincipalQuery) {
+		Assert.hasText(countSessionsByPrincipalQuery,
+				"countSessionsByPrincipalQuery cannot be empty");
+		this.countSessionsByPrincipalQuery = countSessionsByPrincipalQuery;
+	}
+
+	/**
+	 * Sets the query which counts the sessions of a principal which are not expired. The
+	 * default is {@link #DEF_COUNT_UNEXPIRED_SESSIONS_BY_PRINCIPAL_SQL}.
+	 *
+	 * @param countUnexpiredSessionsByPrincipalQuery the query, with the principal name
+	 * and the expired flag ({@code false}) as parameters
+	 */
+	public void setCountUnexpiredSessionsByPrincipalQuery(
+			String countUnexpiredSessionsByPrincipalQuery) {
+		Assert.hasText(countUnexpiredSessionsByPrincipalQuery,
+				"countUnexpiredSessionsByPrincipalQuery cannot be empty");
+		this.countUnexpiredSessionsByPrincipalQuery = countUnexpiredSessionsByPrincipalQuery;
+	}
+
+	/**
+	 * Updates the database when the session is expired.
+	 */
+	private static final class JdbcSessionInformation extends SessionInformation {
+		private static final long serialVersionUID = SpringSecurityCoreVersion.SERIAL_VERSION_UID;
+
+		private final transient JdbcOperations jdbcOperations;
+
+		private JdbcSessionInformation(JdbcOperations jdbcOperations, Object principal,
+				String sessionId, Date lastRequest, boolean expired) {
+			super(principal, sessionId, lastRequest);
+			this.jdbcOperations = jdbcOperations;
+			if (expired) {
+				super.expireNow();
+			}
+		}
+
+		@Override
+		public void expireNow() {
+			super.expireNow();
+			if (jdbcOperations != null) {
+				jdbcOperations.update(DEF_EXPIRE_SESSION_SQL, true, getSessionId());
+			}
+		}
+	}
+}
@@ -16,6 +16,7 @@
 
 package org.springframework.security.core.userdetails;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
@@ -24,9 +25,11 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
+import org.springframework.security.authentication.CompactSerializationProxy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.SpringSecurityCoreVersion;
+import org.springframework.security.core.authority.GrantedAuthorityRegistry;
 import org.springframework.util.Assert;
 
 /**
@@ -153,11 +156,12 @@ public class User implements UserDetails, CredentialsContainer {
 		// UserDetails.getAuthorities() contract and SEC-717)
 		SortedSet<GrantedAuthority> sortedAuthorities = new TreeSet<GrantedAuthority>(
 				new AuthorityComparator());
+		GrantedAuthorityRegistry registry = GrantedAuthorityRegistry.getDefault();
 
 		for (GrantedAuthority grantedAuthority : authorities) {
 			Assert.notNull(grantedAuthority,
 					"GrantedAuthority list cannot contain any null elements");
-			sortedAuthorities.add(grantedAuthority);
+			sortedAuthorities.add(registry.intern(grantedAuthority));
 		}
 
 		return sortedAuthorities;
@@ -238,4 +242,8 @@ public class User implements UserDetails, CredentialsContainer {
 
 		return sb.toString();
 	}
+
+	private Object writeReplace() throws ObjectStreamException {
+		return new CompactSerializationProxy(this);
+	}
 }
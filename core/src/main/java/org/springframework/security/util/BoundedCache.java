@@ -0,0 +1,237 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.util;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.util.Assert;
+
+/**
+ * A thread safe map which holds up to a maximum number of entries. When it is full, an
+ * arbitrary entry is evicted for every new entry, which avoids the cost of tracking the
+ * use of the entries. Reads do not lock.
+ * <p>
+ * The number of hits and misses, as recorded by the owner of the cache with
+ * {@link #recordHit()} and {@link #recordMiss()}, and the number of evictions are kept
+ * for monitoring.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author Rob Winch
+ * @since 4.1
+ */
+public final class BoundedCache<K, V> {
+	private final ConcurrentMap<K, V> entries = new ConcurrentHashMap<K, V>();
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	private final String name;
+
+	private final int maxEntries;
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param name the name used by {@link #toString()}
+	 * @param maxEntries the maximum number of entries. Must be positive.
+	 */
+	public BoundedCache(String name, int maxEntries) {
+		Assert.isTrue(maxEntries > 0, "maxEntries must be positive");
+		this.name = name;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Gets the value of the key. The lookup is not recorded as a hit or a miss.
+	 *
+	 * @param key the key
+	 * @return the value, or null if there is none
+	 */
+	public V get(K key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Caches the value of the key, replacing any existing value.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 */
+	public void put(K key, V value) {
+		if (entries.put(key, value) == null) {
+			added();
+		}
+	}
+
+	/**
+	 * Caches the value of the key, unless there already is one.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @return the existing value, or null if the value was cached
+	 */
+	public V putIfAbsent(K key, V value) {
+		V existing = entries.putIfAbsent(key, value);
+		if (existing == null) {
+			added();
+		}
+		return existing;
+	}
+
+	/**
+	 * Removes the value of the key.
+	 *
+	 * @param key the key
+	 * @return true if a value was removed
+	 */
+	public boolean remove(K key) {
+		if (entries.remove(key) == null) {
+			return false;
+		}
+		size.decrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Removes the value of the key if it is the given value.
+	 *
+	 * @param key the key
+	 * @param value the value expected to be cached
+	 * @return true if the value was removed
+	 */
+	public boolean remove(K key, V value) {
+		if (!entries.remove(key, value)) {
+			return false;
+		}
+		size.decrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Removes all the entries. The statistics are not reset.
+	 */
+	public void clear() {
+		for (K key : entries.keySet()) {
+			remove(key);
+		}
+	}
+
+	/**
+	 * Gets a read only view of the entries, which reflects concurrent changes. Entries
+	 * can be removed with {@link #remove(Object, Object)} while iterating.
+	 *
+	 * @return the entries
+	 */
+	public Set<Map.Entry<K, V>> entrySet() {
+		return Collections.unmodifiableSet(entries.entrySet());
+	}
+
+	/**
+	 * Records a lookup which found a usable value.
+	 */
+	public void recordHit() {
+		hits.incrementAndGet();
+	}
+
+	/**
+	 * Records a lookup which did not find a usable value.
+	 */
+	public void recordMiss() {
+		misses.incrementAndGet();
+	}
+
+	/**
+	 * Gets the number of entries.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Gets the number of lookups recorded as hits.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of lookups recorded as misses.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Gets the number of entries evicted because the cache was full.
+	 *
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * Gets the ratio of the hits to all recorded lookups.
+	 *
+	 * @return the hit ratio between 0 and 1, or 0 if there were no lookups
+	 */
+	public double getHitRatio() {
+		long hitCount = hits.get();
+		long total = hitCount + misses.get();
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	private void added() {
+		if (size.incrementAndGet() > maxEntries) {
+			evict();
+		}
+	}
+
+	private void evict() {
+		Iterator<K> keys = entries.keySet().iterator();
+		while (size.get() > maxEntries && keys.hasNext()) {
+			if (entries.remove(keys.next()) != null) {
+				size.decrementAndGet();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return name + "[size=" + size() + ", hits=" + getHitCount() + ", misses="
+				+ getMissCount() + ", evictions=" + getEvictionCount() + "]";
+	}
+}
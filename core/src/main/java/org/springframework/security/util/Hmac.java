@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.util;
+
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.util.Assert;
+
+/**
+ * Computes HmacSHA256 digests of a sequence of strings. Each string is preceded by its
+ * length, so that the digest of the sequence is unambiguous. Thread safe.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public final class Hmac {
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final Mac mac;
+
+	/**
+	 * Creates a new instance with a random 256 bit key, which only exists in memory.
+	 */
+	public Hmac() {
+		this(randomKey());
+	}
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param key the secret key. Cannot be null or empty.
+	 */
+	public Hmac(byte[] key) {
+		Assert.isTrue(key != null && key.length > 0, "key cannot be null or empty");
+		try {
+			this.mac = Mac.getInstance(ALGORITHM);
+			this.mac.init(new SecretKeySpec(key, ALGORITHM));
+		}
+		catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to initialize " + ALGORITHM, e);
+		}
+	}
+
+	/**
+	 * Computes the digest of the values.
+	 *
+	 * @param values the values, none of which can be null
+	 * @return the digest
+	 */
+	public byte[] digest(String... values) {
+		Mac digestMac = createMac();
+		for (String value : values) {
+			byte[] bytes = value.getBytes(UTF_8);
+			digestMac.update((byte) (bytes.length >>> 24));
+			digestMac.update((byte) (bytes.length >>> 16));
+			digestMac.update((byte) (bytes.length >>> 8));
+			digestMac.update((byte) bytes.length);
+			digestMac.update(bytes);
+		}
+		return digestMac.doFinal();
+	}
+
+	/**
+	 * Determines if the digest of the values is the expected digest, in constant time.
+	 *
+	 * @param expected the expected digest
+	 * @param values the values
+	 * @return true if the digest matches
+	 */
+	public boolean matches(byte[] expected, String... values) {
+		return expected != null && MessageDigest.isEqual(expected, digest(values));
+	}
+
+	/**
+	 * Creates a copy of the initialized {@link Mac}, as a {@link Mac} is not thread
+	 * safe.
+	 */
+	private Mac createMac() {
+		try {
+			return (Mac) mac.clone();
+		}
+		catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(ALGORITHM + " does not support cloning", e);
+		}
+	}
+
+	private static byte[] randomKey() {
+		byte[] key = new byte[32];
+		new SecureRandom().nextBytes(key);
+		return key;
+	}
+}
@@ -210,6 +210,30 @@ public class SecuredAnnotationSecurityMetadataSourceTests {
 		assertThat(attrs[0].getAttribute()).isEqualTo("CUSTOM");
 	}
 
+	@Test
+	public void getAttributesWhenInvokedAgainThenCached() throws Exception {
+		MockMethodInvocation annotatedAtMethodLevel = new MockMethodInvocation(
+				new AnnotatedAnnotationAtMethodLevel(), ReturnVoid.class, "doSomething",
+				List.class);
+
+		Collection<ConfigAttribute> attrs = mds.getAttributes(annotatedAtMethodLevel);
+
+		assertThat(mds.getAttributes(annotatedAtMethodLevel)).isSameAs(attrs);
+	}
+
+	@Test
+	public void getAttributesWhenNotCachedThenResolvedEachTime() throws Exception {
+		mds.setCacheAttributes(false);
+		MockMethodInvocation annotatedAtMethodLevel = new MockMethodInvocation(
+				new AnnotatedAnnotationAtMethodLevel(), ReturnVoid.class, "doSomething",
+				List.class);
+
+		Collection<ConfigAttribute> attrs = mds.getAttributes(annotatedAtMethodLevel);
+
+		assertThat(mds.getAttributes(annotatedAtMethodLevel)).isNotSameAs(attrs)
+				.isEqualTo(attrs);
+	}
+
 	@Test
 	public void proxyFactoryInterfaceAttributesFound() throws Exception {
 		MockMethodInvocation mi = MethodInvocationFactory.createSec2150MethodInvocation();
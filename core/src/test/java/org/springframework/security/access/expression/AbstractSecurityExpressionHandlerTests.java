@@ -24,9 +24,12 @@ import org.junit.Test;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.util.FieldUtils;
 
 /**
  * @author Luke Taylor
@@ -57,6 +60,22 @@ public class AbstractSecurityExpressionHandlerTests {
 				mock(Authentication.class), new Object()))).isEqualTo(true);
 	}
 
+	@Test
+	public void createEvaluationContextSharesComponents() {
+		Authentication authentication = mock(Authentication.class);
+		EvaluationContext first = handler.createEvaluationContext(authentication,
+				new Object());
+		EvaluationContext second = handler.createEvaluationContext(authentication,
+				new Object());
+
+		assertThat(first).isInstanceOf(SecurityEvaluationContext.class).isNotSameAs(
+				second);
+		assertThat(first.getRootObject().getValue()).isNotSameAs(
+				second.getRootObject().getValue());
+		assertThat(first.getPropertyAccessors()).isSameAs(second.getPropertyAccessors());
+		assertThat(first.getMethodResolvers()).isSameAs(second.getMethodResolvers());
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void setExpressionParserNull() {
 		handler.setExpressionParser(null);
@@ -68,6 +87,25 @@ public class AbstractSecurityExpressionHandlerTests {
 		handler.setExpressionParser(parser);
 		assertThat(parser == handler.getExpressionParser()).isTrue();
 	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setCompilerModeNull() {
+		handler.setCompilerMode(null);
+	}
+
+	@Test
+	public void setCompilerModeThenExpressionsCompiled() throws Exception {
+		handler.setCompilerMode(SpelCompilerMode.IMMEDIATE);
+		Expression expression = handler.getExpressionParser().parseExpression("1 < 2");
+		EvaluationContext ctx = handler.createEvaluationContext(
+				mock(Authentication.class), new Object());
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(expression.getValue(ctx)).isEqualTo(true);
+		}
+
+		assertThat(FieldUtils.getFieldValue(expression, "compiledAst")).isNotNull();
+	}
 }
 
 @Configuration
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * @author Rob Winch
+ */
+public class ExpressionUtilsTests {
+	private SpelExpressionParser parser;
+
+	private StandardEvaluationContext ctx;
+
+	@Before
+	public void setup() {
+		parser = new SpelExpressionParser(new SpelParserConfiguration(
+				SpelCompilerMode.IMMEDIATE, null));
+		ctx = new StandardEvaluationContext();
+	}
+
+	@Test
+	public void evaluateAsBooleanWhenTrueThenTrue() {
+		assertThat(ExpressionUtils.evaluateAsBoolean(parser.parseExpression("1 < 2"), ctx))
+				.isTrue();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void evaluateAsBooleanWhenFailsThenIllegalArgumentException() {
+		ExpressionUtils.evaluateAsBoolean(parser.parseExpression("#missing.length() > 0"),
+				ctx);
+	}
+
+	@Test
+	public void evaluateAsBooleanWhenCompiledAndTypeChangesThenInterpreted() {
+		Expression expression = parser.parseExpression("#value.length() == 3");
+		ctx.setVariable("value", "abc");
+		for (int i = 0; i < 3; i++) {
+			assertThat(ExpressionUtils.evaluateAsBoolean(expression, ctx)).isTrue();
+		}
+
+		ctx.setVariable("value", new StringBuilder("abc"));
+
+		assertThat(ExpressionUtils.evaluateAsBoolean(expression, ctx)).isTrue();
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.RememberMeAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+/**
+ * @author Rob Winch
+ */
+public class IntrinsicSecurityExpressionParserTests {
+	private static final List<String> RECOGNIZED = Arrays.asList("permitAll",
+			"denyAll", "authenticated", "fullyAuthenticated", "anonymous", "rememberMe",
+			"permitAll()", "denyAll()", "isAuthenticated()", "isFullyAuthenticated()",
+			"isAnonymous()", "isRememberMe()", "hasRole('USER')", "hasRole(\"ROLE_ADMIN\")",
+			"hasAnyRole('ADMIN', 'USER')", "hasAuthority('ROLE_USER')",
+			"hasAnyAuthority('ROLE_ADMIN','ROLE_OTHER')",
+			"hasRole('USER') and hasRole('ADMIN')", "hasRole('USER') or hasRole('ADMIN')",
+			"not hasRole('ADMIN')", "!hasRole('ADMIN')",
+			"hasRole('USER') && !(hasRole('ADMIN') || anonymous)",
+			"hasRole('ADMIN') or hasRole('USER') and not authenticated",
+			"NOT anonymous AND hasRole('USER')", " ( ( authenticated ) ) ",
+			"hasRole('it''s')");
+
+	private SpelExpressionParser spelParser;
+
+	private IntrinsicSecurityExpressionParser parser;
+
+	private DefaultMethodSecurityExpressionHandler handler;
+
+	private SimpleMethodInvocation invocation;
+
+	@Before
+	public void setup() throws Exception {
+		spelParser = new SpelExpressionParser();
+		parser = new IntrinsicSecurityExpressionParser(spelParser);
+		handler = new DefaultMethodSecurityExpressionHandler();
+		invocation = new SimpleMethodInvocation(new Object(),
+				Object.class.getMethod("toString"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorWhenNullDelegateThenException() {
+		new IntrinsicSecurityExpressionParser(null);
+	}
+
+	@Test
+	public void parseExpressionWhenRecognizedThenIntrinsic() {
+		for (String expression : RECOGNIZED) {
+			assertThat(parser.parseExpression(expression)).as(expression).isInstanceOf(
+					IntrinsicSecurityExpression.class);
+			assertThat(parser.parseExpression(expression).getExpressionString())
+					.isEqualTo(expression);
+		}
+	}
+
+	@Test
+	public void parseExpressionWhenNotRecognizedThenDelegate() {
+		List<String> expressions = Arrays.asList("principal.username == 'user'",
+				"hasRole(#role)", "hasPermission(#id, 'read')", "hasRole('USER') and",
+				"hasRole('USER'", "hasRole()", "hasRole('A', 'B')", "isPermitAll()",
+				"authenticated()", "true", "authenticated != false", "hasRole('A') & x",
+				"hasRole('unterminated)", "(authenticated", "'USER'");
+		for (String expression : expressions) {
+			assertThat(parser.parseIntrinsicExpression(expression)).as(expression)
+					.isNull();
+		}
+		assertThat(parser.parseExpression("principal.username == 'user'")).isInstanceOf(
+				SpelExpression.class);
+	}
+
+	@Test
+	public void evaluateWhenRecognizedThenSameAsSpel() {
+		List<Authentication> authentications = Arrays.asList(
+				new TestingAuthenticationToken("user", "password", "ROLE_USER"),
+				new TestingAuthenticationToken("admin", "password", "ROLE_USER",
+						"ROLE_ADMIN"),
+				new TestingAuthenticationToken("other", "password", "it's"),
+				new AnonymousAuthenticationToken("key", "anonymous", AuthorityUtils
+						.createAuthorityList("ROLE_ANONYMOUS")),
+				new RememberMeAuthenticationToken("key", "user", AuthorityUtils
+						.createAuthorityList("ROLE_USER")));
+		for (String expressionString : RECOGNIZED) {
+			IntrinsicSecurityExpression intrinsic = parser
+					.parseIntrinsicExpression(expressionString);
+			Expression spel = spelParser.parseExpression(expressionString);
+			for (Authentication authentication : authentications) {
+				EvaluationContext ctx = handler.createEvaluationContext(authentication,
+						invocation);
+				boolean expected = ExpressionUtils.evaluateAsBoolean(spel, ctx);
+
+				assertThat(ExpressionUtils.evaluateAsBoolean(intrinsic, ctx)).as(
+						expressionString + " " + authentication).isEqualTo(expected);
+				assertThat(handler.evaluate(intrinsic, authentication, invocation)).as(
+						expressionString + " " + authentication).isEqualTo(expected);
+			}
+		}
+	}
+
+	@Test
+	public void getValueWhenDesiredTypeThenConverted() {
+		Expression expression = parser.parseExpression("permitAll");
+		EvaluationContext ctx = handler.createEvaluationContext(
+				new TestingAuthenticationToken("user", "password"), invocation);
+
+		assertThat(expression.getValue(ctx, String.class)).isEqualTo("true");
+		assertThat(expression.getValueType(ctx)).isEqualTo(Boolean.class);
+		assertThat(expression.isWritable(ctx)).isFalse();
+	}
+}
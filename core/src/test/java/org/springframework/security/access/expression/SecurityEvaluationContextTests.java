@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.expression.Expression;
+import org.springframework.expression.MethodFilter;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReflectiveMethodResolver;
+import org.springframework.expression.spel.support.StandardTypeLocator;
+
+/**
+ * @author Rob Winch
+ */
+public class SecurityEvaluationContextTests {
+	private SecurityEvaluationContext.SharedComponents shared;
+
+	private SecurityEvaluationContext context;
+
+	@Before
+	public void setup() {
+		shared = new SecurityEvaluationContext.SharedComponents();
+		context = new SecurityEvaluationContext(shared);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorNullShared() {
+		new SecurityEvaluationContext(null);
+	}
+
+	@Test
+	public void componentsAreShared() {
+		SecurityEvaluationContext other = new SecurityEvaluationContext(shared);
+
+		assertThat(other.getPropertyAccessors()).isSameAs(
+				context.getPropertyAccessors());
+		assertThat(other.getMethodResolvers()).isSameAs(context.getMethodResolvers());
+		assertThat(other.getConstructorResolvers()).isSameAs(
+				context.getConstructorResolvers());
+		assertThat(other.getTypeLocator()).isSameAs(context.getTypeLocator());
+		assertThat(other.getTypeConverter()).isSameAs(context.getTypeConverter());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void sharedPropertyAccessorsCannotBeModified() {
+		context.getPropertyAccessors().add(mock(PropertyAccessor.class));
+	}
+
+	@Test
+	public void addPropertyAccessorDoesNotAffectOtherContexts() {
+		PropertyAccessor accessor = mock(PropertyAccessor.class);
+		SecurityEvaluationContext other = new SecurityEvaluationContext(shared);
+
+		context.addPropertyAccessor(accessor);
+
+		assertThat(context.getPropertyAccessors()).hasSize(2);
+		assertThat(context.getPropertyAccessors().get(0)).isSameAs(accessor);
+		assertThat(other.getPropertyAccessors()).hasSize(1);
+	}
+
+	@Test
+	public void addMethodResolverDoesNotAffectOtherContexts() {
+		MethodResolver resolver = mock(MethodResolver.class);
+		SecurityEvaluationContext other = new SecurityEvaluationContext(shared);
+
+		context.addMethodResolver(resolver);
+
+		assertThat(context.getMethodResolvers()).hasSize(2);
+		assertThat(context.getMethodResolvers().get(0)).isSameAs(resolver);
+		assertThat(other.getMethodResolvers()).hasSize(1);
+	}
+
+	@Test
+	public void registerMethodFilterDoesNotAffectOtherContexts() {
+		SecurityEvaluationContext other = new SecurityEvaluationContext(shared);
+		context.registerMethodFilter(String.class, new MethodFilter() {
+			public List<Method> filter(List<Method> methods) {
+				return new ArrayList<Method>();
+			}
+		});
+		Expression expression = new SpelExpressionParser()
+				.parseExpression("'a'.toUpperCase()");
+
+		assertThat(expression.getValue(other)).isEqualTo("A");
+		assertThat(context.getMethodResolvers().get(0)).isInstanceOf(
+				ReflectiveMethodResolver.class).isNotSameAs(
+				other.getMethodResolvers().get(0));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void registerMethodFilterWhenReflectiveMethodResolverRemoved() {
+		context.setMethodResolvers(new ArrayList<MethodResolver>());
+
+		context.registerMethodFilter(String.class, mock(MethodFilter.class));
+	}
+
+	@Test
+	public void setTypeLocatorDoesNotAffectOtherContexts() {
+		StandardTypeLocator typeLocator = new StandardTypeLocator();
+		SecurityEvaluationContext other = new SecurityEvaluationContext(shared);
+
+		context.setTypeLocator(typeLocator);
+
+		assertThat(context.getTypeLocator()).isSameAs(typeLocator);
+		assertThat(other.getTypeLocator()).isNotSameAs(typeLocator);
+	}
+
+	@Test
+	public void variablesAreNotShared() {
+		SecurityEvaluationContext other = new SecurityEvaluationContext(shared);
+
+		context.setVariable("a", "b");
+
+		assertThat(context.lookupVariable("a")).isEqualTo("b");
+		assertThat(other.lookupVariable("a")).isNull();
+	}
+
+	@Test
+	public void evaluatesExpressions() {
+		context.setRootObject(new Root());
+		Expression expression = new SpelExpressionParser()
+				.parseExpression("name.length() == 4 and T(java.lang.Math).abs(-1) == 1");
+
+		assertThat(expression.getValue(context, Boolean.class)).isTrue();
+		assertThat(expression.getValue(new SecurityEvaluationContext(shared),
+				new Root(), Boolean.class)).isTrue();
+	}
+
+	public static class Root {
+		public String getName() {
+			return "root";
+		}
+	}
+}
@@ -15,8 +15,16 @@
  */
 package org.springframework.security.access.expression.method;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.verify;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.aopalliance.intercept.MethodInvocation;
 import org.junit.After;
 import org.junit.Before;
@@ -29,6 +37,7 @@ import org.springframework.expression.Expression;
 import org.springframework.security.authentication.AuthenticationTrustResolver;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DefaultMethodSecurityExpressionHandlerTests {
@@ -68,4 +77,89 @@ public class DefaultMethodSecurityExpressionHandlerTests {
 
 		verify(trustResolver).isAnonymous(authentication);
 	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setFilterChunkSizeZero() {
+		handler.setFilterChunkSize(0);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void filterCollectionInParallelPreservesOrder() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			handler.setFilterExecutor(executor);
+			handler.setFilterChunkSize(10);
+			List<Integer> numbers = numbers(1000);
+			Expression expression = handler.getExpressionParser().parseExpression(
+					"filterObject % 3 == 0");
+			EvaluationContext context = handler.createEvaluationContext(
+					authentication, methodInvocation);
+
+			List<Integer> filtered = (List<Integer>) handler.filter(numbers,
+					expression, context);
+
+			assertThat(filtered).isSameAs(numbers).hasSize(334);
+			for (int i = 0; i < filtered.size(); i++) {
+				assertThat(filtered.get(i)).isEqualTo(i * 3);
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void filterArrayInParallelUsesSecurityContext() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			SecurityContextImpl securityContext = new SecurityContextImpl();
+			securityContext.setAuthentication(authentication);
+			SecurityContextHolder.setContext(securityContext);
+			handler.setFilterExecutor(executor);
+			handler.setFilterChunkSize(10);
+			Integer[] numbers = numbers(100).toArray(new Integer[0]);
+			Expression expression = handler.getExpressionParser().parseExpression(
+					"T(org.springframework.security.core.context.SecurityContextHolder).context.authentication == authentication");
+			EvaluationContext context = handler.createEvaluationContext(
+					authentication, methodInvocation);
+
+			Object filtered = handler.filter(numbers, expression, context);
+
+			assertThat((Integer[]) filtered).containsExactly(numbers);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void filterIteratorIsLazy() {
+		List<Integer> numbers = numbers(10);
+		Iterator<Integer> source = numbers.iterator();
+		Expression expression = handler.getExpressionParser().parseExpression(
+				"filterObject % 2 == 1");
+		EvaluationContext context = handler.createEvaluationContext(authentication,
+				methodInvocation);
+
+		Iterator<Integer> filtered = (Iterator<Integer>) handler.filter(source,
+				expression, context);
+
+		assertThat(filtered.next()).isEqualTo(1);
+		assertThat(source.next()).isEqualTo(2);
+		List<Integer> remaining = new ArrayList<Integer>();
+		while (filtered.hasNext()) {
+			remaining.add(filtered.next());
+		}
+		assertThat(remaining).containsExactly(3, 5, 7, 9);
+	}
+
+	private static List<Integer> numbers(int count) {
+		Integer[] numbers = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			numbers[i] = i;
+		}
+		return new ArrayList<Integer>(Arrays.asList(numbers));
+	}
 }
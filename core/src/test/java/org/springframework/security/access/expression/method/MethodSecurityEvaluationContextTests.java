@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.expression.method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.security.access.expression.SecurityEvaluationContext.SharedComponents;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+/**
+ * @author Rob Winch
+ */
+public class MethodSecurityEvaluationContextTests {
+	private ParameterNameDiscoverer discoverer;
+
+	private MethodParameterNameCache cache;
+
+	private Method method;
+
+	private Target target;
+
+	@Before
+	public void setup() throws Exception {
+		discoverer = mock(ParameterNameDiscoverer.class);
+		cache = new MethodParameterNameCache(discoverer);
+		method = Target.class.getMethod("find", String.class, Integer.class);
+		target = new Target();
+		when(discoverer.getParameterNames(any(Method.class))).thenReturn(
+				new String[] { "name", "id" });
+	}
+
+	@Test
+	public void lookupVariableResolvesArguments() {
+		MethodSecurityEvaluationContext context = createContext("rob", 1);
+
+		assertThat(context.lookupVariable("name")).isEqualTo("rob");
+		assertThat(context.lookupVariable("id")).isEqualTo(1);
+		assertThat(context.lookupVariable("other")).isNull();
+	}
+
+	@Test
+	public void lookupVariableWhenSetThenVariableUsed() {
+		MethodSecurityEvaluationContext context = createContext("rob", 1);
+		context.setVariable("name", "luke");
+
+		assertThat(context.lookupVariable("name")).isEqualTo("luke");
+	}
+
+	@Test
+	public void parameterNamesResolvedOnlyWhenReferenced() {
+		createContext("rob", 1);
+
+		verifyZeroInteractions(discoverer);
+	}
+
+	@Test
+	public void parameterNamesResolvedOncePerMethod() {
+		createContext("rob", 1).lookupVariable("name");
+		createContext("luke", 2).lookupVariable("id");
+
+		verify(discoverer, times(1)).getParameterNames(method);
+	}
+
+	@Test
+	public void unresolvedParameterNamesAreCached() {
+		when(discoverer.getParameterNames(any(Method.class))).thenReturn(null);
+
+		assertThat(createContext("rob", 1).lookupVariable("name")).isNull();
+		assertThat(createContext("luke", 2).lookupVariable("name")).isNull();
+
+		verify(discoverer, times(1)).getParameterNames(method);
+	}
+
+	private MethodSecurityEvaluationContext createContext(Object... args) {
+		return new MethodSecurityEvaluationContext(mock(Authentication.class),
+				new SimpleMethodInvocation(target, method, args), cache,
+				new SharedComponents());
+	}
+
+	public static class Target {
+		public String find(String name, Integer id) {
+			return name + id;
+		}
+	}
+}
@@ -19,6 +19,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.junit.Test;
@@ -211,4 +212,65 @@ public class RoleHierarchyImplTests {
 						roleHierarchyImpl.getReachableGrantedAuthorities(authorities2),
 						authorities2)).isTrue();
 	}
+
+	@Test
+	public void getReachableGrantedAuthoritiesWhenSameAuthoritiesThenCachedImmutableResult() {
+		RoleHierarchyImpl roleHierarchyImpl = new RoleHierarchyImpl();
+		roleHierarchyImpl.setHierarchy("ROLE_A > ROLE_B\nROLE_B > ROLE_C");
+
+		Collection<GrantedAuthority> reachable = roleHierarchyImpl
+				.getReachableGrantedAuthorities(AuthorityUtils.createAuthorityList(
+						"ROLE_A", "ROLE_X"));
+
+		assertThat(reachable).extracting("authority").containsOnly("ROLE_A", "ROLE_B",
+				"ROLE_C", "ROLE_X");
+		assertThat(
+				roleHierarchyImpl.getReachableGrantedAuthorities(AuthorityUtils
+						.createAuthorityList("ROLE_X", "ROLE_A"))).isSameAs(reachable);
+		try {
+			reachable.clear();
+			fail("Expected UnsupportedOperationException");
+		}
+		catch (UnsupportedOperationException expected) {
+		}
+	}
+
+	@Test
+	public void getReachableGrantedAuthoritiesWhenCustomAuthorityThenNotCached() {
+		RoleHierarchyImpl roleHierarchyImpl = new RoleHierarchyImpl();
+		roleHierarchyImpl.setHierarchy("ROLE_A > ROLE_B");
+		List<GrantedAuthority> authorities = HierarchicalRolesTestHelper
+				.createAuthorityList("ROLE_A");
+
+		Collection<GrantedAuthority> reachable = roleHierarchyImpl
+				.getReachableGrantedAuthorities(authorities);
+
+		assertThat(reachable).contains(authorities.get(0));
+		assertThat(roleHierarchyImpl.getReachableGrantedAuthorities(authorities))
+				.isNotSameAs(reachable);
+	}
+
+	@Test
+	public void setHierarchyWhenChangedThenCacheDiscarded() {
+		RoleHierarchyImpl roleHierarchyImpl = new RoleHierarchyImpl();
+		roleHierarchyImpl.setHierarchy("ROLE_A > ROLE_B");
+		List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("ROLE_A");
+		roleHierarchyImpl.getReachableGrantedAuthorities(authorities);
+
+		roleHierarchyImpl.setHierarchy("ROLE_A > ROLE_C");
+
+		assertThat(roleHierarchyImpl.getReachableGrantedAuthorities(authorities))
+				.extracting("authority").containsOnly("ROLE_A", "ROLE_C");
+	}
+
+	@Test
+	public void getReachableGrantedAuthoritiesWhenCachingDisabledThenNotCached() {
+		RoleHierarchyImpl roleHierarchyImpl = new RoleHierarchyImpl();
+		roleHierarchyImpl.setHierarchy("ROLE_A > ROLE_B");
+		roleHierarchyImpl.setMaxCachedAuthoritySets(0);
+		List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("ROLE_A");
+
+		assertThat(roleHierarchyImpl.getReachableGrantedAuthorities(authorities))
+				.isNotSameAs(roleHierarchyImpl.getReachableGrantedAuthorities(authorities));
+	}
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.intercept.aopalliance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.ExpressionBasedAnnotationAttributeFactory;
+import org.springframework.security.access.method.DelegatingMethodSecurityMetadataSource;
+import org.springframework.security.access.method.MethodSecurityMetadataSource;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.access.prepost.PrePostAnnotationSecurityMetadataSource;
+
+/**
+ * @author Rob Winch
+ */
+public class MethodSecurityMetadataPrecomputerTests {
+	private DefaultListableBeanFactory beanFactory;
+
+	private MethodSecurityMetadataSource prePostSource;
+
+	private DelegatingMethodSecurityMetadataSource metadataSource;
+
+	private MethodSecurityMetadataPrecomputer precomputer;
+
+	@Before
+	public void setup() {
+		beanFactory = new DefaultListableBeanFactory();
+		prePostSource = spy(new PrePostAnnotationSecurityMetadataSource(
+				new ExpressionBasedAnnotationAttributeFactory(
+						new DefaultMethodSecurityExpressionHandler())));
+		metadataSource = new DelegatingMethodSecurityMetadataSource(
+				Arrays.asList(prePostSource));
+		precomputer = new MethodSecurityMetadataPrecomputer(metadataSource);
+		precomputer.setBeanFactory(beanFactory);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorWhenNullMetadataSourceThenException() {
+		new MethodSecurityMetadataPrecomputer(null);
+	}
+
+	@Test
+	public void afterSingletonsInstantiatedWhenAdvisedThenInterfaceAndClassMethodsResolved()
+			throws Exception {
+		beanFactory.registerSingleton("service", createProxy(new ServiceImpl()));
+
+		precomputer.afterSingletonsInstantiated();
+
+		Method interfaceMethod = Service.class.getMethod("secured");
+		Method classMethod = ServiceImpl.class.getMethod("secured");
+		verify(prePostSource).getAttributes(interfaceMethod, ServiceImpl.class);
+		verify(prePostSource).getAttributes(classMethod, ServiceImpl.class);
+		Collection<ConfigAttribute> attributes = metadataSource.getAttributes(
+				interfaceMethod, ServiceImpl.class);
+		assertThat(attributes).hasSize(1);
+		assertThat(attributes.iterator().next().toString()).contains("hasRole('USER')");
+	}
+
+	@Test
+	public void afterSingletonsInstantiatedWhenResolvedThenNotResolvedAgain()
+			throws Exception {
+		beanFactory.registerSingleton("service", createProxy(new ServiceImpl()));
+		precomputer.afterSingletonsInstantiated();
+		Method interfaceMethod = Service.class.getMethod("secured");
+		Collection<ConfigAttribute> attributes = metadataSource.getAttributes(
+				interfaceMethod, ServiceImpl.class);
+
+		assertThat(metadataSource.getAttributes(interfaceMethod, ServiceImpl.class))
+				.isSameAs(attributes);
+		verify(prePostSource).getAttributes(interfaceMethod, ServiceImpl.class);
+	}
+
+	@Test
+	public void afterSingletonsInstantiatedWhenNotAdvisedThenNotResolved() {
+		beanFactory.registerSingleton("service", new ServiceImpl());
+
+		precomputer.afterSingletonsInstantiated();
+
+		verify(prePostSource, never()).getAttributes(any(Method.class),
+				any(Class.class));
+	}
+
+	@Test(expected = BeanInitializationException.class)
+	public void afterSingletonsInstantiatedWhenInvalidExpressionThenException() {
+		beanFactory.registerSingleton("invalid", createProxy(new InvalidServiceImpl()));
+
+		precomputer.afterSingletonsInstantiated();
+	}
+
+	private Object createProxy(Object target) {
+		ProxyFactory factory = new ProxyFactory(target);
+		factory.addAdvisor(new MethodSecurityMetadataSourceAdvisor("interceptor",
+				metadataSource, "metadataSource"));
+		return factory.getProxy();
+	}
+
+	public interface Service {
+		@PreAuthorize("hasRole('USER')")
+		void secured();
+
+		void unsecured();
+	}
+
+	public static class ServiceImpl implements Service {
+		public void secured() {
+		}
+
+		public void unsecured() {
+		}
+	}
+
+	public static class InvalidServiceImpl implements Service {
+		@PreAuthorize("hasRole('USER'")
+		public void secured() {
+		}
+
+		public void unsecured() {
+		}
+	}
+}
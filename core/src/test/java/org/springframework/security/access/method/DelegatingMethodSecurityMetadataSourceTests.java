@@ -71,4 +71,23 @@ public class DelegatingMethodSecurityMetadataSourceTests {
 				new SimpleMethodInvocation(null, String.class.getMethod("length")))).isEmpty();;
 	}
 
+	@Test
+	public void getAttributesWhenCachedThenDelegateNotConsulted() throws Exception {
+		List sources = new ArrayList();
+		MethodSecurityMetadataSource delegate = mock(MethodSecurityMetadataSource.class);
+		Method toString = String.class.getMethod("toString");
+		Method length = String.class.getMethod("length");
+		when(delegate.getAttributes(toString, String.class)).thenReturn(
+				Arrays.asList(mock(ConfigAttribute.class)));
+		sources.add(delegate);
+		mds = new DelegatingMethodSecurityMetadataSource(sources);
+
+		mds.getAttributes(toString, String.class);
+		mds.getAttributes(toString, String.class);
+		mds.getAttributes(length, String.class);
+		mds.getAttributes(length, String.class);
+
+		verify(delegate, times(1)).getAttributes(toString, String.class);
+		verify(delegate, times(1)).getAttributes(length, String.class);
+	}
 }
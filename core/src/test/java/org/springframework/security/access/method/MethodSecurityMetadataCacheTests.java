@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
+
+/**
+ * @author Rob Winch
+ */
+public class MethodSecurityMetadataCacheTests {
+	private MethodSecurityMetadataCache cache;
+
+	private Method method;
+
+	@Before
+	public void setup() throws Exception {
+		cache = new MethodSecurityMetadataCache();
+		method = Object.class.getMethod("toString");
+	}
+
+	@Test
+	public void getWhenNotCachedThenNull() {
+		assertThat(cache.get(method, String.class)).isNull();
+	}
+
+	@Test
+	public void putThenGetByMethodAndTargetClass() {
+		List<ConfigAttribute> attributes = SecurityConfig.createList("ROLE_USER");
+
+		assertThat(cache.put(method, String.class, attributes)).isSameAs(attributes);
+
+		assertThat(cache.get(method, String.class)).isSameAs(attributes);
+		assertThat(cache.get(method, Integer.class)).isNull();
+		assertThat(cache.get(method, null)).isNull();
+	}
+
+	@Test
+	public void putWhenNullThenEmptyCached() {
+		cache.put(method, null, null);
+
+		assertThat(cache.get(method, null)).isEmpty();
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void putWhenAlreadyCachedThenFirstKept() {
+		List<ConfigAttribute> first = SecurityConfig.createList("ROLE_USER");
+		cache.put(method, String.class, first);
+
+		assertThat(cache.put(method, String.class, SecurityConfig.createList("ROLE_ADMIN")))
+				.isSameAs(first);
+	}
+
+	@Test
+	public void freezeThenCachedEntriesFrozen() {
+		List<ConfigAttribute> attributes = SecurityConfig.createList("ROLE_USER");
+		cache.put(method, String.class, attributes);
+
+		cache.freeze();
+		cache.put(method, Integer.class, null);
+
+		assertThat(cache.frozenSize()).isEqualTo(1);
+		assertThat(cache.get(method, String.class)).isSameAs(attributes);
+		assertThat(cache.get(method, Integer.class)).isEmpty();
+	}
+
+	@Test
+	public void freezeThenEntriesMovedNotCopied() {
+		List<ConfigAttribute> attributes = SecurityConfig.createList("ROLE_USER");
+		cache.put(method, String.class, attributes);
+		cache.put(method, Integer.class, null);
+
+		cache.freeze();
+
+		assertThat(cache.frozenSize()).isEqualTo(2);
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.put(method, String.class,
+				SecurityConfig.createList("ROLE_ADMIN"))).isSameAs(attributes);
+		assertThat(cache.size()).isEqualTo(2);
+	}
+
+	@Test
+	public void freezeWhenFrozenThenLaterEntriesAdded() {
+		cache.put(method, String.class, SecurityConfig.createList("ROLE_USER"));
+		cache.freeze();
+		cache.put(method, Integer.class, null);
+
+		cache.freeze();
+
+		assertThat(cache.frozenSize()).isEqualTo(2);
+	}
+
+	@Test
+	public void clearWhenFrozenThenEmpty() {
+		cache.put(method, String.class, SecurityConfig.createList("ROLE_USER"));
+		cache.freeze();
+
+		cache.clear();
+
+		assertThat(cache.frozenSize()).isZero();
+		assertThat(cache.get(method, String.class)).isNull();
+	}
+
+	@Test
+	public void clearThenEmpty() {
+		cache.put(method, String.class, Collections.<ConfigAttribute> emptyList());
+
+		cache.clear();
+
+		assertThat(cache.size()).isZero();
+		assertThat(cache.get(method, String.class)).isNull();
+	}
+
+	@Test
+	public void putWhenConcurrentThenSingleValueWins() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			Future<?>[] results = new Future<?>[64];
+			for (int i = 0; i < results.length; i++) {
+				final String role = "ROLE_" + i;
+				results[i] = executor.submit(new Callable<Collection<ConfigAttribute>>() {
+					public Collection<ConfigAttribute> call() {
+						return cache.put(method, String.class,
+								SecurityConfig.createList(role));
+					}
+				});
+			}
+			Object winner = cache.get(method, String.class);
+			for (Future<?> result : results) {
+				assertThat(result.get()).isSameAs(winner);
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+}
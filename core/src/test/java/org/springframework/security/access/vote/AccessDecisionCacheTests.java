@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.access.vote;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
+import org.springframework.security.access.annotation.Jsr250SecurityConfig;
+import org.springframework.security.authentication.RememberMeAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+/**
+ * @author Rob Winch
+ */
+public class AccessDecisionCacheTests {
+	private AccessDecisionCache cache;
+
+	private List<ConfigAttribute> attributes;
+
+	private Authentication user;
+
+	@Before
+	public void setup() {
+		cache = new AccessDecisionCache();
+		attributes = SecurityConfig.createList("ROLE_USER");
+		user = new TestingAuthenticationToken("user", "password", "ROLE_USER");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorZeroMaxEntries() {
+		new AccessDecisionCache(0);
+	}
+
+	@Test
+	public void getWhenEmptyThenMiss() {
+		assertThat(cache.get(user, attributes)).isNull();
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getHitRatio()).isEqualTo(0);
+	}
+
+	@Test
+	public void getWhenSameAuthoritiesThenHit() {
+		cache.put(user, attributes, AccessDecisionVoter.ACCESS_GRANTED);
+		Authentication other = new TestingAuthenticationToken("other", "password",
+				"ROLE_USER");
+
+		assertThat(cache.get(other, attributes)).isEqualTo(
+				AccessDecisionVoter.ACCESS_GRANTED);
+		assertThat(cache.get(user, attributes)).isEqualTo(
+				AccessDecisionVoter.ACCESS_GRANTED);
+		assertThat(cache.getHitCount()).isEqualTo(2);
+		assertThat(cache.getHitRatio()).isEqualTo(1);
+	}
+
+	@Test
+	public void getWhenDifferentAuthoritiesThenMiss() {
+		cache.put(user, attributes, AccessDecisionVoter.ACCESS_GRANTED);
+		Authentication admin = new TestingAuthenticationToken("admin", "password",
+				"ROLE_ADMIN");
+
+		assertThat(cache.get(admin, attributes)).isNull();
+	}
+
+	@Test
+	public void getWhenDifferentAuthenticationTypeThenMiss() {
+		cache.put(user, attributes, AccessDecisionVoter.ACCESS_GRANTED);
+		Authentication rememberMe = new RememberMeAuthenticationToken("key", "user",
+				AuthorityUtils.createAuthorityList("ROLE_USER"));
+
+		assertThat(cache.get(rememberMe, attributes)).isNull();
+	}
+
+	@Test
+	public void getWhenEqualButDifferentAttributesThenMiss() {
+		cache.put(user, attributes, AccessDecisionVoter.ACCESS_GRANTED);
+
+		assertThat(cache.get(user, SecurityConfig.createList("ROLE_USER"))).isNull();
+	}
+
+	@Test
+	public void isCacheable() {
+		assertThat(cache.isCacheable(user, attributes)).isTrue();
+		assertThat(
+				cache.isCacheable(user, SecurityConfig.createList(
+						Jsr250SecurityConfig.PERMIT_ALL_ATTRIBUTE.getAttribute())))
+				.isTrue();
+		assertThat(cache.isCacheable(null, attributes)).isFalse();
+		assertThat(cache.isCacheable(user, SecurityConfig.createList())).isFalse();
+		assertThat(cache.isCacheable(user, Arrays
+				.<ConfigAttribute> asList(new SecurityConfig("ROLE_USER") {
+				}))).isFalse();
+	}
+
+	@Test
+	public void putWhenNotCacheableThenNotCached() {
+		List<ConfigAttribute> custom = Arrays
+				.<ConfigAttribute> asList(new SecurityConfig("ROLE_USER") {
+				});
+
+		cache.put(user, custom, AccessDecisionVoter.ACCESS_GRANTED);
+
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.get(user, custom)).isNull();
+		assertThat(cache.getMissCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void putWhenFullThenEvicts() {
+		cache = new AccessDecisionCache(2);
+
+		for (int i = 0; i < 5; i++) {
+			cache.put(user, SecurityConfig.createList("ROLE_" + i),
+					AccessDecisionVoter.ACCESS_DENIED);
+		}
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.getEvictionCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void clear() {
+		cache.put(user, attributes, AccessDecisionVoter.ACCESS_GRANTED);
+
+		cache.clear();
+
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.get(user, attributes)).isNull();
+	}
+}
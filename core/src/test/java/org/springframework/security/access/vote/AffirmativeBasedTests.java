@@ -17,6 +17,7 @@
 package org.springframework.security.access.vote;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
@@ -30,6 +31,7 @@ import org.junit.Test;
 import org.springframework.security.access.AccessDecisionVoter;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.Authentication;
 
@@ -114,4 +116,123 @@ public class AffirmativeBasedTests {
 
 		mgr.decide(user, new Object(), attrs);
 	}
+
+	@Test
+	public void cachedDecisionIsUsed() throws Exception {
+		List<ConfigAttribute> attributes = SecurityConfig.createList("ROLE_1");
+		AccessDecisionCache cache = new ObjectIndependentDecisionCache();
+		mgr = new AffirmativeBased(
+				Arrays.<AccessDecisionVoter<? extends Object>> asList(grant));
+		mgr.setDecisionCache(cache);
+
+		mgr.decide(user, new Object(), attributes);
+		mgr.decide(user, new Object(), attributes);
+
+		verify(grant, times(1)).vote(eq(user), any(Object.class), eq(attributes));
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void cachedDenyDecisionDeniesAccess() throws Exception {
+		List<ConfigAttribute> attributes = SecurityConfig.createList("ROLE_1");
+		mgr = new AffirmativeBased(
+				Arrays.<AccessDecisionVoter<? extends Object>> asList(deny));
+		mgr.setDecisionCache(new ObjectIndependentDecisionCache());
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				mgr.decide(user, new Object(), attributes);
+				fail("Expected AccessDeniedException");
+			}
+			catch (AccessDeniedException expected) {
+			}
+		}
+
+		verify(deny, times(1)).vote(eq(user), any(Object.class), eq(attributes));
+	}
+
+	@Test
+	public void decisionNotCachedWhenSupportingVoterDependsOnObject() throws Exception {
+		List<ConfigAttribute> attributes = SecurityConfig.createList("ROLE_1");
+		when(grant.supports(attributes.get(0))).thenReturn(true);
+		AccessDecisionCache cache = new AccessDecisionCache();
+		mgr = new AffirmativeBased(Arrays.<AccessDecisionVoter<? extends Object>> asList(
+				new RoleVoter(), grant));
+		mgr.setDecisionCache(cache);
+
+		mgr.decide(user, new Object(), attributes);
+		mgr.decide(user, new Object(), attributes);
+
+		assertThat(cache.size()).isZero();
+		assertThat(cache.getMissCount()).isZero();
+	}
+
+	@Test
+	public void decisionCachedWhenSupportingVotersObjectIndependent() throws Exception {
+		List<ConfigAttribute> attributes = SecurityConfig.createList("ROLE_1");
+		AccessDecisionCache cache = new AccessDecisionCache();
+		mgr = new AffirmativeBased(Arrays.<AccessDecisionVoter<? extends Object>> asList(
+				new RoleVoter(), new AuthenticatedVoter(), abstain));
+		mgr.setDecisionCache(cache);
+
+		mgr.decide(user, new Object(), attributes);
+		mgr.decide(user, new Object(), attributes);
+
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void decideWhenAttributeSupportedThenOnlySupportingVotersPolled()
+			throws Exception {
+		List<ConfigAttribute> attributes = SecurityConfig.createList("ROLE_1");
+		when(grant.supports(attributes.get(0))).thenReturn(true);
+		mgr = new AffirmativeBased(Arrays.<AccessDecisionVoter<? extends Object>> asList(
+				deny, grant));
+		assertThat(mgr.supports(attributes.get(0))).isTrue();
+
+		mgr.decide(user, new Object(), attributes);
+
+		verify(deny, never()).vote(any(Authentication.class), any(Object.class),
+				any(List.class));
+		verify(grant).vote(eq(user), any(Object.class), eq(attributes));
+	}
+
+	@Test
+	public void decideWhenAttributeNotSeenThenAllVotersPolled() throws Exception {
+		List<ConfigAttribute> attributes = SecurityConfig.createList("ROLE_1");
+		mgr = new AffirmativeBased(Arrays.<AccessDecisionVoter<? extends Object>> asList(
+				deny, grant));
+		mgr.supports(new SecurityConfig("ROLE_2"));
+
+		mgr.decide(user, new Object(), attributes);
+
+		verify(deny).vote(eq(user), any(Object.class), eq(attributes));
+		verify(grant).vote(eq(user), any(Object.class), eq(attributes));
+	}
+
+	@Test
+	public void decideWhenVoterRoutingDisabledThenAllVotersPolled() throws Exception {
+		List<ConfigAttribute> attributes = SecurityConfig.createList("ROLE_1");
+		when(grant.supports(attributes.get(0))).thenReturn(true);
+		mgr = new AffirmativeBased(Arrays.<AccessDecisionVoter<? extends Object>> asList(
+				deny, grant));
+		mgr.setVoterRouting(false);
+		mgr.supports(attributes.get(0));
+
+		mgr.decide(user, new Object(), attributes);
+
+		verify(deny).vote(eq(user), any(Object.class), eq(attributes));
+	}
+
+	/**
+	 * Treats the mock voters as independent of the secured object.
+	 */
+	private static class ObjectIndependentDecisionCache extends AccessDecisionCache {
+		@Override
+		protected boolean isObjectIndependent(AccessDecisionVoter<?> voter) {
+			return true;
+		}
+	}
 }
@@ -19,6 +19,7 @@ package org.springframework.security.access.vote;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Vector;
 
@@ -27,6 +28,8 @@ import org.springframework.security.access.AccessDecisionVoter;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.ConfigAttribute;
 import org.springframework.security.access.SecurityConfig;
+import org.springframework.security.access.annotation.Jsr250SecurityConfig;
+import org.springframework.security.access.annotation.Jsr250Voter;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 
 /**
@@ -164,4 +167,49 @@ public class UnanimousBasedTests {
 
 		mgr.decide(auth, new Object(), config);
 	}
+
+	@Test
+	public void testRoutedVotersStillDeny() throws Exception {
+		TestingAuthenticationToken auth = makeTestToken();
+		UnanimousBased mgr = makeDecisionManager();
+		List<ConfigAttribute> config = SecurityConfig.createList("ROLE_1",
+				"DENY_FOR_SURE");
+		for (ConfigAttribute attribute : config) {
+			assertThat(mgr.supports(attribute)).isTrue();
+		}
+
+		try {
+			mgr.decide(auth, new Object(), config);
+			fail("Should have thrown AccessDeniedException");
+		}
+		catch (AccessDeniedException expected) {
+		}
+
+		mgr.decide(auth, new Object(), SecurityConfig.createList("ROLE_1"));
+	}
+
+	@Test
+	public void testRoutesDistinguishAttributeTypesWithSameString() throws Exception {
+		List<AccessDecisionVoter<? extends Object>> voters = new Vector<AccessDecisionVoter<? extends Object>>();
+		voters.add(new RoleVoter());
+		voters.add(new Jsr250Voter());
+		UnanimousBased mgr = new UnanimousBased(voters);
+		mgr.setAllowIfAllAbstainDecisions(true);
+		ConfigAttribute denyAll = Jsr250SecurityConfig.DENY_ALL_ATTRIBUTE;
+		ConfigAttribute plain = new SecurityConfig(denyAll.getAttribute());
+		assertThat(plain).isEqualTo(denyAll);
+
+		assertThat(mgr.supports(denyAll)).isTrue();
+		assertThat(mgr.supports(plain)).isFalse();
+
+		try {
+			mgr.decide(makeTestToken(), new Object(),
+					Arrays.<ConfigAttribute> asList(denyAll));
+			fail("Should have thrown AccessDeniedException");
+		}
+		catch (AccessDeniedException expected) {
+		}
+
+		mgr.decide(makeTestToken(), new Object(), Arrays.<ConfigAttribute> asList(plain));
+	}
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.authentication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.SpringSecurityCoreVersion;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.util.SerializationUtils;
+
+/**
+ * @author Rob Winch
+ */
+public class CompactSerializationProxyTests {
+
+	@Test
+	public void serializeUsernamePasswordAuthenticationToken() {
+		User user = new User("user", "password", true, false, true, false,
+				AuthorityUtils.createAuthorityList("ROLE_A", "ROLE_B"));
+		UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
+				user, "password", user.getAuthorities());
+		token.setDetails("details");
+
+		UsernamePasswordAuthenticationToken result = serializeAndDeserialize(token);
+
+		assertThat(result).isEqualTo(token);
+		assertThat(result.isAuthenticated()).isTrue();
+		assertThat(result.getCredentials()).isEqualTo("password");
+		assertThat(result.getDetails()).isEqualTo("details");
+		User resultUser = (User) result.getPrincipal();
+		assertThat(resultUser.getPassword()).isEqualTo("password");
+		assertThat(resultUser.isEnabled()).isTrue();
+		assertThat(resultUser.isAccountNonExpired()).isFalse();
+		assertThat(resultUser.isCredentialsNonExpired()).isTrue();
+		assertThat(resultUser.isAccountNonLocked()).isFalse();
+		assertThat(resultUser.getAuthorities()).isEqualTo(user.getAuthorities());
+	}
+
+	@Test
+	public void serializeUnauthenticatedUsernamePasswordAuthenticationToken() {
+		UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
+				"user", "password");
+
+		UsernamePasswordAuthenticationToken result = serializeAndDeserialize(token);
+
+		assertThat(result).isEqualTo(token);
+		assertThat(result.isAuthenticated()).isFalse();
+	}
+
+	@Test
+	public void serializeErasedCredentials() {
+		User user = new User("user", "password",
+				AuthorityUtils.createAuthorityList("ROLE_A"));
+		UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
+				user, "password", user.getAuthorities());
+		token.eraseCredentials();
+
+		UsernamePasswordAuthenticationToken result = serializeAndDeserialize(token);
+
+		assertThat(result.getCredentials()).isNull();
+		assertThat(((User) result.getPrincipal()).getPassword()).isNull();
+	}
+
+	@Test
+	public void serializeRememberMeAuthenticationToken() {
+		RememberMeAuthenticationToken token = new RememberMeAuthenticationToken("key",
+				"user", AuthorityUtils.createAuthorityList("ROLE_A"));
+
+		RememberMeAuthenticationToken result = serializeAndDeserialize(token);
+
+		assertThat(result).isEqualTo(token);
+		assertThat(result.getKeyHash()).isEqualTo("key".hashCode());
+	}
+
+	@Test
+	public void serializeAnonymousAuthenticationToken() {
+		AnonymousAuthenticationToken token = new AnonymousAuthenticationToken("key",
+				"anonymous", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+		token.setAuthenticated(false);
+
+		AnonymousAuthenticationToken result = serializeAndDeserialize(token);
+
+		assertThat(result).isEqualTo(token);
+		assertThat(result.getKeyHash()).isEqualTo("key".hashCode());
+		assertThat(result.isAuthenticated()).isFalse();
+	}
+
+	@Test
+	public void serializeSecurityContext() {
+		SecurityContextImpl context = new SecurityContextImpl();
+		context.setAuthentication(new TestingAuthenticationToken("user", "password",
+				"ROLE_A"));
+
+		assertThat(serializeAndDeserialize(context)).isEqualTo(context);
+		assertThat(serializeAndDeserialize(new SecurityContextImpl())).isEqualTo(
+				new SecurityContextImpl());
+	}
+
+	@Test
+	public void serializeSimpleGrantedAuthority() {
+		SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_A");
+
+		assertThat(serializeAndDeserialize(authority)).isEqualTo(authority);
+	}
+
+	@Test
+	public void serializeCustomAuthority() {
+		List<GrantedAuthority> authorities = new ArrayList<GrantedAuthority>();
+		authorities.add(new CustomAuthority("ROLE_CUSTOM"));
+		authorities.add(new SimpleGrantedAuthority("ROLE_A"));
+		UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
+				"user", "password", authorities);
+
+		UsernamePasswordAuthenticationToken result = serializeAndDeserialize(token);
+
+		assertThat(result.getAuthorities()).containsExactlyElementsOf(authorities);
+	}
+
+	@Test
+	public void serializeSubclassUsesDefaultForm() {
+		User user = new ExtendedUser("user", "password",
+				AuthorityUtils.createAuthorityList("ROLE_A"));
+
+		User result = serializeAndDeserialize(user);
+
+		assertThat(result).isInstanceOf(ExtendedUser.class);
+		assertThat(((ExtendedUser) result).extra).isEqualTo("extra");
+	}
+
+	@Test
+	public void serializeIsSmallerThanDefaultForm() {
+		List<GrantedAuthority> authorities = new ArrayList<GrantedAuthority>();
+		// the default form must not contain any SimpleGrantedAuthority either
+		List<GrantedAuthority> defaultAuthorities = new ArrayList<GrantedAuthority>();
+		for (int i = 0; i < 30; i++) {
+			authorities.add(new SimpleGrantedAuthority("ROLE_" + i));
+			defaultAuthorities.add(new CustomAuthority("ROLE_" + i));
+		}
+		SecurityContextImpl context = new SecurityContextImpl();
+		User user = new User("user", "password", authorities);
+		context.setAuthentication(new UsernamePasswordAuthenticationToken(user, null,
+				authorities));
+		SecurityContextImpl defaultContext = new ExtendedSecurityContext();
+		User defaultUser = new ExtendedUser("user", "password", defaultAuthorities);
+		defaultContext.setAuthentication(new ExtendedToken(defaultUser, null,
+				defaultAuthorities));
+
+		int compactSize = SerializationUtils.serialize(context).length;
+		int defaultSize = SerializationUtils.serialize(defaultContext).length;
+
+		assertThat(compactSize).isLessThan(defaultSize / 2);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T serializeAndDeserialize(T object) {
+		return (T) SerializationUtils.deserialize(SerializationUtils.serialize(object));
+	}
+
+	static class CustomAuthority implements GrantedAuthority {
+		private static final long serialVersionUID = SpringSecurityCoreVersion.SERIAL_VERSION_UID;
+
+		private final String authority;
+
+		CustomAuthority(String authority) {
+			this.authority = authority;
+		}
+
+		public String getAuthority() {
+			return authority;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof CustomAuthority
+					&& authority.equals(((CustomAuthority) obj).authority);
+		}
+
+		@Override
+		public int hashCode() {
+			return authority.hashCode();
+		}
+	}
+
+	static class ExtendedUser extends User {
+		private static final long serialVersionUID = SpringSecurityCoreVersion.SERIAL_VERSION_UID;
+
+		private final String extra = "extra";
+
+		ExtendedUser(String username, String password,
+				List<GrantedAuthority> authorities) {
+			super(username, password, authorities);
+		}
+	}
+
+	static class ExtendedToken extends UsernamePasswordAuthenticationToken {
+		private static final long serialVersionUID = SpringSecurityCoreVersion.SERIAL_VERSION_UID;
+
+		ExtendedToken(Object principal, Object credentials,
+				List<GrantedAuthority> authorities) {
+			super(principal, credentials, authorities);
+		}
+	}
+
+	static class ExtendedSecurityContext extends SecurityContextImpl {
+		private static final long serialVersionUID = SpringSecurityCoreVersion.SERIAL_VERSION_UID;
+	}
+}
@@ -645,6 +645,62 @@ public class DaoAuthenticationProviderTests {
 		verify(encoder, times(0)).matches(anyString(), anyString());
 	}
 
+	@Test
+	public void authenticateWhenCredentialsCachedThenPasswordEncoderNotUsed() {
+		PasswordEncoder encoder = mock(PasswordEncoder.class);
+		when(encoder.matches("koala", "koala")).thenReturn(true);
+		VerifiedCredentialsCache cache = new VerifiedCredentialsCache();
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+		provider.setPasswordEncoder(encoder);
+		provider.setUserDetailsService(new MockAuthenticationDaoUserrod());
+		provider.setCredentialsCache(cache);
+
+		provider.authenticate(new UsernamePasswordAuthenticationToken("rod", "koala"));
+		provider.authenticate(new UsernamePasswordAuthenticationToken("rod", "koala"));
+
+		verify(encoder, times(1)).matches("koala", "koala");
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void authenticateWhenPasswordChangedThenCachedCredentialsNotUsed() {
+		PasswordEncoder encoder = mock(PasswordEncoder.class);
+		when(encoder.matches("koala", "koala")).thenReturn(true);
+		MockAuthenticationDaoUserrod userDetailsService = new MockAuthenticationDaoUserrod();
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+		provider.setPasswordEncoder(encoder);
+		provider.setUserDetailsService(userDetailsService);
+		provider.setCredentialsCache(new VerifiedCredentialsCache());
+		provider.authenticate(new UsernamePasswordAuthenticationToken("rod", "koala"));
+
+		userDetailsService.setPassword("changed");
+
+		try {
+			provider.authenticate(new UsernamePasswordAuthenticationToken("rod", "koala"));
+			fail("Should have thrown BadCredentialsException");
+		}
+		catch (BadCredentialsException expected) {
+		}
+		verify(encoder).matches("koala", "changed");
+	}
+
+	@Test
+	public void authenticateWhenWrongPasswordThenNotCached() {
+		VerifiedCredentialsCache cache = new VerifiedCredentialsCache();
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+		provider.setUserDetailsService(new MockAuthenticationDaoUserrod());
+		provider.setCredentialsCache(cache);
+
+		try {
+			provider.authenticate(new UsernamePasswordAuthenticationToken("rod", "wrong"));
+			fail("Should have thrown BadCredentialsException");
+		}
+		catch (BadCredentialsException expected) {
+		}
+		assertThat(cache.size()).isEqualTo(0);
+	}
+
 	// ~ Inner Classes
 	// ==================================================================================================
 
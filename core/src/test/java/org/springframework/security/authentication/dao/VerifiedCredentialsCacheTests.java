@@ -0,0 +1,119 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.authentication.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Rob Winch
+ */
+public class VerifiedCredentialsCacheTests {
+	private VerifiedCredentialsCache cache;
+
+	@Before
+	public void setUp() {
+		cache = new VerifiedCredentialsCache(2);
+	}
+
+	@Test
+	public void isVerifiedWhenPutThenHit() {
+		cache.putVerified("rod", "{encoded}", "koala");
+
+		assertThat(cache.isVerified("rod", "{encoded}", "koala")).isTrue();
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(0);
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void isVerifiedWhenDifferentCredentialsThenMiss() {
+		cache.putVerified("rod", "{encoded}", "koala");
+
+		assertThat(cache.isVerified("rod", "{encoded}", "wrong")).isFalse();
+		assertThat(cache.isVerified("rod", "{changed}", "koala")).isFalse();
+		assertThat(cache.isVerified("scott", "{encoded}", "koala")).isFalse();
+		assertThat(cache.isVerified("rod", null, "koala")).isFalse();
+		assertThat(cache.getMissCount()).isEqualTo(3);
+		assertThat(cache.getHitRatio()).isEqualTo(0);
+	}
+
+	@Test
+	public void isVerifiedWhenAmbiguousConcatenationThenMiss() {
+		cache.putVerified("rod", "{encoded}", "koala");
+
+		assertThat(cache.isVerified("ro", "d{encoded}", "koala")).isFalse();
+	}
+
+	@Test
+	public void isVerifiedWhenExpiredThenMiss() throws Exception {
+		cache.setTimeToLive(1);
+		cache.putVerified("rod", "{encoded}", "koala");
+
+		Thread.sleep(1100);
+
+		assertThat(cache.isVerified("rod", "{encoded}", "koala")).isFalse();
+		assertThat(cache.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void removeCredentials() {
+		cache.putVerified("rod", "{encoded}", "koala");
+
+		cache.removeCredentials("rod");
+
+		assertThat(cache.isVerified("rod", "{encoded}", "koala")).isFalse();
+		assertThat(cache.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void putVerifiedWhenFullThenEvicts() {
+		cache.putVerified("rod", "{encoded}", "koala");
+		cache.putVerified("scott", "{encoded}", "wombat");
+		cache.putVerified("scott", "{encoded}", "wombat");
+		assertThat(cache.getEvictionCount()).isEqualTo(0);
+
+		cache.putVerified("peter", "{encoded}", "opal");
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void clear() {
+		cache.putVerified("rod", "{encoded}", "koala");
+		cache.putVerified("scott", "{encoded}", "wombat");
+
+		cache.clear();
+
+		assertThat(cache.size()).isEqualTo(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setTimeToLiveZero() {
+		cache.setTimeToLive(0);
+	}
+
+	@Test
+	public void keysDifferBetweenInstances() {
+		VerifiedCredentialsCache other = new VerifiedCredentialsCache();
+		cache.putVerified("rod", "{encoded}", "koala");
+
+		assertThat(other.isVerified("rod", "{encoded}", "koala")).isFalse();
+	}
+}
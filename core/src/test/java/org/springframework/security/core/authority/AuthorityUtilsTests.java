@@ -42,4 +42,21 @@ public class AuthorityUtilsTests {
 		assertThat(authorities.contains("ROLE_A")).isTrue();
 		assertThat(authorities.contains("ROLE_D")).isTrue();
 	}
+
+	@Test
+	public void containsAuthorityWhenListThenFound() {
+		List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("A", "B");
+
+		assertThat(AuthorityUtils.containsAuthority(authorities, "B")).isTrue();
+		assertThat(AuthorityUtils.containsAuthority(authorities, "C")).isFalse();
+	}
+
+	@Test
+	public void containsAuthorityWhenInternedThenFound() {
+		List<GrantedAuthority> authorities = GrantedAuthorityRegistry.getDefault()
+				.createAuthorityList(AuthorityUtils.createAuthorityList("A", "B"));
+
+		assertThat(AuthorityUtils.containsAuthority(authorities, "B")).isTrue();
+		assertThat(AuthorityUtils.containsAuthority(authorities, "C")).isFalse();
+	}
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.core.authority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * @author Rob Winch
+ */
+public class GrantedAuthorityRegistryTests {
+	private GrantedAuthorityRegistry registry;
+
+	@Before
+	public void setup() {
+		registry = new GrantedAuthorityRegistry(2, 2);
+	}
+
+	@Test
+	public void internWhenEqualAuthorityThenSameInstance() {
+		GrantedAuthority first = registry.intern(new SimpleGrantedAuthority("ROLE_A"));
+
+		assertThat(registry.intern(new SimpleGrantedAuthority("ROLE_A"))).isSameAs(first);
+	}
+
+	@Test
+	public void internWhenOtherImplementationThenUnchanged() {
+		GrantedAuthority authority = new GrantedAuthority() {
+			public String getAuthority() {
+				return "ROLE_A";
+			}
+		};
+
+		assertThat(registry.intern(authority)).isSameAs(authority);
+	}
+
+	@Test
+	public void internWhenFullThenUnchanged() {
+		registry.intern(new SimpleGrantedAuthority("ROLE_A"));
+		registry.intern(new SimpleGrantedAuthority("ROLE_B"));
+		GrantedAuthority c = new SimpleGrantedAuthority("ROLE_C");
+
+		assertThat(registry.intern(c)).isSameAs(c);
+		assertThat(registry.intern(new SimpleGrantedAuthority("ROLE_C"))).isNotSameAs(c);
+	}
+
+	@Test
+	public void createAuthorityListWhenEqualListsThenSameInstance() {
+		InternedAuthorityList list = registry.createAuthorityList(AuthorityUtils
+				.createAuthorityList("ROLE_A", "ROLE_B"));
+
+		assertThat(
+				registry.createAuthorityList(AuthorityUtils.createAuthorityList(
+						"ROLE_A", "ROLE_B"))).isSameAs(list);
+		assertThat(
+				registry.createAuthorityList(AuthorityUtils.createAuthorityList(
+						"ROLE_B", "ROLE_A"))).isNotSameAs(list);
+	}
+
+	@Test
+	public void createAuthorityListWhenOtherImplementationThenNotShared() {
+		List<GrantedAuthority> authorities = Arrays
+				.<GrantedAuthority> asList(new TestAuthority("ROLE_A"));
+
+		assertThat(registry.createAuthorityList(authorities)).isNotSameAs(
+				registry.createAuthorityList(authorities));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void createAuthorityListWhenNullElementThenException() {
+		registry.createAuthorityList(Arrays.<GrantedAuthority> asList(
+				new SimpleGrantedAuthority("ROLE_A"), null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorWhenNegativeThenException() {
+		new GrantedAuthorityRegistry(-1, 0);
+	}
+
+	static class TestAuthority implements GrantedAuthority {
+		private final String authority;
+
+		TestAuthority(String authority) {
+			this.authority = authority;
+		}
+
+		public String getAuthority() {
+			return authority;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof TestAuthority
+					&& authority.equals(((TestAuthority) obj).authority);
+		}
+
+		@Override
+		public int hashCode() {
+			return authority.hashCode();
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.core.authority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.GrantedAuthorityRegistryTests.TestAuthority;
+
+/**
+ * @author Rob Winch
+ */
+public class InternedAuthorityListTests {
+	private GrantedAuthorityRegistry registry;
+
+	@Before
+	public void setup() {
+		registry = new GrantedAuthorityRegistry(100, 100);
+		// spread the ids over more than one word of the bit set
+		for (int i = 0; i < 70; i++) {
+			registry.intern(new SimpleGrantedAuthority("ROLE_" + i));
+		}
+	}
+
+	@Test
+	public void containsAuthorityWhenInternedThenFound() {
+		InternedAuthorityList list = registry.createAuthorityList(AuthorityUtils
+				.createAuthorityList("ROLE_1", "ROLE_69", "ROLE_NEW"));
+
+		assertThat(list.containsAuthority("ROLE_1")).isTrue();
+		assertThat(list.containsAuthority("ROLE_69")).isTrue();
+		assertThat(list.containsAuthority("ROLE_NEW")).isTrue();
+		assertThat(list.containsAuthority("ROLE_2")).isFalse();
+		assertThat(list.containsAuthority("ROLE_UNKNOWN")).isFalse();
+		assertThat(list.containsAuthority(null)).isFalse();
+	}
+
+	@Test
+	public void containsAuthorityWhenOtherImplementationThenFound() {
+		List<GrantedAuthority> authorities = new ArrayList<GrantedAuthority>();
+		authorities.add(new TestAuthority("ROLE_CUSTOM"));
+		InternedAuthorityList list = registry.createAuthorityList(authorities);
+
+		assertThat(list.containsAuthority("ROLE_CUSTOM")).isTrue();
+		assertThat(list.contains(new TestAuthority("ROLE_CUSTOM"))).isTrue();
+		assertThat(list.contains(new SimpleGrantedAuthority("ROLE_CUSTOM"))).isFalse();
+	}
+
+	@Test
+	public void containsWhenSimpleGrantedAuthorityThenFound() {
+		InternedAuthorityList list = registry.createAuthorityList(AuthorityUtils
+				.createAuthorityList("ROLE_1", "ROLE_65"));
+
+		assertThat(list.contains(new SimpleGrantedAuthority("ROLE_65"))).isTrue();
+		assertThat(list.contains(new SimpleGrantedAuthority("ROLE_2"))).isFalse();
+		assertThat(list.contains("ROLE_1")).isFalse();
+	}
+
+	@Test
+	public void listWhenCreatedThenOrderAndEqualityPreserved() {
+		List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList(
+				"ROLE_5", "ROLE_1", "ROLE_3");
+
+		InternedAuthorityList list = registry.createAuthorityList(authorities);
+
+		assertThat(list).containsExactly(authorities.toArray(new GrantedAuthority[0]));
+		assertThat(list).isEqualTo(authorities);
+		assertThat(authorities).isEqualTo(list);
+		assertThat(list.hashCode()).isEqualTo(authorities.hashCode());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void addThenException() {
+		registry.createAuthorityList(AuthorityUtils.createAuthorityList("ROLE_1")).add(
+				new SimpleGrantedAuthority("ROLE_2"));
+	}
+
+	@Test
+	public void serializeThenEqualAndInterned() throws Exception {
+		InternedAuthorityList list = GrantedAuthorityRegistry.getDefault()
+				.createAuthorityList(
+						AuthorityUtils.createAuthorityList("ROLE_A", "ROLE_B"));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(list);
+		out.close();
+		Object deserialized = new ObjectInputStream(new ByteArrayInputStream(
+				bytes.toByteArray())).readObject();
+
+		assertThat(deserialized).isSameAs(list);
+		assertThat(((InternedAuthorityList) deserialized).containsAuthority("ROLE_B"))
+				.isTrue();
+	}
+}
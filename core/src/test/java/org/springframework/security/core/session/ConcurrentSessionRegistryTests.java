@@ -0,0 +1,194 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.core.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * @author Rob Winch
+ */
+public class ConcurrentSessionRegistryTests {
+	private ConcurrentSessionRegistry sessionRegistry;
+
+	@Before
+	public void setUp() {
+		sessionRegistry = new ConcurrentSessionRegistry();
+	}
+
+	@After
+	public void tearDown() {
+		sessionRegistry.destroy();
+	}
+
+	@Test
+	public void registerNewSessionThenGetAllSessions() {
+		sessionRegistry.registerNewSession("1", "principal");
+		sessionRegistry.registerNewSession("2", "principal");
+		sessionRegistry.registerNewSession("3", "other");
+
+		assertThat(sessionRegistry.getAllPrincipals()).containsOnly("principal",
+				"other");
+		assertThat(sessionRegistry.getAllSessions("principal", false)).hasSize(2);
+		assertThat(sessionRegistry.getSessionCount("principal", false)).isEqualTo(2);
+		assertThat(sessionRegistry.getSessionCount()).isEqualTo(3);
+		assertThat(sessionRegistry.getSessionInformation("3").getPrincipal())
+				.isEqualTo("other");
+	}
+
+	@Test
+	public void expiredSessionsAreOnlyCountedIfIncluded() {
+		sessionRegistry.registerNewSession("1", "principal");
+		sessionRegistry.registerNewSession("2", "principal");
+
+		sessionRegistry.getSessionInformation("1").expireNow();
+
+		assertThat(sessionRegistry.getSessionCount("principal", false)).isEqualTo(1);
+		assertThat(sessionRegistry.getSessionCount("principal", true)).isEqualTo(2);
+		List<SessionInformation> sessions = sessionRegistry.getAllSessions("principal",
+				false);
+		assertThat(sessions).hasSize(1);
+		assertThat(sessions.get(0).getSessionId()).isEqualTo("2");
+	}
+
+	@Test
+	public void sessionCountsFollowExpiryAndRemoval() {
+		sessionRegistry.registerNewSession("1", "principal");
+		sessionRegistry.registerNewSession("2", "principal");
+		SessionInformation expired = sessionRegistry.getSessionInformation("1");
+
+		expired.expireNow();
+		expired.expireNow();
+
+		assertThat(sessionRegistry.getSessionCount("principal", false)).isEqualTo(1);
+		assertThat(sessionRegistry.getSessionCount("principal", true)).isEqualTo(2);
+
+		sessionRegistry.removeSessionInformation("1");
+
+		assertThat(sessionRegistry.getSessionCount("principal", false)).isEqualTo(1);
+		assertThat(sessionRegistry.getSessionCount("principal", true)).isEqualTo(1);
+
+		expired.expireNow();
+		sessionRegistry.registerNewSession("2", "principal");
+
+		assertThat(sessionRegistry.getSessionCount("principal", false)).isEqualTo(1);
+		assertThat(sessionRegistry.getSessionCount("principal", true)).isEqualTo(1);
+	}
+
+	@Test
+	public void sessionDestroyedEventRemovesSession() {
+		sessionRegistry.registerNewSession("1", "principal");
+
+		sessionRegistry.onApplicationEvent(new SessionDestroyedEvent("") {
+			@Override
+			public String getId() {
+				return "1";
+			}
+
+			@Override
+			public List<SecurityContext> getSecurityContexts() {
+				return null;
+			}
+		});
+
+		assertThat(sessionRegistry.getSessionInformation("1")).isNull();
+		assertThat(sessionRegistry.getAllPrincipals()).isEmpty();
+		assertThat(sessionRegistry.getSessionCount("principal", true)).isEqualTo(0);
+	}
+
+	@Test
+	public void registerExistingSessionMovesItToNewPrincipal() {
+		sessionRegistry.registerNewSession("1", "principal");
+		sessionRegistry.registerNewSession("1", "other");
+
+		assertThat(sessionRegistry.getAllPrincipals()).containsOnly("other");
+		assertThat(sessionRegistry.getSessionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void removeInactiveSessions() {
+		sessionRegistry.setMaxInactiveInterval(60);
+		sessionRegistry.registerNewSession("1", "principal");
+		sessionRegistry.registerNewSession("2", "principal");
+		SessionInformation inactive = sessionRegistry.getSessionInformation("1");
+		ReflectionTestUtils.setField(inactive, "lastRequest",
+				new Date(System.currentTimeMillis() - 61000));
+
+		assertThat(sessionRegistry.removeInactiveSessions()).isEqualTo(1);
+
+		assertThat(sessionRegistry.getSessionInformation("1")).isNull();
+		assertThat(sessionRegistry.getSessionInformation("2")).isNotNull();
+	}
+
+	@Test
+	public void removeInactiveSessionsWhenDisabled() {
+		sessionRegistry.registerNewSession("1", "principal");
+		ReflectionTestUtils.setField(sessionRegistry.getSessionInformation("1"),
+				"lastRequest", new Date(0));
+
+		assertThat(sessionRegistry.removeInactiveSessions()).isEqualTo(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setMaxInactiveIntervalZero() {
+		sessionRegistry.setMaxInactiveInterval(0);
+	}
+
+	@Test
+	public void concurrentRegistrationAndRemoval() throws Exception {
+		final int threads = 4;
+		final int iterations = 1000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			final int thread = t;
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						for (int i = 0; i < iterations; i++) {
+							String sessionId = thread + "-" + i;
+							sessionRegistry.registerNewSession(sessionId, "principal");
+							sessionRegistry.removeSessionInformation(sessionId);
+						}
+						sessionRegistry.registerNewSession("last-" + thread,
+								"principal");
+					}
+					finally {
+						done.countDown();
+					}
+				}
+			});
+		}
+		assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+		executor.shutdown();
+
+		assertThat(sessionRegistry.getSessionCount("principal", false)).isEqualTo(
+				threads);
+		assertThat(sessionRegistry.getAllPrincipals()).containsOnly("principal");
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.core.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * @author Rob Winch
+ */
+public class JdbcSessionRegistryTests {
+	private static SingleConnectionDataSource dataSource;
+
+	private JdbcSessionRegistry sessionRegistry;
+
+	private JdbcTemplate template;
+
+	@BeforeClass
+	public static void createDataSource() {
+		dataSource = new SingleConnectionDataSource(
+				"jdbc:hsqldb:mem:sessionregistrytest", "sa", "", true);
+		dataSource.setDriverClassName("org.hsqldb.jdbc.JDBCDriver");
+	}
+
+	@AfterClass
+	public static void clearDataSource() throws Exception {
+		dataSource.destroy();
+		dataSource = null;
+	}
+
+	@Before
+	public void populateDatabase() {
+		sessionRegistry = new JdbcSessionRegistry();
+		sessionRegistry.setDataSource(dataSource);
+		sessionRegistry.setCreateTableOnStartup(true);
+		sessionRegistry.afterPropertiesSet();
+		template = new JdbcTemplate(dataSource);
+	}
+
+	@After
+	public void clearData() {
+		template.execute("drop table session_registry");
+	}
+
+	@Test
+	public void registerNewSessionThenGetAllSessions() {
+		User user = new User("joe", "password",
+				AuthorityUtils.createAuthorityList("ROLE_USER"));
+		sessionRegistry.registerNewSession("1", user);
+		sessionRegistry.registerNewSession("2", "joe");
+		sessionRegistry.registerNewSession("3", "other");
+
+		List<SessionInformation> sessions = sessionRegistry.getAllSessions(user, false);
+
+		assertThat(sessions).hasSize(2);
+		assertThat(sessions.get(0).getPrincipal()).isSameAs(user);
+		assertThat(sessionRegistry.getSessionCount(user, false)).isEqualTo(2);
+		assertThat(sessionRegistry.getAllPrincipals()).containsOnly("joe", "other");
+		assertThat(sessionRegistry.getSessionInformation("3").getPrincipal())
+				.isEqualTo("other");
+	}
+
+	@Test
+	public void expireNowUpdatesDatabase() {
+		sessionRegistry.registerNewSession("1", "joe");
+		sessionRegistry.registerNewSession("2", "joe");
+
+		sessionRegistry.getAllSessions("joe", false).get(0).expireNow();
+
+		assertThat(sessionRegistry.getAllSessions("joe", false)).hasSize(1);
+		assertThat(sessionRegistry.getAllSessions("joe", true)).hasSize(2);
+		assertThat(sessionRegistry.getSessionCount("joe", false)).isEqualTo(1);
+		assertThat(sessionRegistry.getSessionCount("joe", true)).isEqualTo(2);
+	}
+
+	@Test
+	public void getSessionCountWhenCustomQueryThenUsed() {
+		sessionRegistry.registerNewSession("1", "joe");
+		sessionRegistry
+				.setCountUnexpiredSessionsByPrincipalQuery("select count(*) + 10 from session_registry where principal_name = ? and expired = ?");
+
+		assertThat(sessionRegistry.getSessionCount("joe", false)).isEqualTo(11);
+		assertThat(sessionRegistry.getSessionCount("joe", true)).isEqualTo(1);
+	}
+
+	@Test
+	public void removeSessionInformation() {
+		sessionRegistry.registerNewSession("1", "joe");
+
+		sessionRegistry.removeSessionInformation("1");
+
+		assertThat(sessionRegistry.getSessionInformation("1")).isNull();
+		assertThat(sessionRegistry.getAllPrincipals()).isEmpty();
+	}
+
+	@Test
+	public void refreshLastRequestOnlyUpdatesAfterInterval() {
+		sessionRegistry.registerNewSession("1", "joe");
+		Timestamp old = new Timestamp(System.currentTimeMillis() - 120000);
+		template.update("update session_registry set last_request = ?", old);
+
+		sessionRegistry.refreshLastRequest("1");
+		Timestamp refreshed = new Timestamp(sessionRegistry.getSessionInformation("1")
+				.getLastRequest().getTime());
+		assertThat(refreshed.after(old)).isTrue();
+
+		template.update("update session_registry set last_request = ?", refreshed);
+		sessionRegistry.refreshLastRequest("1");
+		assertThat(sessionRegistry.getSessionInformation("1").getLastRequest()
+				.getTime()).isEqualTo(refreshed.getTime());
+	}
+
+	@Test
+	public void removeInactiveSessions() {
+		sessionRegistry.setMaxInactiveInterval(60);
+		sessionRegistry.registerNewSession("1", "joe");
+		sessionRegistry.registerNewSession("2", "joe");
+		template.update(
+				"update session_registry set last_request = ? where session_id = '1'",
+				new Timestamp(System.currentTimeMillis() - 61000));
+
+		assertThat(sessionRegistry.removeInactiveSessions()).isEqualTo(1);
+
+		assertThat(sessionRegistry.getSessionInformation("1")).isNull();
+		assertThat(sessionRegistry.getSessionInformation("2")).isNotNull();
+	}
+}
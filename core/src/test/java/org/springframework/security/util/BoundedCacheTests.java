@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * @author Rob Winch
+ */
+public class BoundedCacheTests {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorWhenMaxEntriesNotPositiveThenException() {
+		new BoundedCache<String, String>("cache", 0);
+	}
+
+	@Test
+	public void putWhenFullThenEvicts() {
+		BoundedCache<String, String> cache = new BoundedCache<String, String>("cache", 2);
+
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("a", "3");
+		cache.put("c", "4");
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+		assertThat(cache.get("c")).isEqualTo("4");
+	}
+
+	@Test
+	public void putIfAbsentWhenPresentThenKeepsExisting() {
+		BoundedCache<String, String> cache = new BoundedCache<String, String>("cache", 2);
+
+		assertThat(cache.putIfAbsent("a", "1")).isNull();
+		assertThat(cache.putIfAbsent("a", "2")).isEqualTo("1");
+
+		assertThat(cache.get("a")).isEqualTo("1");
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void removeWhenValueDiffersThenKeeps() {
+		BoundedCache<String, String> cache = new BoundedCache<String, String>("cache", 2);
+		cache.put("a", "1");
+
+		assertThat(cache.remove("a", "2")).isFalse();
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(cache.remove("a", "1")).isTrue();
+		assertThat(cache.size()).isZero();
+		assertThat(cache.remove("a")).isFalse();
+	}
+
+	@Test
+	public void entrySetWhenRemovingWhileIteratingThenRemoved() {
+		BoundedCache<String, String> cache = new BoundedCache<String, String>("cache", 2);
+		cache.put("a", "1");
+		cache.put("b", "2");
+
+		for (Map.Entry<String, String> entry : cache.entrySet()) {
+			if (entry.getKey().equals("a")) {
+				cache.remove(entry.getKey(), entry.getValue());
+			}
+		}
+
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(cache.entrySet()).hasSize(1);
+		assertThat(cache.get("b")).isEqualTo("2");
+	}
+
+	@Test
+	public void clearKeepsStatistics() {
+		BoundedCache<String, String> cache = new BoundedCache<String, String>("cache", 2);
+		cache.put("a", "1");
+		cache.recordHit();
+		cache.recordMiss();
+		cache.recordHit();
+		cache.recordHit();
+
+		cache.clear();
+
+		assertThat(cache.size()).isZero();
+		assertThat(cache.get("a")).isNull();
+		assertThat(cache.getHitCount()).isEqualTo(3);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getHitRatio()).isEqualTo(0.75);
+		assertThat(cache.toString())
+				.isEqualTo("cache[size=0, hits=3, misses=1, evictions=0]");
+	}
+
+	@Test
+	public void getHitRatioWhenNoLookupsThenZero() {
+		assertThat(new BoundedCache<String, String>("cache", 1).getHitRatio()).isZero();
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+/**
+ * @author Rob Winch
+ */
+public class HmacTests {
+	private static final byte[] KEY = "0123456789abcdef".getBytes();
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorWhenKeyEmptyThenException() {
+		new Hmac(new byte[0]);
+	}
+
+	@Test
+	public void digestWhenSameKeyThenSameDigest() {
+		assertThat(new Hmac(KEY).digest("a", "b"))
+				.isEqualTo(new Hmac(KEY).digest("a", "b"));
+	}
+
+	@Test
+	public void digestWhenRandomKeysThenDifferentDigests() {
+		assertThat(new Hmac().digest("a")).isNotEqualTo(new Hmac().digest("a"));
+	}
+
+	@Test
+	public void digestIsUnambiguous() {
+		Hmac hmac = new Hmac(KEY);
+
+		assertThat(hmac.digest("ab", "c")).isNotEqualTo(hmac.digest("a", "bc"));
+	}
+
+	@Test
+	public void matches() {
+		Hmac hmac = new Hmac(KEY);
+		byte[] digest = hmac.digest("user", "password");
+
+		assertThat(hmac.matches(digest, "user", "password")).isTrue();
+		assertThat(hmac.matches(digest, "user", "other")).isFalse();
+		assertThat(hmac.matches(null, "user", "password")).isFalse();
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web;
+
+import javax.servlet.Filter;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Receives callbacks as a request passes through the {@link Filter}s of the
+ * {@link SecurityFilterChain} selected by the {@link FilterChainProxy}. Typically used to
+ * find out which of the security filters contribute to the latency of a request.
+ * <p>
+ * The callbacks are made on the thread processing the request, so implementations must
+ * be thread safe and should return quickly. When no {@code FilterChainListener} is
+ * configured the {@link FilterChainProxy} does not measure anything.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ * @see FilterChainProxy#setFilterChainListener(FilterChainListener)
+ * @see org.springframework.security.web.metrics.FilterChainMetrics
+ */
+public interface FilterChainListener {
+
+	/**
+	 * Invoked before a {@link Filter} of the chain is invoked.
+	 *
+	 * @param request the request being processed
+	 * @param chain the {@link SecurityFilterChain} selected for the request
+	 * @param filter the {@link Filter} about to be invoked
+	 * @param position the zero based position of the {@link Filter} within the chain
+	 */
+	void beforeFilter(HttpServletRequest request, SecurityFilterChain chain,
+			Filter filter, int position);
+
+	/**
+	 * Invoked after a {@link Filter} of the chain returned, whether normally or by
+	 * throwing an exception.
+	 *
+	 * @param request the request being processed
+	 * @param chain the {@link SecurityFilterChain} selected for the request
+	 * @param filter the {@link Filter} which was invoked
+	 * @param position the zero based position of the {@link Filter} within the chain
+	 * @param elapsedNanos the time spent in the {@link Filter} itself, excluding the
+	 * time spent in the remainder of the chain
+	 */
+	void afterFilter(HttpServletRequest request, SecurityFilterChain chain,
+			Filter filter, int position, long elapsedNanos);
+
+	/**
+	 * Invoked once the request has passed through the chain.
+	 *
+	 * @param request the request being processed
+	 * @param chain the {@link SecurityFilterChain} selected for the request
+	 * @param shortCircuited true if a {@link Filter} did not proceed with the chain, so
+	 * the original {@code FilterChain} was never invoked
+	 * @param elapsedNanos the total time spent in the {@link Filter}s of the chain,
+	 * excluding the time spent in the original {@code FilterChain}
+	 */
+	void afterChain(HttpServletRequest request, SecurityFilterChain chain,
+			boolean shortCircuited, long elapsedNanos);
+}
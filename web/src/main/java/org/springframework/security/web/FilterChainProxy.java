@@ -22,7 +22,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.firewall.DefaultHttpFirewall;
 import org.springframework.security.web.firewall.FirewalledRequest;
 import org.springframework.security.web.firewall.HttpFirewall;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcherIndex;
+import org.springframework.security.web.util.matcher.RequestPath;
 import org.springframework.security.web.util.UrlUtils;
 import org.springframework.web.filter.DelegatingFilterProxy;
 import org.springframework.web.filter.GenericFilterBean;
@@ -86,11 +89,23 @@ import java.util.*;
  * entered against the respective entry. The {@code FilterChainProxy} will not iterate
  * through the remainder of the map entries to locate additional {@code Filter}s.
  * <p>
+ * By default the chains are matched one after the other. Applications with a large
+ * number of chains can enable {@link #setIndexFilterChains(boolean) indexed dispatch},
+ * in which case the {@link AntPathRequestMatcher} based chains are compiled into a
+ * {@link RequestMatcherIndex} when {@link #afterPropertiesSet()} is invoked. The same
+ * chain is selected either way, but only the chains whose pattern could match the
+ * request path are consulted.
+ * <p>
  * {@code FilterChainProxy} respects normal handling of {@code Filter}s that elect not to
  * call
  * {@link javax.servlet.Filter#doFilter(javax.servlet.ServletRequest, javax.servlet.ServletResponse, javax.servlet.FilterChain)}
  * , in that the remainder of the original or {@code FilterChainProxy}-declared filter
  * chain will not be called.
+ * <p>
+ * A {@link FilterChainListener} can be {@link #setFilterChainListener(FilterChainListener)
+ * configured} to find out how much time each of the filters takes and whether the chain
+ * was short-circuited. {@link org.springframework.security.web.metrics.FilterChainMetrics}
+ * aggregates this information and can be exposed via JMX.
  *
  * <h3>Request Firewalling</h3>
  *
@@ -113,6 +128,10 @@ import java.util.*;
  * and {@code pathInfo} will be returned thereafter, instead of the modified ones used for
  * security pattern matching.
  * <p>
+ * The {@link RequestPath} of the firewalled request is computed once and shared by the
+ * {@link RequestMatcher}s which are consulted while the request passes through the
+ * security filter chain.
+ * <p>
  * Since this additional wrapping functionality is performed by the
  * {@code FilterChainProxy}, we don't recommend that you use multiple instances in the
  * same filter chain. It shouldn't be considered purely as a utility for wrapping filter
@@ -149,6 +168,12 @@ public class FilterChainProxy extends GenericFilterBean {
 
 	private HttpFirewall firewall = new DefaultHttpFirewall();
 
+	private boolean indexFilterChains;
+
+	private RequestMatcherIndex<SecurityFilterChain> filterChainIndex;
+
+	private FilterChainListener filterChainListener;
+
 	// ~ Methods
 	// ========================================================================================================
 
@@ -166,6 +191,9 @@ public class FilterChainProxy extends GenericFilterBean {
 	@Override
 	public void afterPropertiesSet() {
 		filterChainValidator.validate(this);
+		if (indexFilterChains) {
+			filterChainIndex = createFilterChainIndex(filterChains);
+		}
 	}
 
 	public void doFilter(ServletRequest request, ServletResponse response,
@@ -178,6 +206,7 @@ public class FilterChainProxy extends GenericFilterBean {
 			}
 			finally {
 				SecurityContextHolder.clearContext();
+				RequestPath.clear((HttpServletRequest) request);
 				request.removeAttribute(FILTER_APPLIED);
 			}
 		}
@@ -194,7 +223,13 @@ public class FilterChainProxy extends GenericFilterBean {
 		HttpServletResponse fwResponse = firewall
 				.getFirewalledResponse((HttpServletResponse) response);
 
-		List<Filter> filters = getFilters(fwRequest);
+		// Compute the path once, it is shared by all RequestMatchers while the
+		// firewalled request is unchanged
+		RequestPath.of(fwRequest);
+
+		SecurityFilterChain securityFilterChain = getFilterChain(fwRequest);
+		List<Filter> filters = securityFilterChain == null ? null : securityFilterChain
+				.getFilters();
 
 		if (filters == null || filters.size() == 0) {
 			if (logger.isDebugEnabled()) {
@@ -210,26 +245,62 @@ public class FilterChainProxy extends GenericFilterBean {
 			return;
 		}
 
-		VirtualFilterChain vfc = new VirtualFilterChain(fwRequest, chain, filters);
-		vfc.doFilter(fwRequest, fwResponse);
+		if (filterChainListener == null) {
+			VirtualFilterChain vfc = new VirtualFilterChain(fwRequest, chain, filters);
+			vfc.doFilter(fwRequest, fwResponse);
+		}
+		else {
+			InstrumentedVirtualFilterChain vfc = new InstrumentedVirtualFilterChain(
+					fwRequest, chain, securityFilterChain, filterChainListener);
+			vfc.start(fwRequest, fwResponse);
+		}
 	}
 
 	/**
 	 * Returns the first filter chain matching the supplied URL.
 	 *
 	 * @param request the request to match
-	 * @return an ordered array of Filters defining the filter chain
+	 * @return the matching {@link SecurityFilterChain} or null if none match
 	 */
-	private List<Filter> getFilters(HttpServletRequest request) {
+	private SecurityFilterChain getFilterChain(HttpServletRequest request) {
+		if (filterChainIndex != null) {
+			return filterChainIndex.getFirstMatch(request);
+		}
+
 		for (SecurityFilterChain chain : filterChains) {
 			if (chain.matches(request)) {
-				return chain.getFilters();
+				return chain;
 			}
 		}
 
 		return null;
 	}
 
+	/**
+	 * Compiles the chains into a {@link RequestMatcherIndex}. Only the
+	 * {@link RequestMatcher} of a {@link DefaultSecurityFilterChain} is known to be
+	 * equivalent to {@link SecurityFilterChain#matches(HttpServletRequest)}, so other
+	 * chain implementations are adapted as opaque matchers.
+	 */
+	private static RequestMatcherIndex<SecurityFilterChain> createFilterChainIndex(
+			List<SecurityFilterChain> filterChains) {
+		Map<RequestMatcher, SecurityFilterChain> entries = new LinkedHashMap<RequestMatcher, SecurityFilterChain>();
+		for (final SecurityFilterChain chain : filterChains) {
+			RequestMatcher matcher;
+			if (chain instanceof DefaultSecurityFilterChain) {
+				matcher = ((DefaultSecurityFilterChain) chain).getRequestMatcher();
+			}
+			else {
+				matcher = new SecurityFilterChainRequestMatcher(chain);
+			}
+			// a later chain with an equal matcher can never be selected
+			if (!entries.containsKey(matcher)) {
+				entries.put(matcher, chain);
+			}
+		}
+		return new RequestMatcherIndex<SecurityFilterChain>(entries);
+	}
+
 	/**
 	 * Convenience method, mainly for testing.
 	 *
@@ -237,8 +308,9 @@ public class FilterChainProxy extends GenericFilterBean {
 	 * @return matching filter list
 	 */
 	public List<Filter> getFilters(String url) {
-		return getFilters(firewall.getFirewalledRequest((new FilterInvocation(url, null)
-				.getRequest())));
+		SecurityFilterChain chain = getFilterChain(firewall
+				.getFirewalledRequest((new FilterInvocation(url, null).getRequest())));
+		return chain == null ? null : chain.getFilters();
 	}
 
 	/**
@@ -271,6 +343,33 @@ public class FilterChainProxy extends GenericFilterBean {
 		this.firewall = firewall;
 	}
 
+	/**
+	 * If true, the filter chains are compiled into a {@link RequestMatcherIndex} on
+	 * {@link #afterPropertiesSet()} so that selecting a chain is proportional to the
+	 * depth of the request path rather than the number of chains. The chain which is
+	 * selected for a request is the same as without the index. Default is false.
+	 *
+	 * @param indexFilterChains true if the filter chains should be indexed
+	 * @since 4.1
+	 */
+	public void setIndexFilterChains(boolean indexFilterChains) {
+		this.indexFilterChains = indexFilterChains;
+	}
+
+	/**
+	 * Sets a {@link FilterChainListener} which is notified before and after each
+	 * {@link Filter} of the selected {@link SecurityFilterChain} is invoked, along with
+	 * the time spent in the {@link Filter}. Default is null, in which case nothing is
+	 * measured.
+	 *
+	 * @param filterChainListener the {@link FilterChainListener} to use
+	 * @since 4.1
+	 * @see org.springframework.security.web.metrics.FilterChainMetrics
+	 */
+	public void setFilterChainListener(FilterChainListener filterChainListener) {
+		this.filterChainListener = filterChainListener;
+	}
+
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("FilterChainProxy[");
@@ -291,8 +390,8 @@ public class FilterChainProxy extends GenericFilterBean {
 	private static class VirtualFilterChain implements FilterChain {
 		private final FilterChain originalChain;
 		private final List<Filter> additionalFilters;
-		private final FirewalledRequest firewalledRequest;
-		private final int size;
+		protected final FirewalledRequest firewalledRequest;
+		protected final int size;
 		private int currentPosition = 0;
 
 		private VirtualFilterChain(FirewalledRequest firewalledRequest,
@@ -314,7 +413,7 @@ public class FilterChainProxy extends GenericFilterBean {
 				// Deactivate path stripping as we exit the security filter chain
 				this.firewalledRequest.reset();
 
-				originalChain.doFilter(request, response);
+				invokeOriginalChain(originalChain, request, response);
 			}
 			else {
 				currentPosition++;
@@ -328,9 +427,114 @@ public class FilterChainProxy extends GenericFilterBean {
 							+ nextFilter.getClass().getSimpleName() + "'");
 				}
 
-				nextFilter.doFilter(request, response, this);
+				invokeFilter(nextFilter, currentPosition - 1, request, response);
 			}
 		}
+
+		protected void invokeFilter(Filter filter, int position, ServletRequest request,
+				ServletResponse response) throws IOException, ServletException {
+			filter.doFilter(request, response, this);
+		}
+
+		protected void invokeOriginalChain(FilterChain originalChain,
+				ServletRequest request, ServletResponse response) throws IOException,
+				ServletException {
+			originalChain.doFilter(request, response);
+		}
+	}
+
+	/**
+	 * {@link VirtualFilterChain} which reports to a {@link FilterChainListener}. The time
+	 * spent downstream of each position is accumulated so that the time reported for a
+	 * {@code Filter} only includes the {@code Filter} itself.
+	 */
+	private static final class InstrumentedVirtualFilterChain extends
+			VirtualFilterChain {
+		private final SecurityFilterChain securityFilterChain;
+		private final FilterChainListener listener;
+		private final long[] downstreamNanos;
+		private long originalChainNanos;
+		private boolean originalChainInvoked;
+
+		private InstrumentedVirtualFilterChain(FirewalledRequest firewalledRequest,
+				FilterChain chain, SecurityFilterChain securityFilterChain,
+				FilterChainListener listener) {
+			super(firewalledRequest, chain, securityFilterChain.getFilters());
+			this.securityFilterChain = securityFilterChain;
+			this.listener = listener;
+			this.downstreamNanos = new long[size];
+		}
+
+		private void start(ServletRequest request, ServletResponse response)
+				throws IOException, ServletException {
+			long start = System.nanoTime();
+			try {
+				doFilter(request, response);
+			}
+			finally {
+				long elapsed = System.nanoTime() - start - originalChainNanos;
+				listener.afterChain(firewalledRequest, securityFilterChain,
+						!originalChainInvoked, elapsed);
+			}
+		}
+
+		@Override
+		protected void invokeFilter(Filter filter, int position,
+				ServletRequest request, ServletResponse response) throws IOException,
+				ServletException {
+			listener.beforeFilter(firewalledRequest, securityFilterChain, filter,
+					position);
+			long start = System.nanoTime();
+			try {
+				super.invokeFilter(filter, position, request, response);
+			}
+			finally {
+				long elapsed = System.nanoTime() - start;
+				if (position > 0) {
+					downstreamNanos[position - 1] += elapsed;
+				}
+				listener.afterFilter(firewalledRequest, securityFilterChain, filter,
+						position, elapsed - downstreamNanos[position]);
+			}
+		}
+
+		@Override
+		protected void invokeOriginalChain(FilterChain originalChain,
+				ServletRequest request, ServletResponse response) throws IOException,
+				ServletException {
+			originalChainInvoked = true;
+			long start = System.nanoTime();
+			try {
+				super.invokeOriginalChain(originalChain, request, response);
+			}
+			finally {
+				long elapsed = System.nanoTime() - start;
+				originalChainNanos += elapsed;
+				downstreamNanos[size - 1] += elapsed;
+			}
+		}
+	}
+
+	/**
+	 * Adapts a {@link SecurityFilterChain} whose matching logic is not exposed as a
+	 * {@link RequestMatcher}.
+	 */
+	private static final class SecurityFilterChainRequestMatcher implements
+			RequestMatcher {
+		private final SecurityFilterChain chain;
+
+		private SecurityFilterChainRequestMatcher(SecurityFilterChain chain) {
+			this.chain = chain;
+		}
+
+		public boolean matches(HttpServletRequest request) {
+			return chain.matches(request);
+		}
+
+		@Override
+		public String toString() {
+			return chain.toString();
+		}
 	}
 
 	public interface FilterChainValidator {
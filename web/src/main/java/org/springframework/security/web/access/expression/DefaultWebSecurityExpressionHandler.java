@@ -15,6 +15,8 @@
  */
 package org.springframework.security.web.access.expression;
 
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.context.ApplicationContext;
 import org.springframework.security.access.expression.AbstractSecurityExpressionHandler;
 import org.springframework.security.access.expression.SecurityExpressionHandler;
 import org.springframework.security.access.expression.SecurityExpressionOperations;
@@ -35,6 +37,7 @@ public class DefaultWebSecurityExpressionHandler extends
 
 	private AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
 	private String defaultRolePrefix = "ROLE_";
+	private BeanFactory beanFactory;
 
 	@Override
 	protected SecurityExpressionOperations createSecurityExpressionRoot(
@@ -44,9 +47,16 @@ public class DefaultWebSecurityExpressionHandler extends
 		root.setTrustResolver(trustResolver);
 		root.setRoleHierarchy(getRoleHierarchy());
 		root.setDefaultRolePrefix(defaultRolePrefix);
+		root.setBeanFactory(beanFactory);
 		return root;
 	}
 
+	@Override
+	public void setApplicationContext(ApplicationContext applicationContext) {
+		super.setApplicationContext(applicationContext);
+		this.beanFactory = applicationContext;
+	}
+
 	/**
 	 * Sets the {@link AuthenticationTrustResolver} to be used. The default is
 	 * {@link AuthenticationTrustResolverImpl}.
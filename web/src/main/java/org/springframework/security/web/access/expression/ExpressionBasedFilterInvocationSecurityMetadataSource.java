@@ -24,6 +24,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.security.access.ConfigAttribute;
 import org.springframework.security.access.expression.SecurityExpressionHandler;
 import org.springframework.security.web.FilterInvocation;
@@ -46,15 +47,42 @@ public final class ExpressionBasedFilterInvocationSecurityMetadataSource extends
 	public ExpressionBasedFilterInvocationSecurityMetadataSource(
 			LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestMap,
 			SecurityExpressionHandler<FilterInvocation> expressionHandler) {
-		super(processMap(requestMap, expressionHandler.getExpressionParser()));
+		this(requestMap, expressionHandler, false);
+	}
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param requestMap order-preserving map of request definitions to a single
+	 * expression attribute
+	 * @param expressionHandler the {@link SecurityExpressionHandler} used to parse the
+	 * expressions
+	 * @param indexRequestMap true if the map should be compiled into a
+	 * {@link org.springframework.security.web.util.matcher.RequestMatcherIndex}
+	 * @since 4.1
+	 */
+	public ExpressionBasedFilterInvocationSecurityMetadataSource(
+			LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestMap,
+			SecurityExpressionHandler<FilterInvocation> expressionHandler,
+			boolean indexRequestMap) {
+		super(processMap(requestMap, expressionHandler.getExpressionParser()),
+				indexRequestMap);
 		Assert.notNull(expressionHandler,
 				"A non-null SecurityExpressionHandler is required");
 	}
 
+	/**
+	 * The common expressions, such as {@code hasRole('USER')}, are recognized by a
+	 * {@link WebIntrinsicSecurityExpressionParser} and evaluated without SpEL, unless a
+	 * custom {@link ExpressionParser} is used.
+	 */
 	private static LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> processMap(
 			LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestMap,
 			ExpressionParser parser) {
 		Assert.notNull(parser, "SecurityExpressionHandler returned a null parser object");
+		if (parser.getClass() == SpelExpressionParser.class) {
+			parser = new WebIntrinsicSecurityExpressionParser(parser);
+		}
 
 		LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestToExpressionAttributesMap = new LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>>(
 				requestMap);
@@ -21,6 +21,7 @@ import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.expression.EvaluationContext;
 import org.springframework.security.web.FilterInvocation;
+import org.springframework.security.web.util.matcher.RequestPath;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.PathMatcher;
 
@@ -63,12 +64,6 @@ class PathVariableSecurityEvaluationContextPostProcessor implements SecurityEval
 	}
 
 	private String getRequestPath(HttpServletRequest request) {
-		String url = request.getServletPath();
-
-		if (request.getPathInfo() != null) {
-			url += request.getPathInfo();
-		}
-
-		return url;
+		return RequestPath.of(request).getPath();
 	}
 }
@@ -19,9 +19,12 @@ import java.util.Collection;
 import java.util.Map;
 
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
 import org.springframework.security.access.AccessDecisionVoter;
 import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.expression.AbstractSecurityExpressionHandler;
 import org.springframework.security.access.expression.ExpressionUtils;
+import org.springframework.security.access.expression.IntrinsicSecurityExpression;
 import org.springframework.security.access.expression.SecurityExpressionHandler;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.FilterInvocation;
@@ -35,6 +38,7 @@ import org.springframework.util.AntPathMatcher;
 public class WebExpressionVoter implements AccessDecisionVoter<FilterInvocation> {
 	private SecurityExpressionHandler<FilterInvocation> expressionHandler = new DefaultWebSecurityExpressionHandler();
 
+	@SuppressWarnings("unchecked")
 	public int vote(Authentication authentication, FilterInvocation fi,
 			Collection<ConfigAttribute> attributes) {
 		assert authentication != null;
@@ -47,11 +51,19 @@ public class WebExpressionVoter implements AccessDecisionVoter<FilterInvocation>
 			return ACCESS_ABSTAIN;
 		}
 
+		Expression expression = weca.getAuthorizeExpression();
+		if (expression instanceof IntrinsicSecurityExpression
+				&& expressionHandler instanceof AbstractSecurityExpressionHandler) {
+			boolean granted = ((AbstractSecurityExpressionHandler<FilterInvocation>) expressionHandler)
+					.evaluate((IntrinsicSecurityExpression) expression, authentication, fi);
+			return granted ? ACCESS_GRANTED : ACCESS_DENIED;
+		}
+
 		EvaluationContext ctx = expressionHandler.createEvaluationContext(authentication,
 				fi);
 		ctx = weca.postProcess(ctx, fi);
 
-		return ExpressionUtils.evaluateAsBoolean(weca.getAuthorizeExpression(), ctx) ? ACCESS_GRANTED
+		return ExpressionUtils.evaluateAsBoolean(expression, ctx) ? ACCESS_GRANTED
 				: ACCESS_DENIED;
 	}
 
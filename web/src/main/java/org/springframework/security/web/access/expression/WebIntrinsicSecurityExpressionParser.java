@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.access.expression;
+
+import java.util.List;
+
+import org.springframework.expression.EvaluationException;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.security.access.expression.IntrinsicSecurityExpression.Operation;
+import org.springframework.security.access.expression.IntrinsicSecurityExpressionParser;
+import org.springframework.security.access.expression.SecurityExpressionOperations;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+
+/**
+ * An {@link IntrinsicSecurityExpressionParser} which also recognizes
+ * {@link WebSecurityExpressionRoot#hasIpAddress(String)}.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+class WebIntrinsicSecurityExpressionParser extends IntrinsicSecurityExpressionParser {
+
+	WebIntrinsicSecurityExpressionParser(ExpressionParser delegate) {
+		super(delegate);
+	}
+
+	@Override
+	protected Operation createOperation(String name, List<String> arguments) {
+		if (!"hasIpAddress".equals(name) || arguments == null || arguments.size() != 1) {
+			return super.createOperation(name, arguments);
+		}
+		final String ipAddress = arguments.get(0);
+		if (!isLiteralAddress(ipAddress)) {
+			// a host name is resolved on every evaluation, so leave it to SpEL
+			return null;
+		}
+		final IpAddressMatcher matcher;
+		try {
+			matcher = new IpAddressMatcher(ipAddress);
+		}
+		catch (IllegalArgumentException e) {
+			// leave it to SpEL to report the invalid address when evaluated
+			return null;
+		}
+		return new Operation() {
+			public boolean evaluate(SecurityExpressionOperations root) {
+				if (root.getClass() == WebSecurityExpressionRoot.class) {
+					return matcher.matches(((WebSecurityExpressionRoot) root).request);
+				}
+				if (root instanceof WebSecurityExpressionRoot) {
+					return ((WebSecurityExpressionRoot) root).hasIpAddress(ipAddress);
+				}
+				throw new EvaluationException("hasIpAddress('" + ipAddress
+						+ "') is not supported by " + root);
+			}
+		};
+	}
+
+	/**
+	 * Determines if the argument of {@code hasIpAddress} is an IPv4 or IPv6 address or
+	 * range, rather than a host name which must be resolved.
+	 */
+	static boolean isLiteralAddress(String ipAddress) {
+		if (ipAddress.indexOf(':') != -1) {
+			return true;
+		}
+		for (int i = 0; i < ipAddress.length(); i++) {
+			char c = ipAddress.charAt(i);
+			if (c != '.' && c != '/' && !Character.isDigit(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -15,12 +15,17 @@
  */
 package org.springframework.security.web.access.expression;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import javax.servlet.http.HttpServletRequest;
 
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.security.access.expression.SecurityExpressionRoot;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.FilterInvocation;
 import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.security.web.util.matcher.IpAddressRangeMatcher;
 
 /**
  *
@@ -28,10 +33,21 @@ import org.springframework.security.web.util.matcher.IpAddressMatcher;
  * @since 3.0
  */
 public class WebSecurityExpressionRoot extends SecurityExpressionRoot {
+	/**
+	 * The maximum number of {@link IpAddressMatcher}s cached for {@link #hasIpAddress},
+	 * which bounds the cache if the addresses are not constants. Only literal addresses
+	 * and ranges are cached, as a host name is resolved when its matcher is created.
+	 */
+	private static final int MAX_CACHED_IP_ADDRESS_MATCHERS = 256;
+
+	private static final ConcurrentMap<String, IpAddressMatcher> ipAddressMatchers = new ConcurrentHashMap<String, IpAddressMatcher>();
+
 	// private FilterInvocation filterInvocation;
 	/** Allows direct access to the request object */
 	public final HttpServletRequest request;
 
+	private BeanFactory beanFactory;
+
 	public WebSecurityExpressionRoot(Authentication a, FilterInvocation fi) {
 		super(a);
 		// this.filterInvocation = fi;
@@ -47,7 +63,56 @@ public class WebSecurityExpressionRoot extends SecurityExpressionRoot {
 	 * @return true if the IP address of the current request is in the required range.
 	 */
 	public boolean hasIpAddress(String ipAddress) {
-		return (new IpAddressMatcher(ipAddress).matches(request));
+		if (!WebIntrinsicSecurityExpressionParser.isLiteralAddress(ipAddress)) {
+			return new IpAddressMatcher(ipAddress).matches(request);
+		}
+		IpAddressMatcher matcher = ipAddressMatchers.get(ipAddress);
+		if (matcher == null) {
+			matcher = new IpAddressMatcher(ipAddress);
+			if (ipAddressMatchers.size() < MAX_CACHED_IP_ADDRESS_MATCHERS) {
+				ipAddressMatchers.putIfAbsent(ipAddress, matcher);
+			}
+		}
+		return matcher.matches(request);
+	}
+
+	/**
+	 * Determines if the IP address of the current request is in a set of ranges, such as
+	 * {@code hasIpAddressIn(@partnerNetworks)}.
+	 *
+	 * @param ranges the ranges from which the request must come
+	 * @return true if the IP address of the current request is in one of the ranges
+	 */
+	public boolean hasIpAddressIn(IpAddressRangeMatcher ranges) {
+		return ranges.matches(request);
+	}
+
+	/**
+	 * Determines if the IP address of the current request is in the ranges of the
+	 * {@link IpAddressRangeMatcher} bean with the given name, such as
+	 * {@code hasIpAddressIn('partnerNetworks')}. Requires the {@link BeanFactory} to be
+	 * set.
+	 *
+	 * @param beanName the name of the {@link IpAddressRangeMatcher} bean
+	 * @return true if the IP address of the current request is in one of the ranges
+	 */
+	public boolean hasIpAddressIn(String beanName) {
+		if (beanFactory == null) {
+			throw new IllegalStateException(
+					"A BeanFactory is required to resolve the IpAddressRangeMatcher "
+							+ beanName);
+		}
+		return hasIpAddressIn(beanFactory.getBean(beanName, IpAddressRangeMatcher.class));
+	}
+
+	/**
+	 * Sets the {@link BeanFactory} used to resolve the beans named by
+	 * {@link #hasIpAddressIn(String)}.
+	 *
+	 * @param beanFactory the {@link BeanFactory} to use
+	 */
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
 	}
 
 }
@@ -29,6 +29,7 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.security.access.ConfigAttribute;
 import org.springframework.security.web.FilterInvocation;
 import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcherIndex;
 
 /**
  * Default implementation of <tt>FilterInvocationDefinitionSource</tt>.
@@ -42,6 +43,11 @@ import org.springframework.security.web.util.matcher.RequestMatcher;
  * invoked if a match has already been found. Accordingly, the most specific matchers
  * should be registered first, with the most general matches registered last.
  * <p>
+ * Large maps can be compiled into a {@link RequestMatcherIndex} by using
+ * {@link #DefaultFilterInvocationSecurityMetadataSource(LinkedHashMap, boolean)}. The
+ * index selects candidate entries by HTTP method and literal path prefix, and evaluates
+ * them in their original order, so the same attributes are returned as without it.
+ * <p>
  * The most common method creating an instance is using the Spring Security namespace. For
  * example, the {@code pattern} and {@code access} attributes of the
  * {@code <intercept-url>} elements defined as children of the {@code <http>}
@@ -58,6 +64,8 @@ public class DefaultFilterInvocationSecurityMetadataSource implements
 
 	private final Map<RequestMatcher, Collection<ConfigAttribute>> requestMap;
 
+	private final RequestMatcherIndex<Collection<ConfigAttribute>> requestIndex;
+
 	// ~ Constructors
 	// ===================================================================================================
 
@@ -70,8 +78,25 @@ public class DefaultFilterInvocationSecurityMetadataSource implements
 	 */
 	public DefaultFilterInvocationSecurityMetadataSource(
 			LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestMap) {
+		this(requestMap, false);
+	}
+
+	/**
+	 * Sets the internal request map from the supplied map, optionally compiling it into
+	 * a {@link RequestMatcherIndex} so that a lookup does not need to evaluate every
+	 * {@link RequestMatcher} in the map.
+	 *
+	 * @param requestMap order-preserving map of request definitions to attribute lists
+	 * @param indexRequestMap true if the map should be indexed
+	 * @since 4.1
+	 */
+	public DefaultFilterInvocationSecurityMetadataSource(
+			LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestMap,
+			boolean indexRequestMap) {
 
 		this.requestMap = requestMap;
+		this.requestIndex = indexRequestMap ? new RequestMatcherIndex<Collection<ConfigAttribute>>(
+				requestMap) : null;
 	}
 
 	// ~ Methods
@@ -90,6 +115,9 @@ public class DefaultFilterInvocationSecurityMetadataSource implements
 
 	public Collection<ConfigAttribute> getAttributes(Object object) {
 		final HttpServletRequest request = ((FilterInvocation) object).getRequest();
+		if (requestIndex != null) {
+			return requestIndex.getFirstMatch(request);
+		}
 		for (Map.Entry<RequestMatcher, Collection<ConfigAttribute>> entry : requestMap
 				.entrySet()) {
 			if (entry.getKey().matches(request)) {
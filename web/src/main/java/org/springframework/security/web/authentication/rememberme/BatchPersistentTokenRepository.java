@@ -0,0 +1,37 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.authentication.rememberme;
+
+import java.util.Collection;
+
+/**
+ * A {@link PersistentTokenRepository} which can update several tokens at once, such as
+ * with a JDBC batch. Used by {@link WriteBehindPersistentTokenRepository} to flush the
+ * pending updates.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public interface BatchPersistentTokenRepository extends PersistentTokenRepository {
+
+	/**
+	 * Updates the token value and the last used date of each token, identified by its
+	 * series.
+	 *
+	 * @param tokens the tokens to update
+	 */
+	void updateTokens(Collection<PersistentRememberMeToken> tokens);
+}
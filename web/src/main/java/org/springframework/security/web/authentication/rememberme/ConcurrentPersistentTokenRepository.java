@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.authentication.rememberme;
+
+/**
+ * A {@link PersistentTokenRepository} which can detect concurrent remember-me logins of
+ * the same series. {@link PersistentTokenBasedRememberMeServices} uses it to replace a
+ * token only once when several requests present it at the same time, and to accept the
+ * value which was just replaced rather than treating it as a cookie theft.
+ * <p>
+ * Decorators and proxies of a repository should implement this interface as well, so
+ * that the capability is not lost.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ * @see WriteBehindPersistentTokenRepository
+ */
+public interface ConcurrentPersistentTokenRepository extends PersistentTokenRepository {
+
+	/**
+	 * Replaces a token, unless its series was updated concurrently since the token was
+	 * obtained from {@link #getTokenForSeries(String)}.
+	 *
+	 * @param current the token which is replaced
+	 * @param replacement the new token of the same series
+	 * @return the replacement, or the token which concurrently replaced the current
+	 * token
+	 */
+	PersistentRememberMeToken replaceToken(PersistentRememberMeToken current,
+			PersistentRememberMeToken replacement);
+
+	/**
+	 * Determines if a token value is the value which a series had before it was
+	 * recently replaced.
+	 *
+	 * @param series the series of the token
+	 * @param tokenValue the presented token value
+	 * @return true if the token value was recently replaced
+	 */
+	boolean isPreviousTokenValue(String series, String tokenValue);
+}
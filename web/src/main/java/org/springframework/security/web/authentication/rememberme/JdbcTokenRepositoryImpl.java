@@ -18,11 +18,14 @@ package org.springframework.security.web.authentication.rememberme;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.support.JdbcDaoSupport;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.*;
 
 /**
@@ -32,7 +35,7 @@ import java.util.*;
  * @since 2.0
  */
 public class JdbcTokenRepositoryImpl extends JdbcDaoSupport implements
-		PersistentTokenRepository {
+		BatchPersistentTokenRepository {
 	// ~ Static fields/initializers
 	// =====================================================================================
 
@@ -72,6 +75,23 @@ public class JdbcTokenRepositoryImpl extends JdbcDaoSupport implements
 		getJdbcTemplate().update(updateTokenSql, tokenValue, lastUsed, series);
 	}
 
+	public void updateTokens(Collection<PersistentRememberMeToken> tokens) {
+		final List<PersistentRememberMeToken> updates = new ArrayList<PersistentRememberMeToken>(
+				tokens);
+		getJdbcTemplate().batchUpdate(updateTokenSql, new BatchPreparedStatementSetter() {
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				PersistentRememberMeToken token = updates.get(i);
+				ps.setString(1, token.getTokenValue());
+				ps.setTimestamp(2, new Timestamp(token.getDate().getTime()));
+				ps.setString(3, token.getSeries());
+			}
+
+			public int getBatchSize() {
+				return updates.size();
+			}
+		});
+	}
+
 	/**
 	 * Loads the token data for the supplied series identifier.
 	 *
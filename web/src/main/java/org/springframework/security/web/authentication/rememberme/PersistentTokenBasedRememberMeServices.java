@@ -109,8 +109,14 @@ public class PersistentTokenBasedRememberMeServices extends AbstractRememberMeSe
 					"No persistent token found for series id: " + presentedSeries);
 		}
 
+		// A concurrent request of the same browser may have just replaced the token
+		boolean replacedConcurrently = !presentedToken.equals(token.getTokenValue())
+				&& tokenRepository instanceof ConcurrentPersistentTokenRepository
+				&& ((ConcurrentPersistentTokenRepository) tokenRepository)
+						.isPreviousTokenValue(presentedSeries, presentedToken);
+
 		// We have a match for this user/series combination
-		if (!presentedToken.equals(token.getTokenValue())) {
+		if (!presentedToken.equals(token.getTokenValue()) && !replacedConcurrently) {
 			// Token doesn't match series value. Delete all logins for this user and throw
 			// an exception to warn them.
 			tokenRepository.removeUserTokens(token.getUsername());
@@ -126,6 +132,16 @@ public class PersistentTokenBasedRememberMeServices extends AbstractRememberMeSe
 			throw new RememberMeAuthenticationException("Remember-me login has expired");
 		}
 
+		if (replacedConcurrently) {
+			// Send the current token rather than replacing it again
+			if (logger.isDebugEnabled()) {
+				logger.debug("Accepting previous persistent login token for user '"
+						+ token.getUsername() + "', series '" + token.getSeries() + "'");
+			}
+			addCookie(token, request, response);
+			return getUserDetailsService().loadUserByUsername(token.getUsername());
+		}
+
 		// Token also matches, so login is valid. Update the token value, keeping the
 		// *same* series number.
 		if (logger.isDebugEnabled()) {
@@ -137,8 +153,14 @@ public class PersistentTokenBasedRememberMeServices extends AbstractRememberMeSe
 				token.getUsername(), token.getSeries(), generateTokenData(), new Date());
 
 		try {
-			tokenRepository.updateToken(newToken.getSeries(), newToken.getTokenValue(),
-					newToken.getDate());
+			if (tokenRepository instanceof ConcurrentPersistentTokenRepository) {
+				newToken = ((ConcurrentPersistentTokenRepository) tokenRepository)
+						.replaceToken(token, newToken);
+			}
+			else {
+				tokenRepository.updateToken(newToken.getSeries(),
+						newToken.getTokenValue(), newToken.getDate());
+			}
 			addCookie(newToken, request, response);
 		}
 		catch (Exception e) {
@@ -0,0 +1,423 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.authentication.rememberme;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.security.util.BoundedCache;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link PersistentTokenRepository} which caches the tokens of another repository,
+ * such as a {@link JdbcTokenRepositoryImpl}, and writes the token updates made on every
+ * remember-me login in the background.
+ * <p>
+ * Tokens are read through a bounded cache keyed by series. New tokens are created and
+ * the tokens of a user are removed immediately, but {@link #updateToken} only updates
+ * the cache and queues the update. The queued updates are written by a background
+ * thread every {@link #setFlushInterval(int) flushInterval}, as a single batch if the
+ * repository is a {@link BatchPersistentTokenRepository}. Several updates of a series
+ * between flushes are written once. {@link #flush()} writes the queued updates
+ * immediately, and is invoked when the repository is destroyed.
+ * <p>
+ * The cache also remembers the previous value of a token for a short
+ * {@link #setPreviousTokenGracePeriod(int) grace period} after it was updated. This
+ * allows {@link PersistentTokenBasedRememberMeServices} to accept the previous value from
+ * concurrent requests of the same browser (for example, when several tabs are
+ * reloaded), rather than treating them as a cookie theft.
+ * <p>
+ * As the tokens are cached in memory, all the remember-me logins of a series must be
+ * processed by the same instance, for example by using sticky sessions, otherwise an
+ * instance may use an outdated token.
+ * <p>
+ * When the tokens of a user are removed, a removal marker is recorded for the user, so
+ * that a token which was read before the removal is neither cached again nor updated.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public class WriteBehindPersistentTokenRepository implements
+		ConcurrentPersistentTokenRepository, InitializingBean, DisposableBean {
+	/**
+	 * The default maximum number of cached tokens
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final PersistentTokenRepository delegate;
+
+	private final BoundedCache<String, CachedToken> tokens;
+
+	private final ConcurrentMap<String, PersistentRememberMeToken> pendingUpdates = new ConcurrentHashMap<String, PersistentRememberMeToken>();
+
+	private final Object updateMonitor = new Object();
+
+	/** The removal generation of the users whose tokens were recently removed */
+	private final Map<String, Long> userRemovals = new HashMap<String, Long>();
+
+	/** The number of times tokens were removed, incremented with the monitor held */
+	private volatile long removalGeneration;
+
+	/** The removal generation up to which the markers of the users were discarded */
+	private long forgottenRemovalGeneration;
+
+	private final int maxEntries;
+
+	private int flushInterval = 1;
+
+	private int previousTokenGracePeriod = 5;
+
+	private ScheduledExecutorService flusher;
+
+	/**
+	 * Creates a new instance which caches up to {@link #DEFAULT_MAX_ENTRIES} tokens.
+	 *
+	 * @param delegate the repository which stores the tokens
+	 */
+	public WriteBehindPersistentTokenRepository(PersistentTokenRepository delegate) {
+		this(delegate, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param delegate the repository which stores the tokens
+	 * @param maxEntries the maximum number of cached tokens. Must be positive.
+	 */
+	public WriteBehindPersistentTokenRepository(PersistentTokenRepository delegate,
+			int maxEntries) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		this.delegate = delegate;
+		this.tokens = new BoundedCache<String, CachedToken>(getClass().getSimpleName(),
+				maxEntries);
+		this.maxEntries = maxEntries;
+	}
+
+	public void createNewToken(PersistentRememberMeToken token) {
+		long generation = removalGeneration;
+		delegate.createNewToken(token);
+		synchronized (updateMonitor) {
+			if (!isRemovedSince(token.getUsername(), generation)) {
+				tokens.put(token.getSeries(), new CachedToken(token, null, 0, generation));
+			}
+		}
+	}
+
+	public void updateToken(String series, String tokenValue, Date lastUsed) {
+		// a series which does not exist, or was removed concurrently, is not updated
+		CachedToken cached = getCachedToken(series);
+		while (cached != null) {
+			PersistentRememberMeToken replacement = new PersistentRememberMeToken(
+					cached.token.getUsername(), series, tokenValue, lastUsed);
+			synchronized (updateMonitor) {
+				CachedToken current = getCurrentEntry(cached);
+				if (current != null) {
+					queueUpdate(current.token, replacement);
+					return;
+				}
+			}
+			cached = getCachedToken(series);
+		}
+	}
+
+	/**
+	 * Replaces a token, unless its series was updated concurrently since the token was
+	 * obtained from {@link #getTokenForSeries(String)}. This ensures that when several
+	 * requests present the same token at the same time, the token is only replaced once.
+	 * If the tokens of the user were removed concurrently, the replacement is returned
+	 * but it is not stored.
+	 *
+	 * @param current the token which is replaced
+	 * @param replacement the new token of the same series
+	 * @return the replacement, or the token which concurrently replaced the current
+	 * token
+	 */
+	public PersistentRememberMeToken replaceToken(PersistentRememberMeToken current,
+			PersistentRememberMeToken replacement) {
+		Assert.isTrue(current.getSeries().equals(replacement.getSeries()),
+				"The replacement must have the same series");
+		CachedToken cached = getCachedToken(current.getSeries());
+		while (cached != null) {
+			synchronized (updateMonitor) {
+				CachedToken latest = getCurrentEntry(cached);
+				if (latest != null) {
+					if (!latest.token.getTokenValue().equals(current.getTokenValue())) {
+						return latest.token;
+					}
+					queueUpdate(current, replacement);
+					return replacement;
+				}
+			}
+			cached = getCachedToken(current.getSeries());
+		}
+		return replacement;
+	}
+
+	public PersistentRememberMeToken getTokenForSeries(String seriesId) {
+		CachedToken cached = getCachedToken(seriesId);
+		return cached == null ? null : cached.token;
+	}
+
+	public void removeUserTokens(String username) {
+		delegate.removeUserTokens(username);
+		synchronized (updateMonitor) {
+			removalGeneration++;
+			if (userRemovals.size() >= maxEntries) {
+				userRemovals.clear();
+				forgottenRemovalGeneration = removalGeneration - 1;
+			}
+			userRemovals.put(username, removalGeneration);
+			for (Map.Entry<String, CachedToken> entry : tokens.entrySet()) {
+				if (username.equals(entry.getValue().token.getUsername())) {
+					tokens.remove(entry.getKey(), entry.getValue());
+				}
+			}
+			for (Map.Entry<String, PersistentRememberMeToken> entry : pendingUpdates
+					.entrySet()) {
+				if (username.equals(entry.getValue().getUsername())) {
+					pendingUpdates.remove(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Determines if a token value is the value which a series had before its last
+	 * update, and the update was made within the
+	 * {@link #setPreviousTokenGracePeriod(int) grace period}.
+	 *
+	 * @param series the series of the token
+	 * @param tokenValue the presented token value
+	 * @return true if the token value was replaced within the grace period
+	 */
+	public boolean isPreviousTokenValue(String series, String tokenValue) {
+		CachedToken cached = tokens.get(series);
+		return cached != null
+				&& cached.previousTokenValue != null
+				&& cached.previousTokenValue.equals(tokenValue)
+				&& System.currentTimeMillis() - cached.updated <= previousTokenGracePeriod * 1000L;
+	}
+
+	/**
+	 * Writes the queued token updates to the delegate repository. An update stays queued
+	 * until it was written, so that {@link #getTokenForSeries(String)} returns it while
+	 * the write is in progress, and it is written again by the next flush if the write
+	 * fails. An update is only dequeued if the series was not updated again in the
+	 * meantime.
+	 */
+	public synchronized void flush() {
+		List<PersistentRememberMeToken> updates = new ArrayList<PersistentRememberMeToken>(
+				pendingUpdates.values());
+		if (updates.isEmpty()) {
+			return;
+		}
+		if (delegate instanceof BatchPersistentTokenRepository) {
+			((BatchPersistentTokenRepository) delegate).updateTokens(updates);
+			for (PersistentRememberMeToken token : updates) {
+				pendingUpdates.remove(token.getSeries(), token);
+			}
+		}
+		else {
+			for (PersistentRememberMeToken token : updates) {
+				delegate.updateToken(token.getSeries(), token.getTokenValue(),
+						token.getDate());
+				pendingUpdates.remove(token.getSeries(), token);
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Wrote " + updates.size() + " token updates");
+		}
+	}
+
+	/**
+	 * Gets the number of token updates which have not been written yet.
+	 *
+	 * @return the number of queued updates
+	 */
+	public int getPendingUpdateCount() {
+		return pendingUpdates.size();
+	}
+
+	/**
+	 * Sets how often, in seconds, the queued token updates are written. The default is
+	 * 1.
+	 *
+	 * @param flushInterval the number of seconds between writes. Must be positive.
+	 */
+	public void setFlushInterval(int flushInterval) {
+		Assert.isTrue(flushInterval > 0, "flushInterval must be positive");
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * Sets the number of seconds after a token is updated during which its previous
+	 * value is still accepted. The default is 5. Use 0 to only accept the current value.
+	 *
+	 * @param previousTokenGracePeriod the number of seconds. Cannot be negative.
+	 */
+	public void setPreviousTokenGracePeriod(int previousTokenGracePeriod) {
+		Assert.isTrue(previousTokenGracePeriod >= 0,
+				"previousTokenGracePeriod cannot be negative");
+		this.previousTokenGracePeriod = previousTokenGracePeriod;
+	}
+
+	public void afterPropertiesSet() {
+		if (flusher != null) {
+			return;
+		}
+		flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "persistent-token-writer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		flusher.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				try {
+					flush();
+				}
+				catch (RuntimeException e) {
+					logger.error("Failed to write token updates", e);
+				}
+			}
+		}, flushInterval, flushInterval, TimeUnit.SECONDS);
+	}
+
+	public void destroy() {
+		if (flusher != null) {
+			flusher.shutdown();
+			flusher = null;
+		}
+		try {
+			flush();
+		}
+		catch (RuntimeException e) {
+			logger.error("Failed to write " + getPendingUpdateCount()
+					+ " token updates on shutdown", e);
+		}
+	}
+
+	/**
+	 * Gets the cached entry of a series, reading and caching the token if it is not
+	 * cached. A token which is read while the tokens of its user are removed is read
+	 * again, so that it is not cached after the removal.
+	 *
+	 * @return the entry, or null if the series does not exist
+	 */
+	private CachedToken getCachedToken(String series) {
+		while (true) {
+			CachedToken cached = tokens.get(series);
+			if (cached != null) {
+				return cached;
+			}
+			long generation = removalGeneration;
+			// the token may have been evicted before its update was written
+			PersistentRememberMeToken token = pendingUpdates.get(series);
+			if (token == null) {
+				token = delegate.getTokenForSeries(series);
+			}
+			if (token == null) {
+				return null;
+			}
+			synchronized (updateMonitor) {
+				if (!isRemovedSince(token.getUsername(), generation)) {
+					cached = tokens.get(series);
+					if (cached == null) {
+						cached = new CachedToken(token, null, 0, generation);
+						tokens.put(series, cached);
+					}
+					return cached;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the entry which an update of a token that was read as the given entry
+	 * applies to. Invoked with the update monitor held.
+	 *
+	 * @return the cached entry of the series, the given entry if it was evicted, or
+	 * null if the tokens of the user may have been removed since it was read, in which
+	 * case the token must be read again
+	 */
+	private CachedToken getCurrentEntry(CachedToken read) {
+		CachedToken cached = tokens.get(read.token.getSeries());
+		if (cached != null) {
+			return cached;
+		}
+		return isRemovedSince(read.token.getUsername(), read.generation) ? null : read;
+	}
+
+	/**
+	 * Determines if the tokens of a user may have been removed after the given removal
+	 * generation. Invoked with the update monitor held.
+	 */
+	private boolean isRemovedSince(String username, long generation) {
+		Long removed = userRemovals.get(username);
+		if (removed != null) {
+			return removed > generation;
+		}
+		return generation < forgottenRemovalGeneration;
+	}
+
+	/**
+	 * Caches and queues an update. Invoked with the update monitor held, so that the
+	 * updates of a series are queued in the same order as they are cached.
+	 */
+	private void queueUpdate(PersistentRememberMeToken current,
+			PersistentRememberMeToken replacement) {
+		tokens.put(replacement.getSeries(), new CachedToken(replacement, current
+				.getTokenValue(), System.currentTimeMillis(), removalGeneration));
+		pendingUpdates.put(replacement.getSeries(), replacement);
+	}
+
+	private static final class CachedToken {
+		private final PersistentRememberMeToken token;
+
+		/** The value of the token before it was updated, or null */
+		private final String previousTokenValue;
+
+		/** The time at which the token was updated */
+		private final long updated;
+
+		/** The removal generation when the token was read */
+		private final long generation;
+
+		private CachedToken(PersistentRememberMeToken token, String previousTokenValue,
+				long updated, long generation) {
+			this.token = token;
+			this.previousTokenValue = previousTokenValue;
+			this.updated = updated;
+			this.generation = generation;
+		}
+	}
+}
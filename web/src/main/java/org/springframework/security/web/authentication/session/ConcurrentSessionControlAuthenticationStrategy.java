@@ -26,6 +26,7 @@ import org.springframework.context.MessageSourceAware;
 import org.springframework.context.support.MessageSourceAccessor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.SpringSecurityMessageSource;
+import org.springframework.security.core.session.CountingSessionRegistry;
 import org.springframework.security.core.session.SessionInformation;
 import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.web.authentication.AbstractAuthenticationProcessingFilter;
@@ -88,22 +89,30 @@ public class ConcurrentSessionControlAuthenticationStrategy implements
 	public void onAuthentication(Authentication authentication,
 			HttpServletRequest request, HttpServletResponse response) {
 
+		int allowedSessions = getMaximumSessionsForThisUser(authentication);
+
+		if (allowedSessions == -1) {
+			// We permit unlimited logins
+			return;
+		}
+
+		if (sessionRegistry instanceof CountingSessionRegistry
+				&& ((CountingSessionRegistry) sessionRegistry).getSessionCount(
+						authentication.getPrincipal(), false) < allowedSessions) {
+			// Avoid obtaining the sessions if the maximum has not been reached
+			return;
+		}
+
 		final List<SessionInformation> sessions = sessionRegistry.getAllSessions(
 				authentication.getPrincipal(), false);
 
 		int sessionCount = sessions.size();
-		int allowedSessions = getMaximumSessionsForThisUser(authentication);
 
 		if (sessionCount < allowedSessions) {
 			// They haven't got too many login sessions running at present
 			return;
 		}
 
-		if (allowedSessions == -1) {
-			// We permit unlimited logins
-			return;
-		}
-
 		if (sessionCount == allowedSessions) {
 			HttpSession session = request.getSession(false);
 
@@ -0,0 +1,534 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.context;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.security.authentication.AccountStatusException;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authentication.RememberMeAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsChecker;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.codec.Base64;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.crypto.encrypt.Encryptors;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * A {@link SecurityContextRepository} which stores the {@link Authentication} in an
+ * encrypted cookie rather than in the {@code HttpSession}, so that no state needs to be
+ * kept or replicated on the server.
+ * <p>
+ * Only the name of the principal, the {@link GrantedAuthority#getAuthority() authority
+ * strings}, whether the user was remembered and the time at which the cookie expires are
+ * stored. When the cookie is read, an {@link UsernamePasswordAuthenticationToken} (or a
+ * {@link RememberMeAuthenticationToken} for a remembered user) is created with the name
+ * as the principal. If a {@link UserDetailsService} is
+ * {@link #setUserDetailsService(UserDetailsService) configured}, the {@link UserDetails}
+ * and their current authorities are loaded instead, and the cookie is ignored if the
+ * user no longer exists or is disabled.
+ * <p>
+ * The cookie is encrypted with 256 bit AES in GCM mode, using
+ * {@link Encryptors#stronger(CharSequence, CharSequence)}, so that a cookie which was
+ * tampered with by the client is rejected rather than decrypted. The key is derived from
+ * the first of the passwords. The others are only used to decrypt cookies, so that the
+ * key can be rotated by adding a new password at the front of the list and removing the
+ * oldest once its cookies have expired.
+ * <p>
+ * As with the {@link HttpSessionSecurityContextRepository}, the cookie is only written
+ * if the {@link Authentication} changed during the request, and is written before the
+ * response is committed. The cookie is also written when half of its validity has
+ * passed, so that it expires after {@link #setValiditySeconds(int) validity seconds} of
+ * inactivity, and it is removed when the {@link Authentication} is cleared. Anonymous
+ * authentications are not stored.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public class CookieSecurityContextRepository implements SecurityContextRepository {
+	/**
+	 * The default name of the cookie
+	 */
+	public static final String DEFAULT_COOKIE_NAME = "SPRING_SECURITY_CONTEXT";
+
+	private static final byte VERSION = 1;
+
+	private static final byte AUTHENTICATED = 0;
+
+	private static final byte REMEMBERED = 1;
+
+	private static final String PAYLOAD_ATTR = CookieSecurityContextRepository.class
+			.getName() + ".PAYLOAD";
+
+	protected final Log logger = LogFactory.getLog(this.getClass());
+
+	private final List<BytesEncryptor> encryptors;
+
+	private final boolean isServlet3 = ClassUtils.hasMethod(ServletRequest.class,
+			"startAsync");
+
+	private String cookieName = DEFAULT_COOKIE_NAME;
+
+	private String cookiePath;
+
+	private Boolean secureCookie;
+
+	private int validitySeconds = 1800;
+
+	private UserDetailsService userDetailsService;
+
+	private UserDetailsChecker userDetailsChecker = new AccountStatusUserDetailsChecker();
+
+	private AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param password the password from which the key used to encrypt and decrypt the
+	 * cookie is derived. Cannot be null or empty.
+	 * @param salt a hex-encoded, random, site-global salt value to use to derive the key.
+	 * Cannot be null.
+	 */
+	public CookieSecurityContextRepository(CharSequence password, CharSequence salt) {
+		this(Collections.singletonList(password), salt);
+	}
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param passwords the passwords from which the keys used to decrypt the cookie are
+	 * derived, the first of which is also used to encrypt it. Cannot be null or empty.
+	 * @param salt a hex-encoded, random, site-global salt value to use to derive the keys.
+	 * Cannot be null.
+	 */
+	public CookieSecurityContextRepository(List<? extends CharSequence> passwords,
+			CharSequence salt) {
+		Assert.notEmpty(passwords, "passwords cannot be null or empty");
+		Assert.notNull(salt, "salt cannot be null");
+		this.encryptors = new ArrayList<BytesEncryptor>(passwords.size());
+		for (CharSequence password : passwords) {
+			Assert.isTrue(StringUtils.hasLength(password),
+					"passwords cannot contain null or empty values");
+			this.encryptors.add(Encryptors.stronger(password, salt));
+		}
+	}
+
+	public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+		HttpServletRequest request = requestResponseHolder.getRequest();
+		Cookie cookie = WebUtils.getCookie(request, cookieName);
+		Payload payload = readPayload(request, cookie);
+
+		SecurityContext context = SecurityContextHolder.createEmptyContext();
+		if (payload != null) {
+			context.setAuthentication(createAuthentication(payload));
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug(context.getAuthentication() == null ? "No valid " + cookieName
+					+ " cookie found. A new SecurityContext will be created."
+					: "Obtained the Authentication from the " + cookieName + " cookie");
+		}
+
+		SaveToCookieResponseWrapper wrappedResponse = new SaveToCookieResponseWrapper(
+				requestResponseHolder.getResponse(), request, cookie != null, context,
+				payload);
+		requestResponseHolder.setResponse(wrappedResponse);
+
+		if (isServlet3) {
+			requestResponseHolder
+					.setRequest(new HttpSessionSecurityContextRepository.Servlet3SaveToSessionRequestWrapper(
+							request, wrappedResponse));
+		}
+
+		return context;
+	}
+
+	public void saveContext(SecurityContext context, HttpServletRequest request,
+			HttpServletResponse response) {
+		SaveContextOnUpdateOrErrorResponseWrapper responseWrapper = WebUtils
+				.getNativeResponse(response,
+						SaveContextOnUpdateOrErrorResponseWrapper.class);
+		if (responseWrapper == null) {
+			throw new IllegalStateException(
+					"Cannot invoke saveContext on response "
+							+ response
+							+ ". You must use the HttpRequestResponseHolder.response after invoking loadContext");
+		}
+		if (!responseWrapper.isContextSaved()) {
+			responseWrapper.saveContext(context);
+		}
+	}
+
+	public boolean containsContext(HttpServletRequest request) {
+		return readPayload(request, WebUtils.getCookie(request, cookieName)) != null;
+	}
+
+	/**
+	 * Sets the name of the cookie. The default is {@link #DEFAULT_COOKIE_NAME}.
+	 *
+	 * @param cookieName the name of the cookie. Cannot be null or empty.
+	 */
+	public void setCookieName(String cookieName) {
+		Assert.hasLength(cookieName, "cookieName cannot be null or empty");
+		this.cookieName = cookieName;
+	}
+
+	/**
+	 * Sets the path of the cookie. The default is the context path of the request, or
+	 * "/" for the root context.
+	 *
+	 * @param cookiePath the path of the cookie, or null to use the context path
+	 */
+	public void setCookiePath(String cookiePath) {
+		this.cookiePath = cookiePath;
+	}
+
+	/**
+	 * Determines whether the cookie is marked as secure. The default is to mark it as
+	 * secure if the request was made over a secure connection.
+	 *
+	 * @param secureCookie whether the cookie is secure, or null to use
+	 * {@link ServletRequest#isSecure()}
+	 */
+	public void setSecureCookie(Boolean secureCookie) {
+		this.secureCookie = secureCookie;
+	}
+
+	/**
+	 * Sets the number of seconds of inactivity after which the cookie is no longer
+	 * accepted. The default is 1800 (30 minutes). The cookie itself is a session cookie.
+	 *
+	 * @param validitySeconds the number of seconds. Must be positive.
+	 */
+	public void setValiditySeconds(int validitySeconds) {
+		Assert.isTrue(validitySeconds > 0, "validitySeconds must be positive");
+		this.validitySeconds = validitySeconds;
+	}
+
+	/**
+	 * Sets the {@link UserDetailsService} used to load the {@link UserDetails} of the
+	 * principal whenever the cookie is read. The default is null, in which case the
+	 * principal is the name and the authorities are those stored in the cookie.
+	 *
+	 * @param userDetailsService the {@link UserDetailsService} to use, or null
+	 */
+	public void setUserDetailsService(UserDetailsService userDetailsService) {
+		this.userDetailsService = userDetailsService;
+	}
+
+	/**
+	 * Sets the {@link UserDetailsChecker} used to check the {@link UserDetails} loaded
+	 * by the {@link #setUserDetailsService(UserDetailsService) UserDetailsService}. The
+	 * default is {@link AccountStatusUserDetailsChecker}.
+	 *
+	 * @param userDetailsChecker the {@link UserDetailsChecker} to use. Cannot be null.
+	 */
+	public void setUserDetailsChecker(UserDetailsChecker userDetailsChecker) {
+		Assert.notNull(userDetailsChecker, "userDetailsChecker cannot be null");
+		this.userDetailsChecker = userDetailsChecker;
+	}
+
+	/**
+	 * Sets the {@link AuthenticationTrustResolver} used to determine whether an
+	 * {@link Authentication} is anonymous or remembered. The default is
+	 * {@link AuthenticationTrustResolverImpl}.
+	 *
+	 * @param trustResolver the {@link AuthenticationTrustResolver} to use. Cannot be
+	 * null.
+	 */
+	public void setTrustResolver(AuthenticationTrustResolver trustResolver) {
+		Assert.notNull(trustResolver, "trustResolver cannot be null");
+		this.trustResolver = trustResolver;
+	}
+
+	private Authentication createAuthentication(Payload payload) {
+		Object principal = payload.name;
+		Collection<? extends GrantedAuthority> authorities = payload.authorities;
+		if (userDetailsService != null) {
+			try {
+				UserDetails user = userDetailsService.loadUserByUsername(payload.name);
+				userDetailsChecker.check(user);
+				principal = user;
+				authorities = user.getAuthorities();
+			}
+			catch (UsernameNotFoundException e) {
+				logger.debug("The user of the " + cookieName
+						+ " cookie no longer exists", e);
+				return null;
+			}
+			catch (AccountStatusException e) {
+				logger.debug("The user of the " + cookieName + " cookie is not valid", e);
+				return null;
+			}
+		}
+		if (payload.type == REMEMBERED) {
+			return new RememberMeAuthenticationToken(cookieName, principal, authorities);
+		}
+		return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+	}
+
+	private String writePayload(Authentication authentication) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(VERSION);
+			out.writeLong(System.currentTimeMillis() + validitySeconds * 1000L);
+			out.writeByte(trustResolver.isRememberMe(authentication) ? REMEMBERED
+					: AUTHENTICATED);
+			out.writeUTF(authentication.getName());
+			List<String> authorities = new ArrayList<String>();
+			for (GrantedAuthority authority : authentication.getAuthorities()) {
+				if (authority.getAuthority() != null) {
+					authorities.add(authority.getAuthority());
+				}
+			}
+			out.writeShort(authorities.size());
+			for (String authority : authorities) {
+				out.writeUTF(authority);
+			}
+			out.flush();
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Unable to write the " + cookieName
+					+ " cookie", e);
+		}
+		String value = new String(Base64.encode(encryptors.get(0).encrypt(
+				bytes.toByteArray())));
+		// the padding is restored when the cookie is read
+		return StringUtils.trimTrailingCharacter(value, '=');
+	}
+
+	/**
+	 * Reads the cookie, remembering the result in the request so that
+	 * {@link #containsContext(HttpServletRequest)} does not decrypt it again.
+	 */
+	private Payload readPayload(HttpServletRequest request, Cookie cookie) {
+		String cookieValue = cookie == null ? null : cookie.getValue();
+		if (cookieValue == null) {
+			return null;
+		}
+		Object cached = request.getAttribute(PAYLOAD_ATTR);
+		if (cached instanceof ReadCookie) {
+			ReadCookie readCookie = (ReadCookie) cached;
+			if (readCookie.repository == this && readCookie.value.equals(cookieValue)) {
+				return readCookie.payload;
+			}
+		}
+		Payload payload = readPayload(cookieValue);
+		request.setAttribute(PAYLOAD_ATTR, new ReadCookie(this, cookieValue, payload));
+		return payload;
+	}
+
+	Payload readPayload(String cookieValue) {
+		byte[] encrypted = decodeCookie(cookieValue);
+		if (encrypted == null) {
+			logger.debug("The " + cookieName + " cookie was not Base64 encoded");
+			return null;
+		}
+		for (BytesEncryptor encryptor : encryptors) {
+			byte[] decrypted;
+			try {
+				decrypted = encryptor.decrypt(encrypted);
+			}
+			catch (RuntimeException e) {
+				// encrypted with another key or tampered with
+				continue;
+			}
+			Payload payload = readPayload(decrypted);
+			if (payload != null) {
+				return payload;
+			}
+		}
+		logger.debug("The " + cookieName + " cookie could not be decrypted");
+		return null;
+	}
+
+	private Payload readPayload(byte[] decrypted) {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(decrypted));
+		try {
+			if (in.readByte() != VERSION) {
+				return null;
+			}
+			long expiresAt = in.readLong();
+			byte type = in.readByte();
+			String name = in.readUTF();
+			int count = in.readUnsignedShort();
+			String[] authorities = new String[count];
+			for (int i = 0; i < count; i++) {
+				authorities[i] = in.readUTF();
+			}
+			if (expiresAt < System.currentTimeMillis()) {
+				logger.debug("The " + cookieName + " cookie has expired");
+				return null;
+			}
+			return new Payload(expiresAt, type, name,
+					AuthorityUtils.createAuthorityList(authorities));
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static byte[] decodeCookie(String cookieValue) {
+		StringBuilder value = new StringBuilder(cookieValue);
+		while (value.length() % 4 != 0) {
+			value.append('=');
+		}
+		byte[] bytes = value.toString().getBytes();
+		if (!Base64.isBase64(bytes)) {
+			return null;
+		}
+		return Base64.decode(bytes);
+	}
+
+	private Cookie createCookie(HttpServletRequest request, String value) {
+		Cookie cookie = new Cookie(cookieName, value);
+		cookie.setPath(getCookiePath(request));
+		cookie.setSecure(secureCookie == null ? request.isSecure() : secureCookie);
+		if (isServlet3) {
+			cookie.setHttpOnly(true);
+		}
+		return cookie;
+	}
+
+	private String getCookiePath(HttpServletRequest request) {
+		if (cookiePath != null) {
+			return cookiePath;
+		}
+		String contextPath = request.getContextPath();
+		return contextPath.length() > 0 ? contextPath : "/";
+	}
+
+	/**
+	 * The result of reading a cookie value
+	 */
+	private static final class ReadCookie {
+		private final CookieSecurityContextRepository repository;
+		private final String value;
+		private final Payload payload;
+
+		private ReadCookie(CookieSecurityContextRepository repository, String value,
+				Payload payload) {
+			this.repository = repository;
+			this.value = value;
+			this.payload = payload;
+		}
+	}
+
+	static final class Payload {
+		private final long expiresAt;
+		private final byte type;
+		private final String name;
+		private final List<GrantedAuthority> authorities;
+
+		private Payload(long expiresAt, byte type, String name,
+				List<GrantedAuthority> authorities) {
+			this.expiresAt = expiresAt;
+			this.type = type;
+			this.name = name;
+			this.authorities = authorities;
+		}
+	}
+
+	/**
+	 * Writes the cookie when the response is committed, or at the end of the request,
+	 * if the {@link Authentication} changed or the cookie needs to be refreshed.
+	 */
+	final class SaveToCookieResponseWrapper extends
+			SaveContextOnUpdateOrErrorResponseWrapper {
+		private final HttpServletRequest request;
+		private final boolean cookieExistedAtStartOfRequest;
+		private final SecurityContext contextBeforeExecution;
+		private final Authentication authBeforeExecution;
+		private final Payload payload;
+
+		SaveToCookieResponseWrapper(HttpServletResponse response,
+				HttpServletRequest request, boolean cookieExistedAtStartOfRequest,
+				SecurityContext context, Payload payload) {
+			super(response, false);
+			this.request = request;
+			this.cookieExistedAtStartOfRequest = cookieExistedAtStartOfRequest;
+			this.contextBeforeExecution = context;
+			this.authBeforeExecution = context.getAuthentication();
+			this.payload = payload;
+		}
+
+		@Override
+		protected void saveContext(SecurityContext context) {
+			Authentication authentication = context.getAuthentication();
+			if (authentication == null || trustResolver.isAnonymous(authentication)) {
+				if (cookieExistedAtStartOfRequest) {
+					logger.debug("SecurityContext is empty or contents are anonymous - removing the "
+							+ cookieName + " cookie");
+					Cookie cookie = createCookie(request, "");
+					cookie.setMaxAge(0);
+					addCookie(cookie);
+				}
+				return;
+			}
+			if (!contextChanged(context) && !isRefreshRequired()) {
+				return;
+			}
+			if (isCommitted()) {
+				logger.warn("Unable to write the " + cookieName
+						+ " cookie, as the response has been committed");
+				return;
+			}
+			addCookie(createCookie(request, writePayload(authentication)));
+			if (logger.isDebugEnabled()) {
+				logger.debug("SecurityContext '" + context + "' stored to the "
+						+ cookieName + " cookie");
+			}
+		}
+
+		private boolean contextChanged(SecurityContext context) {
+			return context != contextBeforeExecution
+					|| context.getAuthentication() != authBeforeExecution;
+		}
+
+		private boolean isRefreshRequired() {
+			return payload == null
+					|| payload.expiresAt - System.currentTimeMillis() < validitySeconds * 500L;
+		}
+	}
+}
@@ -15,6 +15,11 @@
  */
 package org.springframework.security.web.context;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
@@ -28,11 +33,14 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.security.authentication.AuthenticationTrustResolver;
 import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.InternedAuthorityList;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.context.SecurityContextHolderStrategy;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
 import org.springframework.web.util.WebUtils;
 
 /**
@@ -73,6 +81,19 @@ import org.springframework.web.util.WebUtils;
  * need to conserve server memory and ensure all classes using the
  * {@code SecurityContextHolder} are designed to have no persistence of the
  * {@code SecurityContext} between web requests.
+ * <p>
+ * With a clustered or externalized session store, every call to
+ * {@code HttpSession.setAttribute} typically replicates the attribute, and every call to
+ * {@code HttpSession.getAttribute} may be a round trip to the store. If
+ * {@link #setDetectAuthenticationChanges(boolean) detectAuthenticationChanges} is set to
+ * <tt>true</tt>, the {@code Authentication} loaded from the session is fingerprinted
+ * (its type, principal, name, authenticated flag, authorities and details) and the
+ * context is only written back if the fingerprint of the {@code Authentication} being
+ * saved differs, rather than whenever a different {@code SecurityContext} or
+ * {@code Authentication} instance is saved. The session attribute is also not read
+ * again if the context was loaded from the same session. The number of performed and
+ * skipped writes is available from {@link #getSessionWriteCount()} and
+ * {@link #getSkippedSessionWriteCount()}.
  *
  * @author Luke Taylor
  * @since 3.0
@@ -97,6 +118,12 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 
 	private AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
 
+	private boolean detectAuthenticationChanges;
+
+	private final AtomicLong sessionWrites = new AtomicLong();
+
+	private final AtomicLong skippedSessionWrites = new AtomicLong();
+
 	/**
 	 * Gets the security context for the current request (if available) and returns it.
 	 * <p>
@@ -110,6 +137,12 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 		HttpSession httpSession = request.getSession(false);
 
 		SecurityContext context = readSecurityContextFromSession(httpSession);
+		String loadedFromSessionId = null;
+		AuthenticationFingerprint fingerprint = null;
+		if (context != null && detectAuthenticationChanges) {
+			loadedFromSessionId = httpSession.getId();
+			fingerprint = AuthenticationFingerprint.of(context.getAuthentication());
+		}
 
 		if (context == null) {
 			if (logger.isDebugEnabled()) {
@@ -121,7 +154,8 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 		}
 
 		SaveToSessionResponseWrapper wrappedResponse = new SaveToSessionResponseWrapper(
-				response, request, httpSession != null, context);
+				response, request, httpSession != null, context, loadedFromSessionId,
+				fingerprint);
 		requestResponseHolder.setResponse(wrappedResponse);
 
 		if (isServlet3) {
@@ -263,10 +297,51 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 		this.springSecurityContextKey = springSecurityContextKey;
 	}
 
+	/**
+	 * Determines whether the context is only written to the session if the
+	 * {@code Authentication} actually changed. The default is <tt>false</tt>, in which
+	 * case the context is written whenever the {@code SecurityContext} or
+	 * {@code Authentication} instance being saved differs from the one loaded, or the
+	 * session attribute is missing.
+	 * <p>
+	 * When <tt>true</tt>, an {@code Authentication} is considered unchanged if it has the
+	 * same type, the same principal instance, name, authenticated flag, authorities and
+	 * equal details as the one loaded from the session. Replacing the principal, for
+	 * example with an updated {@code UserDetails}, is therefore detected, but changes
+	 * made in place to the state of the principal or to the credentials are not, so an
+	 * application which modifies them without replacing the principal or the
+	 * {@code Authentication} should not enable this.
+	 *
+	 * @param detectAuthenticationChanges whether to compare the contents of the
+	 * {@code Authentication} rather than its identity
+	 */
+	public void setDetectAuthenticationChanges(boolean detectAuthenticationChanges) {
+		this.detectAuthenticationChanges = detectAuthenticationChanges;
+	}
+
+	/**
+	 * Gets the number of times the context has been written to a session.
+	 *
+	 * @return the number of performed writes
+	 */
+	public long getSessionWriteCount() {
+		return sessionWrites.get();
+	}
+
+	/**
+	 * Gets the number of times a non-anonymous context was saved without writing it to
+	 * the session, because it had not changed.
+	 *
+	 * @return the number of skipped writes
+	 */
+	public long getSkippedSessionWriteCount() {
+		return skippedSessionWrites.get();
+	}
+
 	// ~ Inner Classes
 	// ==================================================================================================
 
-	private static class Servlet3SaveToSessionRequestWrapper extends
+	static class Servlet3SaveToSessionRequestWrapper extends
 			HttpServletRequestWrapper {
 		private final SaveContextOnUpdateOrErrorResponseWrapper response;
 
@@ -306,6 +381,8 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 		private final boolean httpSessionExistedAtStartOfRequest;
 		private final SecurityContext contextBeforeExecution;
 		private final Authentication authBeforeExecution;
+		private final String loadedFromSessionId;
+		private final AuthenticationFingerprint fingerprint;
 
 		/**
 		 * Takes the parameters required to call <code>saveContext()</code> successfully
@@ -318,15 +395,22 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 		 * a new session will now be created.
 		 * @param context the context before the filter chain executed. The context will
 		 * only be stored if it or its contents changed during the request.
+		 * @param loadedFromSessionId the id of the session the context was loaded from
+		 * when detecting authentication changes, or null
+		 * @param fingerprint the fingerprint of the {@code Authentication} loaded from the
+		 * session when detecting authentication changes, or null
 		 */
 		SaveToSessionResponseWrapper(HttpServletResponse response,
 				HttpServletRequest request, boolean httpSessionExistedAtStartOfRequest,
-				SecurityContext context) {
+				SecurityContext context, String loadedFromSessionId,
+				AuthenticationFingerprint fingerprint) {
 			super(response, disableUrlRewriting);
 			this.request = request;
 			this.httpSessionExistedAtStartOfRequest = httpSessionExistedAtStartOfRequest;
 			this.contextBeforeExecution = context;
 			this.authBeforeExecution = context.getAuthentication();
+			this.loadedFromSessionId = loadedFromSessionId;
+			this.fingerprint = fingerprint;
 		}
 
 		/**
@@ -369,23 +453,38 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 			if (httpSession != null) {
 				// We may have a new session, so check also whether the context attribute
 				// is set SEC-1561
-				if (contextChanged(context)
-						|| httpSession.getAttribute(springSecurityContextKey) == null) {
+				if (contextChanged(context) || !isContextStored(httpSession)) {
 					httpSession.setAttribute(springSecurityContextKey, context);
+					sessionWrites.incrementAndGet();
 
 					if (logger.isDebugEnabled()) {
 						logger.debug("SecurityContext '" + context
 								+ "' stored to HttpSession: '" + httpSession);
 					}
 				}
+				else {
+					skippedSessionWrites.incrementAndGet();
+				}
 			}
 		}
 
 		private boolean contextChanged(SecurityContext context) {
+			if (fingerprint != null) {
+				return !fingerprint.matches(context.getAuthentication());
+			}
 			return context != contextBeforeExecution
 					|| context.getAuthentication() != authBeforeExecution;
 		}
 
+		private boolean isContextStored(HttpSession httpSession) {
+			if (loadedFromSessionId != null
+					&& loadedFromSessionId.equals(httpSession.getId())) {
+				// the context was read from this session, so avoid reading it again
+				return true;
+			}
+			return httpSession.getAttribute(springSecurityContextKey) != null;
+		}
+
 		private HttpSession createNewSessionIfAllowed(SecurityContext context) {
 			if (httpSessionExistedAtStartOfRequest) {
 				if (logger.isDebugEnabled()) {
@@ -448,4 +547,64 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 		Assert.notNull(trustResolver, "trustResolver cannot be null");
 		this.trustResolver = trustResolver;
 	}
+
+	/**
+	 * The state of an {@link Authentication} which determines whether it changed during
+	 * a request when {@link #setDetectAuthenticationChanges(boolean) detecting
+	 * authentication changes}.
+	 */
+	private static final class AuthenticationFingerprint {
+		private final Class<?> type;
+		private final Object principal;
+		private final String name;
+		private final boolean authenticated;
+		private final List<? extends GrantedAuthority> authorities;
+		private final Object details;
+		private final int detailsHashCode;
+
+		private AuthenticationFingerprint(Authentication authentication) {
+			this.type = authentication.getClass();
+			this.principal = authentication.getPrincipal();
+			this.name = authentication.getName();
+			this.authenticated = authentication.isAuthenticated();
+			this.authorities = toList(authentication.getAuthorities());
+			this.details = authentication.getDetails();
+			// detects details which are modified in place
+			this.detailsHashCode = ObjectUtils.nullSafeHashCode(details);
+		}
+
+		static AuthenticationFingerprint of(Authentication authentication) {
+			return authentication == null ? null : new AuthenticationFingerprint(
+					authentication);
+		}
+
+		boolean matches(Authentication authentication) {
+			if (authentication == null) {
+				return false;
+			}
+			Collection<? extends GrantedAuthority> currentAuthorities = authentication
+					.getAuthorities();
+			Object currentDetails = authentication.getDetails();
+			return type == authentication.getClass()
+					&& principal == authentication.getPrincipal()
+					&& authenticated == authentication.isAuthenticated()
+					&& ObjectUtils.nullSafeEquals(name, authentication.getName())
+					&& (authorities == currentAuthorities || authorities
+							.equals(toList(currentAuthorities)))
+					&& ObjectUtils.nullSafeEquals(details, currentDetails)
+					&& detailsHashCode == ObjectUtils.nullSafeHashCode(currentDetails);
+		}
+
+		private static List<? extends GrantedAuthority> toList(
+				Collection<? extends GrantedAuthority> authorities) {
+			if (authorities instanceof InternedAuthorityList) {
+				// immutable, so it can be used as is
+				return (InternedAuthorityList) authorities;
+			}
+			if (authorities == null) {
+				return new ArrayList<GrantedAuthority>(0);
+			}
+			return new ArrayList<GrantedAuthority>(authorities);
+		}
+	}
 }
@@ -16,6 +16,7 @@
 package org.springframework.security.web.csrf;
 
 import java.io.IOException;
+import java.io.ObjectStreamException;
 import java.util.Arrays;
 import java.util.HashSet;
 
@@ -65,6 +66,7 @@ public final class CsrfFilter extends OncePerRequestFilter {
 	private final CsrfTokenRepository tokenRepository;
 	private RequestMatcher requireCsrfProtectionMatcher = DEFAULT_CSRF_MATCHER;
 	private AccessDeniedHandler accessDeniedHandler = new AccessDeniedHandlerImpl();
+	private String csrfRequestAttributeName;
 
 	public CsrfFilter(CsrfTokenRepository csrfTokenRepository) {
 		Assert.notNull(csrfTokenRepository, "csrfTokenRepository cannot be null");
@@ -83,21 +85,28 @@ public final class CsrfFilter extends OncePerRequestFilter {
 	protected void doFilterInternal(HttpServletRequest request,
 			HttpServletResponse response, FilterChain filterChain)
 			throws ServletException, IOException {
-		CsrfToken csrfToken = tokenRepository.loadToken(request);
-		final boolean missingToken = csrfToken == null;
-		if (missingToken) {
-			CsrfToken generatedToken = tokenRepository.generateToken(request);
-			csrfToken = new SaveOnAccessCsrfToken(tokenRepository, request, response,
-					generatedToken);
+		DeferredCsrfToken deferredToken = new DeferredCsrfToken(tokenRepository, request,
+				response);
+		CsrfToken csrfToken = deferredToken;
+		if (csrfRequestAttributeName == null) {
+			// the token is exposed under its parameter name, so it must be resolved now
+			if (!deferredToken.isGenerated()) {
+				csrfToken = deferredToken.getDelegate();
+			}
+			request.setAttribute(CsrfToken.class.getName(), csrfToken);
+			request.setAttribute(csrfToken.getParameterName(), csrfToken);
+		}
+		else {
+			request.setAttribute(CsrfToken.class.getName(), deferredToken);
+			request.setAttribute(csrfRequestAttributeName, deferredToken);
 		}
-		request.setAttribute(CsrfToken.class.getName(), csrfToken);
-		request.setAttribute(csrfToken.getParameterName(), csrfToken);
 
 		if (!requireCsrfProtectionMatcher.matches(request)) {
 			filterChain.doFilter(request, response);
 			return;
 		}
 
+		final boolean missingToken = deferredToken.isGenerated();
 		String actualToken = request.getHeader(csrfToken.getHeaderName());
 		if (actualToken == null) {
 			actualToken = request.getParameter(csrfToken.getParameterName());
@@ -156,48 +165,97 @@ public final class CsrfFilter extends OncePerRequestFilter {
 		this.accessDeniedHandler = accessDeniedHandler;
 	}
 
+	/**
+	 * Specifies the name of the request attribute under which the {@link CsrfToken} is
+	 * exposed, in addition to the name of {@link CsrfToken} class, such as "_csrf".
+	 *
+	 * <p>
+	 * When set, the {@link CsrfToken} is only loaded from the {@link CsrfTokenRepository},
+	 * or generated if none exists, when it is first accessed or when the
+	 * {@link #setRequireCsrfProtectionMatcher(RequestMatcher)} matches. Requests which
+	 * are not protected and do not render the token, such as most GET requests, then
+	 * never access the {@link CsrfTokenRepository}.
+	 * </p>
+	 *
+	 * <p>
+	 * The default is null, which means that the token is loaded for every request so
+	 * that it can be exposed under its {@link CsrfToken#getParameterName()}.
+	 * </p>
+	 *
+	 * @param csrfRequestAttributeName the name of the request attribute, or null
+	 */
+	public void setCsrfRequestAttributeName(String csrfRequestAttributeName) {
+		this.csrfRequestAttributeName = csrfRequestAttributeName;
+	}
+
+	/**
+	 * A {@link CsrfToken} which loads the token from the {@link CsrfTokenRepository}, or
+	 * generates it if none exists, when it is first accessed. A generated token is only
+	 * saved once its value is accessed.
+	 */
 	@SuppressWarnings("serial")
-	private static final class SaveOnAccessCsrfToken implements CsrfToken {
+	private static final class DeferredCsrfToken implements CsrfToken {
 		private transient CsrfTokenRepository tokenRepository;
 		private transient HttpServletRequest request;
 		private transient HttpServletResponse response;
 
-		private final CsrfToken delegate;
+		private CsrfToken delegate;
 
-		public SaveOnAccessCsrfToken(CsrfTokenRepository tokenRepository,
-				HttpServletRequest request, HttpServletResponse response,
-				CsrfToken delegate) {
-			super();
+		private boolean generated;
+
+		private DeferredCsrfToken(CsrfTokenRepository tokenRepository,
+				HttpServletRequest request, HttpServletResponse response) {
 			this.tokenRepository = tokenRepository;
 			this.request = request;
 			this.response = response;
-			this.delegate = delegate;
 		}
 
 		public String getHeaderName() {
-			return delegate.getHeaderName();
+			return getDelegate().getHeaderName();
 		}
 
 		public String getParameterName() {
-			return delegate.getParameterName();
+			return getDelegate().getParameterName();
 		}
 
 		public String getToken() {
+			CsrfToken token = getDelegate();
 			saveTokenIfNecessary();
-			return delegate.getToken();
+			return token.getToken();
+		}
+
+		/**
+		 * Determines if the token was generated, rather than loaded.
+		 *
+		 * @return true if the token was generated
+		 */
+		private boolean isGenerated() {
+			getDelegate();
+			return generated;
+		}
+
+		private synchronized CsrfToken getDelegate() {
+			if (delegate == null) {
+				delegate = tokenRepository.loadToken(request);
+				if (delegate == null) {
+					delegate = tokenRepository.generateToken(request);
+					generated = true;
+				}
+				else {
+					clear();
+				}
+			}
+			return delegate;
 		}
 
 		@Override
 		public String toString() {
-			return "SaveOnAccessCsrfToken [delegate=" + delegate + "]";
+			return "DeferredCsrfToken [delegate=" + delegate + "]";
 		}
 
 		@Override
 		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + ((delegate == null) ? 0 : delegate.hashCode());
-			return result;
+			return getDelegate().hashCode();
 		}
 
 		@Override
@@ -208,31 +266,26 @@ public final class CsrfFilter extends OncePerRequestFilter {
 				return false;
 			if (getClass() != obj.getClass())
 				return false;
-			SaveOnAccessCsrfToken other = (SaveOnAccessCsrfToken) obj;
-			if (delegate == null) {
-				if (other.delegate != null)
-					return false;
-			}
-			else if (!delegate.equals(other.delegate))
-				return false;
-			return true;
+			DeferredCsrfToken other = (DeferredCsrfToken) obj;
+			return getDelegate().equals(other.getDelegate());
 		}
 
-		private void saveTokenIfNecessary() {
-			if (this.tokenRepository == null) {
-				return;
+		private synchronized void saveTokenIfNecessary() {
+			if (generated && tokenRepository != null) {
+				tokenRepository.saveToken(delegate, request, response);
+				clear();
 			}
+		}
 
-			synchronized (this) {
-				if (tokenRepository != null) {
-					this.tokenRepository.saveToken(delegate, request, response);
-					this.tokenRepository = null;
-					this.request = null;
-					this.response = null;
-				}
-			}
+		private void clear() {
+			this.tokenRepository = null;
+			this.request = null;
+			this.response = null;
 		}
 
+		private Object writeReplace() throws ObjectStreamException {
+			return getDelegate();
+		}
 	}
 
 	private static final class DefaultRequiresCsrfMatcher implements RequestMatcher {
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.csrf;
+
+import java.io.ObjectStreamException;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.security.crypto.keygen.BytesKeyGenerator;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+import org.springframework.security.util.Hmac;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * A {@link CsrfTokenRepository} which does not store the {@link CsrfToken}, so that
+ * pages which are otherwise stateless do not require an {@link HttpSession}.
+ * <p>
+ * A token consists of the time at which it was issued and an HMAC, with a server key, of
+ * that time and the identity of the requester: the id of the {@link HttpSession} if one
+ * exists and the name of the current {@link Authentication} if it is not anonymous. A
+ * presented token is valid if its HMAC matches for the current requester and it was
+ * issued within the {@link #setTokenValiditySeconds(int) tokenValiditySeconds}. A token
+ * issued before the requester authenticated or before the session changed is therefore
+ * no longer valid.
+ * <p>
+ * An anonymous requester without a session has no identity, so its tokens are bound to a
+ * random nonce instead, which
+ * {@link #saveToken(CsrfToken, HttpServletRequest, HttpServletResponse)} sends in an
+ * HttpOnly cookie named {@link #setNonceCookieName(String) CSRF-NONCE}. Such a token is
+ * only valid if the request also presents the cookie, so a token obtained by an attacker
+ * is not valid for other requesters.
+ * <p>
+ * The tokens themselves are not stored, so the tokens of a requester cannot be revoked
+ * before they expire. A generated token is bound to the requester at the time it was
+ * generated, but its HMAC, and the nonce if one is needed, are only computed when its
+ * value is first read. {@link CsrfFilter} generates a token for every request which does
+ * not present one, so requests which never read the token neither compute an HMAC nor
+ * generate a nonce.
+ * <p>
+ * By default a random key is generated, so tokens are only valid for the instance which
+ * issued them. Use {@link #HmacCsrfTokenRepository(byte[])} with the same secret key on
+ * every instance of a cluster.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public final class HmacCsrfTokenRepository implements CsrfTokenRepository {
+	private static final String DEFAULT_CSRF_PARAMETER_NAME = "_csrf";
+
+	private static final String DEFAULT_CSRF_HEADER_NAME = "X-CSRF-TOKEN";
+
+	private static final String DEFAULT_NONCE_COOKIE_NAME = "CSRF-NONCE";
+
+	private static final String GENERATED_NONCE_ATTR = HmacCsrfTokenRepository.class
+			.getName().concat(".GENERATED_NONCE");
+
+	private final Hmac hmac;
+
+	private final BytesKeyGenerator nonceGenerator = KeyGenerators.secureRandom(16);
+
+	private final boolean isServlet3 = ClassUtils.hasMethod(ServletRequest.class,
+			"startAsync");
+
+	private String parameterName = DEFAULT_CSRF_PARAMETER_NAME;
+
+	private String headerName = DEFAULT_CSRF_HEADER_NAME;
+
+	private String nonceCookieName = DEFAULT_NONCE_COOKIE_NAME;
+
+	private long tokenValidity = 24 * 60 * 60 * 1000L;
+
+	private AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+	/**
+	 * Creates a new instance with a random key.
+	 */
+	public HmacCsrfTokenRepository() {
+		this(KeyGenerators.secureRandom(32).generateKey());
+	}
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param secretKey the key used to compute the HMAC of the tokens. Must be at least
+	 * 16 bytes.
+	 */
+	public HmacCsrfTokenRepository(byte[] secretKey) {
+		Assert.notNull(secretKey, "secretKey cannot be null");
+		Assert.isTrue(secretKey.length >= 16, "secretKey must be at least 16 bytes");
+		this.hmac = new Hmac(secretKey);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.springframework.security.web.csrf.CsrfTokenRepository#generateToken(javax.
+	 * servlet .http.HttpServletRequest)
+	 */
+	public CsrfToken generateToken(HttpServletRequest request) {
+		HttpSession session = request.getSession(false);
+		String name = getAuthenticatedName();
+		String nonce = null;
+		boolean requiresNonce = session == null && name == null;
+		if (requiresNonce) {
+			nonce = getNonce(request);
+		}
+		return new HmacCsrfToken(this, request, session == null ? null : session.getId(),
+				name, nonce, requiresNonce, System.currentTimeMillis());
+	}
+
+	/**
+	 * Sends the nonce cookie if a nonce was generated for the token, as the tokens
+	 * themselves are not stored.
+	 */
+	public void saveToken(CsrfToken token, HttpServletRequest request,
+			HttpServletResponse response) {
+		if (token == null) {
+			return;
+		}
+		// the nonce is generated when the value is first computed
+		token.getToken();
+		String nonce = (String) request.getAttribute(GENERATED_NONCE_ATTR);
+		if (nonce == null) {
+			return;
+		}
+		Cookie cookie = new Cookie(nonceCookieName, nonce);
+		String contextPath = request.getContextPath();
+		cookie.setPath(contextPath.length() > 0 ? contextPath : "/");
+		cookie.setSecure(request.isSecure());
+		if (isServlet3) {
+			cookie.setHttpOnly(true);
+		}
+		response.addCookie(cookie);
+	}
+
+	/**
+	 * Loads the token presented in the header or parameter of the request, if it is
+	 * valid for the requester.
+	 *
+	 * @return the presented token, or null if no token was presented or it is not valid,
+	 * so that a new token is generated and saved
+	 */
+	public CsrfToken loadToken(HttpServletRequest request) {
+		String presentedToken = request.getHeader(this.headerName);
+		if (presentedToken == null) {
+			presentedToken = request.getParameter(this.parameterName);
+		}
+		if (presentedToken == null || !isValid(presentedToken, request)) {
+			return null;
+		}
+		return new DefaultCsrfToken(this.headerName, this.parameterName, presentedToken);
+	}
+
+	/**
+	 * Sets the {@link HttpServletRequest} parameter name that the {@link CsrfToken} is
+	 * expected to appear on
+	 * @param parameterName the new parameter name to use
+	 */
+	public void setParameterName(String parameterName) {
+		Assert.hasLength(parameterName, "parameterName cannot be null or empty");
+		this.parameterName = parameterName;
+	}
+
+	/**
+	 * Sets the header name that the {@link CsrfToken} is expected to appear on and the
+	 * header that the response will contain the {@link CsrfToken}.
+	 *
+	 * @param headerName the new header name to use
+	 */
+	public void setHeaderName(String headerName) {
+		Assert.hasLength(headerName, "headerName cannot be null or empty");
+		this.headerName = headerName;
+	}
+
+	/**
+	 * Sets the name of the cookie which holds the nonce that the tokens of anonymous
+	 * requesters without a session are bound to. The default is "CSRF-NONCE".
+	 *
+	 * @param nonceCookieName the name of the cookie
+	 */
+	public void setNonceCookieName(String nonceCookieName) {
+		Assert.hasLength(nonceCookieName, "nonceCookieName cannot be null or empty");
+		this.nonceCookieName = nonceCookieName;
+	}
+
+	/**
+	 * Sets the number of seconds for which a token is valid after it was issued. The
+	 * default is 86400 (one day).
+	 *
+	 * @param tokenValiditySeconds the number of seconds. Must be positive.
+	 */
+	public void setTokenValiditySeconds(int tokenValiditySeconds) {
+		Assert.isTrue(tokenValiditySeconds > 0, "tokenValiditySeconds must be positive");
+		this.tokenValidity = tokenValiditySeconds * 1000L;
+	}
+
+	/**
+	 * Sets the {@link AuthenticationTrustResolver} used to determine if the current
+	 * {@link Authentication} is anonymous. The default is
+	 * {@link AuthenticationTrustResolverImpl}.
+	 *
+	 * @param trustResolver the {@link AuthenticationTrustResolver} to use. Cannot be
+	 * null.
+	 */
+	public void setTrustResolver(AuthenticationTrustResolver trustResolver) {
+		Assert.notNull(trustResolver, "trustResolver cannot be null");
+		this.trustResolver = trustResolver;
+	}
+
+	private boolean isValid(String token, HttpServletRequest request) {
+		int separator = token.indexOf('-');
+		if (separator <= 0) {
+			return false;
+		}
+		long issuedAt;
+		try {
+			issuedAt = Long.parseLong(token.substring(0, separator), 16);
+		}
+		catch (NumberFormatException e) {
+			return false;
+		}
+		long age = System.currentTimeMillis() - issuedAt;
+		if (age > tokenValidity || age < -tokenValidity) {
+			return false;
+		}
+		byte[] presentedDigest;
+		try {
+			presentedDigest = Hex.decode(token.substring(separator + 1));
+		}
+		catch (IllegalArgumentException e) {
+			return false;
+		}
+		HttpSession session = request.getSession(false);
+		String name = getAuthenticatedName();
+		String nonce = null;
+		if (session == null && name == null) {
+			// only the nonce presented by the requester is accepted
+			nonce = getNonce(request);
+			if (nonce == null) {
+				return false;
+			}
+		}
+		return hmac.matches(presentedDigest, digestValues(session == null ? null
+				: session.getId(), name, nonce, issuedAt));
+	}
+
+	/**
+	 * Gets the nonce generated for the tokens of the request, generating it if
+	 * necessary, so that every token generated for a request uses the same nonce.
+	 */
+	private String getGeneratedNonce(HttpServletRequest request) {
+		String nonce = (String) request.getAttribute(GENERATED_NONCE_ATTR);
+		if (nonce == null) {
+			nonce = new String(Hex.encode(nonceGenerator.generateKey()));
+			request.setAttribute(GENERATED_NONCE_ATTR, nonce);
+		}
+		return nonce;
+	}
+
+	/**
+	 * Gets the name of the current {@link Authentication}, or null if it is anonymous.
+	 */
+	private String getAuthenticatedName() {
+		Authentication authentication = SecurityContextHolder.getContext()
+				.getAuthentication();
+		if (authentication == null || trustResolver.isAnonymous(authentication)) {
+			return null;
+		}
+		return authentication.getName();
+	}
+
+	private String getNonce(HttpServletRequest request) {
+		Cookie cookie = WebUtils.getCookie(request, nonceCookieName);
+		if (cookie == null || cookie.getValue() == null
+				|| cookie.getValue().length() == 0) {
+			return null;
+		}
+		return cookie.getValue();
+	}
+
+	private static String[] digestValues(String sessionId, String name, String nonce,
+			long issuedAt) {
+		return new String[] { sessionId == null ? "" : sessionId,
+				name == null ? "" : name, nonce == null ? "" : nonce,
+				Long.toString(issuedAt) };
+	}
+
+	/**
+	 * A {@link CsrfToken} which is bound to the requester at the time it was generated,
+	 * but whose value is computed when it is first read.
+	 */
+	@SuppressWarnings("serial")
+	private static final class HmacCsrfToken implements CsrfToken {
+		private final String headerName;
+
+		private final String parameterName;
+
+		private final String sessionId;
+
+		private final String name;
+
+		private final boolean requiresNonce;
+
+		private final long issuedAt;
+
+		private transient HmacCsrfTokenRepository repository;
+
+		private transient HttpServletRequest request;
+
+		private String nonce;
+
+		private String token;
+
+		private HmacCsrfToken(HmacCsrfTokenRepository repository,
+				HttpServletRequest request, String sessionId, String name, String nonce,
+				boolean requiresNonce, long issuedAt) {
+			this.headerName = repository.headerName;
+			this.parameterName = repository.parameterName;
+			this.repository = repository;
+			this.request = request;
+			this.sessionId = sessionId;
+			this.name = name;
+			this.nonce = nonce;
+			this.requiresNonce = requiresNonce;
+			this.issuedAt = issuedAt;
+		}
+
+		public String getHeaderName() {
+			return headerName;
+		}
+
+		public String getParameterName() {
+			return parameterName;
+		}
+
+		public synchronized String getToken() {
+			if (token == null) {
+				if (requiresNonce && nonce == null) {
+					nonce = repository.getGeneratedNonce(request);
+				}
+				byte[] digest = repository.hmac.digest(digestValues(sessionId, name,
+						nonce, issuedAt));
+				token = Long.toHexString(issuedAt) + "-" + new String(Hex.encode(digest));
+				repository = null;
+				request = null;
+			}
+			return token;
+		}
+
+		private Object writeReplace() throws ObjectStreamException {
+			return new DefaultCsrfToken(headerName, parameterName, getToken());
+		}
+
+		@Override
+		public String toString() {
+			return "HmacCsrfToken [headerName=" + headerName + ", parameterName="
+					+ parameterName + "]";
+		}
+	}
+}
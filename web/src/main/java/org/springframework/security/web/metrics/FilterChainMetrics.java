@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.Filter;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.security.web.DefaultSecurityFilterChain;
+import org.springframework.security.web.FilterChainListener;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+
+/**
+ * A {@link FilterChainListener} which records the time spent in each type of
+ * {@link Filter} and in each {@link SecurityFilterChain} in a {@link LatencyHistogram},
+ * along with the number of requests each chain short-circuited. Recording is lock-free,
+ * so it is suitable for use in production.
+ * <p>
+ * Since it implements {@link FilterChainMetricsMXBean}, it can be exposed via JMX. For
+ * example:
+ *
+ * <pre>
+ * FilterChainMetrics metrics = new FilterChainMetrics();
+ * filterChainProxy.setFilterChainListener(metrics);
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+ * 		new ObjectName(&quot;org.springframework.security:type=FilterChainMetrics&quot;));
+ * </pre>
+ *
+ * A Spring {@code MBeanExporter} can be used instead when the instance is a bean.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ * @see FilterChainProxy#setFilterChainListener(FilterChainListener)
+ */
+public class FilterChainMetrics implements FilterChainListener, FilterChainMetricsMXBean {
+	private final ConcurrentMap<Class<?>, LatencyHistogram> filterLatencies = new ConcurrentHashMap<Class<?>, LatencyHistogram>();
+
+	private final ConcurrentMap<SecurityFilterChain, ChainMetrics> chainMetrics = new ConcurrentHashMap<SecurityFilterChain, ChainMetrics>();
+
+	public void beforeFilter(HttpServletRequest request, SecurityFilterChain chain,
+			Filter filter, int position) {
+	}
+
+	public void afterFilter(HttpServletRequest request, SecurityFilterChain chain,
+			Filter filter, int position, long elapsedNanos) {
+		Class<?> filterClass = filter.getClass();
+		LatencyHistogram histogram = filterLatencies.get(filterClass);
+		if (histogram == null) {
+			histogram = new LatencyHistogram();
+			LatencyHistogram existing = filterLatencies.putIfAbsent(filterClass,
+					histogram);
+			if (existing != null) {
+				histogram = existing;
+			}
+		}
+		histogram.record(elapsedNanos);
+	}
+
+	public void afterChain(HttpServletRequest request, SecurityFilterChain chain,
+			boolean shortCircuited, long elapsedNanos) {
+		ChainMetrics metrics = chainMetrics.get(chain);
+		if (metrics == null) {
+			metrics = new ChainMetrics(describe(chain));
+			ChainMetrics existing = chainMetrics.putIfAbsent(chain, metrics);
+			if (existing != null) {
+				metrics = existing;
+			}
+		}
+		metrics.latency.record(elapsedNanos);
+		if (shortCircuited) {
+			metrics.shortCircuited.incrementAndGet();
+		}
+	}
+
+	public Map<String, LatencyStatistics> getFilterLatencies() {
+		Map<String, LatencyStatistics> result = new TreeMap<String, LatencyStatistics>();
+		for (Map.Entry<Class<?>, LatencyHistogram> entry : filterLatencies.entrySet()) {
+			result.put(entry.getKey().getName(), entry.getValue().getStatistics());
+		}
+		return result;
+	}
+
+	public Map<String, LatencyStatistics> getChainLatencies() {
+		Map<String, LatencyStatistics> result = new TreeMap<String, LatencyStatistics>();
+		for (ChainMetrics metrics : chainMetrics.values()) {
+			result.put(metrics.name, metrics.latency.getStatistics());
+		}
+		return result;
+	}
+
+	public Map<String, Long> getShortCircuitCounts() {
+		Map<String, Long> result = new TreeMap<String, Long>();
+		for (ChainMetrics metrics : chainMetrics.values()) {
+			result.put(metrics.name, metrics.shortCircuited.get());
+		}
+		return result;
+	}
+
+	public void reset() {
+		filterLatencies.clear();
+		chainMetrics.clear();
+	}
+
+	/**
+	 * Describes a {@link SecurityFilterChain} by its {@code RequestMatcher} when
+	 * possible, since the {@link Filter}s are already reported separately.
+	 */
+	private static String describe(SecurityFilterChain chain) {
+		if (chain instanceof DefaultSecurityFilterChain) {
+			return String.valueOf(((DefaultSecurityFilterChain) chain)
+					.getRequestMatcher());
+		}
+		return String.valueOf(chain);
+	}
+
+	private static final class ChainMetrics {
+		private final String name;
+
+		private final LatencyHistogram latency = new LatencyHistogram();
+
+		private final AtomicLong shortCircuited = new AtomicLong();
+
+		private ChainMetrics(String name) {
+			this.name = name;
+		}
+	}
+}
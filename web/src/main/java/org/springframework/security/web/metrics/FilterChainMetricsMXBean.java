@@ -0,0 +1,51 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link FilterChainMetrics}. Being an MXBean, it only uses
+ * open types and can be browsed with any JMX console.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public interface FilterChainMetricsMXBean {
+
+	/**
+	 * @return the time spent in each type of {@code Filter}, excluding the time spent in
+	 * the remainder of the chain, keyed by the class name of the {@code Filter}
+	 */
+	Map<String, LatencyStatistics> getFilterLatencies();
+
+	/**
+	 * @return the total time spent in the filters of each {@code SecurityFilterChain},
+	 * keyed by a description of the chain
+	 */
+	Map<String, LatencyStatistics> getChainLatencies();
+
+	/**
+	 * @return the number of requests for which a {@code Filter} did not proceed with the
+	 * chain, keyed by a description of the chain
+	 */
+	Map<String, Long> getShortCircuitCounts();
+
+	/**
+	 * Discards everything recorded so far.
+	 */
+	void reset();
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations in nanoseconds which can be updated concurrently
+ * by any number of threads.
+ * <p>
+ * Durations are counted in log-linear buckets: every power of two is split into eight
+ * buckets, so a percentile is reported with a relative error of at most 12.5%. Recording
+ * a duration is a handful of atomic increments and does not allocate.
+ * <p>
+ * The values reported while durations are being recorded are not an atomic snapshot, but
+ * each of them is accurate at the time it was read.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int BUCKETS = bucketIndex(Long.MAX_VALUE) + 1;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong totalNanos = new AtomicLong();
+
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * Records a duration. Negative durations, which can be observed if the clock is
+	 * adjusted, are recorded as 0.
+	 *
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		buckets.incrementAndGet(bucketIndex(nanos));
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	/**
+	 * @return the number of durations recorded
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return the sum of the durations recorded in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return totalNanos.get();
+	}
+
+	/**
+	 * @return the longest duration recorded in nanoseconds
+	 */
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	/**
+	 * Estimates the duration below which the given percentage of the durations fall.
+	 *
+	 * @param percentile the percentile between 0 and 100 (i.e. 99.9)
+	 * @return the estimated duration in nanoseconds, or 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("percentile must be between 0 and 100. Got "
+					+ percentile);
+		}
+		long total = 0;
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(highestValue(i), getMaxNanos());
+			}
+		}
+		return getMaxNanos();
+	}
+
+	/**
+	 * Creates {@link LatencyStatistics} from the durations recorded so far.
+	 *
+	 * @return the {@link LatencyStatistics}
+	 */
+	public LatencyStatistics getStatistics() {
+		long count = getCount();
+		long mean = count == 0 ? 0 : getTotalNanos() / count;
+		return new LatencyStatistics(count, mean, getValueAtPercentile(50),
+				getValueAtPercentile(90), getValueAtPercentile(99),
+				getValueAtPercentile(99.9), getMaxNanos());
+	}
+
+	/**
+	 * Discards all the durations recorded so far.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		totalNanos.set(0);
+		maxNanos.set(0);
+	}
+
+	private static int bucketIndex(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int subBucket = (int) (nanos >>> shift) & (SUB_BUCKETS - 1);
+		return (shift + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long highestValue(int bucketIndex) {
+		if (bucketIndex < SUB_BUCKETS) {
+			return bucketIndex;
+		}
+		int shift = bucketIndex / SUB_BUCKETS - 1;
+		long subBucket = bucketIndex % SUB_BUCKETS;
+		long lowest = (SUB_BUCKETS + subBucket) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return getStatistics().toString();
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * An immutable summary of a {@link LatencyHistogram}. All durations are in nanoseconds.
+ * The property names allow it to be used as an attribute of an MXBean.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public final class LatencyStatistics {
+	private final long count;
+
+	private final long meanNanos;
+
+	private final long p50Nanos;
+
+	private final long p90Nanos;
+
+	private final long p99Nanos;
+
+	private final long p999Nanos;
+
+	private final long maxNanos;
+
+	@ConstructorProperties({ "count", "meanNanos", "p50Nanos", "p90Nanos", "p99Nanos",
+			"p999Nanos", "maxNanos" })
+	public LatencyStatistics(long count, long meanNanos, long p50Nanos, long p90Nanos,
+			long p99Nanos, long p999Nanos, long maxNanos) {
+		this.count = count;
+		this.meanNanos = meanNanos;
+		this.p50Nanos = p50Nanos;
+		this.p90Nanos = p90Nanos;
+		this.p99Nanos = p99Nanos;
+		this.p999Nanos = p999Nanos;
+		this.maxNanos = maxNanos;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMeanNanos() {
+		return meanNanos;
+	}
+
+	public long getP50Nanos() {
+		return p50Nanos;
+	}
+
+	public long getP90Nanos() {
+		return p90Nanos;
+	}
+
+	public long getP99Nanos() {
+		return p99Nanos;
+	}
+
+	public long getP999Nanos() {
+		return p999Nanos;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyStatistics[count=" + count + ", meanNanos=" + meanNanos
+				+ ", p50Nanos=" + p50Nanos + ", p90Nanos=" + p90Nanos + ", p99Nanos="
+				+ p99Nanos + ", p999Nanos=" + p999Nanos + ", maxNanos=" + maxNanos + "]";
+	}
+}
@@ -26,6 +26,7 @@ import org.springframework.security.authentication.AuthenticationTrustResolver;
 import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.util.Assert;
@@ -165,13 +166,7 @@ public class SecurityContextHolderAwareRequestWrapper extends HttpServletRequest
 			return false;
 		}
 
-		for (GrantedAuthority grantedAuthority : authorities) {
-			if (role.equals(grantedAuthority.getAuthority())) {
-				return true;
-			}
-		}
-
-		return false;
+		return AuthorityUtils.containsAuthority(authorities, role);
 	}
 
 	/**
@@ -159,23 +159,22 @@ public final class AntPathRequestMatcher implements RequestMatcher {
 	}
 
 	private String getRequestPath(HttpServletRequest request) {
-		String url = request.getServletPath();
-
-		if (request.getPathInfo() != null) {
-			url += request.getPathInfo();
-		}
-
-		if (!caseSensitive) {
-			url = url.toLowerCase();
-		}
-
-		return url;
+		RequestPath path = RequestPath.of(request);
+		return caseSensitive ? path.getPath() : path.getLowerCasePath();
 	}
 
 	public String getPattern() {
 		return pattern;
 	}
 
+	/**
+	 * @return the HTTP method this matcher is restricted to, or null if it matches any
+	 * method
+	 */
+	HttpMethod getHttpMethod() {
+		return httpMethod;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (!(obj instanceof AntPathRequestMatcher)) {
@@ -36,7 +36,8 @@ import org.springframework.util.StringUtils;
  */
 public final class IpAddressMatcher implements RequestMatcher {
 	private final int nMaskBits;
-	private final InetAddress requiredAddress;
+	private final byte[] requiredAddress;
+	private final byte[] mask;
 
 	/**
 	 * Takes a specific IP address or a range specified using the IP/Netmask (e.g.
@@ -56,26 +57,43 @@ public final class IpAddressMatcher implements RequestMatcher {
 			nMaskBits = -1;
 		}
 		requiredAddress = parseAddress(ipAddress);
+		mask = createMask(nMaskBits);
 	}
 
 	public boolean matches(HttpServletRequest request) {
-		return matches(request.getRemoteAddr());
+		byte[] remoteAddress = IpAddressParser.getRemoteAddress(request);
+		if (remoteAddress == null) {
+			return matches(request.getRemoteAddr());
+		}
+		return matches(remoteAddress);
 	}
 
 	public boolean matches(String address) {
-		InetAddress remoteAddress = parseAddress(address);
+		return matches(parseAddress(address));
+	}
 
-		if (!requiredAddress.getClass().equals(remoteAddress.getClass())) {
+	private boolean matches(byte[] remAddr) {
+		if (remAddr.length != requiredAddress.length) {
 			return false;
 		}
 
 		if (nMaskBits < 0) {
-			return remoteAddress.equals(requiredAddress);
+			return Arrays.equals(remAddr, requiredAddress);
 		}
 
-		byte[] remAddr = remoteAddress.getAddress();
-		byte[] reqAddr = requiredAddress.getAddress();
+		for (int i = 0; i < mask.length; i++) {
+			if ((remAddr[i] & mask[i]) != (requiredAddress[i] & mask[i])) {
+				return false;
+			}
+		}
 
+		return true;
+	}
+
+	private static byte[] createMask(int nMaskBits) {
+		if (nMaskBits < 0) {
+			return null;
+		}
 		int oddBits = nMaskBits % 8;
 		int nMaskBytes = nMaskBits / 8 + (oddBits == 0 ? 0 : 1);
 		byte[] mask = new byte[nMaskBytes];
@@ -87,21 +105,20 @@ public final class IpAddressMatcher implements RequestMatcher {
 			finalByte <<= 8 - oddBits;
 			mask[mask.length - 1] = (byte) finalByte;
 		}
-
-		// System.out.println("Mask is " + new sun.misc.HexDumpEncoder().encode(mask));
-
-		for (int i = 0; i < mask.length; i++) {
-			if ((remAddr[i] & mask[i]) != (reqAddr[i] & mask[i])) {
-				return false;
-			}
-		}
-
-		return true;
+		return mask;
 	}
 
-	private InetAddress parseAddress(String address) {
+	/**
+	 * Parses an address literal without name resolution, only falling back to
+	 * {@link InetAddress#getByName(String)} for host names.
+	 */
+	private byte[] parseAddress(String address) {
+		byte[] result = IpAddressParser.parse(address);
+		if (result != null) {
+			return result;
+		}
 		try {
-			return InetAddress.getByName(address);
+			return InetAddress.getByName(address).getAddress();
 		}
 		catch (UnknownHostException e) {
 			throw new IllegalArgumentException("Failed to parse address" + address, e);
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.util.matcher;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Parses IPv4 and IPv6 address literals without performing any name resolution, unlike
+ * {@link java.net.InetAddress#getByName(String)}.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+final class IpAddressParser {
+	private static final String REMOTE_ADDRESS_ATTR = IpAddressParser.class.getName()
+			.concat(".REMOTE_ADDRESS");
+
+	private IpAddressParser() {
+	}
+
+	/**
+	 * Gets the parsed {@link HttpServletRequest#getRemoteAddr()}. The result is cached
+	 * in a request attribute, so the address is only parsed once per request.
+	 *
+	 * @param request the request
+	 * @return the 4 or 16 bytes of the remote address, or null if it is not an address
+	 * literal
+	 */
+	static byte[] getRemoteAddress(HttpServletRequest request) {
+		String remoteAddr = request.getRemoteAddr();
+		if (remoteAddr == null) {
+			return null;
+		}
+		Object cached = request.getAttribute(REMOTE_ADDRESS_ATTR);
+		if (cached instanceof RemoteAddress
+				&& remoteAddr.equals(((RemoteAddress) cached).remoteAddr)) {
+			return ((RemoteAddress) cached).address;
+		}
+		byte[] address = parse(remoteAddr);
+		request.setAttribute(REMOTE_ADDRESS_ATTR, new RemoteAddress(remoteAddr, address));
+		return address;
+	}
+
+	/**
+	 * Parses an IPv4 or IPv6 address literal. IPv6 literals may be enclosed in brackets
+	 * and have a zone index, which is ignored. As with {@link java.net.InetAddress}, an
+	 * IPv4-mapped IPv6 address is returned as an IPv4 address.
+	 *
+	 * @param address the address literal
+	 * @return the 4 or 16 bytes of the address, or null if it is not an address literal
+	 */
+	static byte[] parse(String address) {
+		if (address == null || address.length() == 0) {
+			return null;
+		}
+		if (address.indexOf(':') < 0) {
+			byte[] result = new byte[4];
+			return parseIpv4(address, result, 0) ? result : null;
+		}
+		if (address.charAt(0) == '[') {
+			if (address.charAt(address.length() - 1) != ']') {
+				return null;
+			}
+			address = address.substring(1, address.length() - 1);
+		}
+		int zone = address.indexOf('%');
+		if (zone >= 0) {
+			address = address.substring(0, zone);
+		}
+		return parseIpv6(address);
+	}
+
+	private static byte[] parseIpv6(String address) {
+		byte[] result = new byte[16];
+		int doubleColon = address.indexOf("::");
+		if (doubleColon < 0) {
+			if (parseGroups(address, result, 0) != 16) {
+				return null;
+			}
+		}
+		else {
+			if (address.indexOf("::", doubleColon + 1) >= 0) {
+				return null;
+			}
+			byte[] tail = new byte[16];
+			int headLength = parseGroups(address.substring(0, doubleColon), result, 0);
+			int tailLength = parseGroups(address.substring(doubleColon + 2), tail, 0);
+			if (headLength < 0 || tailLength < 0 || headLength + tailLength > 14) {
+				return null;
+			}
+			System.arraycopy(tail, 0, result, 16 - tailLength, tailLength);
+		}
+		for (int i = 0; i < 10; i++) {
+			if (result[i] != 0) {
+				return result;
+			}
+		}
+		if (result[10] != (byte) 0xff || result[11] != (byte) 0xff) {
+			return result;
+		}
+		byte[] ipv4 = new byte[4];
+		System.arraycopy(result, 12, ipv4, 0, 4);
+		return ipv4;
+	}
+
+	/**
+	 * Parses colon separated groups of hexadecimal digits, where the last group may be
+	 * an IPv4 address.
+	 *
+	 * @return the number of bytes written, or -1 if the groups are invalid
+	 */
+	private static int parseGroups(String groups, byte[] dst, int offset) {
+		if (groups.length() == 0) {
+			return 0;
+		}
+		int position = offset;
+		int start = 0;
+		while (true) {
+			int end = groups.indexOf(':', start);
+			if (end < 0) {
+				end = groups.length();
+				if (groups.indexOf('.', start) >= 0) {
+					if (position + 4 > dst.length
+							|| !parseIpv4(groups.substring(start), dst, position)) {
+						return -1;
+					}
+					return position + 4 - offset;
+				}
+			}
+			if (end - start < 1 || end - start > 4 || position + 2 > dst.length) {
+				return -1;
+			}
+			int value = 0;
+			for (int i = start; i < end; i++) {
+				int digit = hexDigit(groups.charAt(i));
+				if (digit < 0) {
+					return -1;
+				}
+				value = (value << 4) | digit;
+			}
+			dst[position++] = (byte) (value >> 8);
+			dst[position++] = (byte) value;
+			if (end == groups.length()) {
+				return position - offset;
+			}
+			start = end + 1;
+		}
+	}
+
+	private static boolean parseIpv4(String address, byte[] dst, int offset) {
+		int octets = 0;
+		int value = 0;
+		int digits = 0;
+		for (int i = 0; i < address.length(); i++) {
+			char c = address.charAt(i);
+			if (c == '.') {
+				if (digits == 0 || octets == 3) {
+					return false;
+				}
+				dst[offset + octets++] = (byte) value;
+				value = 0;
+				digits = 0;
+			}
+			else if (c >= '0' && c <= '9' && digits < 3) {
+				value = value * 10 + (c - '0');
+				digits++;
+				if (value > 255) {
+					return false;
+				}
+			}
+			else {
+				return false;
+			}
+		}
+		if (digits == 0 || octets != 3) {
+			return false;
+		}
+		dst[offset + octets] = (byte) value;
+		return true;
+	}
+
+	private static int hexDigit(char c) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		}
+		if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		}
+		if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		return -1;
+	}
+
+	private static final class RemoteAddress {
+		private final String remoteAddr;
+		private final byte[] address;
+
+		private RemoteAddress(String remoteAddr, byte[] address) {
+			this.remoteAddr = remoteAddr;
+			this.address = address;
+		}
+	}
+}
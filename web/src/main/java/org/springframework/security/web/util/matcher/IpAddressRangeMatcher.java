@@ -0,0 +1,246 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.util.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.util.Assert;
+
+/**
+ * Matches a request whose remote address is in any of a set of IP addresses or ranges,
+ * such as a large allow-list of subnets.
+ * <p>
+ * Unlike an {@link OrRequestMatcher} of {@link IpAddressMatcher}s, the ranges are
+ * compiled once into sorted, non-overlapping intervals, so a request is matched with a
+ * binary search regardless of the number of ranges. Addresses must be literals: no name
+ * resolution is performed, and the remote address is only parsed once per request.
+ * <p>
+ * Both IPv4 and IPv6 addresses are supported. As with {@link IpAddressMatcher}, an IPv4
+ * range never matches an IPv6 address, except for an IPv4-mapped address (e.g.
+ * ::ffff:192.168.1.1) which is treated as the IPv4 address.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public final class IpAddressRangeMatcher implements RequestMatcher {
+	private final Ranges ipv4Ranges;
+
+	private final Ranges ipv6Ranges;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param ipAddresses the addresses (e.g. 192.168.1.1) or ranges using the
+	 * IP/Netmask (e.g. 192.168.1.0/24 or 2001:db8::/32) from which the request must come
+	 * @throws IllegalArgumentException if an address or range is invalid
+	 */
+	public IpAddressRangeMatcher(String... ipAddresses) {
+		this(Arrays.asList(ipAddresses));
+	}
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param ipAddresses the addresses (e.g. 192.168.1.1) or ranges using the
+	 * IP/Netmask (e.g. 192.168.1.0/24 or 2001:db8::/32) from which the request must come
+	 * @throws IllegalArgumentException if an address or range is invalid
+	 */
+	public IpAddressRangeMatcher(Collection<String> ipAddresses) {
+		Assert.notNull(ipAddresses, "ipAddresses cannot be null");
+		List<long[]> ipv4 = new ArrayList<long[]>();
+		List<long[]> ipv6 = new ArrayList<long[]>();
+		for (String ipAddress : ipAddresses) {
+			Assert.hasText(ipAddress, "ipAddresses cannot contain empty values");
+			String address = ipAddress.trim();
+			Integer nMaskBits = null;
+			int slash = address.indexOf('/');
+			if (slash > 0) {
+				try {
+					nMaskBits = Integer.parseInt(address.substring(slash + 1));
+				}
+				catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Invalid netmask in " + ipAddress,
+							e);
+				}
+				address = address.substring(0, slash);
+			}
+			byte[] bytes = IpAddressParser.parse(address);
+			if (bytes == null) {
+				throw new IllegalArgumentException("Failed to parse address " + ipAddress);
+			}
+			int addressBits = bytes.length * 8;
+			if (nMaskBits == null) {
+				nMaskBits = addressBits;
+			}
+			else if (nMaskBits < 0 || nMaskBits > addressBits) {
+				throw new IllegalArgumentException("Invalid netmask in " + ipAddress);
+			}
+			(bytes.length == 4 ? ipv4 : ipv6).add(toRange(bytes, nMaskBits));
+		}
+		this.ipv4Ranges = new Ranges(ipv4, 1);
+		this.ipv6Ranges = new Ranges(ipv6, 2);
+	}
+
+	public boolean matches(HttpServletRequest request) {
+		return matches(IpAddressParser.getRemoteAddress(request));
+	}
+
+	/**
+	 * Determines if an address literal is in any of the ranges.
+	 *
+	 * @param address the address literal
+	 * @return true if the address is in a range, false if it is not or it is not an
+	 * address literal
+	 */
+	public boolean matches(String address) {
+		return matches(IpAddressParser.parse(address));
+	}
+
+	private boolean matches(byte[] address) {
+		if (address == null) {
+			return false;
+		}
+		if (address.length == 4) {
+			return ipv4Ranges.contains(toWords(address));
+		}
+		return ipv6Ranges.contains(toWords(address));
+	}
+
+	@Override
+	public String toString() {
+		return "IpAddressRangeMatcher [ipv4Ranges=" + ipv4Ranges.size()
+				+ ", ipv6Ranges=" + ipv6Ranges.size() + "]";
+	}
+
+	/**
+	 * Converts an address to the words of the first and last address of the range,
+	 * stored one after the other.
+	 */
+	private static long[] toRange(byte[] address, int nMaskBits) {
+		byte[] first = new byte[address.length];
+		byte[] last = new byte[address.length];
+		for (int i = 0; i < address.length; i++) {
+			int bits = Math.max(0, Math.min(8, nMaskBits - i * 8));
+			int mask = (0xFF << (8 - bits)) & 0xFF;
+			first[i] = (byte) (address[i] & mask);
+			last[i] = (byte) (first[i] | ~mask);
+		}
+		long[] firstWords = toWords(first);
+		long[] range = new long[firstWords.length * 2];
+		System.arraycopy(firstWords, 0, range, 0, firstWords.length);
+		System.arraycopy(toWords(last), 0, range, firstWords.length, firstWords.length);
+		return range;
+	}
+
+	/**
+	 * Converts the 4 bytes of an IPv4 address to one word or the 16 bytes of an IPv6
+	 * address to two words.
+	 */
+	private static long[] toWords(byte[] address) {
+		long[] words = new long[(address.length + 7) / 8];
+		for (int i = 0; i < address.length; i++) {
+			words[i / 8] = (words[i / 8] << 8) | (address[i] & 0xFF);
+		}
+		return words;
+	}
+
+	/**
+	 * Compares addresses of the same number of words as unsigned numbers.
+	 */
+	private static int compare(long[] a, int aOffset, long[] b, int bOffset, int words) {
+		for (int i = 0; i < words; i++) {
+			long x = a[aOffset + i] + Long.MIN_VALUE;
+			long y = b[bOffset + i] + Long.MIN_VALUE;
+			if (x != y) {
+				return x < y ? -1 : 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Sorted, non-overlapping ranges of addresses of the same family.
+	 */
+	private static final class Ranges {
+		private final int words;
+
+		/** The first address of each range */
+		private final long[] firsts;
+
+		/** The last address of each range */
+		private final long[] lasts;
+
+		private Ranges(List<long[]> ranges, final int words) {
+			this.words = words;
+			Collections.sort(ranges, new Comparator<long[]>() {
+				public int compare(long[] a, long[] b) {
+					return IpAddressRangeMatcher.compare(a, 0, b, 0, words);
+				}
+			});
+			List<long[]> merged = new ArrayList<long[]>(ranges.size());
+			long[] current = null;
+			for (long[] range : ranges) {
+				if (current != null
+						&& IpAddressRangeMatcher.compare(range, 0, current, words, words) <= 0) {
+					if (IpAddressRangeMatcher.compare(range, words, current, words, words) > 0) {
+						System.arraycopy(range, words, current, words, words);
+					}
+				}
+				else {
+					current = range.clone();
+					merged.add(current);
+				}
+			}
+			this.firsts = new long[merged.size() * words];
+			this.lasts = new long[merged.size() * words];
+			for (int i = 0; i < merged.size(); i++) {
+				System.arraycopy(merged.get(i), 0, firsts, i * words, words);
+				System.arraycopy(merged.get(i), words, lasts, i * words, words);
+			}
+		}
+
+		private boolean contains(long[] address) {
+			// find the last range whose first address is not after the address
+			int low = 0;
+			int high = size() - 1;
+			int candidate = -1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (IpAddressRangeMatcher.compare(firsts, mid * words, address, 0, words) <= 0) {
+					candidate = mid;
+					low = mid + 1;
+				}
+				else {
+					high = mid - 1;
+				}
+			}
+			return candidate >= 0
+					&& IpAddressRangeMatcher.compare(address, 0, lasts, candidate * words,
+							words) <= 0;
+		}
+
+		private int size() {
+			return firsts.length / words;
+		}
+	}
+}
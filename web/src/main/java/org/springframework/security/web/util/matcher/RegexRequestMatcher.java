@@ -88,21 +88,11 @@ public final class RegexRequestMatcher implements RequestMatcher {
 			return false;
 		}
 
-		String url = request.getServletPath();
-		String pathInfo = request.getPathInfo();
+		String url = RequestPath.of(request).getPath();
 		String query = request.getQueryString();
 
-		if (pathInfo != null || query != null) {
-			StringBuilder sb = new StringBuilder(url);
-
-			if (pathInfo != null) {
-				sb.append(pathInfo);
-			}
-
-			if (query != null) {
-				sb.append('?').append(query);
-			}
-			url = sb.toString();
+		if (query != null) {
+			url = url + '?' + query;
 		}
 
 		if (logger.isDebugEnabled()) {
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.util.matcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * An ordered collection of {@link RequestMatcher} to value mappings which is able to
+ * find the value of the first matching entry without evaluating every
+ * {@link RequestMatcher}.
+ * <p>
+ * When the index is created, the literal leading path segments of each
+ * {@link AntPathRequestMatcher} pattern (the segments before the first wildcard or path
+ * variable) are compiled into a trie. A lookup walks the trie using the segments of the
+ * request path and only evaluates the entries found along the way, so the cost is
+ * proportional to the depth of the request path rather than the number of entries. The
+ * entries are further bucketed by the HTTP method of the {@link AntPathRequestMatcher}
+ * so that rules for other methods are not considered. Any other type of
+ * {@link RequestMatcher} is opaque to the index and is evaluated for every request.
+ * <p>
+ * Candidates are always evaluated in their original order, so the result is identical
+ * to iterating over the entries and returning the value of the first
+ * {@link RequestMatcher} which matches.
+ *
+ * @param <T> the type of the values
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public final class RequestMatcherIndex<T> {
+	private static final int UNKNOWN_METHOD = HttpMethod.values().length;
+
+	private static final int ANY_METHOD = UNKNOWN_METHOD + 1;
+
+	private static final int BUCKETS = ANY_METHOD + 1;
+
+	private static final int[][] NO_ENTRIES = new int[BUCKETS][0];
+
+	private final RequestMatcher[] matchers;
+
+	private final Object[] values;
+
+	private final Node root = new Node();
+
+	private int maxDepth;
+
+	/**
+	 * Creates a new instance
+	 *
+	 * @param entries the {@link RequestMatcher} to value mappings in the order they
+	 * should be consulted. Typically a {@link java.util.LinkedHashMap}.
+	 */
+	public RequestMatcherIndex(Map<? extends RequestMatcher, ? extends T> entries) {
+		Assert.notNull(entries, "entries cannot be null");
+		this.matchers = new RequestMatcher[entries.size()];
+		this.values = new Object[entries.size()];
+		HttpMethod[] methods = new HttpMethod[entries.size()];
+		Map<Node, List<Integer>> nodeEntries = new HashMap<Node, List<Integer>>();
+		int i = 0;
+		for (Map.Entry<? extends RequestMatcher, ? extends T> entry : entries.entrySet()) {
+			RequestMatcher matcher = entry.getKey();
+			Assert.notNull(matcher, "RequestMatcher cannot be null");
+			this.matchers[i] = matcher;
+			this.values[i] = entry.getValue();
+			if (matcher instanceof AntPathRequestMatcher) {
+				methods[i] = ((AntPathRequestMatcher) matcher).getHttpMethod();
+			}
+			Node node = nodeFor(matcher);
+			List<Integer> indexes = nodeEntries.get(node);
+			if (indexes == null) {
+				indexes = new ArrayList<Integer>();
+				nodeEntries.put(node, indexes);
+			}
+			indexes.add(i);
+			i++;
+		}
+		for (Map.Entry<Node, List<Integer>> entry : nodeEntries.entrySet()) {
+			entry.getKey().entries = createBuckets(entry.getValue(), methods);
+		}
+	}
+
+	/**
+	 * Splits the entries of a node into one bucket per {@link HttpMethod}, an
+	 * {@link #UNKNOWN_METHOD} bucket for requests with a method that is not a valid
+	 * {@link HttpMethod} and an {@link #ANY_METHOD} bucket for requests without a method.
+	 * This mirrors {@link AntPathRequestMatcher#matches(HttpServletRequest)}.
+	 */
+	private static int[][] createBuckets(List<Integer> indexes, HttpMethod[] methods) {
+		int[][] buckets = new int[BUCKETS][];
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			List<Integer> bucketIndexes = new ArrayList<Integer>(indexes.size());
+			for (Integer index : indexes) {
+				HttpMethod method = methods[index];
+				if (method == null || bucket == ANY_METHOD
+						|| bucket == method.ordinal()) {
+					bucketIndexes.add(index);
+				}
+			}
+			int[] sorted = new int[bucketIndexes.size()];
+			for (int j = 0; j < sorted.length; j++) {
+				sorted[j] = bucketIndexes.get(j);
+			}
+			buckets[bucket] = sorted;
+		}
+		return buckets;
+	}
+
+	/**
+	 * Finds the value of the first entry whose {@link RequestMatcher} matches the
+	 * supplied request.
+	 *
+	 * @param request the request to match
+	 * @return the value mapped to the first matching {@link RequestMatcher}, or null if
+	 * no entry matches
+	 */
+	@SuppressWarnings("unchecked")
+	public T getFirstMatch(HttpServletRequest request) {
+		int index = indexOfFirstMatch(request);
+		return index < 0 ? null : (T) values[index];
+	}
+
+	/**
+	 * Finds the position of the first entry whose {@link RequestMatcher} matches the
+	 * supplied request.
+	 *
+	 * @param request the request to match
+	 * @return the position of the first matching entry, or -1 if no entry matches
+	 */
+	public int indexOfFirstMatch(HttpServletRequest request) {
+		int bucket = getBucket(request);
+		int[][] candidates = new int[maxDepth + 1][];
+		int count = 0;
+		Node node = root;
+		if (node.entries[bucket].length > 0) {
+			candidates[count++] = node.entries[bucket];
+		}
+
+		String path = getRequestPath(request);
+		int length = path.length();
+		int start = 0;
+		while (node.children != null && start < length) {
+			int end = path.indexOf('/', start);
+			if (end == -1) {
+				end = length;
+			}
+			String segment = path.substring(start, end).trim();
+			start = end + 1;
+			if (segment.length() == 0) {
+				continue;
+			}
+			node = node.children.get(segment);
+			if (node == null) {
+				break;
+			}
+			if (node.entries[bucket].length > 0) {
+				candidates[count++] = node.entries[bucket];
+			}
+		}
+
+		if (count == 0) {
+			return -1;
+		}
+		if (count == 1) {
+			for (int index : candidates[0]) {
+				if (matchers[index].matches(request)) {
+					return index;
+				}
+			}
+			return -1;
+		}
+
+		int[] positions = new int[count];
+		while (true) {
+			int next = -1;
+			int nextIndex = Integer.MAX_VALUE;
+			for (int i = 0; i < count; i++) {
+				if (positions[i] < candidates[i].length
+						&& candidates[i][positions[i]] < nextIndex) {
+					next = i;
+					nextIndex = candidates[i][positions[i]];
+				}
+			}
+			if (next == -1) {
+				return -1;
+			}
+			positions[next]++;
+			if (matchers[nextIndex].matches(request)) {
+				return nextIndex;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of entries in the index.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return matchers.length;
+	}
+
+	private Node nodeFor(RequestMatcher matcher) {
+		if (!(matcher instanceof AntPathRequestMatcher)) {
+			return root;
+		}
+		String pattern = ((AntPathRequestMatcher) matcher).getPattern().toLowerCase();
+		Node node = root;
+		int depth = 0;
+		for (String segment : pattern.split("/")) {
+			segment = segment.trim();
+			if (segment.length() == 0) {
+				continue;
+			}
+			if (isWildcard(segment)) {
+				break;
+			}
+			if (node.children == null) {
+				node.children = new HashMap<String, Node>();
+			}
+			Node child = node.children.get(segment);
+			if (child == null) {
+				child = new Node();
+				node.children.put(segment, child);
+			}
+			node = child;
+			depth++;
+		}
+		maxDepth = Math.max(maxDepth, depth);
+		return node;
+	}
+
+	private static boolean isWildcard(String segment) {
+		return segment.indexOf('*') != -1 || segment.indexOf('?') != -1
+				|| segment.indexOf('{') != -1 || segment.indexOf('}') != -1;
+	}
+
+	private static int getBucket(HttpServletRequest request) {
+		String method = request.getMethod();
+		if (!StringUtils.hasText(method)) {
+			return ANY_METHOD;
+		}
+		try {
+			return HttpMethod.valueOf(method).ordinal();
+		}
+		catch (IllegalArgumentException e) {
+			return UNKNOWN_METHOD;
+		}
+	}
+
+	/**
+	 * The path is lower cased regardless of whether the {@link AntPathRequestMatcher} is
+	 * case sensitive. The trie is only used to select candidates, which are then matched
+	 * against the request, so a case insensitive walk can only yield more candidates.
+	 */
+	private static String getRequestPath(HttpServletRequest request) {
+		String path = RequestPath.of(request).getLowerCasePath();
+		return path == null ? "" : path;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("RequestMatcherIndex[");
+		for (int i = 0; i < matchers.length; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(matchers[i]).append("=").append(values[i]);
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+
+	private static final class Node {
+		private Map<String, Node> children;
+
+		private int[][] entries = NO_ENTRIES;
+	}
+}
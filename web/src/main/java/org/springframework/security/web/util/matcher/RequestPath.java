@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.util.matcher;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.util.ObjectUtils;
+
+/**
+ * The path ({@code servletPath + pathInfo}) of an {@link HttpServletRequest} which
+ * {@link RequestMatcher} implementations match against.
+ * <p>
+ * A single request is typically matched by many {@link RequestMatcher}s (the
+ * {@code FilterChainProxy}, the {@code FilterSecurityInterceptor}, CSRF protection,
+ * logout, etc). Rather than each of them concatenating and lower casing the path, the
+ * {@code RequestPath} is stored as a request attribute the first time it is obtained and
+ * reused for as long as the {@code servletPath} and {@code pathInfo} of the request are
+ * unchanged. If either changes, for example when the firewall is reset or the request is
+ * forwarded, a new {@code RequestPath} is created.
+ *
+ * @author Rob Winch
+ * @since 4.1
+ */
+public final class RequestPath {
+	private static final String ATTRIBUTE = RequestPath.class.getName();
+
+	private final String servletPath;
+
+	private final String pathInfo;
+
+	private final String path;
+
+	private String lowerCasePath;
+
+	private RequestPath(String servletPath, String pathInfo) {
+		this.servletPath = servletPath;
+		this.pathInfo = pathInfo;
+		this.path = pathInfo == null ? servletPath : servletPath + pathInfo;
+	}
+
+	/**
+	 * Obtains the {@code RequestPath} for the current {@code servletPath} and
+	 * {@code pathInfo} of the request, creating and caching it if necessary.
+	 *
+	 * @param request the request to obtain the path for
+	 * @return the {@code RequestPath}
+	 */
+	public static RequestPath of(HttpServletRequest request) {
+		String servletPath = request.getServletPath();
+		String pathInfo = request.getPathInfo();
+		Object cached = request.getAttribute(ATTRIBUTE);
+		if (cached instanceof RequestPath) {
+			RequestPath requestPath = (RequestPath) cached;
+			if (ObjectUtils.nullSafeEquals(servletPath, requestPath.servletPath)
+					&& ObjectUtils.nullSafeEquals(pathInfo, requestPath.pathInfo)) {
+				return requestPath;
+			}
+		}
+		RequestPath requestPath = new RequestPath(servletPath, pathInfo);
+		request.setAttribute(ATTRIBUTE, requestPath);
+		return requestPath;
+	}
+
+	/**
+	 * Removes the cached {@code RequestPath} from the request, if present.
+	 *
+	 * @param request the request to remove the path from
+	 */
+	public static void clear(HttpServletRequest request) {
+		request.removeAttribute(ATTRIBUTE);
+	}
+
+	/**
+	 * @return the {@code servletPath + pathInfo} of the request
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * @return the {@code servletPath + pathInfo} of the request in lower case
+	 */
+	public String getLowerCasePath() {
+		if (lowerCasePath == null && path != null) {
+			lowerCasePath = path.toLowerCase();
+		}
+		return lowerCasePath;
+	}
+
+	@Override
+	public String toString() {
+		return path;
+	}
+}
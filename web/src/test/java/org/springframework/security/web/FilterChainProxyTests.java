@@ -29,6 +29,7 @@ import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.firewall.FirewalledRequest;
 import org.springframework.security.web.firewall.HttpFirewall;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import javax.servlet.Filter;
@@ -254,4 +255,109 @@ public class FilterChainProxyTests {
 				any(HttpServletResponse.class));
 		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
 	}
+
+	@Test
+	public void getFiltersWhenIndexedThenFirstMatchingChain() throws Exception {
+		Filter other = mock(Filter.class);
+		Filter api = mock(Filter.class);
+		Filter anyRequest = mock(Filter.class);
+		List<SecurityFilterChain> chains = new ArrayList<SecurityFilterChain>();
+		chains.add(new DefaultSecurityFilterChain(new AntPathRequestMatcher(
+				"/resources/**")));
+		chains.add(new DefaultSecurityFilterChain(matcher, other));
+		chains.add(new DefaultSecurityFilterChain(new AntPathRequestMatcher("/api/**"),
+				api));
+		chains.add(new DefaultSecurityFilterChain(new AntPathRequestMatcher("/**"), anyRequest));
+		fcp = new FilterChainProxy(chains);
+		fcp.setIndexFilterChains(true);
+		fcp.afterPropertiesSet();
+		when(matcher.matches(any(HttpServletRequest.class))).thenReturn(false);
+
+		assertThat(fcp.getFilters("/resources/a.css")).isEmpty();
+		assertThat(fcp.getFilters("/api/users")).containsExactly(api);
+		assertThat(fcp.getFilters("/other")).containsExactly(anyRequest);
+
+		when(matcher.matches(any(HttpServletRequest.class))).thenReturn(true);
+		assertThat(fcp.getFilters("/resources/a.css")).isEmpty();
+		assertThat(fcp.getFilters("/api/users")).containsExactly(other);
+	}
+
+	@Test
+	public void doFilterWhenIndexedAndNoMatchThenOriginalChainInvoked()
+			throws Exception {
+		fcp = new FilterChainProxy(new DefaultSecurityFilterChain(
+				new AntPathRequestMatcher("/api/**"), filter));
+		fcp.setIndexFilterChains(true);
+		fcp.afterPropertiesSet();
+
+		fcp.doFilter(request, response, chain);
+
+		verifyZeroInteractions(filter);
+		verify(chain).doFilter(any(HttpServletRequest.class),
+				any(HttpServletResponse.class));
+	}
+
+	@Test
+	public void doFilterWhenListenerThenNotifiedForEachFilter() throws Exception {
+		when(matcher.matches(any(HttpServletRequest.class))).thenReturn(true);
+		FilterChainListener listener = mock(FilterChainListener.class);
+		fcp.setFilterChainListener(listener);
+		SecurityFilterChain securityFilterChain = fcp.getFilterChains().get(0);
+
+		fcp.doFilter(request, response, chain);
+
+		verify(listener).beforeFilter(any(HttpServletRequest.class),
+				eq(securityFilterChain), eq(filter), eq(0));
+		verify(listener).afterFilter(any(HttpServletRequest.class),
+				eq(securityFilterChain), eq(filter), eq(0), anyLong());
+		verify(listener).afterChain(any(HttpServletRequest.class),
+				eq(securityFilterChain), eq(false), anyLong());
+		verify(chain).doFilter(any(HttpServletRequest.class),
+				any(HttpServletResponse.class));
+	}
+
+	@Test
+	public void doFilterWhenListenerAndFilterDoesNotProceedThenShortCircuited()
+			throws Exception {
+		Filter first = mock(Filter.class);
+		fcp = new FilterChainProxy(new DefaultSecurityFilterChain(matcher, first,
+				filter));
+		when(matcher.matches(any(HttpServletRequest.class))).thenReturn(true);
+		FilterChainListener listener = mock(FilterChainListener.class);
+		fcp.setFilterChainListener(listener);
+		SecurityFilterChain securityFilterChain = fcp.getFilterChains().get(0);
+
+		fcp.doFilter(request, response, chain);
+
+		verify(listener).afterFilter(any(HttpServletRequest.class),
+				eq(securityFilterChain), eq(first), eq(0), anyLong());
+		verify(listener, never()).beforeFilter(any(HttpServletRequest.class),
+				any(SecurityFilterChain.class), eq(filter), anyInt());
+		verify(listener).afterChain(any(HttpServletRequest.class),
+				eq(securityFilterChain), eq(true), anyLong());
+		verifyZeroInteractions(chain);
+	}
+
+	@Test
+	public void doFilterWhenListenerAndFilterThrowsThenNotified() throws Exception {
+		when(matcher.matches(any(HttpServletRequest.class))).thenReturn(true);
+		FilterChainListener listener = mock(FilterChainListener.class);
+		fcp.setFilterChainListener(listener);
+		ServletException failure = new ServletException("oops");
+		doThrow(failure).when(chain).doFilter(any(HttpServletRequest.class),
+				any(HttpServletResponse.class));
+
+		try {
+			fcp.doFilter(request, response, chain);
+			fail("Expected Exception");
+		}
+		catch (ServletException expected) {
+			assertThat(expected).isSameAs(failure);
+		}
+
+		verify(listener).afterFilter(any(HttpServletRequest.class),
+				any(SecurityFilterChain.class), eq(filter), eq(0), anyLong());
+		verify(listener).afterChain(any(HttpServletRequest.class),
+				any(SecurityFilterChain.class), eq(false), anyLong());
+	}
 }
@@ -31,11 +31,15 @@ import org.springframework.context.support.StaticApplicationContext;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.access.SecurityConfig;
 import org.springframework.security.authentication.AuthenticationTrustResolver;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.FilterInvocation;
+import org.springframework.security.web.util.matcher.IpAddressRangeMatcher;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DefaultWebSecurityExpressionHandlerTests {
@@ -78,6 +82,31 @@ public class DefaultWebSecurityExpressionHandlerTests {
 				Boolean.class)).isTrue();
 	}
 
+	@Test
+	public void hasIpAddressInResolvesAppContextBeans() {
+		StaticApplicationContext appContext = new StaticApplicationContext();
+		RootBeanDefinition bean = new RootBeanDefinition(IpAddressRangeMatcher.class);
+		bean.getConstructorArgumentValues().addGenericArgumentValue(
+				new String[] { "192.168.1.0/24" });
+		appContext.registerBeanDefinition("partners", bean);
+		handler.setApplicationContext(appContext);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRemoteAddr("192.168.1.104");
+
+		EvaluationContext ctx = handler.createEvaluationContext(
+				mock(Authentication.class), new FilterInvocation(request,
+						new MockHttpServletResponse(), new MockFilterChain()));
+		ExpressionParser parser = handler.getExpressionParser();
+		assertThat(parser.parseExpression("hasIpAddressIn('partners')").getValue(ctx,
+				Boolean.class)).isTrue();
+		assertThat(parser.parseExpression("hasIpAddressIn(@partners)").getValue(ctx,
+				Boolean.class)).isTrue();
+
+		request.setRemoteAddr("192.168.2.104");
+		assertThat(parser.parseExpression("hasIpAddressIn('partners')").getValue(ctx,
+				Boolean.class)).isFalse();
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void setTrustResolverNull() {
 		handler.setTrustResolver(null);
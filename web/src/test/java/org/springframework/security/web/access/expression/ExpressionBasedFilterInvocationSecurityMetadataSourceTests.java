@@ -21,6 +21,7 @@ import org.junit.Test;
 import org.springframework.security.access.ConfigAttribute;
 import org.springframework.security.access.SecurityConfig;
 import org.springframework.security.web.FilterInvocation;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.web.util.matcher.AnyRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 
@@ -50,6 +51,24 @@ public class ExpressionBasedFilterInvocationSecurityMetadataSourceTests {
 		assertThat(attribute.toString()).isEqualTo(expression);
 	}
 
+	@Test
+	public void expectedAttributeIsReturnedWhenIndexed() {
+		LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestMap = new LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>>();
+		requestMap.put(new AntPathRequestMatcher("/admin/**"),
+				SecurityConfig.createList("hasRole('ADMIN')"));
+		requestMap.put(AnyRequestMatcher.INSTANCE,
+				SecurityConfig.createList("authenticated"));
+		ExpressionBasedFilterInvocationSecurityMetadataSource mds = new ExpressionBasedFilterInvocationSecurityMetadataSource(
+				requestMap, new DefaultWebSecurityExpressionHandler(), true);
+
+		Collection<ConfigAttribute> attrs = mds.getAttributes(new FilterInvocation(
+				"/admin/users", "GET"));
+		assertThat(attrs).hasSize(1);
+		assertThat(attrs.toArray()[0].toString()).isEqualTo("hasRole('ADMIN')");
+		attrs = mds.getAttributes(new FilterInvocation("/other", "GET"));
+		assertThat(attrs.toArray()[0].toString()).isEqualTo("authenticated");
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void invalidExpressionIsRejected() throws Exception {
 		LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestMap = new LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>>();
@@ -18,9 +18,11 @@ package org.springframework.security.web.access.expression;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletRequest;
@@ -32,8 +34,11 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.ConfigAttribute;
 import org.springframework.security.access.SecurityConfig;
+import org.springframework.security.access.expression.IntrinsicSecurityExpressionParser;
 import org.springframework.security.access.expression.SecurityExpressionHandler;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -100,6 +105,24 @@ public class WebExpressionVoterTests {
 				AccessDecisionVoter.ACCESS_DENIED);
 	}
 
+	@Test
+	public void voteWhenIntrinsicExpressionThenEvaluatedWithoutContext() {
+		WebExpressionVoter voter = new WebExpressionVoter();
+		SecurityEvaluationContextPostProcessor postProcessor = mock(
+				SecurityEvaluationContextPostProcessor.class);
+		IntrinsicSecurityExpressionParser parser = new WebIntrinsicSecurityExpressionParser(
+				new SpelExpressionParser());
+		FilterInvocation fi = new FilterInvocation("/path", "GET");
+
+		assertThat(voter.vote(user, fi, Arrays.<ConfigAttribute> asList(
+				new WebExpressionConfigAttribute(parser.parseExpression("hasAuthority('X')"),
+						postProcessor)))).isEqualTo(AccessDecisionVoter.ACCESS_GRANTED);
+		assertThat(voter.vote(user, fi, Arrays.<ConfigAttribute> asList(
+				new WebExpressionConfigAttribute(parser.parseExpression("hasRole('X')"),
+						postProcessor)))).isEqualTo(AccessDecisionVoter.ACCESS_DENIED);
+		verifyZeroInteractions(postProcessor);
+	}
+
 	// SEC-2507
 	@Test
 	public void supportFilterInvocationSubClass() {
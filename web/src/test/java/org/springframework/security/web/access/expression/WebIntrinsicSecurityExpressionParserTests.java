@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.access.expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.security.access.expression.IntrinsicSecurityExpression;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.FilterInvocation;
+
+/**
+ * @author Rob Winch
+ */
+public class WebIntrinsicSecurityExpressionParserTests {
+	private WebIntrinsicSecurityExpressionParser parser;
+
+	private DefaultWebSecurityExpressionHandler handler;
+
+	private Authentication authentication;
+
+	private MockHttpServletRequest request;
+
+	private FilterInvocation fi;
+
+	@Before
+	public void setup() {
+		parser = new WebIntrinsicSecurityExpressionParser(new SpelExpressionParser());
+		handler = new DefaultWebSecurityExpressionHandler();
+		authentication = new TestingAuthenticationToken("user", "password", "ROLE_USER");
+		request = new MockHttpServletRequest();
+		request.setRemoteAddr("192.168.1.10");
+		fi = new FilterInvocation(request, new MockHttpServletResponse(),
+				new MockFilterChain());
+	}
+
+	@Test
+	public void parseWhenHasIpAddressThenIntrinsic() {
+		IntrinsicSecurityExpression expression = parser
+				.parseIntrinsicExpression("hasIpAddress('192.168.1.0/24') and hasRole('USER')");
+
+		assertThat(handler.evaluate(expression, authentication, fi)).isTrue();
+		request.setRemoteAddr("10.0.0.1");
+		assertThat(handler.evaluate(expression, authentication, fi)).isFalse();
+	}
+
+	@Test
+	public void parseWhenIpv6AddressThenIntrinsic() {
+		IntrinsicSecurityExpression expression = parser
+				.parseIntrinsicExpression("hasIpAddress('fe80::21f:5bff:fe33:bd68')");
+		request.setRemoteAddr("fe80::21f:5bff:fe33:bd68");
+
+		assertThat(handler.evaluate(expression, authentication, fi)).isTrue();
+	}
+
+	@Test
+	public void parseWhenHostNameThenNotIntrinsic() {
+		assertThat(parser.parseIntrinsicExpression("hasIpAddress('localhost')"))
+				.isNull();
+	}
+
+	@Test
+	public void parseWhenHasIpAddressThenSameAsSpel() {
+		String expressionString = "not hasIpAddress('192.168.1.0/24')";
+		IntrinsicSecurityExpression expression = parser
+				.parseIntrinsicExpression(expressionString);
+		boolean expected = new SpelExpressionParser().parseExpression(expressionString)
+				.getValue(handler.createEvaluationContext(authentication, fi),
+						Boolean.class);
+
+		assertThat(expression.getValue(
+				handler.createEvaluationContext(authentication, fi), Boolean.class))
+				.isEqualTo(expected);
+	}
+
+	@Test
+	public void parseWhenCustomRootThenHasIpAddressInvoked() {
+		IntrinsicSecurityExpression expression = parser
+				.parseIntrinsicExpression("hasIpAddress('10.0.0.0/8')");
+		WebSecurityExpressionRoot root = new WebSecurityExpressionRoot(authentication,
+				fi) {
+			@Override
+			public boolean hasIpAddress(String ipAddress) {
+				return true;
+			}
+		};
+
+		assertThat(expression.evaluate(root)).isTrue();
+	}
+}
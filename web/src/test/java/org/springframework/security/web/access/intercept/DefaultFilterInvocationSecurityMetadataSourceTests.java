@@ -164,6 +164,49 @@ public class DefaultFilterInvocationSecurityMetadataSourceTests {
 		assertThat(response).isEqualTo(def);
 	}
 
+	@Test
+	public void indexedLookupUsesFirstMatchingMapping() {
+		LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestMap = new LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>>();
+		Collection<ConfigAttribute> post = SecurityConfig.createList("POST");
+		Collection<ConfigAttribute> admin = SecurityConfig.createList("ADMIN");
+		Collection<ConfigAttribute> json = SecurityConfig.createList("JSON");
+		Collection<ConfigAttribute> any = SecurityConfig.createList("ANY");
+		requestMap.put(new AntPathRequestMatcher("/admin/**", "POST"), post);
+		requestMap.put(new AntPathRequestMatcher("/**/*.json"), json);
+		requestMap.put(new AntPathRequestMatcher("/admin/**"), admin);
+		requestMap.put(new AntPathRequestMatcher("/**"), any);
+		fids = new DefaultFilterInvocationSecurityMetadataSource(requestMap, true);
+
+		assertThat(
+				fids.getAttributes(createFilterInvocation("/admin/a", null, null, "POST")))
+				.isEqualTo(post);
+		assertThat(
+				fids.getAttributes(createFilterInvocation("/admin/a", null, null, "GET")))
+				.isEqualTo(admin);
+		assertThat(
+				fids.getAttributes(createFilterInvocation("/admin/a.json", null, null,
+						"GET"))).isEqualTo(json);
+		assertThat(
+				fids.getAttributes(createFilterInvocation("/Admin", "/a", null, null)))
+				.isEqualTo(post);
+		assertThat(
+				fids.getAttributes(createFilterInvocation("/other", null, null, "GET")))
+				.isEqualTo(any);
+		assertThat(fids.getAllConfigAttributes()).hasSize(4);
+	}
+
+	@Test
+	public void indexedRequestWithDifferentHttpMethodDoesntMatch() {
+		LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestMap = new LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>>();
+		requestMap.put(new AntPathRequestMatcher("/somepage**", "GET"), def);
+		fids = new DefaultFilterInvocationSecurityMetadataSource(requestMap, true);
+
+		FilterInvocation fi = createFilterInvocation("/somepage", null, null, "POST");
+		assertThat(fids.getAttributes(fi)).isNull();
+		fi = createFilterInvocation("/somepage", null, null, "GET");
+		assertThat(fids.getAttributes(fi)).isEqualTo(def);
+	}
+
 	private FilterInvocation createFilterInvocation(String servletPath, String pathInfo,
 			String queryString, String method) {
 		MockHttpServletRequest request = new MockHttpServletRequest();
@@ -26,6 +26,7 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -190,6 +191,28 @@ public class JdbcTokenRepositoryImplTests {
 		assertThat(lastUsed.getTime() > ts.getTime()).isTrue();
 	}
 
+	@Test
+	public void updateTokensModifiesAllTokens() {
+		template.execute(
+				"insert into persistent_logins (series, username, token, last_used) values "
+						+ "('joesseries', 'joeuser', 'atoken', '2016-01-01 00:00:00')");
+		template.execute(
+				"insert into persistent_logins (series, username, token, last_used) values "
+						+ "('bobsseries', 'bob', 'btoken', '2016-01-01 00:00:00')");
+		Date lastUsed = new Date();
+
+		repo.updateTokens(Arrays.asList(new PersistentRememberMeToken("joeuser",
+				"joesseries", "newatoken", lastUsed), new PersistentRememberMeToken("bob",
+				"bobsseries", "newbtoken", lastUsed)));
+
+		assertThat(repo.getTokenForSeries("joesseries").getTokenValue()).isEqualTo(
+				"newatoken");
+		assertThat(repo.getTokenForSeries("bobsseries").getTokenValue()).isEqualTo(
+				"newbtoken");
+		assertThat(repo.getTokenForSeries("bobsseries").getDate().getTime()).isEqualTo(
+				lastUsed.getTime());
+	}
+
 	@Test
 	public void createTableOnStartupCreatesCorrectTable() {
 		template.execute("drop table persistent_logins");
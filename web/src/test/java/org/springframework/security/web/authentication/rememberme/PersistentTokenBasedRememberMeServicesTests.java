@@ -16,6 +16,12 @@
 package org.springframework.security.web.authentication.rememberme;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
@@ -141,6 +147,104 @@ public class PersistentTokenBasedRememberMeServicesTests {
 		services.logout(request, response, null);
 	}
 
+	@Test
+	public void concurrentAutoLoginWithWriteBehindRepositoryAcceptsPreviousToken() {
+		repo = new MockTokenRepository(new PersistentRememberMeToken("joe", "series",
+				"token", new Date()));
+		WriteBehindPersistentTokenRepository writeBehind = new WriteBehindPersistentTokenRepository(
+				repo);
+		services = new PersistentTokenBasedRememberMeServices("key",
+				new AbstractRememberMeServicesTests.MockUserDetailsService(
+						AbstractRememberMeServicesTests.joe, false), writeBehind);
+		services.setCookieName("mycookiename");
+		MockHttpServletResponse first = new MockHttpServletResponse();
+		MockHttpServletResponse second = new MockHttpServletResponse();
+
+		services.processAutoLoginCookie(new String[] { "series", "token" },
+				new MockHttpServletRequest(), first);
+		services.processAutoLoginCookie(new String[] { "series", "token" },
+				new MockHttpServletRequest(), second);
+
+		String[] firstCookie = services.decodeCookie(first.getCookie("mycookiename")
+				.getValue());
+		String[] secondCookie = services.decodeCookie(second.getCookie("mycookiename")
+				.getValue());
+		assertThat(secondCookie).isEqualTo(firstCookie);
+		assertThat(writeBehind.getPendingUpdateCount()).isEqualTo(1);
+		writeBehind.flush();
+		assertThat(repo.getStoredToken().getTokenValue()).isEqualTo(firstCookie[1]);
+	}
+
+	@Test(expected = CookieTheftException.class)
+	public void autoLoginWithWriteBehindRepositoryRejectsOlderToken() {
+		repo = new MockTokenRepository(new PersistentRememberMeToken("joe", "series",
+				"token", new Date()));
+		WriteBehindPersistentTokenRepository writeBehind = new WriteBehindPersistentTokenRepository(
+				repo);
+		services = new PersistentTokenBasedRememberMeServices("key",
+				new AbstractRememberMeServicesTests.MockUserDetailsService(
+						AbstractRememberMeServicesTests.joe, false), writeBehind);
+		services.setCookieName("mycookiename");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		services.processAutoLoginCookie(new String[] { "series", "token" },
+				new MockHttpServletRequest(), response);
+		String[] cookie = services.decodeCookie(response.getCookie("mycookiename")
+				.getValue());
+		services.processAutoLoginCookie(cookie, new MockHttpServletRequest(),
+				new MockHttpServletResponse());
+
+		services.processAutoLoginCookie(new String[] { "series", "token" },
+				new MockHttpServletRequest(), new MockHttpServletResponse());
+	}
+
+	@Test
+	public void autoLoginWithConcurrentRepositoryAcceptsPreviousToken() {
+		ConcurrentPersistentTokenRepository concurrentRepo = mock(ConcurrentPersistentTokenRepository.class);
+		PersistentRememberMeToken current = new PersistentRememberMeToken("joe",
+				"series", "current", new Date());
+		when(concurrentRepo.getTokenForSeries("series")).thenReturn(current);
+		when(concurrentRepo.isPreviousTokenValue("series", "previous")).thenReturn(true);
+		services = new PersistentTokenBasedRememberMeServices("key",
+				new AbstractRememberMeServicesTests.MockUserDetailsService(
+						AbstractRememberMeServicesTests.joe, false), concurrentRepo);
+		services.setCookieName("mycookiename");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		services.processAutoLoginCookie(new String[] { "series", "previous" },
+				new MockHttpServletRequest(), response);
+
+		assertThat(services.decodeCookie(response.getCookie("mycookiename").getValue()))
+				.containsExactly("series", "current");
+		verify(concurrentRepo, never()).removeUserTokens(anyString());
+		verify(concurrentRepo, never()).replaceToken(any(PersistentRememberMeToken.class),
+				any(PersistentRememberMeToken.class));
+	}
+
+	@Test
+	public void autoLoginWithConcurrentRepositoryReplacesToken() {
+		ConcurrentPersistentTokenRepository concurrentRepo = mock(ConcurrentPersistentTokenRepository.class);
+		PersistentRememberMeToken current = new PersistentRememberMeToken("joe",
+				"series", "token", new Date());
+		PersistentRememberMeToken concurrent = new PersistentRememberMeToken("joe",
+				"series", "concurrent", new Date());
+		when(concurrentRepo.getTokenForSeries("series")).thenReturn(current);
+		when(concurrentRepo.replaceToken(any(PersistentRememberMeToken.class),
+				any(PersistentRememberMeToken.class))).thenReturn(concurrent);
+		services = new PersistentTokenBasedRememberMeServices("key",
+				new AbstractRememberMeServicesTests.MockUserDetailsService(
+						AbstractRememberMeServicesTests.joe, false), concurrentRepo);
+		services.setCookieName("mycookiename");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		services.processAutoLoginCookie(new String[] { "series", "token" },
+				new MockHttpServletRequest(), response);
+
+		assertThat(services.decodeCookie(response.getCookie("mycookiename").getValue()))
+				.containsExactly("series", "concurrent");
+		verify(concurrentRepo, never()).updateToken(anyString(), anyString(),
+				any(Date.class));
+	}
+
 	private PersistentTokenBasedRememberMeServices create(PersistentRememberMeToken token) {
 		repo = new MockTokenRepository(token);
 		PersistentTokenBasedRememberMeServices services = new PersistentTokenBasedRememberMeServices(
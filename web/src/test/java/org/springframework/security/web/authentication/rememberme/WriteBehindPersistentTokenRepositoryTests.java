@@ -0,0 +1,312 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.authentication.rememberme;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+/**
+ * @author Rob Winch
+ */
+public class WriteBehindPersistentTokenRepositoryTests {
+	private InMemoryTokenRepositoryImpl delegate;
+
+	private WriteBehindPersistentTokenRepository repository;
+
+	@Before
+	public void setUp() {
+		delegate = spy(new InMemoryTokenRepositoryImpl());
+		delegate.createNewToken(new PersistentRememberMeToken("joe", "series", "token",
+				new Date()));
+		repository = new WriteBehindPersistentTokenRepository(delegate);
+	}
+
+	@After
+	public void tearDown() {
+		repository.destroy();
+	}
+
+	@Test
+	public void getTokenForSeriesReadsThroughCache() {
+		assertThat(repository.getTokenForSeries("series").getTokenValue()).isEqualTo(
+				"token");
+		assertThat(repository.getTokenForSeries("series").getTokenValue()).isEqualTo(
+				"token");
+
+		verify(delegate, times(1)).getTokenForSeries("series");
+	}
+
+	@Test
+	public void updateTokenIsWrittenOnFlush() {
+		repository.updateToken("series", "token2", new Date());
+		repository.updateToken("series", "token3", new Date());
+
+		assertThat(repository.getTokenForSeries("series").getTokenValue()).isEqualTo(
+				"token3");
+		assertThat(delegate.getTokenForSeries("series").getTokenValue()).isEqualTo(
+				"token");
+		assertThat(repository.getPendingUpdateCount()).isEqualTo(1);
+
+		repository.flush();
+
+		assertThat(delegate.getTokenForSeries("series").getTokenValue()).isEqualTo(
+				"token3");
+		verify(delegate, times(1)).updateToken(any(String.class), any(String.class),
+				any(Date.class));
+		assertThat(repository.getPendingUpdateCount()).isEqualTo(0);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void flushUsesBatchUpdates() {
+		BatchPersistentTokenRepository batch = mock(BatchPersistentTokenRepository.class);
+		when(batch.getTokenForSeries("series")).thenReturn(
+				new PersistentRememberMeToken("joe", "series", "token", new Date()));
+		when(batch.getTokenForSeries("other")).thenReturn(
+				new PersistentRememberMeToken("bob", "other", "token", new Date()));
+		repository = new WriteBehindPersistentTokenRepository(batch);
+		repository.updateToken("series", "token2", new Date());
+		repository.updateToken("other", "token2", new Date());
+
+		repository.flush();
+
+		ArgumentCaptor<Collection> updates = ArgumentCaptor.forClass(Collection.class);
+		verify(batch).updateTokens(updates.capture());
+		assertThat(updates.getValue()).hasSize(2);
+		verify(batch, never()).updateToken(any(String.class), any(String.class),
+				any(Date.class));
+	}
+
+	@Test
+	public void flushWhenFailsThenUpdatesRetried() {
+		repository.updateToken("series", "token2", new Date());
+		doThrow(new DataAccessResourceFailureException("down")).when(delegate)
+				.updateToken(any(String.class), any(String.class), any(Date.class));
+
+		try {
+			repository.flush();
+			fail("Expected Exception");
+		}
+		catch (DataAccessResourceFailureException expected) {
+		}
+
+		assertThat(repository.getPendingUpdateCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void flushWhenWriteInProgressThenPendingUpdateVisible() {
+		repository = new WriteBehindPersistentTokenRepository(delegate, 1);
+		delegate.createNewToken(new PersistentRememberMeToken("bob", "other", "token",
+				new Date()));
+		repository.updateToken("series", "token2", new Date());
+		// evict the cached update, so that the pending update must be used
+		repository.getTokenForSeries("other");
+		final String[] tokenDuringWrite = new String[1];
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				tokenDuringWrite[0] = repository.getTokenForSeries("series")
+						.getTokenValue();
+				return invocation.callRealMethod();
+			}
+		}).when(delegate).updateToken(any(String.class), any(String.class),
+				any(Date.class));
+
+		repository.flush();
+
+		assertThat(tokenDuringWrite[0]).isEqualTo("token2");
+		assertThat(repository.getPendingUpdateCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void flushWhenUpdatedDuringWriteThenNewUpdateKept() {
+		repository.updateToken("series", "token2", new Date());
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				Object result = invocation.callRealMethod();
+				repository.updateToken("series", "token3", new Date());
+				return result;
+			}
+		}).doCallRealMethod().when(delegate).updateToken(any(String.class),
+				any(String.class), any(Date.class));
+
+		repository.flush();
+
+		assertThat(repository.getPendingUpdateCount()).isEqualTo(1);
+		repository.flush();
+		assertThat(delegate.getTokenForSeries("series").getTokenValue()).isEqualTo(
+				"token3");
+	}
+
+	@Test
+	public void replaceTokenWhenReplacedConcurrentlyThenReturnsCurrent() {
+		PersistentRememberMeToken current = repository.getTokenForSeries("series");
+		PersistentRememberMeToken first = new PersistentRememberMeToken("joe", "series",
+				"first", new Date());
+		PersistentRememberMeToken second = new PersistentRememberMeToken("joe",
+				"series", "second", new Date());
+
+		assertThat(repository.replaceToken(current, first)).isSameAs(first);
+		assertThat(repository.replaceToken(current, second)).isSameAs(first);
+		assertThat(repository.getTokenForSeries("series").getTokenValue()).isEqualTo(
+				"first");
+	}
+
+	@Test
+	public void isPreviousTokenValue() {
+		repository.updateToken("series", "token2", new Date());
+
+		assertThat(repository.isPreviousTokenValue("series", "token")).isTrue();
+		assertThat(repository.isPreviousTokenValue("series", "token2")).isFalse();
+		assertThat(repository.isPreviousTokenValue("series", "other")).isFalse();
+
+		repository.updateToken("series", "token3", new Date());
+
+		assertThat(repository.isPreviousTokenValue("series", "token")).isFalse();
+		assertThat(repository.isPreviousTokenValue("series", "token2")).isTrue();
+	}
+
+	@Test
+	public void isPreviousTokenValueWhenGracePeriodZeroThenFalse() throws Exception {
+		repository.setPreviousTokenGracePeriod(0);
+		repository.updateToken("series", "token2", new Date());
+		Thread.sleep(5);
+
+		assertThat(repository.isPreviousTokenValue("series", "token")).isFalse();
+	}
+
+	@Test
+	public void removeUserTokensDiscardsPendingUpdates() {
+		repository.updateToken("series", "token2", new Date());
+
+		repository.removeUserTokens("joe");
+		repository.flush();
+
+		assertThat(repository.getTokenForSeries("series")).isNull();
+		assertThat(repository.getPendingUpdateCount()).isEqualTo(0);
+		verify(delegate, never()).updateToken(any(String.class), any(String.class),
+				any(Date.class));
+	}
+
+	@Test
+	public void replaceTokenWhenUserTokensRemovedAfterReadThenNotCached() {
+		PersistentRememberMeToken current = repository.getTokenForSeries("series");
+		PersistentRememberMeToken replacement = new PersistentRememberMeToken("joe",
+				"series", "token2", new Date());
+		repository.removeUserTokens("joe");
+
+		repository.replaceToken(current, replacement);
+
+		assertThat(repository.getTokenForSeries("series")).isNull();
+		assertThat(repository.getPendingUpdateCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void updateTokenWhenUserTokensRemovedDuringReadThenNotCached() {
+		removeUserTokensAfterFirstRead();
+
+		repository.updateToken("series", "token2", new Date());
+
+		assertThat(repository.getTokenForSeries("series")).isNull();
+		assertThat(repository.getPendingUpdateCount()).isEqualTo(0);
+		verify(delegate, never()).updateToken(any(String.class), any(String.class),
+				any(Date.class));
+	}
+
+	@Test
+	public void getTokenForSeriesWhenUserTokensRemovedDuringReadThenNull() {
+		removeUserTokensAfterFirstRead();
+
+		assertThat(repository.getTokenForSeries("series")).isNull();
+		assertThat(repository.getTokenForSeries("series")).isNull();
+	}
+
+	@Test
+	public void replaceTokenWhenEvictedThenUpdated() {
+		repository = new WriteBehindPersistentTokenRepository(delegate, 1);
+		delegate.createNewToken(new PersistentRememberMeToken("bob", "other", "token",
+				new Date()));
+		PersistentRememberMeToken current = repository.getTokenForSeries("series");
+		repository.getTokenForSeries("other");
+		PersistentRememberMeToken replacement = new PersistentRememberMeToken("joe",
+				"series", "token2", new Date());
+
+		assertThat(repository.replaceToken(current, replacement)).isSameAs(replacement);
+		assertThat(repository.getTokenForSeries("series")).isSameAs(replacement);
+	}
+
+	@Test
+	public void getTokenForSeriesWhenEvictedThenReturnsPendingUpdate() {
+		repository = new WriteBehindPersistentTokenRepository(delegate, 1);
+		delegate.createNewToken(new PersistentRememberMeToken("bob", "other", "token",
+				new Date()));
+		repository.updateToken("series", "token2", new Date());
+		repository.getTokenForSeries("other");
+
+		assertThat(repository.getTokenForSeries("series").getTokenValue()).isEqualTo(
+				"token2");
+	}
+
+	@Test
+	public void destroyFlushes() {
+		repository.afterPropertiesSet();
+		repository.updateToken("series", "token2", new Date());
+
+		repository.destroy();
+
+		assertThat(delegate.getTokenForSeries("series").getTokenValue()).isEqualTo(
+				"token2");
+	}
+
+	/**
+	 * Removes the tokens of joe from another thread once the first read of the delegate
+	 * completed, before the token which was read is cached.
+	 */
+	private void removeUserTokensAfterFirstRead() {
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				Object result = invocation.callRealMethod();
+				Thread remover = new Thread(new Runnable() {
+					public void run() {
+						repository.removeUserTokens("joe");
+					}
+				});
+				remover.start();
+				remover.join();
+				return result;
+			}
+		}).doCallRealMethod().when(delegate).getTokenForSeries("series");
+	}
+}
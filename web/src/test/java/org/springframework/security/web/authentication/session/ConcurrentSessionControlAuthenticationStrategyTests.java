@@ -19,6 +19,9 @@ package org.springframework.security.web.authentication.session;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
@@ -36,6 +39,7 @@ import org.springframework.mock.web.MockHttpSession;
 import org.springframework.mock.web.MockServletContext;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.session.CountingSessionRegistry;
 import org.springframework.security.core.session.SessionInformation;
 import org.springframework.security.core.session.SessionRegistry;
 
@@ -84,6 +88,41 @@ public class ConcurrentSessionControlAuthenticationStrategyTests {
 		// no exception
 	}
 
+	@Test
+	public void countingRegistryBelowMaximumDoesNotGetSessions() {
+		CountingSessionRegistry countingRegistry = mock(CountingSessionRegistry.class);
+		when(countingRegistry.getSessionCount(any(), anyBoolean())).thenReturn(1);
+		strategy = new ConcurrentSessionControlAuthenticationStrategy(countingRegistry);
+		strategy.setMaximumSessions(2);
+		strategy.setExceptionIfMaximumExceeded(true);
+
+		strategy.onAuthentication(authentication, request, response);
+
+		verify(countingRegistry, never()).getAllSessions(any(), anyBoolean());
+	}
+
+	@Test(expected = SessionAuthenticationException.class)
+	public void countingRegistryAtMaximumGetsSessions() {
+		CountingSessionRegistry countingRegistry = mock(CountingSessionRegistry.class);
+		when(countingRegistry.getSessionCount(any(), anyBoolean())).thenReturn(1);
+		when(countingRegistry.getAllSessions(any(), anyBoolean())).thenReturn(
+				Collections.<SessionInformation> singletonList(sessionInformation));
+		strategy = new ConcurrentSessionControlAuthenticationStrategy(countingRegistry);
+		strategy.setMaximumSessions(1);
+		strategy.setExceptionIfMaximumExceeded(true);
+
+		strategy.onAuthentication(authentication, request, response);
+	}
+
+	@Test
+	public void unlimitedSessionsDoesNotGetSessions() {
+		strategy.setMaximumSessions(-1);
+
+		strategy.onAuthentication(authentication, request, response);
+
+		verify(sessionRegistry, never()).getAllSessions(any(), anyBoolean());
+	}
+
 	@Test
 	public void maxSessionsSameSessionId() {
 		MockHttpSession session = new MockHttpSession(new MockServletContext(),
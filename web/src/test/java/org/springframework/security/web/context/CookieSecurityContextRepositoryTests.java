@@ -0,0 +1,292 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.context;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import javax.servlet.http.Cookie;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.RememberMeAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+/**
+ * @author Rob Winch
+ */
+public class CookieSecurityContextRepositoryTests {
+	private static final String COOKIE_NAME = CookieSecurityContextRepository.DEFAULT_COOKIE_NAME;
+
+	private static final String SALT = "5c0744940b5c369b";
+
+	private CookieSecurityContextRepository repo;
+
+	private MockHttpServletRequest request;
+
+	private MockHttpServletResponse response;
+
+	@Before
+	public void setup() {
+		repo = new CookieSecurityContextRepository("password", SALT);
+		request = new MockHttpServletRequest();
+		response = new MockHttpServletResponse();
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorNullPassword() {
+		new CookieSecurityContextRepository((String) null, SALT);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorNullSalt() {
+		new CookieSecurityContextRepository("password", null);
+	}
+
+	@Test
+	public void loadContextNoCookie() {
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request,
+				response);
+
+		SecurityContext context = repo.loadContext(holder);
+		repo.saveContext(context, holder.getRequest(), holder.getResponse());
+
+		assertThat(context.getAuthentication()).isNull();
+		assertThat(repo.containsContext(request)).isFalse();
+		assertThat(response.getCookie(COOKIE_NAME)).isNull();
+	}
+
+	@Test
+	public void saveContextThenLoadContext() {
+		Cookie cookie = save(new TestingAuthenticationToken("user", "password",
+				"ROLE_A", "ROLE_B"));
+
+		assertThat(cookie.isHttpOnly()).isTrue();
+		assertThat(cookie.getPath()).isEqualTo("/");
+		assertThat(cookie.getValue()).doesNotContain("user").doesNotContain("=");
+
+		Authentication authentication = load(cookie).getAuthentication();
+		assertThat(authentication).isInstanceOf(
+				UsernamePasswordAuthenticationToken.class);
+		assertThat(authentication.getName()).isEqualTo("user");
+		assertThat(authentication.getCredentials()).isNull();
+		assertThat(AuthorityUtils.authorityListToSet(authentication.getAuthorities()))
+				.containsOnly("ROLE_A", "ROLE_B");
+	}
+
+	@Test
+	public void saveContextRememberMeThenLoadContextRememberMe() {
+		Cookie cookie = save(new RememberMeAuthenticationToken("key", "user",
+				AuthorityUtils.createAuthorityList("ROLE_A")));
+
+		assertThat(load(cookie).getAuthentication()).isInstanceOf(
+				RememberMeAuthenticationToken.class);
+	}
+
+	@Test
+	public void saveContextUnchangedDoesNotWriteCookie() {
+		Cookie cookie = save(new TestingAuthenticationToken("user", "password",
+				"ROLE_A"));
+		request.setCookies(cookie);
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request,
+				response);
+
+		SecurityContext context = repo.loadContext(holder);
+		repo.saveContext(context, holder.getRequest(), holder.getResponse());
+
+		assertThat(response.getCookie(COOKIE_NAME)).isNull();
+	}
+
+	@Test
+	public void saveContextClearedRemovesCookie() {
+		Cookie cookie = save(new TestingAuthenticationToken("user", "password",
+				"ROLE_A"));
+		request.setCookies(cookie);
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request,
+				response);
+
+		SecurityContext context = repo.loadContext(holder);
+		context.setAuthentication(null);
+		repo.saveContext(context, holder.getRequest(), holder.getResponse());
+
+		assertThat(response.getCookie(COOKIE_NAME).getMaxAge()).isEqualTo(0);
+	}
+
+	@Test
+	public void saveContextAnonymousDoesNotWriteCookie() {
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request,
+				response);
+
+		SecurityContext context = repo.loadContext(holder);
+		context.setAuthentication(new AnonymousAuthenticationToken("key", "anonymous",
+				AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+		repo.saveContext(context, holder.getRequest(), holder.getResponse());
+
+		assertThat(response.getCookie(COOKIE_NAME)).isNull();
+	}
+
+	@Test
+	public void loadContextTamperedCookieIgnored() {
+		Cookie cookie = save(new TestingAuthenticationToken("user", "password",
+				"ROLE_A"));
+		char[] value = cookie.getValue().toCharArray();
+		value[value.length / 2] = value[value.length / 2] == 'A' ? 'B' : 'A';
+
+		assertThat(load(new Cookie(COOKIE_NAME, new String(value))).getAuthentication())
+				.isNull();
+		assertThat(load(new Cookie(COOKIE_NAME, "not@base64")).getAuthentication())
+				.isNull();
+	}
+
+	@Test
+	public void containsContextAfterLoadContextDoesNotDecryptAgain() {
+		Cookie cookie = save(new TestingAuthenticationToken("user", "password",
+				"ROLE_A"));
+		repo = spy(repo);
+
+		load(cookie);
+
+		assertThat(repo.containsContext(request)).isTrue();
+		verify(repo, times(1)).readPayload(cookie.getValue());
+	}
+
+	@Test
+	public void loadContextOtherKeyIgnored() {
+		Cookie cookie = save(new TestingAuthenticationToken("user", "password",
+				"ROLE_A"));
+		repo = new CookieSecurityContextRepository("other", SALT);
+
+		assertThat(load(cookie).getAuthentication()).isNull();
+	}
+
+	@Test
+	public void loadContextPreviousKeyAccepted() {
+		Cookie cookie = save(new TestingAuthenticationToken("user", "password",
+				"ROLE_A"));
+		repo = new CookieSecurityContextRepository(Arrays.asList("other", "password"),
+				SALT);
+
+		assertThat(load(cookie).getAuthentication().getName()).isEqualTo("user");
+		assertThat(repo.containsContext(request)).isTrue();
+	}
+
+	@Test
+	public void loadContextUserDetailsServiceLoadsUser() {
+		Cookie cookie = save(new TestingAuthenticationToken("user", "password",
+				"ROLE_A"));
+		UserDetailsService userDetailsService = mock(UserDetailsService.class);
+		when(userDetailsService.loadUserByUsername("user")).thenReturn(
+				new User("user", "password", AuthorityUtils
+						.createAuthorityList("ROLE_B")));
+		repo.setUserDetailsService(userDetailsService);
+
+		Authentication authentication = load(cookie).getAuthentication();
+
+		assertThat(authentication.getPrincipal()).isInstanceOf(User.class);
+		assertThat(AuthorityUtils.authorityListToSet(authentication.getAuthorities()))
+				.containsOnly("ROLE_B");
+	}
+
+	@Test
+	public void loadContextUserDetailsServiceUserNotFound() {
+		Cookie cookie = save(new TestingAuthenticationToken("user", "password",
+				"ROLE_A"));
+		UserDetailsService userDetailsService = mock(UserDetailsService.class);
+		when(userDetailsService.loadUserByUsername("user")).thenThrow(
+				new UsernameNotFoundException("user"));
+		repo.setUserDetailsService(userDetailsService);
+
+		assertThat(load(cookie).getAuthentication()).isNull();
+	}
+
+	@Test
+	public void loadContextUserDetailsServiceUserDisabled() {
+		Cookie cookie = save(new TestingAuthenticationToken("user", "password",
+				"ROLE_A"));
+		UserDetailsService userDetailsService = mock(UserDetailsService.class);
+		when(userDetailsService.loadUserByUsername("user")).thenReturn(
+				new User("user", "password", false, true, true, true, AuthorityUtils
+						.createAuthorityList("ROLE_A")));
+		repo.setUserDetailsService(userDetailsService);
+
+		assertThat(load(cookie).getAuthentication()).isNull();
+	}
+
+	@Test
+	public void saveContextUsesCustomCookieSettings() {
+		repo.setCookieName("CTX");
+		repo.setCookiePath("/app");
+		repo.setSecureCookie(true);
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request,
+				response);
+
+		SecurityContext context = repo.loadContext(holder);
+		context.setAuthentication(new TestingAuthenticationToken("user", "password",
+				"ROLE_A"));
+		repo.saveContext(context, holder.getRequest(), holder.getResponse());
+
+		Cookie cookie = response.getCookie("CTX");
+		assertThat(cookie.getPath()).isEqualTo("/app");
+		assertThat(cookie.getSecure()).isTrue();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void saveContextWithoutLoadContext() {
+		repo.saveContext(SecurityContextHolder.createEmptyContext(), request, response);
+	}
+
+	private Cookie save(Authentication authentication) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request,
+				response);
+		SecurityContext context = repo.loadContext(holder);
+		context.setAuthentication(authentication);
+		repo.saveContext(context, holder.getRequest(), holder.getResponse());
+		Cookie cookie = response.getCookie(COOKIE_NAME);
+		assertThat(cookie).isNotNull();
+		return cookie;
+	}
+
+	private SecurityContext load(Cookie cookie) {
+		request.setCookies(cookie);
+		return repo.loadContext(new HttpRequestResponseHolder(request,
+				new MockHttpServletResponse()));
+	}
+}
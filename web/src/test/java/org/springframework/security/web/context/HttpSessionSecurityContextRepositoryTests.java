@@ -17,9 +17,12 @@
 package org.springframework.security.web.context;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.spy;
@@ -47,6 +50,7 @@ import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.util.ClassUtils;
 
 /**
@@ -190,6 +194,117 @@ public class HttpSessionSecurityContextRepositoryTests {
 		verify(session).setAttribute(SPRING_SECURITY_CONTEXT_KEY, ctx);
 	}
 
+	@Test
+	public void saveContextDetectAuthenticationChangesSkipsUnchangedAuthentication()
+			throws Exception {
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		repo.setDetectAuthenticationChanges(true);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		SecurityContext ctx = SecurityContextHolder.getContext();
+		ctx.setAuthentication(testToken);
+		HttpSession session = mock(HttpSession.class);
+		when(session.getId()).thenReturn("id");
+		when(session.getAttribute(SPRING_SECURITY_CONTEXT_KEY)).thenReturn(ctx);
+		request.setSession(session);
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request,
+				new MockHttpServletResponse());
+		repo.loadContext(holder);
+
+		// Different instances with the same contents
+		SecurityContext newCtx = SecurityContextHolder.createEmptyContext();
+		newCtx.setAuthentication(new TestingAuthenticationToken("someone", "passwd",
+				"ROLE_A"));
+		repo.saveContext(newCtx, holder.getRequest(), holder.getResponse());
+
+		verify(session, never()).setAttribute(anyString(), any());
+		verify(session, times(1)).getAttribute(SPRING_SECURITY_CONTEXT_KEY);
+		assertThat(repo.getSessionWriteCount()).isEqualTo(0);
+		assertThat(repo.getSkippedSessionWriteCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void saveContextDetectAuthenticationChangesWritesChangedAuthorities()
+			throws Exception {
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		repo.setDetectAuthenticationChanges(true);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		SecurityContext ctx = SecurityContextHolder.getContext();
+		ctx.setAuthentication(testToken);
+		request.getSession().setAttribute(SPRING_SECURITY_CONTEXT_KEY, ctx);
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request,
+				new MockHttpServletResponse());
+		SecurityContext context = repo.loadContext(holder);
+
+		context.setAuthentication(new TestingAuthenticationToken("someone", "passwd",
+				"ROLE_B"));
+		repo.saveContext(context, holder.getRequest(), holder.getResponse());
+
+		assertThat(request.getSession().getAttribute(SPRING_SECURITY_CONTEXT_KEY))
+				.isSameAs(context);
+		assertThat(repo.getSessionWriteCount()).isEqualTo(1);
+		assertThat(repo.getSkippedSessionWriteCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void saveContextDetectAuthenticationChangesWritesChangedDetails()
+			throws Exception {
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		repo.setDetectAuthenticationChanges(true);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		SecurityContext ctx = SecurityContextHolder.getContext();
+		ctx.setAuthentication(testToken);
+		request.getSession().setAttribute(SPRING_SECURITY_CONTEXT_KEY, ctx);
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request,
+				new MockHttpServletResponse());
+		SecurityContext context = repo.loadContext(holder);
+
+		testToken.setDetails("details");
+		repo.saveContext(context, holder.getRequest(), holder.getResponse());
+
+		assertThat(repo.getSessionWriteCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void saveContextDetectAuthenticationChangesWritesReplacedPrincipal()
+			throws Exception {
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		repo.setDetectAuthenticationChanges(true);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		SecurityContext ctx = SecurityContextHolder.getContext();
+		ctx.setAuthentication(new TestingAuthenticationToken(new User("someone",
+				"passwd", testToken.getAuthorities()), "passwd", "ROLE_A"));
+		request.getSession().setAttribute(SPRING_SECURITY_CONTEXT_KEY, ctx);
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request,
+				new MockHttpServletResponse());
+		SecurityContext context = repo.loadContext(holder);
+
+		// an equal principal, for example reloaded after a profile update
+		context.setAuthentication(new TestingAuthenticationToken(new User("someone",
+				"passwd", testToken.getAuthorities()), "passwd", "ROLE_A"));
+		repo.saveContext(context, holder.getRequest(), holder.getResponse());
+
+		assertThat(repo.getSessionWriteCount()).isEqualTo(1);
+		assertThat(repo.getSkippedSessionWriteCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void saveContextCountsWrites() throws Exception {
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request,
+				new MockHttpServletResponse());
+		SecurityContext context = repo.loadContext(holder);
+		context.setAuthentication(testToken);
+		repo.saveContext(context, holder.getRequest(), holder.getResponse());
+
+		holder = new HttpRequestResponseHolder(request, new MockHttpServletResponse());
+		context = repo.loadContext(holder);
+		repo.saveContext(context, holder.getRequest(), holder.getResponse());
+
+		assertThat(repo.getSessionWriteCount()).isEqualTo(1);
+		assertThat(repo.getSkippedSessionWriteCount()).isEqualTo(1);
+	}
+
 	@Test
 	public void nonSecurityContextInSessionIsIgnored() throws Exception {
 		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
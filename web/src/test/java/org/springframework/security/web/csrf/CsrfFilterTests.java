@@ -356,6 +356,89 @@ public class CsrfFilterTests {
 		filter.setAccessDeniedHandler(null);
 	}
 
+	@Test
+	public void doFilterWhenCsrfRequestAttributeNameAndNotCsrfRequestThenTokenNotLoaded()
+			throws ServletException, IOException {
+		filter.setCsrfRequestAttributeName("_csrf");
+		when(requestMatcher.matches(request)).thenReturn(false);
+
+		filter.doFilter(request, response, filterChain);
+
+		verifyZeroInteractions(tokenRepository);
+		verify(filterChain).doFilter(request, response);
+		assertThat(request.getAttribute("_csrf")).isNotNull();
+		assertThat(request.getAttribute(CsrfToken.class.getName())).isSameAs(
+				request.getAttribute("_csrf"));
+	}
+
+	@Test
+	public void doFilterWhenCsrfRequestAttributeNameThenTokenLoadedOnAccess()
+			throws ServletException, IOException {
+		filter.setCsrfRequestAttributeName("_csrf");
+		when(requestMatcher.matches(request)).thenReturn(false);
+		when(tokenRepository.loadToken(request)).thenReturn(token);
+
+		filter.doFilter(request, response, filterChain);
+		CsrfToken attrToken = (CsrfToken) request.getAttribute("_csrf");
+
+		verifyZeroInteractions(tokenRepository);
+		assertToken(attrToken).isEqualTo(token);
+		verify(tokenRepository).loadToken(request);
+		verify(tokenRepository, times(0)).generateToken(any(HttpServletRequest.class));
+		verify(tokenRepository, times(0)).saveToken(any(CsrfToken.class),
+				any(HttpServletRequest.class), any(HttpServletResponse.class));
+	}
+
+	@Test
+	public void doFilterWhenCsrfRequestAttributeNameAndNoTokenThenSavedOnAccess()
+			throws ServletException, IOException {
+		filter.setCsrfRequestAttributeName("_csrf");
+		when(requestMatcher.matches(request)).thenReturn(false);
+		when(tokenRepository.generateToken(request)).thenReturn(token);
+
+		filter.doFilter(request, response, filterChain);
+		CsrfToken attrToken = (CsrfToken) request.getAttribute("_csrf");
+
+		assertThat(attrToken.getParameterName()).isEqualTo(token.getParameterName());
+		verify(tokenRepository, times(0)).saveToken(any(CsrfToken.class),
+				any(HttpServletRequest.class), any(HttpServletResponse.class));
+
+		assertThat(attrToken.getToken()).isEqualTo(token.getToken());
+
+		verify(tokenRepository).saveToken(eq(token), any(HttpServletRequest.class),
+				any(HttpServletResponse.class));
+	}
+
+	@Test
+	public void doFilterWhenCsrfRequestAttributeNameAndCsrfRequestThenTokenValidated()
+			throws ServletException, IOException {
+		filter.setCsrfRequestAttributeName("_csrf");
+		when(requestMatcher.matches(request)).thenReturn(true);
+		when(tokenRepository.loadToken(request)).thenReturn(token);
+		request.addHeader(token.getHeaderName(), token.getToken());
+
+		filter.doFilter(request, response, filterChain);
+
+		verify(tokenRepository).loadToken(request);
+		verify(filterChain).doFilter(request, response);
+		verifyZeroInteractions(deniedHandler);
+	}
+
+	@Test
+	public void doFilterWhenCsrfRequestAttributeNameAndMissingTokenThenAccessDenied()
+			throws ServletException, IOException {
+		filter.setCsrfRequestAttributeName("_csrf");
+		when(requestMatcher.matches(request)).thenReturn(true);
+		when(tokenRepository.generateToken(request)).thenReturn(token);
+		request.addHeader(token.getHeaderName(), "other");
+
+		filter.doFilter(request, response, filterChain);
+
+		verify(deniedHandler).handle(eq(request), eq(response),
+				any(MissingCsrfTokenException.class));
+		verifyZeroInteractions(filterChain);
+	}
+
 	private static final CsrfTokenAssert assertToken(Object token) {
 		return new CsrfTokenAssert((CsrfToken) token);
 	}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.csrf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.servlet.http.Cookie;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.SerializationUtils;
+
+/**
+ * @author Rob Winch
+ */
+public class HmacCsrfTokenRepositoryTests {
+	private MockHttpServletRequest request;
+
+	private MockHttpServletResponse response;
+
+	private HmacCsrfTokenRepository repo;
+
+	@Before
+	public void setup() {
+		request = new MockHttpServletRequest();
+		response = new MockHttpServletResponse();
+		repo = new HmacCsrfTokenRepository();
+	}
+
+	@After
+	public void cleanup() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void generateToken() {
+		CsrfToken token = repo.generateToken(request);
+
+		assertThat(token.getParameterName()).isEqualTo("_csrf");
+		assertThat(token.getHeaderName()).isEqualTo("X-CSRF-TOKEN");
+		assertThat(token.getToken()).isNotEmpty();
+		assertThat(token.getToken()).isEqualTo(token.getToken());
+		assertThat(request.getSession(false)).isNull();
+	}
+
+	@Test
+	public void loadTokenWhenNotPresentedThenNull() {
+		assertThat(repo.loadToken(request)).isNull();
+	}
+
+	@Test
+	public void generateTokenWhenAnonymousThenNonceCookieSaved() {
+		CsrfToken token = repo.generateToken(request);
+		repo.saveToken(token, request, response);
+
+		Cookie nonce = response.getCookie("CSRF-NONCE");
+		assertThat(nonce).isNotNull();
+		assertThat(nonce.getValue()).isNotEmpty();
+		assertThat(nonce.isHttpOnly()).isTrue();
+		assertThat(nonce.getPath()).isEqualTo("/");
+	}
+
+	@Test
+	public void generateTokenWhenNoncePresentedThenNoNewCookie() {
+		request.setCookies(new Cookie("CSRF-NONCE", "nonce"));
+
+		repo.saveToken(repo.generateToken(request), request, response);
+
+		assertThat(response.getCookie("CSRF-NONCE")).isNull();
+	}
+
+	@Test
+	public void generateTokenWhenAuthenticatedThenNoNonceCookie() {
+		SecurityContextHolder.getContext().setAuthentication(
+				new TestingAuthenticationToken("user", "password", "ROLE_USER"));
+
+		repo.saveToken(repo.generateToken(request), request, response);
+
+		assertThat(response.getCookie("CSRF-NONCE")).isNull();
+	}
+
+	@Test
+	public void generateTokenWhenContextChangesBeforeReadThenBoundToGeneratingUser() {
+		SecurityContextHolder.getContext().setAuthentication(
+				new TestingAuthenticationToken("user", "password", "ROLE_USER"));
+		CsrfToken token = repo.generateToken(request);
+		SecurityContextHolder.getContext().setAuthentication(
+				new TestingAuthenticationToken("other", "password", "ROLE_USER"));
+		String value = token.getToken();
+		request.setParameter("_csrf", value);
+
+		assertThat(repo.loadToken(request)).isNull();
+
+		SecurityContextHolder.getContext().setAuthentication(
+				new TestingAuthenticationToken("user", "password", "ROLE_USER"));
+		assertThat(repo.loadToken(request).getToken()).isEqualTo(value);
+	}
+
+	@Test
+	public void loadTokenWhenAnonymousWithoutNonceCookieThenNull() {
+		String token = repo.generateToken(request).getToken();
+		MockHttpServletRequest other = new MockHttpServletRequest();
+		other.setParameter("_csrf", token);
+
+		assertThat(repo.loadToken(other)).isNull();
+	}
+
+	@Test
+	public void loadTokenWhenAnonymousWithOtherNonceThenNull() {
+		String token = issueToken(repo);
+		MockHttpServletRequest victim = new MockHttpServletRequest();
+		victim.setCookies(new Cookie("CSRF-NONCE", "victim"));
+		victim.setParameter("_csrf", token);
+
+		assertThat(repo.loadToken(victim)).isNull();
+	}
+
+	@Test
+	public void loadTokenWhenValidHeaderThenLoaded() {
+		String token = issueToken(repo);
+		request.addHeader("X-CSRF-TOKEN", token);
+
+		assertThat(repo.loadToken(request).getToken()).isEqualTo(token);
+	}
+
+	@Test
+	public void loadTokenWhenValidParameterThenLoaded() {
+		String token = issueToken(repo);
+		request.setParameter("_csrf", token);
+
+		assertThat(repo.loadToken(request).getToken()).isEqualTo(token);
+	}
+
+	@Test
+	public void loadTokenWhenTamperedThenNull() {
+		String token = repo.generateToken(request).getToken();
+		char last = token.charAt(token.length() - 1);
+		String tampered = token.substring(0, token.length() - 1)
+				+ (last == '0' ? '1' : '0');
+		request.setParameter("_csrf", tampered);
+
+		assertThat(repo.loadToken(request)).isNull();
+
+		request.setParameter("_csrf", "invalid");
+		assertThat(repo.loadToken(request)).isNull();
+	}
+
+	@Test
+	public void loadTokenWhenIssuedByOtherKeyThenNull() {
+		String token = new HmacCsrfTokenRepository().generateToken(request).getToken();
+		request.setParameter("_csrf", token);
+
+		assertThat(repo.loadToken(request)).isNull();
+	}
+
+	@Test
+	public void loadTokenWhenSharedKeyThenLoaded() {
+		byte[] key = "0123456789abcdef".getBytes();
+		String token = issueToken(new HmacCsrfTokenRepository(key));
+		request.setParameter("_csrf", token);
+
+		assertThat(new HmacCsrfTokenRepository(key).loadToken(request).getToken())
+				.isEqualTo(token);
+	}
+
+	@Test
+	public void loadTokenWhenAuthenticatedSinceIssuedThenNull() {
+		SecurityContextHolder.getContext().setAuthentication(
+				new AnonymousAuthenticationToken("key", "anonymous", AuthorityUtils
+						.createAuthorityList("ROLE_ANONYMOUS")));
+		String token = issueToken(repo);
+		request.setParameter("_csrf", token);
+		assertThat(repo.loadToken(request).getToken()).isEqualTo(token);
+
+		SecurityContextHolder.getContext().setAuthentication(
+				new TestingAuthenticationToken("user", "password", "ROLE_USER"));
+
+		assertThat(repo.loadToken(request)).isNull();
+	}
+
+	@Test
+	public void loadTokenWhenSessionCreatedSinceIssuedThenNull() {
+		String token = repo.generateToken(request).getToken();
+		request.setParameter("_csrf", token);
+
+		request.getSession();
+
+		assertThat(repo.loadToken(request)).isNull();
+	}
+
+	@Test
+	public void loadTokenWhenExpiredThenNull() {
+		String token = Long.toHexString(System.currentTimeMillis() - 2000) + "-00";
+		repo.setTokenValiditySeconds(1);
+		request.setParameter("_csrf", token);
+
+		assertThat(repo.loadToken(request)).isNull();
+	}
+
+	@Test
+	public void serializedTokenKeepsValue() {
+		CsrfToken token = repo.generateToken(request);
+
+		CsrfToken deserialized = (CsrfToken) SerializationUtils
+				.deserialize(SerializationUtils.serialize(token));
+
+		assertThat(deserialized.getToken()).isEqualTo(token.getToken());
+	}
+
+	@Test
+	public void csrfFilterAcceptsIssuedToken() throws Exception {
+		CsrfFilter filter = new CsrfFilter(repo);
+		MockHttpServletRequest get = new MockHttpServletRequest("GET", "/");
+		filter.doFilter(get, response, new MockFilterChain());
+		CsrfToken issued = (CsrfToken) get.getAttribute(CsrfToken.class.getName());
+		String token = issued.getToken();
+
+		MockHttpServletRequest post = new MockHttpServletRequest("POST", "/");
+		post.setCookies(response.getCookies());
+		post.setParameter(issued.getParameterName(), token);
+		MockFilterChain chain = new MockFilterChain();
+		filter.doFilter(post, new MockHttpServletResponse(), chain);
+
+		assertThat(chain.getRequest()).isSameAs(post);
+		assertThat(post.getSession(false)).isNull();
+	}
+
+	@Test
+	public void csrfFilterWhenTokenNotReadThenNoNonceGenerated() throws Exception {
+		MockHttpServletRequest get = new MockHttpServletRequest("GET", "/");
+
+		new CsrfFilter(repo).doFilter(get, response, new MockFilterChain());
+
+		assertThat(get.getAttribute(CsrfToken.class.getName())).isNotNull();
+		assertThat(get.getAttribute(HmacCsrfTokenRepository.class.getName()
+				+ ".GENERATED_NONCE")).isNull();
+		assertThat(response.getCookie("CSRF-NONCE")).isNull();
+	}
+
+	@Test
+	public void csrfFilterWhenNonceCookieLostThenRenderedTokenAccepted()
+			throws Exception {
+		CsrfFilter filter = new CsrfFilter(repo);
+		String token = issueToken(repo);
+		MockHttpServletRequest post = new MockHttpServletRequest("POST", "/");
+		post.setParameter("_csrf", token);
+		MockHttpServletResponse denied = new MockHttpServletResponse();
+		filter.doFilter(post, denied, new MockFilterChain());
+		assertThat(denied.getStatus()).isEqualTo(403);
+		// the error page renders a new token
+		String rendered = ((CsrfToken) post.getAttribute(CsrfToken.class.getName()))
+				.getToken();
+
+		MockHttpServletRequest retry = new MockHttpServletRequest("POST", "/");
+		retry.setCookies(denied.getCookies());
+		retry.setParameter("_csrf", rendered);
+		MockFilterChain chain = new MockFilterChain();
+		filter.doFilter(retry, new MockHttpServletResponse(), chain);
+
+		assertThat(denied.getCookie("CSRF-NONCE")).isNotNull();
+		assertThat(chain.getRequest()).isSameAs(retry);
+	}
+
+	@Test
+	public void csrfFilterRejectsMissingToken() throws Exception {
+		CsrfFilter filter = new CsrfFilter(repo);
+		MockHttpServletRequest post = new MockHttpServletRequest("POST", "/");
+		MockFilterChain chain = new MockFilterChain();
+
+		filter.doFilter(post, response, chain);
+
+		assertThat(chain.getRequest()).isNull();
+		assertThat(response.getStatus()).isEqualTo(403);
+	}
+
+	/**
+	 * Issues a token and presents the nonce cookie on the request, as a browser would.
+	 */
+	private String issueToken(HmacCsrfTokenRepository repository) {
+		CsrfToken token = repository.generateToken(request);
+		repository.saveToken(token, request, response);
+		Cookie nonce = response.getCookie("CSRF-NONCE");
+		if (nonce != null) {
+			request.setCookies(nonce);
+		}
+		return token.getToken();
+	}
+}
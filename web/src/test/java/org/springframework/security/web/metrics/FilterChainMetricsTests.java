@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import javax.servlet.Filter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.DefaultSecurityFilterChain;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+/**
+ * @author Rob Winch
+ */
+public class FilterChainMetricsTests {
+	private FilterChainMetrics metrics;
+
+	private MockHttpServletRequest request;
+
+	private DefaultSecurityFilterChain chain;
+
+	private Filter filter;
+
+	@Before
+	public void setup() {
+		metrics = new FilterChainMetrics();
+		request = new MockHttpServletRequest();
+		filter = mock(Filter.class);
+		chain = new DefaultSecurityFilterChain(new AntPathRequestMatcher("/api/**"),
+				filter);
+	}
+
+	@Test
+	public void afterFilterThenLatencyRecordedByFilterClass() {
+		metrics.afterFilter(request, chain, filter, 0, 100);
+		metrics.afterFilter(request, chain, filter, 0, 300);
+
+		LatencyStatistics statistics = metrics.getFilterLatencies().get(
+				filter.getClass().getName());
+		assertThat(statistics.getCount()).isEqualTo(2);
+		assertThat(statistics.getMeanNanos()).isEqualTo(200);
+		assertThat(statistics.getMaxNanos()).isEqualTo(300);
+	}
+
+	@Test
+	public void afterChainThenLatencyAndShortCircuitsRecordedByMatcher() {
+		metrics.afterChain(request, chain, false, 100);
+		metrics.afterChain(request, chain, true, 100);
+		metrics.afterChain(request, chain, true, 100);
+
+		String name = chain.getRequestMatcher().toString();
+		assertThat(metrics.getChainLatencies().get(name).getCount()).isEqualTo(3);
+		assertThat(metrics.getShortCircuitCounts().get(name)).isEqualTo(2L);
+	}
+
+	@Test
+	public void resetThenEmpty() {
+		metrics.afterFilter(request, chain, filter, 0, 100);
+		metrics.afterChain(request, chain, true, 100);
+
+		metrics.reset();
+
+		assertThat(metrics.getFilterLatencies()).isEmpty();
+		assertThat(metrics.getChainLatencies()).isEmpty();
+		assertThat(metrics.getShortCircuitCounts()).isEmpty();
+	}
+
+	@Test
+	public void registerMBeanThenAttributesAreOpenTypes() throws Exception {
+		metrics.afterFilter(request, chain, filter, 0, 100);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(
+				"org.springframework.security:type=FilterChainMetrics,name=test");
+		server.registerMBean(metrics, name);
+		try {
+			TabularData latencies = (TabularData) server.getAttribute(name,
+					"FilterLatencies");
+
+			assertThat(latencies.size()).isEqualTo(1);
+		}
+		finally {
+			server.unregisterMBean(name);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Rob Winch
+ */
+public class LatencyHistogramTests {
+	private LatencyHistogram histogram;
+
+	@Before
+	public void setup() {
+		histogram = new LatencyHistogram();
+	}
+
+	@Test
+	public void getStatisticsWhenEmptyThenZero() {
+		LatencyStatistics statistics = histogram.getStatistics();
+
+		assertThat(statistics.getCount()).isZero();
+		assertThat(statistics.getMeanNanos()).isZero();
+		assertThat(statistics.getP99Nanos()).isZero();
+		assertThat(statistics.getMaxNanos()).isZero();
+	}
+
+	@Test
+	public void recordWhenSmallValuesThenExact() {
+		for (int i = 1; i <= 4; i++) {
+			histogram.record(i);
+		}
+
+		assertThat(histogram.getCount()).isEqualTo(4);
+		assertThat(histogram.getTotalNanos()).isEqualTo(10);
+		assertThat(histogram.getMaxNanos()).isEqualTo(4);
+		assertThat(histogram.getValueAtPercentile(50)).isEqualTo(2);
+		assertThat(histogram.getValueAtPercentile(100)).isEqualTo(4);
+	}
+
+	@Test
+	public void getValueAtPercentileWhenLargeValuesThenWithinRelativeError() {
+		for (long i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000);
+		}
+
+		assertThat(histogram.getValueAtPercentile(50)).isBetween(500000L, 562500L);
+		assertThat(histogram.getValueAtPercentile(99)).isBetween(990000L, 1000000L);
+		assertThat(histogram.getValueAtPercentile(100)).isEqualTo(1000000L);
+	}
+
+	@Test
+	public void recordWhenNegativeThenZero() {
+		histogram.record(-5);
+
+		assertThat(histogram.getCount()).isEqualTo(1);
+		assertThat(histogram.getMaxNanos()).isZero();
+	}
+
+	@Test
+	public void recordWhenMaxValueThenCounted() {
+		histogram.record(Long.MAX_VALUE);
+
+		assertThat(histogram.getValueAtPercentile(50)).isEqualTo(Long.MAX_VALUE);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void getValueAtPercentileWhenInvalidThenException() {
+		histogram.getValueAtPercentile(101);
+	}
+
+	@Test
+	public void resetThenEmpty() {
+		histogram.record(100);
+
+		histogram.reset();
+
+		assertThat(histogram.getCount()).isZero();
+		assertThat(histogram.getValueAtPercentile(50)).isZero();
+	}
+
+	@Test
+	public void recordWhenConcurrentThenNoUpdatesLost() throws Exception {
+		final int threads = 8;
+		final int iterations = 10000;
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			final long value = i + 1;
+			workers[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+					for (int j = 0; j < iterations; j++) {
+						histogram.record(value);
+					}
+				}
+			};
+			workers[i].start();
+		}
+		start.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		assertThat(histogram.getCount()).isEqualTo(threads * iterations);
+		assertThat(histogram.getMaxNanos()).isEqualTo(threads);
+		assertThat(histogram.getValueAtPercentile(100)).isEqualTo(threads);
+	}
+}
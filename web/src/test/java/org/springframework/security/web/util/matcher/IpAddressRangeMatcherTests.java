@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.util.matcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * @author Rob Winch
+ */
+public class IpAddressRangeMatcherTests {
+
+	@Test
+	public void ipv4Ranges() {
+		IpAddressRangeMatcher matcher = new IpAddressRangeMatcher("192.168.1.0/24",
+				"10.0.0.1", "202.24.0.0/14");
+
+		assertThat(matcher.matches("192.168.1.0")).isTrue();
+		assertThat(matcher.matches("192.168.1.255")).isTrue();
+		assertThat(matcher.matches("192.168.2.0")).isFalse();
+		assertThat(matcher.matches("192.168.0.255")).isFalse();
+		assertThat(matcher.matches("10.0.0.1")).isTrue();
+		assertThat(matcher.matches("10.0.0.2")).isFalse();
+		assertThat(matcher.matches("202.27.255.255")).isTrue();
+		assertThat(matcher.matches("202.28.0.0")).isFalse();
+	}
+
+	@Test
+	public void ipv6Ranges() {
+		IpAddressRangeMatcher matcher = new IpAddressRangeMatcher("2001:db8::/32",
+				"fe80::21f:5bff:fe33:bd68", "ffff::/16");
+
+		assertThat(matcher.matches("2001:db8::1")).isTrue();
+		assertThat(matcher.matches("2001:db8:ffff:ffff:ffff:ffff:ffff:ffff")).isTrue();
+		assertThat(matcher.matches("2001:db9::")).isFalse();
+		assertThat(matcher.matches("[fe80::21f:5bff:fe33:bd68]")).isTrue();
+		assertThat(matcher.matches("fe80::21f:5bff:fe33:bd68%eth0")).isTrue();
+		assertThat(matcher.matches("fe80::21f:5bff:fe33:bd69")).isFalse();
+		assertThat(matcher.matches("ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff")).isTrue();
+	}
+
+	@Test
+	public void ipv4RangeDoesNotMatchIpv6Address() {
+		IpAddressRangeMatcher matcher = new IpAddressRangeMatcher("0.0.0.0/0");
+
+		assertThat(matcher.matches("255.255.255.255")).isTrue();
+		assertThat(matcher.matches("::1")).isFalse();
+		assertThat(matcher.matches("::ffff:192.168.1.1")).isTrue();
+	}
+
+	@Test
+	public void overlappingRangesAreMerged() {
+		IpAddressRangeMatcher matcher = new IpAddressRangeMatcher("10.0.0.0/8",
+				"10.1.0.0/16", "10.255.255.255", "11.0.0.0/24", "10.128.0.0/9");
+
+		assertThat(matcher.matches("10.200.0.0")).isTrue();
+		assertThat(matcher.matches("11.0.0.255")).isTrue();
+		assertThat(matcher.matches("11.0.1.0")).isFalse();
+		assertThat(matcher.matches("9.255.255.255")).isFalse();
+		assertThat(matcher.toString()).contains("ipv4Ranges=2");
+	}
+
+	@Test
+	public void invalidAddressesDoNotMatch() {
+		IpAddressRangeMatcher matcher = new IpAddressRangeMatcher("0.0.0.0/0", "::/0");
+
+		assertThat(matcher.matches("localhost")).isFalse();
+		assertThat(matcher.matches("256.0.0.1")).isFalse();
+		assertThat(matcher.matches("1.2.3")).isFalse();
+		assertThat(matcher.matches("1::2::3")).isFalse();
+		assertThat(matcher.matches("1:2:3:4:5:6:7:8:9")).isFalse();
+		assertThat(matcher.matches("")).isFalse();
+		assertThat(matcher.matches((String) null)).isFalse();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorWhenHostNameThenException() {
+		new IpAddressRangeMatcher("localhost");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorWhenNetmaskTooLongThenException() {
+		new IpAddressRangeMatcher("192.168.1.0/33");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorWhenNetmaskNegativeThenException() {
+		new IpAddressRangeMatcher("192.168.1.0/-1");
+	}
+
+	@Test
+	public void matchesRequest() {
+		IpAddressRangeMatcher matcher = new IpAddressRangeMatcher("192.168.1.0/24");
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRemoteAddr("192.168.1.104");
+
+		assertThat(matcher.matches(request)).isTrue();
+		assertThat(matcher.matches(request)).isTrue();
+
+		request.setRemoteAddr("192.168.2.104");
+		assertThat(matcher.matches(request)).isFalse();
+	}
+
+	@Test
+	public void matchesSameAsIpAddressMatcher() {
+		Random random = new Random(42);
+		List<String> ranges = new ArrayList<String>();
+		List<IpAddressMatcher> matchers = new ArrayList<IpAddressMatcher>();
+		for (int i = 0; i < 500; i++) {
+			String range = random.nextInt(256) + "." + random.nextInt(256) + "."
+					+ random.nextInt(256) + ".0/" + (8 + random.nextInt(25));
+			ranges.add(range);
+			matchers.add(new IpAddressMatcher(range));
+		}
+		IpAddressRangeMatcher matcher = new IpAddressRangeMatcher(ranges);
+
+		for (int i = 0; i < 5000; i++) {
+			String address = random.nextInt(256) + "." + random.nextInt(256) + "."
+					+ random.nextInt(256) + "." + random.nextInt(256);
+			boolean expected = false;
+			for (IpAddressMatcher ipAddressMatcher : matchers) {
+				expected |= ipAddressMatcher.matches(address);
+			}
+			assertThat(matcher.matches(address)).as(address).isEqualTo(expected);
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.util.matcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * @author Rob Winch
+ */
+public class RequestMatcherIndexTests {
+	private Map<RequestMatcher, String> entries;
+
+	@Before
+	public void setup() {
+		entries = new LinkedHashMap<RequestMatcher, String>();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorWhenNullThenException() {
+		new RequestMatcherIndex<String>(null);
+	}
+
+	@Test
+	public void getFirstMatchWhenNoEntriesThenNull() {
+		RequestMatcherIndex<String> index = new RequestMatcherIndex<String>(entries);
+
+		assertThat(index.getFirstMatch(createRequest("/a"))).isNull();
+		assertThat(index.size()).isZero();
+	}
+
+	@Test
+	public void getFirstMatchWhenLiteralPrefixesThenMatchingEntry() {
+		entries.put(new AntPathRequestMatcher("/api/users/**"), "users");
+		entries.put(new AntPathRequestMatcher("/api/orders/**"), "orders");
+		entries.put(new AntPathRequestMatcher("/static/*.css"), "css");
+		entries.put(new AntPathRequestMatcher("/**"), "any");
+		RequestMatcherIndex<String> index = new RequestMatcherIndex<String>(entries);
+
+		assertThat(index.getFirstMatch(createRequest("/api/users"))).isEqualTo("users");
+		assertThat(index.getFirstMatch(createRequest("/api/users/1"))).isEqualTo(
+				"users");
+		assertThat(index.getFirstMatch(createRequest("/API/Orders/1"))).isEqualTo(
+				"orders");
+		assertThat(index.getFirstMatch(createRequest("/static/a.css"))).isEqualTo("css");
+		assertThat(index.getFirstMatch(createRequest("/static/a.js"))).isEqualTo("any");
+		assertThat(index.getFirstMatch(createRequest("/api/usersx"))).isEqualTo("any");
+		assertThat(index.getFirstMatch(createRequest("/"))).isEqualTo("any");
+	}
+
+	@Test
+	public void getFirstMatchWhenEarlierWildcardThenFirstMatchWins() {
+		entries.put(new AntPathRequestMatcher("/**/*.json"), "json");
+		entries.put(new AntPathRequestMatcher("/api/**"), "api");
+		entries.put(new AntPathRequestMatcher("/api/v1/**"), "v1");
+		RequestMatcherIndex<String> index = new RequestMatcherIndex<String>(entries);
+
+		assertThat(index.getFirstMatch(createRequest("/api/v1/a.json"))).isEqualTo(
+				"json");
+		assertThat(index.getFirstMatch(createRequest("/api/v1/a"))).isEqualTo("api");
+		assertThat(index.getFirstMatch(createRequest("/other"))).isNull();
+	}
+
+	@Test
+	public void getFirstMatchWhenCaseSensitiveThenVerifiedAgainstMatcher() {
+		entries.put(new AntPathRequestMatcher("/Admin/**", null, true), "admin");
+		RequestMatcherIndex<String> index = new RequestMatcherIndex<String>(entries);
+
+		assertThat(index.getFirstMatch(createRequest("/Admin/a"))).isEqualTo("admin");
+		assertThat(index.getFirstMatch(createRequest("/admin/a"))).isNull();
+	}
+
+	@Test
+	public void getFirstMatchWhenPathInfoThenUsed() {
+		entries.put(new AntPathRequestMatcher("/app/secure/**"), "secure");
+		RequestMatcherIndex<String> index = new RequestMatcherIndex<String>(entries);
+		MockHttpServletRequest request = createRequest("/app");
+		request.setPathInfo("/secure/page");
+
+		assertThat(index.getFirstMatch(request)).isEqualTo("secure");
+	}
+
+	@Test
+	public void getFirstMatchWhenHttpMethodThenVerifiedAgainstMatcher() {
+		entries.put(new AntPathRequestMatcher("/a/**", "POST"), "post");
+		entries.put(new AntPathRequestMatcher("/a/**"), "any");
+		RequestMatcherIndex<String> index = new RequestMatcherIndex<String>(entries);
+		MockHttpServletRequest request = createRequest("/a/b");
+
+		request.setMethod("POST");
+		assertThat(index.getFirstMatch(request)).isEqualTo("post");
+		request.setMethod("GET");
+		assertThat(index.getFirstMatch(request)).isEqualTo("any");
+	}
+
+	@Test
+	public void getFirstMatchWhenOpaqueMatcherThenOrderPreserved() {
+		RequestMatcher opaque = mock(RequestMatcher.class);
+		when(opaque.matches(any(HttpServletRequest.class))).thenReturn(true);
+		entries.put(new AntPathRequestMatcher("/a/b/**"), "ab");
+		entries.put(opaque, "opaque");
+		entries.put(new AntPathRequestMatcher("/a/**"), "a");
+		RequestMatcherIndex<String> index = new RequestMatcherIndex<String>(entries);
+
+		assertThat(index.getFirstMatch(createRequest("/a/b/c"))).isEqualTo("ab");
+		assertThat(index.getFirstMatch(createRequest("/a/c"))).isEqualTo("opaque");
+		assertThat(index.indexOfFirstMatch(createRequest("/a/c"))).isEqualTo(1);
+	}
+
+	private MockHttpServletRequest createRequest(String path) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setMethod("GET");
+		request.setServletPath(path);
+		return request;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.web.util.matcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * @author Rob Winch
+ */
+public class RequestPathTests {
+	private MockHttpServletRequest request;
+
+	@Before
+	public void setup() {
+		request = new MockHttpServletRequest();
+		request.setServletPath("/Path");
+		request.setPathInfo("/Info");
+	}
+
+	@Test
+	public void ofWhenServletPathAndPathInfoThenConcatenated() {
+		RequestPath path = RequestPath.of(request);
+
+		assertThat(path.getPath()).isEqualTo("/Path/Info");
+		assertThat(path.getLowerCasePath()).isEqualTo("/path/info");
+	}
+
+	@Test
+	public void ofWhenNoPathInfoThenServletPath() {
+		request.setPathInfo(null);
+
+		assertThat(RequestPath.of(request).getPath()).isEqualTo("/Path");
+	}
+
+	@Test
+	public void ofWhenUnchangedThenCached() {
+		RequestPath path = RequestPath.of(request);
+
+		assertThat(RequestPath.of(request)).isSameAs(path);
+		assertThat(path.getLowerCasePath()).isSameAs(path.getLowerCasePath());
+	}
+
+	@Test
+	public void ofWhenPathChangesThenRecomputed() {
+		RequestPath path = RequestPath.of(request);
+		request.setPathInfo("/Other");
+
+		RequestPath changed = RequestPath.of(request);
+
+		assertThat(changed).isNotSameAs(path);
+		assertThat(changed.getPath()).isEqualTo("/Path/Other");
+	}
+
+	@Test
+	public void clearWhenCachedThenRecomputed() {
+		RequestPath path = RequestPath.of(request);
+
+		RequestPath.clear(request);
+
+		assertThat(RequestPath.of(request)).isNotSameAs(path);
+	}
+}